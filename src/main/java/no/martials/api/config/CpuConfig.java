@@ -0,0 +1,27 @@
+package no.martials.api.config;
+
+import no.martials.api.utils.CpuExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CpuConfig {
+
+    /**
+     * The number of threads that simplify expressions and generate tables, 0 uses the number of processors
+     */
+    @Value("${martials.cpu.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * The max time a request waits for a free thread, before it is rejected
+     */
+    @Value("${martials.cpu.max-wait-ms:" + CpuExecutor.DEFAULT_MAX_WAIT_MILLIS + "}")
+    private long maxWaitMillis;
+
+    @Bean(destroyMethod = "shutdown")
+    public CpuExecutor cpuExecutor() {
+        return new CpuExecutor(parallelism, maxWaitMillis);
+    }
+}
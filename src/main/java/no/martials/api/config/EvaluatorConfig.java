@@ -0,0 +1,21 @@
+package no.martials.api.config;
+
+import no.martials.api.expressions.EvaluatorCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class EvaluatorConfig {
+
+    /**
+     * The number of requests of an expression before an evaluator is generated for it, 0 disables generation
+     */
+    @Value("${martials.evaluator.hot-threshold:" + EvaluatorCache.DEFAULT_HOT_THRESHOLD + "}")
+    private int hotThreshold;
+
+    @Bean
+    public EvaluatorCache evaluatorCache() {
+        return new EvaluatorCache(hotThreshold);
+    }
+}
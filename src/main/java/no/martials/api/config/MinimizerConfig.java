@@ -0,0 +1,27 @@
+package no.martials.api.config;
+
+import no.martials.api.expressions.EspressoMinimizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MinimizerConfig {
+
+    /**
+     * The max number of times the cover is reduced and expanded again
+     */
+    @Value("${martials.minimizer.max-iterations:" + EspressoMinimizer.DEFAULT_MAX_ITERATIONS + "}")
+    private int maxIterations;
+
+    /**
+     * The time after which the best cover so far is used
+     */
+    @Value("${martials.minimizer.time-budget-ms:" + EspressoMinimizer.DEFAULT_TIME_BUDGET_MILLIS + "}")
+    private long timeBudgetMillis;
+
+    @Bean
+    public EspressoMinimizer espressoMinimizer() {
+        return new EspressoMinimizer(maxIterations, timeBudgetMillis);
+    }
+}
@@ -0,0 +1,25 @@
+package no.martials.api.config;
+
+import no.martials.api.expressions.TableParallelism;
+import no.martials.api.utils.CpuExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TableConfig {
+
+    /**
+     * The smallest number of rows in a table that is generated on multiple threads
+     */
+    @Value("${martials.table.parallel-threshold:" + TableParallelism.DEFAULT_THRESHOLD + "}")
+    private int parallelThreshold;
+
+    /**
+     * The parts of a large table are generated on the cores that have a free permit of the executor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public TableParallelism tableParallelism(CpuExecutor cpuExecutor) {
+        return new TableParallelism(parallelThreshold, cpuExecutor);
+    }
+}
@@ -0,0 +1,38 @@
+package no.martials.api.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Handles each request of the embedded Tomcat on a new virtual thread, instead of the pool of platform threads.
+ * A request that waits for the {@link no.martials.api.utils.CpuExecutor} does not hold a thread that other requests need.
+ * The bodies that are streamed after the request has returned, like the tables, batches and DIMACS, are also written
+ * on new virtual threads, instead of the pool of the default {@code applicationTaskExecutor}.
+ * <p>
+ * This only applies when the war is run with {@code java -jar}. When it's deployed to a standalone Tomcat 10, the
+ * server creates the connectors and this customizer is never used. There the connector of {@code server.xml} is given
+ * an {@code <Executor className="org.apache.catalina.core.StandardVirtualThreadExecutor"/>}, which needs Tomcat 10.1
+ * on Java 21. The number of carrier threads is set on the JVM with {@code -Djdk.virtualThreadScheduler.parallelism}.
+ * The streamed bodies are written on virtual threads in both cases.
+ */
+@Configuration
+@ConditionalOnProperty(value = "martials.virtual-threads", havingValue = "true", matchIfMissing = true)
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadExecutor() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor()));
+    }
+}
@@ -1,22 +1,52 @@
 package no.martials.api.controllers;
 
+import no.martials.api.enums.BatchOrder;
+import no.martials.api.enums.CnfEncoding;
 import no.martials.api.enums.Hide;
 import no.martials.api.enums.Language;
+import no.martials.api.enums.SimplifyMode;
 import no.martials.api.enums.Sort;
+import no.martials.api.enums.Steps;
+import no.martials.api.enums.TableFormat;
 import no.martials.api.exceptions.ExpressionInvalidException;
 import no.martials.api.exceptions.MissingCharacterException;
 import no.martials.api.exceptions.TooBigExpressionException;
+import no.martials.api.expressions.CnfEncoder;
+import no.martials.api.expressions.EquivalenceChecker;
+import no.martials.api.expressions.EspressoMinimizer;
+import no.martials.api.expressions.EvaluatorCache;
 import no.martials.api.expressions.Expression;
+import no.martials.api.expressions.ModelCounter;
+import no.martials.api.expressions.OrderOperations;
+import no.martials.api.expressions.PackedTruthTable;
+import no.martials.api.expressions.SatSolver;
+import no.martials.api.expressions.TableParallelism;
 import no.martials.api.expressions.TruthTable;
+import no.martials.api.expressions.TruthTablePage;
+import no.martials.api.expressions.TruthTableRows;
+import no.martials.api.requests.SimplifyRequest;
 import no.martials.api.results.EmptyResult;
 import no.martials.api.results.Result;
+import no.martials.api.results.ResultBatchItem;
+import no.martials.api.results.ResultCount;
+import no.martials.api.results.ResultEquivalent;
 import no.martials.api.results.ResultOnlyTable;
+import no.martials.api.results.ResultSatisfiable;
 import no.martials.api.results.ResultWithTable;
+import no.martials.api.results.StreamingBatchResult;
+import no.martials.api.results.StreamingDimacsResult;
+import no.martials.api.results.StreamingTableResult;
+import no.martials.api.utils.BatchExecutor;
+import no.martials.api.utils.CpuExecutor;
 import no.martials.api.utils.ExpressionUtils;
 import no.martials.api.utils.StringUtils;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -29,13 +59,22 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StopWatch;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 @CrossOrigin
 @RestController
@@ -47,11 +86,48 @@ public final class ApiController {
 
     private static final Logger log = LoggerFactory.getLogger(ApiController.class);
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final int MAX_BATCH_SIZE = 100_000;
+
+    @NotNull
+    private final CpuExecutor cpuExecutor;
+    @NotNull
+    private final TableParallelism tableParallelism;
+    @NotNull
+    private final EvaluatorCache evaluatorCache;
+    @NotNull
+    private final EspressoMinimizer minimizer;
+    @NotNull
+    private final ObjectMapper objectMapper;
+    @NotNull
+    private final ObjectReader batchReader;
+
+    /**
+     * @param cpuExecutor      Bounds the expensive work to one task per core
+     * @param tableParallelism Decides if large tables are generated on multiple threads
+     * @param evaluatorCache   Generates evaluators for the expressions that are requested often
+     * @param minimizer        Finds a small sum of products in the heuristic mode
+     * @param objectMapper     Reads the batches and writes the streamed results, the same way as the other responses
+     */
+    public ApiController(@NotNull CpuExecutor cpuExecutor, @NotNull TableParallelism tableParallelism,
+                         @NotNull EvaluatorCache evaluatorCache, @NotNull EspressoMinimizer minimizer,
+                         @NotNull ObjectMapper objectMapper) {
+        this.cpuExecutor = cpuExecutor;
+        this.tableParallelism = tableParallelism;
+        this.evaluatorCache = evaluatorCache;
+        this.minimizer = minimizer;
+        this.objectMapper = objectMapper;
+        this.batchReader = objectMapper.readerFor(SimplifyRequest.class);
+    }
+
     /**
      * @param exp      A truth expression
      * @param lang     Overrides the language in the header
      * @param header   The accept language section of the header, the prefered language will be used, unless english is set
      * @param simplify Wheter or not to simplify the given expression
+     * @param mode     Whether to use the laws, or to find a minimal or heuristic sum of products
+     * @param steps    Which steps of the simplification are returned
      * @return The result of the simplified expression, or null if not valid
      * @throws ResponseStatusException If the expression is not valid
      */
@@ -73,6 +149,10 @@ public final class ApiController {
             @Parameter(name = "lang", description = "Overrides the language in the header", example = "en"),
             @Parameter(name = "simplify", description = "Whether or not to simplify the given expression"),
             @Parameter(name = "caseSensitive", description = "Wheter or not to use case sensitive variables"),
+            @Parameter(name = "mode", description = "LAWS simplifies with the laws step by step, MINIMAL finds a minimal sum of products, " +
+                    "HEURISTIC finds a small sum of products and allows more atomic values"),
+            @Parameter(name = "steps", description = "FULL returns each step, SUMMARY returns the number of times each law was used, " +
+                    "NONE returns no steps and is the fastest"),
     })
     @GetMapping("/simplify/{exp}")
     public ResponseEntity<EmptyResult> simplify(
@@ -80,16 +160,23 @@ public final class ApiController {
             @RequestParam(required = false) @Nullable final String lang,
             @RequestParam(defaultValue = "true") final boolean simplify,
             @RequestParam(defaultValue = "false") final boolean caseSensitive,
+            @RequestParam(defaultValue = "LAWS") final SimplifyMode mode,
+            @RequestParam(defaultValue = "FULL") final Steps steps,
             @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, defaultValue = "nb") final String header) {
 
-        log.info("Simplify call with the following parametres: exp=" + exp + ", lang=" + lang + ", simplify=" + simplify,
-                ", caseSensitive=" + caseSensitive);
+        log.info("Simplify call with the following parameters: exp={}, lang={}, simplify={}, caseSensitive={}, mode={}, steps={}",
+                exp, lang, simplify, caseSensitive, mode, steps);
 
         StopWatch sw = new StopWatch();
         final ExpressionUtils eu = getExpressionUtils(exp, lang, header, simplify, caseSensitive, sw);
+        eu.setMode(mode);
+        eu.setSteps(steps);
+        if (mode == SimplifyMode.HEURISTIC) {
+            eu.setMaxExpressionSize(ExpressionUtils.MAX_HEURISTIC_EXPRESSION_SIZE);
+        }
 
         final ResponseEntity<EmptyResult> result = simplify(eu, expression ->
-                new Result(version, exp, expression.toString(), eu.getOperations(), expression));
+                new Result(version, exp, expression.toString(), orderOperations(eu), lawCounts(eu), expression));
 
         if (log.isDebugEnabled()) {
             sw.stop();
@@ -100,6 +187,322 @@ public final class ApiController {
         return result;
     }
 
+    /**
+     * Simplifies each expression of a batch on the threads of the batch executor, and streams the results
+     *
+     * @param body   A JSON array, or newline delimited JSON, of expressions with their options
+     * @param lang   Overrides the language in the header, for the expressions that does not set their own
+     * @param order  Whether the results are in the order of the expressions, or in the order they are done
+     * @param header The accept language section of the header, the prefered language will be used, unless english is set
+     * @return The result of each expression as newline delimited JSON
+     * @throws ResponseStatusException If the body is not valid, empty, or has too many expressions
+     */
+    @NotNull
+    @Operation(
+            summary = "Simplify a batch of truth expressions",
+            description = "Simplify each expression of a batch in parallel, and stream the results as newline delimited JSON." +
+                    " Each line is the result of one expression, with the index of the expression in the batch." +
+                    " If an expression is not valid, only its line has an error message.",
+            tags = {"Simplify"}
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The body was valid and the results are streamed",
+                    content = {@Content(schema = @Schema(implementation = ResultBatchItem.class), mediaType = MediaType.APPLICATION_NDJSON_VALUE)}),
+            @ApiResponse(responseCode = "400", description = "The body was not valid, or had too many expressions",
+                    content = {@Content(schema = @Schema(implementation = EmptyResult.class), mediaType = "html/text")}),
+            @ApiResponse(responseCode = "404", description = "The body was empty",
+                    content = {@Content(schema = @Schema(implementation = EmptyResult.class), mediaType = "html/text")}),
+    })
+    @Parameters(value = {
+            @Parameter(name = "lang", description = "Overrides the language in the header", example = "en"),
+            @Parameter(name = "order", description = "INPUT sends the results in the order of the expressions, " +
+                    "COMPLETION sends each result as soon as it's done"),
+    })
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "A JSON array, or newline delimited JSON, of expressions of type SimplifyRequest",
+            content = {
+                    @Content(array = @ArraySchema(schema = @Schema(implementation = SimplifyRequest.class)), mediaType = "application/json"),
+                    @Content(schema = @Schema(implementation = SimplifyRequest.class), mediaType = MediaType.APPLICATION_NDJSON_VALUE)
+            }
+    )
+    @PostMapping(value = "/simplify/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> simplifyBatch(
+            @NotNull final InputStream body,
+            @RequestParam(required = false) @Nullable final String lang,
+            @RequestParam(defaultValue = "INPUT") final BatchOrder order,
+            @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, defaultValue = "nb") final String header) {
+
+        final Language language = Language.setLanguage(lang, header);
+        final List<SimplifyRequest> requests = readBatch(body, language);
+        log.info("Simplify batch call with the following parametres: size={}, lang={}, order={}", requests.size(), lang, order);
+
+        final StreamingBatchResult result = new StreamingBatchResult(requests,
+                index -> simplifyBatchItem(index, requests.get(index), language), order,
+                new BatchExecutor(cpuExecutor), objectMapper);
+        log.debug("Streaming result: {}", result);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(result);
+    }
+
+    /**
+     * Counts the assignments of the atomic values that makes the expression true, without generating the table
+     *
+     * @param exp           The expression to count
+     * @param lang          Overrides the language in the header
+     * @param falsifying    Whether or not to include the number of assignments that makes the expression false
+     * @param caseSensitive Whether or not to use case sensitive variables
+     * @param header        The accept language section of the header
+     * @return The number of satisfying assignments
+     * @throws ResponseStatusException If the expression is not valid, or too hard to count
+     */
+    @NotNull
+    @Operation(
+            summary = "Count the satisfying assignments of a truth expression",
+            description = "Count the number of assignments of the atomic values that makes the expression true." +
+                    " If the expression is not valid, the result will be empty with an error message.",
+            tags = {"Count"}
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The expression was valid and counted",
+                    content = {@Content(schema = @Schema(implementation = ResultCount.class), mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", description = "The expression was not valid, or too hard to count",
+                    content = {@Content(schema = @Schema(implementation = EmptyResult.class), mediaType = "html/text")}),
+    })
+    @Parameters(value = {
+            @Parameter(name = "exp", description = "A logical expression", example = "A & B : C -> !D"),
+            @Parameter(name = "lang", description = "Overrides the language in the header", example = "en"),
+            @Parameter(name = "falsifying", description = "Whether or not to include the number of falsifying assignments"),
+            @Parameter(name = "caseSensitive", description = "Wheter or not to use case sensitive variables"),
+    })
+    @GetMapping("/count/{exp}")
+    public ResponseEntity<EmptyResult> count(
+            @PathVariable @NotNull final String exp,
+            @RequestParam(required = false) @Nullable final String lang,
+            @RequestParam(defaultValue = "false") final boolean falsifying,
+            @RequestParam(defaultValue = "false") final boolean caseSensitive,
+            @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, defaultValue = "nb") final String header) {
+
+        log.info("Count call with the following parametres: exp={}, lang={}, falsifying={}, caseSensitive={}",
+                exp, lang, falsifying, caseSensitive);
+
+        StopWatch sw = new StopWatch();
+        final ExpressionUtils eu = getExpressionUtils(exp, lang, header, false, caseSensitive, sw);
+        eu.setMaxExpressionSize(ExpressionUtils.MAX_COUNT_EXPRESSION_SIZE);
+
+        final ResponseEntity<EmptyResult> result;
+        try {
+            result = simplify(eu, expression -> {
+                final ModelCounter.Count count = ModelCounter.countModels(expression, evaluatorCache);
+                return new ResultCount(version, expression.toString(), count.atomics(), count.satisfying(),
+                        falsifying ? (1L << count.atomics()) - count.satisfying() : null);
+            });
+        }
+        // Too many atomic values, or too many nodes or steps
+        catch (IllegalArgumentException | IllegalStateException e) {
+            log.debug(Arrays.toString(e.getStackTrace()));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        if (log.isDebugEnabled()) {
+            sw.stop();
+            log.debug("Expression counted in: " + sw.getTotalTimeMillis() + "ms");
+        }
+
+        log.debug("Result sent: {}", result);
+        return result;
+    }
+
+    /**
+     * @param exp           A truth expression
+     * @param other         The truth expression to compare with
+     * @param lang          Overrides the language in the header
+     * @param caseSensitive Wheter or not to use case sensitive variables
+     * @param header        The accept language section of the header, the prefered language will be used, unless english is set
+     * @return If the expressions are equivalent, and an assignment where they differ if they are not
+     * @throws ResponseStatusException If either expression is not valid, or too big to compare
+     */
+    @NotNull
+    @Operation(
+            summary = "Check if two truth expressions are equivalent",
+            description = "Check if two truth expressions have the same value for every assignment of the atomic values, " +
+                    "without creating a table. If they are not equivalent, an assignment where they differ is returned." +
+                    " If either expression is not valid, the result will be empty with an error message.",
+            tags = {"Simplify"}
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The expressions were valid and compared",
+                    content = {@Content(schema = @Schema(implementation = ResultEquivalent.class), mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", description = "An expression was not valid",
+                    content = {@Content(schema = @Schema(implementation = EmptyResult.class), mediaType = "html/text")}),
+    })
+    @Parameters(value = {
+            @Parameter(name = "exp", description = "A logical expression", example = "A -> B"),
+            @Parameter(name = "other", description = "The logical expression to compare with", example = "!A | B"),
+            @Parameter(name = "lang", description = "Overrides the language in the header", example = "en"),
+            @Parameter(name = "caseSensitive", description = "Wheter or not to use case sensitive variables"),
+    })
+    @GetMapping("/equivalent/{exp}/{other}")
+    public ResponseEntity<EmptyResult> equivalent(
+            @PathVariable @NotNull final String exp,
+            @PathVariable @NotNull final String other,
+            @RequestParam(required = false) @Nullable final String lang,
+            @RequestParam(defaultValue = "false") final boolean caseSensitive,
+            @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, defaultValue = "nb") final String header) {
+
+        log.info("Equivalent call with the following parametres: exp={}, other={}, lang={}, caseSensitive={}",
+                exp, other, lang, caseSensitive);
+
+        StopWatch sw = new StopWatch();
+        final ExpressionUtils eu = getExpressionUtils(exp, lang, header, false, caseSensitive, sw);
+        eu.setMaxExpressionSize(ExpressionUtils.MAX_COUNT_EXPRESSION_SIZE);
+        final Expression expression = simplify(eu);
+        eu.setExpression(StringUtils.formatString(other, caseSensitive));
+        final Expression otherExpression = simplify(eu);
+
+        final Map<String, Boolean> counterexample;
+        try {
+            counterexample = onCpu(() -> EquivalenceChecker.counterexample(expression, otherExpression));
+        }
+        catch (IllegalStateException e) {
+            log.debug(Arrays.toString(e.getStackTrace()));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        final ResponseEntity<EmptyResult> result = ResponseEntity.ok(
+                new ResultEquivalent(version, expression.toString(), otherExpression.toString(), counterexample));
+
+        if (log.isDebugEnabled()) {
+            sw.stop();
+            log.debug("Expressions compared in: " + sw.getTotalTimeMillis() + "ms");
+        }
+
+        log.debug("Result sent: {}", result);
+        return result;
+    }
+
+    /**
+     * @param exp           A truth expression
+     * @param lang          Overrides the language in the header
+     * @param caseSensitive Wheter or not to use case sensitive variables
+     * @param header        The accept language section of the header, the prefered language will be used, unless english is set
+     * @return If the expression is satisfiable, and an assignment that makes it true if it is
+     * @throws ResponseStatusException If the expression is not valid, or too hard to solve
+     */
+    @NotNull
+    @Operation(
+            summary = "Check if a truth expression is satisfiable",
+            description = "Check if there is an assignment of the atomic values that makes a truth expression true, " +
+                    "without creating a table. If there is, the assignment is returned." +
+                    " If the expression is not valid, the result will be empty with an error message.",
+            tags = {"Simplify"}
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The expression was valid and solved",
+                    content = {@Content(schema = @Schema(implementation = ResultSatisfiable.class), mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", description = "The expression was not valid",
+                    content = {@Content(schema = @Schema(implementation = EmptyResult.class), mediaType = "html/text")}),
+    })
+    @Parameters(value = {
+            @Parameter(name = "exp", description = "A logical expression", example = "A & B : C -> !D"),
+            @Parameter(name = "lang", description = "Overrides the language in the header", example = "en"),
+            @Parameter(name = "caseSensitive", description = "Wheter or not to use case sensitive variables"),
+    })
+    @GetMapping("/satisfiable/{exp}")
+    public ResponseEntity<EmptyResult> satisfiable(
+            @PathVariable @NotNull final String exp,
+            @RequestParam(required = false) @Nullable final String lang,
+            @RequestParam(defaultValue = "false") final boolean caseSensitive,
+            @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, defaultValue = "nb") final String header) {
+
+        log.info("Satisfiable call with the following parametres: exp={}, lang={}, caseSensitive={}",
+                exp, lang, caseSensitive);
+
+        StopWatch sw = new StopWatch();
+        final ExpressionUtils eu = getExpressionUtils(exp, lang, header, false, caseSensitive, sw);
+        eu.setMaxExpressionSize(ExpressionUtils.MAX_SATISFIABLE_EXPRESSION_SIZE);
+        final Expression expression = simplify(eu);
+
+        final Map<String, Boolean> assignment;
+        try {
+            assignment = onCpu(() -> SatSolver.satisfyingAssignment(expression));
+        }
+        catch (IllegalStateException e) {
+            log.debug(Arrays.toString(e.getStackTrace()));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        final ResponseEntity<EmptyResult> result = ResponseEntity.ok(
+                new ResultSatisfiable(version, expression.toString(), assignment));
+
+        if (log.isDebugEnabled()) {
+            sw.stop();
+            log.debug("Expression solved in: " + sw.getTotalTimeMillis() + "ms");
+        }
+
+        log.debug("Result sent: {}", result);
+        return result;
+    }
+
+    /**
+     * @param exp           A truth expression
+     * @param lang          Overrides the language in the header
+     * @param caseSensitive Wheter or not to use case sensitive variables
+     * @param encoding      Whether each operator is equivalent to its variable, or only implied in the needed direction
+     * @param header        The accept language section of the header, the prefered language will be used, unless english is set
+     * @return The expression in conjunctive normal form, streamed as DIMACS text
+     * @throws ResponseStatusException If the expression is not valid
+     */
+    @NotNull
+    @Operation(
+            summary = "Convert a truth expression to DIMACS",
+            description = "Encode a truth expression in conjunctive normal form with a new variable for each operator, " +
+                    "and stream the clauses as DIMACS text. The atomic values are the first variables, " +
+                    "in the same order as the columns of the truth table, and their names are given in comments." +
+                    " If the expression is not valid, the result will be empty with an error message.",
+            tags = {"Simplify"}
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The expression was valid and the clauses are streamed",
+                    content = {@Content(mediaType = MediaType.TEXT_PLAIN_VALUE)}),
+            @ApiResponse(responseCode = "400", description = "The expression was not valid",
+                    content = {@Content(schema = @Schema(implementation = EmptyResult.class), mediaType = "html/text")}),
+    })
+    @Parameters(value = {
+            @Parameter(name = "exp", description = "A logical expression", example = "A & B : C -> !D"),
+            @Parameter(name = "lang", description = "Overrides the language in the header", example = "en"),
+            @Parameter(name = "caseSensitive", description = "Wheter or not to use case sensitive variables"),
+            @Parameter(name = "encoding", description = "TSEITIN makes each variable equivalent to its operator, " +
+                    "PLAISTED_GREENBAUM only encodes the direction that is needed, and has fewer clauses"),
+    })
+    @GetMapping(value = "/dimacs/{exp}", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<StreamingResponseBody> dimacs(
+            @PathVariable @NotNull final String exp,
+            @RequestParam(required = false) @Nullable final String lang,
+            @RequestParam(defaultValue = "false") final boolean caseSensitive,
+            @RequestParam(defaultValue = "PLAISTED_GREENBAUM") final CnfEncoding encoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, defaultValue = "nb") final String header) {
+
+        log.info("Dimacs call with the following parametres: exp={}, lang={}, caseSensitive={}, encoding={}",
+                exp, lang, caseSensitive, encoding);
+
+        StopWatch sw = new StopWatch();
+        final ExpressionUtils eu = getExpressionUtils(exp, lang, header, false, caseSensitive, sw);
+        eu.setMaxExpressionSize(ExpressionUtils.MAX_SATISFIABLE_EXPRESSION_SIZE);
+        final CnfEncoder.Cnf cnf = onCpu(() -> CnfEncoder.encode(simplify(eu), encoding));
+
+        if (log.isDebugEnabled()) {
+            sw.stop();
+            log.debug("Expression encoded in: " + sw.getTotalTimeMillis() + "ms");
+        }
+
+        final StreamingDimacsResult result = new StreamingDimacsResult(cnf);
+        log.debug("Streaming result: {}", result);
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(result);
+    }
+
     /**
      * @return A matrix representation of a table with truth values
      * @throws ResponseStatusException If the expression is not valid
@@ -124,6 +527,10 @@ public final class ApiController {
             @Parameter(name = "sort", description = "Sort the variables in the table"),
             @Parameter(name = "hide", description = "Hide the variables in the table"),
             @Parameter(name = "hideIntermediate", description = "Hide the intermediate steps in the table"),
+            @Parameter(name = "offset", description = "Returns a page of the table, starting after this number of shown rows"),
+            @Parameter(name = "limit", description = "Returns a page of the table, with at most this number of rows"),
+            @Parameter(name = "cursor", description = "Returns the page of the table that starts at the next cursor of a previous page"),
+            @Parameter(name = "tableFormat", description = "PACKED sends each column as a base64 encoded bitset, and can not be paged"),
     })
     @io.swagger.v3.oas.annotations.parameters.RequestBody(
             description = "A logical expression of type Expression",
@@ -135,28 +542,23 @@ public final class ApiController {
             @RequestHeader(defaultValue = "DEFAULT") final Sort sort,
             @RequestHeader(defaultValue = "NONE") final Hide hide,
             @RequestHeader(defaultValue = "false") final boolean hideIntermediate,
+            @RequestHeader(required = false) @Nullable final Long offset,
+            @RequestHeader(required = false) @Nullable final Integer limit,
+            @RequestHeader(required = false) @Nullable final String cursor,
+            @RequestHeader(defaultValue = "MATRIX") final TableFormat tableFormat,
             @RequestHeader(required = false) @Nullable final String lang,
             @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, defaultValue = "nb") final String header) {
 
-        log.info("Table call with the following parametres: exp={}, sort={}, hide={}, hideIntermediate={}, lang={}",
-                exp, sort, hide, hideIntermediate, lang);
+        log.info("Table call with the following parametres: exp={}, sort={}, hide={}, hideIntermediate={}, " +
+                "offset={}, limit={}, cursor={}, tableFormat={}, lang={}",
+                exp, sort, hide, hideIntermediate, offset, limit, cursor, tableFormat, lang);
 
-        Language language = Language.setLanguage(lang, header);
+        final boolean paged = isPaged(offset, limit, cursor);
+        validateTable(exp, lang, header, paged ? ExpressionUtils.MAX_STREAM_EXPRESSION_SIZE : ExpressionUtils.MAX_TABLE_EXPRESSION_SIZE);
+        assert exp != null;
 
-        if (exp == null) {
-            String message = language == Language.ENGLISH ? "Expression not found in body" : "Uttrykk ikke funnet i body";
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, message);
-        }
-
-        try {
-            ExpressionUtils.isValid(exp.toString(), language);
-        }
-        catch (ExpressionInvalidException | MissingCharacterException | TooBigExpressionException e) {
-            log.debug(Arrays.toString(e.getStackTrace()));
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
-        }
-
-        final TruthTable table = new TruthTable(exp.toSetArray(hideIntermediate));
+        final TruthTable table = onCpu(() ->
+                createTable(exp.toSetArray(hideIntermediate), hide, sort, offset, limit, cursor, tableFormat));
         log.debug("New table created: {}", table);
 
         final ResultOnlyTable tableResult = new ResultOnlyTable(version, exp.toString(), StringUtils.mapToStrings(table), table);
@@ -166,6 +568,57 @@ public final class ApiController {
         return result;
     }
 
+    /**
+     * @return The result without the table, followed by each row of the table as newline delimited JSON
+     * @throws ResponseStatusException If the expression is not valid
+     */
+    @NotNull
+    @Operation(
+            summary = "Stream a truth table",
+            description = "Generate a truth table, and stream the result as newline delimited JSON." +
+                    " The first line is the result without the table, and each of the following lines is a row in the table." +
+                    " If the expression is not valid, the result will be empty with an error message.",
+            tags = {"Table"}
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The expression was valid and the table is streamed",
+                    content = {@Content(schema = @Schema(implementation = ResultOnlyTable.class), mediaType = MediaType.APPLICATION_NDJSON_VALUE)}),
+            @ApiResponse(responseCode = "400", description = "The expression was not valid",
+                    content = {@Content(schema = @Schema(implementation = EmptyResult.class), mediaType = "application/json")}),
+            @ApiResponse(responseCode = "404", description = "The body was empty",
+                    content = {@Content(schema = @Schema(implementation = EmptyResult.class), mediaType = "html/text")}),
+    })
+    @Parameters(value = {
+            @Parameter(name = "lang", description = "Overrides the language in the header", example = "en"),
+            @Parameter(name = "sort", description = "Sort the variables in the table"),
+            @Parameter(name = "hide", description = "Hide the variables in the table"),
+            @Parameter(name = "hideIntermediate", description = "Hide the intermediate steps in the table"),
+    })
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "A logical expression of type Expression",
+            content = @Content(schema = @Schema(implementation = Expression.class), mediaType = "application/json")
+    )
+    @PostMapping(value = "/table", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> tableStream(
+            @RequestBody(required = false) @Nullable final Expression exp,
+            @RequestHeader(defaultValue = "DEFAULT") final Sort sort,
+            @RequestHeader(defaultValue = "NONE") final Hide hide,
+            @RequestHeader(defaultValue = "false") final boolean hideIntermediate,
+            @RequestHeader(required = false) @Nullable final String lang,
+            @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, defaultValue = "nb") final String header) {
+
+        log.info("Table stream call with the following parametres: exp={}, sort={}, hide={}, hideIntermediate={}, lang={}",
+                exp, sort, hide, hideIntermediate, lang);
+
+        validateTable(exp, lang, header, ExpressionUtils.MAX_STREAM_EXPRESSION_SIZE);
+        assert exp != null;
+
+        final Expression[] expressions = exp.toSetArray(hideIntermediate);
+        final ResultOnlyTable head = new ResultOnlyTable(version, exp.toString(), StringUtils.mapToStrings(expressions), null);
+
+        return streamTable(head, new TruthTableRows(expressions, hide, sort, evaluatorCache));
+    }
+
     /**
      * @return A simplified expression and a matrix representation of a table with truth values
      * @throws ResponseStatusException if the expression is not valid
@@ -190,6 +643,12 @@ public final class ApiController {
             @Parameter(name = "sort", description = "Sort the variables in the table"),
             @Parameter(name = "hide", description = "Hide the variables in the table"),
             @Parameter(name = "hideIntermediate", description = "Hide the intermediate steps in the table"),
+            @Parameter(name = "offset", description = "Returns a page of the table, starting after this number of shown rows"),
+            @Parameter(name = "limit", description = "Returns a page of the table, with at most this number of rows"),
+            @Parameter(name = "cursor", description = "Returns the page of the table that starts at the next cursor of a previous page"),
+            @Parameter(name = "tableFormat", description = "PACKED sends each column as a base64 encoded bitset, and can not be paged"),
+            @Parameter(name = "steps", description = "FULL returns each step, SUMMARY returns the number of times each law was used, " +
+                    "NONE returns no steps and is the fastest"),
     })
     @GetMapping("/simplify/table/{exp}")
     public ResponseEntity<EmptyResult> simplifyAndTable(
@@ -200,21 +659,30 @@ public final class ApiController {
             @RequestParam(defaultValue = "DEFAULT") final Sort sort,
             @RequestParam(defaultValue = "NONE") final Hide hide,
             @RequestParam(defaultValue = "false") final boolean hideIntermediate,
+            @RequestParam(required = false) @Nullable final Long offset,
+            @RequestParam(required = false) @Nullable final Integer limit,
+            @RequestParam(required = false) @Nullable final String cursor,
+            @RequestParam(defaultValue = "MATRIX") final TableFormat tableFormat,
+            @RequestParam(defaultValue = "FULL") final Steps steps,
             @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, defaultValue = "nb") @NotNull final String header) {
 
         log.info("Simplify and table call with the following parametres: exp=" + exp + ", lang=" + lang +
                 ", simplify=" + simplify + ", sort=" + sort + ", hide=" + hide + ", hideIntermediate=" +
-                hideIntermediate + ", caseSensitive=" + caseSensitive);
+                hideIntermediate + ", caseSensitive=" + caseSensitive + ", offset=" + offset + ", limit=" + limit +
+                ", cursor=" + cursor + ", tableFormat=" + tableFormat + ", steps=" + steps);
 
         StopWatch sw = new StopWatch();
         final ExpressionUtils eu = getExpressionUtils(exp, lang, header, simplify, caseSensitive, sw);
+        eu.setMaxExpressionSize(maxSimplifyAndTableSize(simplify, isPaged(offset, limit, cursor) ?
+                ExpressionUtils.MAX_STREAM_EXPRESSION_SIZE : ExpressionUtils.MAX_TABLE_EXPRESSION_SIZE));
+        eu.setSteps(steps);
 
         final ResponseEntity<EmptyResult> result = simplify(eu, expression -> {
 
-            TruthTable table = new TruthTable(expression.toSetArray(hideIntermediate), hide, sort);
+            TruthTable table = createTable(expression.toSetArray(hideIntermediate), hide, sort, offset, limit, cursor, tableFormat);
             log.debug("New table created: {}", table);
 
-            return new ResultWithTable(version, exp, expression.toString(), eu.getOperations(),
+            return new ResultWithTable(version, exp, expression.toString(), orderOperations(eu), lawCounts(eu),
                     expression, StringUtils.mapToStrings(table), table);
         });
 
@@ -227,6 +695,69 @@ public final class ApiController {
         return result;
     }
 
+    /**
+     * @return A simplified expression, followed by each row of the table as newline delimited JSON
+     * @throws ResponseStatusException if the expression is not valid
+     */
+    @NotNull
+    @Operation(
+            summary = "Simplify a truth expression and stream a truth table",
+            description = "Simplify a truth expression, and stream the result as newline delimited JSON." +
+                    " The first line is the result without the table, and each of the following lines is a row in the table." +
+                    " If the expression is not valid, the result will be empty with an error message.",
+            tags = {"Simplify", "Table"}
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The expression was valid and the table is streamed",
+                    content = {@Content(schema = @Schema(implementation = ResultWithTable.class), mediaType = MediaType.APPLICATION_NDJSON_VALUE)}),
+            @ApiResponse(responseCode = "400", description = "The expression was not valid",
+                    content = {@Content(schema = @Schema(implementation = EmptyResult.class), mediaType = "application/json")}),
+    })
+    @Parameters(value = {
+            @Parameter(name = "exp", description = "The expression to simplify and generate a table for", example = "A & B : C -> !D"),
+            @Parameter(name = "lang", description = "Overrides the language in the header", example = "en"),
+            @Parameter(name = "simplify", description = "Simplify the expression"),
+            @Parameter(name = "sort", description = "Sort the variables in the table"),
+            @Parameter(name = "hide", description = "Hide the variables in the table"),
+            @Parameter(name = "hideIntermediate", description = "Hide the intermediate steps in the table"),
+            @Parameter(name = "steps", description = "FULL returns each step, SUMMARY returns the number of times each law was used, " +
+                    "NONE returns no steps and is the fastest"),
+    })
+    @GetMapping(value = "/simplify/table/{exp}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> simplifyAndTableStream(
+            @PathVariable @NotNull final String exp,
+            @RequestParam(required = false) @Nullable final String lang,
+            @RequestParam(defaultValue = "true") final boolean simplify,
+            @RequestParam(defaultValue = "false") final boolean caseSensitive,
+            @RequestParam(defaultValue = "DEFAULT") final Sort sort,
+            @RequestParam(defaultValue = "NONE") final Hide hide,
+            @RequestParam(defaultValue = "false") final boolean hideIntermediate,
+            @RequestParam(defaultValue = "FULL") final Steps steps,
+            @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, defaultValue = "nb") @NotNull final String header) {
+
+        log.info("Simplify and table stream call with the following parametres: exp=" + exp + ", lang=" + lang +
+                ", simplify=" + simplify + ", sort=" + sort + ", hide=" + hide + ", hideIntermediate=" +
+                hideIntermediate + ", caseSensitive=" + caseSensitive + ", steps=" + steps);
+
+        StopWatch sw = new StopWatch();
+        final ExpressionUtils eu = getExpressionUtils(exp, lang, header, simplify, caseSensitive, sw);
+        eu.setMaxExpressionSize(maxSimplifyAndTableSize(simplify, ExpressionUtils.MAX_STREAM_EXPRESSION_SIZE));
+        eu.setSteps(steps);
+
+        final Expression expression = onCpu(() -> simplify(eu));
+        final Expression[] expressions = expression.toSetArray(hideIntermediate);
+
+        final ResultWithTable head = new ResultWithTable(version, exp, expression.toString(), orderOperations(eu),
+                lawCounts(eu), expression, StringUtils.mapToStrings(expressions), null);
+
+        if (log.isDebugEnabled()) {
+            sw.stop();
+            log.debug("Expression simplified in: " + sw.getTotalTimeMillis() + "ms");
+        }
+
+        return streamTable(head, new TruthTableRows(expressions, hide, sort, evaluatorCache));
+    }
+
     @Operation(
             summary = "Check if an expression is valid",
             description = "Check if an expression is valid, otherwise return an error message.",
@@ -267,6 +798,7 @@ public final class ApiController {
 
         final String newExpression = StringUtils.formatString(exp, caseSensitive);
         final ExpressionUtils eu = new ExpressionUtils(newExpression, simplify, language, caseSensitive);
+        eu.setMinimizer(minimizer);
 
         if (log.isDebugEnabled()) {
             sw.start();
@@ -274,8 +806,31 @@ public final class ApiController {
         return eu;
     }
 
+    /**
+     * Runs the work when a core is free, so the expensive requests do not use all the threads that handle requests
+     *
+     * @throws ResponseStatusException If no core was free within the max wait
+     */
+    private <T> T onCpu(@NotNull Supplier<T> work) {
+        try {
+            return cpuExecutor.call(work);
+        }
+        catch (RejectedExecutionException e) {
+            log.warn("Request rejected by the CPU executor: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
     @NotNull
     private ResponseEntity<EmptyResult> simplify(@NotNull ExpressionUtils eu, @NotNull Function<Expression, EmptyResult> function) {
+        return ResponseEntity.ok(onCpu(() -> function.apply(simplify(eu))));
+    }
+
+    /**
+     * @throws ResponseStatusException If the expression is not valid
+     */
+    @NotNull
+    private Expression simplify(@NotNull ExpressionUtils eu) {
 
         final Expression expression;
 
@@ -287,8 +842,168 @@ public final class ApiController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
         log.debug("Expression simplified to: {}", expression);
+        return expression;
+    }
+
+    /**
+     * Reads the expressions of a batch, either as the elements of an array, or as one value per line
+     *
+     * @throws ResponseStatusException If the body is not valid, empty, or has too many expressions
+     */
+    @NotNull
+    private List<SimplifyRequest> readBatch(@NotNull InputStream body, @NotNull Language language) {
+        final List<SimplifyRequest> requests = new ArrayList<>();
+        try (MappingIterator<SimplifyRequest> iterator = batchReader.readValues(body)) {
+            while (iterator.hasNextValue()) {
+                if (requests.size() == MAX_BATCH_SIZE) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "A batch must not have more than " + MAX_BATCH_SIZE + " expressions");
+                }
+                requests.add(iterator.nextValue());
+            }
+        }
+        catch (IOException e) {
+            log.debug(Arrays.toString(e.getStackTrace()));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        if (requests.isEmpty()) {
+            String message = language == Language.ENGLISH ? "Expression not found in body" : "Uttrykk ikke funnet i body";
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, message);
+        }
+        return requests;
+    }
+
+    /**
+     * Simplifies one expression of a batch, an expression that is not valid gives an error instead of throwing
+     *
+     * @param defaultLanguage The language of the batch, used if the expression does not set its own
+     */
+    @NotNull
+    private ResultBatchItem simplifyBatchItem(int index, @NotNull SimplifyRequest request, @NotNull Language defaultLanguage) {
+        final Language requestLanguage = request.getLang() != null ? Language.of(request.getLang()) : null;
+        final Language language = requestLanguage != null ? requestLanguage : defaultLanguage;
+        final String exp = request.getExp();
+        if (exp == null) {
+            return new ResultBatchItem(version, index,
+                    language == Language.ENGLISH ? "Expression not found" : "Uttrykk ikke funnet");
+        }
+
+        final ExpressionUtils eu = new ExpressionUtils(StringUtils.formatString(exp, request.isCaseSensitive()),
+                request.isSimplify(), language, request.isCaseSensitive());
+        eu.setMinimizer(minimizer);
+        eu.setMode(request.getMode());
+        eu.setSteps(request.getSteps());
+        if (request.getMode() == SimplifyMode.HEURISTIC) {
+            eu.setMaxExpressionSize(ExpressionUtils.MAX_HEURISTIC_EXPRESSION_SIZE);
+        }
+
+        try {
+            final Expression expression = eu.simplify();
+            return new ResultBatchItem(version, index,
+                    new Result(version, exp, expression.toString(), orderOperations(eu), lawCounts(eu), expression));
+        }
+        catch (ExpressionInvalidException | MissingCharacterException | TooBigExpressionException e) {
+            log.debug(Arrays.toString(e.getStackTrace()));
+            return new ResultBatchItem(version, index, e.getMessage());
+        }
+        catch (RuntimeException e) {
+            log.warn("Expression " + index + " of the batch could not be simplified", e);
+            return new ResultBatchItem(version, index, "The expression could not be simplified");
+        }
+    }
+
+    @Nullable
+    private static List<OrderOperations> orderOperations(@NotNull ExpressionUtils eu) {
+        return eu.getSteps() == Steps.FULL ? eu.getOperations() : null;
+    }
+
+    @Nullable
+    private static Map<String, Integer> lawCounts(@NotNull ExpressionUtils eu) {
+        return eu.getSteps() == Steps.SUMMARY ? eu.getLawCounts() : null;
+    }
+
+    /**
+     * Only the table is cheap enough for the larger sizes, an expression that is simplified with the laws
+     * has the same max size as the simplify endpoint
+     *
+     * @param maxTableSize The max size of the table that is created
+     */
+    private static int maxSimplifyAndTableSize(boolean simplify, int maxTableSize) {
+        return simplify ? Math.min(ExpressionUtils.MAX_EXPRESSION_SIZE, maxTableSize) : maxTableSize;
+    }
+
+    private static boolean isPaged(@Nullable Long offset, @Nullable Integer limit, @Nullable String cursor) {
+        return offset != null || limit != null || cursor != null;
+    }
+
+    /**
+     * Creates the whole table, or a page of the table if any of the page parameters are used.
+     * If both a cursor and an offset is given, the cursor is used. A packed table is always the whole table.
+     *
+     * @throws ResponseStatusException If the page parameters are not valid, or a packed table is paged
+     */
+    @NotNull
+    private TruthTable createTable(@NotNull Expression[] expressions, @NotNull Hide hide, @NotNull Sort sort,
+                                   @Nullable Long offset, @Nullable Integer limit, @Nullable String cursor,
+                                   @NotNull TableFormat tableFormat) {
+        final boolean paged = isPaged(offset, limit, cursor);
+        if (tableFormat == TableFormat.PACKED) {
+            if (paged) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A packed table can not be paged");
+            }
+            return PackedTruthTable.of(expressions, hide, sort, tableParallelism, evaluatorCache);
+        }
+        if (!paged) {
+            return new TruthTable(expressions, hide, sort, tableParallelism);
+        }
+        final int pageLimit = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageLimit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must not be greater than " + MAX_PAGE_SIZE);
+        }
+        try {
+            if (cursor != null) {
+                return TruthTablePage.ofCursor(expressions, hide, sort, cursor, pageLimit, evaluatorCache);
+            }
+            return TruthTablePage.ofOffset(expressions, hide, sort, offset != null ? offset : 0, pageLimit,
+                    evaluatorCache);
+        }
+        catch (IllegalArgumentException e) {
+            log.debug(Arrays.toString(e.getStackTrace()));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Checks that an expression from the body exists and is valid
+     *
+     * @throws ResponseStatusException If the expression is missing or not valid
+     */
+    private void validateTable(@Nullable Expression exp, @Nullable String lang, @NotNull String header, int maxExpressionSize) {
+        Language language = Language.setLanguage(lang, header);
+
+        if (exp == null) {
+            String message = language == Language.ENGLISH ? "Expression not found in body" : "Uttrykk ikke funnet i body";
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, message);
+        }
+
+        try {
+            ExpressionUtils.isValid(exp.toString(), language, maxExpressionSize);
+        }
+        catch (ExpressionInvalidException | MissingCharacterException | TooBigExpressionException e) {
+            log.debug(Arrays.toString(e.getStackTrace()));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @NotNull
+    private ResponseEntity<StreamingResponseBody> streamTable(@NotNull EmptyResult head, @NotNull TruthTableRows rows) {
+        final StreamingTableResult result = new StreamingTableResult(head, rows, cpuExecutor, objectMapper);
+        log.debug("Streaming result: {}", result);
 
-        return ResponseEntity.ok(function.apply(expression));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(result);
     }
 
 }
@@ -0,0 +1,12 @@
+package no.martials.api.enums;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BatchOrder",
+        description = "Enum to choose the order of the results of a batch. " +
+                "INPUT: the results are in the same order as the expressions, " +
+                "COMPLETION: each result is sent as soon as it's done")
+public enum BatchOrder {
+    INPUT,
+    COMPLETION
+}
@@ -0,0 +1,13 @@
+package no.martials.api.enums;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "CnfEncoding",
+        description = "Enum to choose how an expression is encoded in conjunctive normal form. " +
+                "TSEITIN: each operator gets a variable that is equivalent to it, " +
+                "PLAISTED_GREENBAUM: each operator gets a variable that implies it, or is implied by it, " +
+                "depending on whether it is negated, which needs fewer clauses")
+public enum CnfEncoding {
+    TSEITIN,
+    PLAISTED_GREENBAUM
+}
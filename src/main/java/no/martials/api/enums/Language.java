@@ -34,15 +34,28 @@ public enum Language {
         return language;
     }
 
+    /**
+     * @param lang The code of the language, like "en"
+     * @return The language with the code, or null if there is none
+     */
+    @Nullable
+    public static Language of(@NotNull String lang) {
+        for (Language language : Language.values()) {
+            if (lang.equalsIgnoreCase(language.getLang())) {
+                return language;
+            }
+        }
+        return null;
+    }
+
     @NotNull
     private static Language setLanguageRec(@Nullable String lang, @NotNull String header) {
         final String headerLang = header.substring(0, 2);
 
         if (lang != null) {
-            for (Language language : Language.values()) {
-                if (lang.equalsIgnoreCase(language.getLang())) {
-                    return language;
-                }
+            final Language language = of(lang);
+            if (language != null) {
+                return language;
             }
             log.warn("Language was not found");
         }
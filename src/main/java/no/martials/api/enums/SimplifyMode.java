@@ -0,0 +1,14 @@
+package no.martials.api.enums;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "SimplifyMode",
+        description = "Enum to choose how an expression is simplified. " +
+                "LAWS: the laws are used on each part of the expression, and each step is shown, " +
+                "MINIMAL: the expression is replaced with a minimal sum of products (disjunctive normal form), " +
+                "HEURISTIC: the expression is replaced with a small sum of products, for expressions with many atomic values")
+public enum SimplifyMode {
+    LAWS,
+    MINIMAL,
+    HEURISTIC
+}
@@ -0,0 +1,13 @@
+package no.martials.api.enums;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "Steps",
+        description = "Enum to choose which steps of the simplification are returned. " +
+                "NONE: no steps are returned or recorded, SUMMARY: the number of times each law was used, " +
+                "FULL: the expression before and after each step")
+public enum Steps {
+    NONE,
+    SUMMARY,
+    FULL
+}
@@ -0,0 +1,12 @@
+package no.martials.api.enums;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "TableFormat",
+        description = "Enum to choose how the table is sent. " +
+                "MATRIX: the table is a matrix of boolean values, " +
+                "PACKED: each column of the table is a base64 encoded bitset, see PackedTruthTable")
+public enum TableFormat {
+    MATRIX,
+    PACKED
+}
@@ -4,15 +4,20 @@ import no.martials.api.enums.Language;
 
 public class TooBigExpressionException extends RuntimeException {
 
-    private static final String englishMessage = "Expression is too big, max 15 arguments";
-    private static final String norwegianMessage = "Uttrykket er for stort, maks 15 argumenter";
+    private static final String englishMessage = "Expression is too big, max %d arguments";
+    private static final String norwegianMessage = "Uttrykket er for stort, maks %d argumenter";
+    private static final int defaultMax = 15;
 
     public TooBigExpressionException(Language language) {
-        super(language == Language.ENGLISH ? englishMessage : norwegianMessage);
+        this(language, defaultMax);
+    }
+
+    public TooBigExpressionException(Language language, int max) {
+        super((language == Language.ENGLISH ? englishMessage : norwegianMessage).formatted(max));
     }
 
     public TooBigExpressionException() {
-        super(englishMessage);
+        super(englishMessage.formatted(defaultMax));
     }
 
 }
@@ -0,0 +1,428 @@
+package no.martials.api.expressions;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A reduced ordered binary decision diagram, where every node is unique, so two functions are equal if and only if
+ * they are the same node. A node is an int, and the nodes are stored in int arrays instead of objects.
+ * Nodes are created with the if-then-else operation, and results of it are stored in a lossy computed cache.
+ * The variables are ordered by their index, variable 0 is at the top.
+ * <p>
+ * example:
+ * <pre>
+ * final Bdd bdd = new Bdd(2);
+ * final int a = bdd.variable(0), b = bdd.variable(1);
+ * bdd.and(a, b) == bdd.not(bdd.or(bdd.not(a), bdd.not(b))) // true
+ * </pre>
+ *
+ * @author Martin Berg Alstad
+ */
+public final class Bdd {
+
+    public static final int FALSE = 0;
+    public static final int TRUE = 1;
+    /**
+     * The default max number of nodes. Each node uses 9 ints, 3 for the node, 2 in the unique table and 4 in the cache,
+     * so the full diagram is about 144 MB
+     */
+    public static final int DEFAULT_MAX_NODES = 1 << 22;
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int EMPTY = -1;
+
+    private final int numberOfVariables;
+    private final int maxNodes;
+
+    /**
+     * The variable, low child and high child of each node. The terminals have the variable after the last variable
+     */
+    private int[] variables;
+    private int[] lows;
+    private int[] highs;
+    private int size;
+
+    /**
+     * Open addressing table of the nodes, with linear probing
+     */
+    private int[] unique;
+
+    /**
+     * Direct mapped cache of the if-then-else operation, a new result replaces the old one
+     */
+    private int[] cacheF;
+    private int[] cacheG;
+    private int[] cacheH;
+    private int[] cacheResults;
+
+    /**
+     * @param numberOfVariables The number of variables in the functions
+     * @param maxNodes          The max number of nodes
+     */
+    public Bdd(int numberOfVariables, int maxNodes) {
+        if (numberOfVariables < 0) {
+            throw new IllegalArgumentException("Number of variables must not be negative");
+        }
+        this.numberOfVariables = numberOfVariables;
+        this.maxNodes = maxNodes;
+
+        variables = new int[INITIAL_CAPACITY];
+        lows = new int[INITIAL_CAPACITY];
+        highs = new int[INITIAL_CAPACITY];
+        unique = new int[INITIAL_CAPACITY * 2];
+        Arrays.fill(unique, EMPTY);
+        newCache(INITIAL_CAPACITY);
+
+        // The terminals are not in the unique table
+        for (int terminal : new int[] {FALSE, TRUE}) {
+            variables[terminal] = numberOfVariables;
+            lows[terminal] = terminal;
+            highs[terminal] = terminal;
+        }
+        size = 2;
+    }
+
+    public Bdd(int numberOfVariables) {
+        this(numberOfVariables, DEFAULT_MAX_NODES);
+    }
+
+    /**
+     * Creates the functions of all the outputs of a compiled expression, the atomic value with index 'k' is the
+     * variable 'k'. Expressions compiled together share the atomic values, so their functions can be compared.
+     *
+     * @param program The compiled expressions
+     * @return The function of each output
+     * @throws IllegalArgumentException If the program has more atomic values than the number of variables
+     * @throws IllegalStateException    If the functions need more than the max number of nodes
+     */
+    @NotNull
+    public int[] build(@NotNull CompiledExpression program) {
+        if (program.getNumberOfAtomics() > numberOfVariables) {
+            throw new IllegalArgumentException("The program has more atomic values than the number of variables");
+        }
+        final int[] code = program.getCode();
+        final int[] registers = new int[program.getNumberOfRegisters()];
+
+        for (int pc = 0, register = 0; pc < code.length; pc += CompiledExpression.INSTRUCTION_SIZE, register++) {
+            final int a = code[pc + 1], b = code[pc + 2];
+            registers[register] = switch (code[pc]) {
+                case CompiledExpression.ATOMIC -> variable(a);
+                case CompiledExpression.AND -> and(registers[a], registers[b]);
+                case CompiledExpression.OR -> or(registers[a], registers[b]);
+                case CompiledExpression.IMPLICATION -> implication(registers[a], registers[b]);
+                case CompiledExpression.NOT -> not(registers[a]);
+                case CompiledExpression.FALSE -> FALSE;
+                default -> throw new IllegalStateException("Unknown opcode " + code[pc]);
+            };
+        }
+        final int[] outputs = new int[program.getNumberOfOutputs()];
+        for (int output = 0; output < outputs.length; output++) {
+            outputs[output] = registers[program.getOutput(output)];
+        }
+        return outputs;
+    }
+
+    /**
+     * @param expressions The expressions, the atomic values are shared
+     * @return A diagram with the function of each expression, in the same order
+     */
+    @NotNull
+    public static Functions of(@NotNull Expression... expressions) {
+        final CompiledExpression program = CompiledExpression.compile(expressions);
+        final Bdd bdd = new Bdd(program.getNumberOfAtomics());
+        return new Functions(bdd, bdd.build(program), program.getAtomics());
+    }
+
+    /**
+     * The functions of some expressions, and the names of the variables
+     */
+    public record Functions(@NotNull Bdd bdd, @NotNull int[] functions, @NotNull String[] atomics) {
+    }
+
+    /**
+     * @param variable The index of the variable
+     * @return The function that is true when the variable is true
+     */
+    public int variable(int variable) {
+        if (variable < 0 || variable >= numberOfVariables) {
+            throw new IllegalArgumentException("Variable must be between 0 and " + (numberOfVariables - 1));
+        }
+        return node(variable, FALSE, TRUE);
+    }
+
+    public int not(int f) {
+        return ite(f, FALSE, TRUE);
+    }
+
+    public int and(int f, int g) {
+        return ite(f, g, FALSE);
+    }
+
+    public int or(int f, int g) {
+        return ite(f, TRUE, g);
+    }
+
+    public int implication(int f, int g) {
+        return ite(f, g, TRUE);
+    }
+
+    /**
+     * If-then-else, the function that is 'g' where 'f' is true and 'h' where 'f' is false.
+     * Every other operation is a special case of this one.
+     *
+     * @return The function (f ⋀ g) ⋁ (¬f ⋀ h)
+     */
+    public int ite(int f, int g, int h) {
+        if (f == TRUE) {
+            return g;
+        }
+        else if (f == FALSE) {
+            return h;
+        }
+        else if (g == h) {
+            return g;
+        }
+        else if (g == TRUE && h == FALSE) {
+            return f;
+        }
+
+        final int slot = cacheSlot(f, g, h);
+        if (cacheF[slot] == f && cacheG[slot] == g && cacheH[slot] == h) {
+            return cacheResults[slot];
+        }
+
+        final int top = Math.min(variables[f], Math.min(variables[g], variables[h]));
+        final int high = ite(cofactor(f, top, true), cofactor(g, top, true), cofactor(h, top, true));
+        final int low = ite(cofactor(f, top, false), cofactor(g, top, false), cofactor(h, top, false));
+        final int result = node(top, low, high);
+
+        // The cache may have been replaced while the children were created
+        final int newSlot = cacheSlot(f, g, h);
+        cacheF[newSlot] = f;
+        cacheG[newSlot] = g;
+        cacheH[newSlot] = h;
+        cacheResults[newSlot] = result;
+        return result;
+    }
+
+    /**
+     * @return The function where the variable is replaced with the given value
+     */
+    public int restrict(int f, int variable, boolean value) {
+        final int[] restricted = new int[size];
+        Arrays.fill(restricted, EMPTY);
+        return restrict(f, variable, value, restricted);
+    }
+
+    /**
+     * Each node above the variable is restricted once, so shared nodes are not visited again
+     *
+     * @param restricted The restricted node of each node that is visited, or -1
+     */
+    private int restrict(int f, int variable, boolean value, int[] restricted) {
+        if (variables[f] > variable) {
+            return f;
+        }
+        else if (variables[f] == variable) {
+            return value ? highs[f] : lows[f];
+        }
+        if (restricted[f] == EMPTY) {
+            // The children only have variables below this one, so the node stays ordered
+            restricted[f] = node(variables[f], restrict(lows[f], variable, value, restricted),
+                    restrict(highs[f], variable, value, restricted));
+        }
+        return restricted[f];
+    }
+
+    public boolean isTautology(int f) {
+        return f == TRUE;
+    }
+
+    public boolean isContradiction(int f) {
+        return f == FALSE;
+    }
+
+    /**
+     * @return The number of assignments of all the variables that makes the function true
+     * @throws IllegalStateException If there are more than 62 variables, the count would not fit in a long
+     */
+    public long satCount(int f) {
+        if (numberOfVariables > ModelCounter.MAX_ATOMICS) {
+            throw new IllegalStateException("Can not count more than " + ModelCounter.MAX_ATOMICS + " variables");
+        }
+        final long[] counts = new long[size];
+        Arrays.fill(counts, -1);
+        return satCount(f, counts) << variables[f];
+    }
+
+    /**
+     * @return The number of assignments of the variables below the node that makes it true
+     */
+    private long satCount(int f, long[] counts) {
+        if (f <= TRUE) {
+            return f;
+        }
+        if (counts[f] == -1) {
+            final int low = lows[f], high = highs[f];
+            counts[f] = (satCount(low, counts) << (variables[low] - variables[f] - 1)) +
+                    (satCount(high, counts) << (variables[high] - variables[f] - 1));
+        }
+        return counts[f];
+    }
+
+    /**
+     * @return The values of the variables in an assignment that makes the function true, or null if there is none.
+     * The variables that are not in the function are false.
+     */
+    @Nullable
+    public boolean[] satisfyingAssignment(int f) {
+        if (f == FALSE) {
+            return null;
+        }
+        final boolean[] assignment = new boolean[numberOfVariables];
+        while (f != TRUE) {
+            if (lows[f] != FALSE) {
+                f = lows[f];
+            }
+            else {
+                assignment[variables[f]] = true;
+                f = highs[f];
+            }
+        }
+        return assignment;
+    }
+
+    /**
+     * @return The number of nodes that are reachable from the function, including the terminals
+     */
+    public int nodeCount(int f) {
+        final boolean[] visited = new boolean[size];
+        final int[] stack = new int[size];
+        int count = 0, top = 0;
+        stack[top++] = f;
+        visited[f] = true;
+
+        while (top > 0) {
+            final int node = stack[--top];
+            count++;
+            if (node > TRUE) {
+                for (int child : new int[] {lows[node], highs[node]}) {
+                    if (!visited[child]) {
+                        visited[child] = true;
+                        stack[top++] = child;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    public int getVariable(int f) {
+        return variables[f];
+    }
+
+    public int getLow(int f) {
+        return lows[f];
+    }
+
+    public int getHigh(int f) {
+        return highs[f];
+    }
+
+    public int getNumberOfVariables() {
+        return numberOfVariables;
+    }
+
+    /**
+     * @return The number of nodes that have been created, including the terminals
+     */
+    public int size() {
+        return size;
+    }
+
+    private int cofactor(int f, int variable, boolean value) {
+        if (variables[f] != variable) {
+            return f;
+        }
+        return value ? highs[f] : lows[f];
+    }
+
+    /**
+     * @return The unique node with the given variable and children
+     */
+    private int node(int variable, int low, int high) {
+        if (low == high) {
+            return low;
+        }
+        int slot = hash(variable, low, high) & unique.length - 1;
+        for (int node = unique[slot]; node != EMPTY; node = unique[slot]) {
+            if (variables[node] == variable && lows[node] == low && highs[node] == high) {
+                return node;
+            }
+            slot = slot + 1 & unique.length - 1;
+        }
+
+        if (size == maxNodes) {
+            throw new IllegalStateException("The diagram has more than " + maxNodes + " nodes");
+        }
+        if (size == variables.length) {
+            grow();
+            return node(variable, low, high);
+        }
+        final int node = size++;
+        variables[node] = variable;
+        lows[node] = low;
+        highs[node] = high;
+        unique[slot] = node;
+        return node;
+    }
+
+    /**
+     * Doubles the node arrays, the unique table and the cache
+     */
+    private void grow() {
+        final int capacity = variables.length * 2;
+        variables = Arrays.copyOf(variables, capacity);
+        lows = Arrays.copyOf(lows, capacity);
+        highs = Arrays.copyOf(highs, capacity);
+
+        unique = new int[capacity * 2];
+        Arrays.fill(unique, EMPTY);
+        for (int node = TRUE + 1; node < size; node++) {
+            int slot = hash(variables[node], lows[node], highs[node]) & unique.length - 1;
+            while (unique[slot] != EMPTY) {
+                slot = slot + 1 & unique.length - 1;
+            }
+            unique[slot] = node;
+        }
+        newCache(capacity);
+    }
+
+    private void newCache(int capacity) {
+        cacheF = new int[capacity];
+        cacheG = new int[capacity];
+        cacheH = new int[capacity];
+        cacheResults = new int[capacity];
+        Arrays.fill(cacheF, EMPTY);
+    }
+
+    private int cacheSlot(int f, int g, int h) {
+        return hash(f, g, h) & cacheF.length - 1;
+    }
+
+    private static int hash(int a, int b, int c) {
+        int hash = a * 0x9E3779B1 + b;
+        hash = hash * 0x85EBCA6B + c;
+        return hash ^ hash >>> 16;
+    }
+
+    @Override
+    public String toString() {
+        return "Bdd{" +
+                "numberOfVariables=" + numberOfVariables +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,16 @@
+package no.martials.api.expressions;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Evaluates an expression for up to 64 assignments of the atomic values at once
+ */
+@FunctionalInterface
+public interface BitEvaluator {
+
+    /**
+     * @param atomicValues The values of each atomic value, bit 'i' belongs to assignment 'i'
+     * @return The value of the expression, bit 'i' is the value for assignment 'i'
+     */
+    long eval(@NotNull long[] atomicValues);
+}
@@ -0,0 +1,194 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.CnfEncoding;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Encodes an expression as a formula in conjunctive normal form, with the Tseitin or the Plaisted–Greenbaum encoding.
+ * Every 'and', 'or' and implication gets a new variable, so the number of clauses grows linearly with the size of the
+ * expression. A negation is the negated literal of its operand, and gets no variable.
+ * With the Tseitin encoding the variable is equivalent to the operator. With the Plaisted–Greenbaum encoding only the
+ * direction that is needed by the polarity of the operator is encoded, the formula is satisfiable in the same
+ * assignments of the atomic values, but a model of it does not have to give the operators their values.
+ * <p>
+ * The literals are the same as in the DIMACS format, variable 'v' is the literal 'v + 1', and its negation is '-(v + 1)'.
+ * The first variables are the atomic values, numbered in the same order as the columns of a {@link TruthTable}.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class CnfEncoder {
+
+    /**
+     * The operator is used where it must be true
+     */
+    private static final int POSITIVE = 1;
+    /**
+     * The operator is used where it must be false
+     */
+    private static final int NEGATIVE = 2;
+
+    @NotNull
+    private final CnfEncoding encoding;
+    /**
+     * The literals of all the clauses, each clause ends with 0
+     */
+    @NotNull
+    private int[] arena = new int[64];
+    private int size = 0;
+    private int numberOfClauses = 0;
+    private int numberOfVariables;
+    /**
+     * The literal that is always false, 0 if it is not used
+     */
+    private int falseLiteral = 0;
+
+    /**
+     * A formula in conjunctive normal form, that is satisfiable if and only if the expression is
+     *
+     * @param numberOfVariables The number of variables, including the variables of the operators
+     * @param numberOfClauses   The number of clauses
+     * @param clauses           The literals of all the clauses, each clause ends with 0
+     * @param atomics           The names of the first variables
+     */
+    public record Cnf(int numberOfVariables, int numberOfClauses, @NotNull int[] clauses, @NotNull String[] atomics) {
+    }
+
+    private CnfEncoder(@NotNull CnfEncoding encoding, int numberOfAtomics) {
+        this.encoding = encoding;
+        this.numberOfVariables = numberOfAtomics;
+    }
+
+    /**
+     * @param expression The expression to encode
+     * @param encoding   Whether both directions of each operator is encoded, or only the direction that is needed
+     * @return The formula that is satisfied by the same assignments of the atomic values as the expression
+     */
+    @NotNull
+    public static Cnf encode(@NotNull Expression expression, @NotNull CnfEncoding encoding) {
+        // The table compiles the same array, so the atomic values are numbered the same way
+        final CompiledExpression program = CompiledExpression.compile(expression.toSetArray(true));
+        final int output = program.getOutput(program.getNumberOfOutputs() - 1);
+        final CnfEncoder encoder = new CnfEncoder(encoding, program.getNumberOfAtomics());
+        final int[] literals = encoder.encode(program, output);
+        encoder.addClause(literals[output]);
+        return new Cnf(encoder.numberOfVariables, encoder.numberOfClauses,
+                Arrays.copyOf(encoder.arena, encoder.size), program.getAtomics());
+    }
+
+    /**
+     * @return The literal of each register
+     */
+    @NotNull
+    private int[] encode(@NotNull CompiledExpression program, int output) {
+        final int[] code = program.getCode();
+        final int[] polarities = polarities(code, output);
+        final int[] literals = new int[program.getNumberOfRegisters()];
+
+        for (int pc = 0, register = 0; pc < code.length; pc += CompiledExpression.INSTRUCTION_SIZE, register++) {
+            final int a = code[pc + 1], b = code[pc + 2];
+            final int polarity = polarities[register];
+            literals[register] = switch (code[pc]) {
+                case CompiledExpression.ATOMIC -> a + 1;
+                case CompiledExpression.AND -> and(literals[a], literals[b], polarity);
+                case CompiledExpression.OR -> -and(-literals[a], -literals[b], flip(polarity));
+                case CompiledExpression.IMPLICATION -> -and(literals[a], -literals[b], flip(polarity));
+                case CompiledExpression.NOT -> -literals[a];
+                case CompiledExpression.FALSE -> falseLiteral();
+                default -> throw new IllegalStateException("Unknown opcode " + code[pc]);
+            };
+        }
+        return literals;
+    }
+
+    /**
+     * Finds if each register is used where it must be true, false or both, starting at the output.
+     * The operands of a register are always before it.
+     */
+    @NotNull
+    private int[] polarities(@NotNull int[] code, int output) {
+        final int[] polarities = new int[code.length / CompiledExpression.INSTRUCTION_SIZE];
+        if (encoding == CnfEncoding.TSEITIN) {
+            Arrays.fill(polarities, POSITIVE | NEGATIVE);
+            return polarities;
+        }
+        polarities[output] = POSITIVE;
+        for (int register = output; register >= 0; register--) {
+            final int pc = register * CompiledExpression.INSTRUCTION_SIZE;
+            final int polarity = polarities[register];
+            final int a = code[pc + 1], b = code[pc + 2];
+            switch (code[pc]) {
+                case CompiledExpression.AND, CompiledExpression.OR -> {
+                    polarities[a] |= polarity;
+                    polarities[b] |= polarity;
+                }
+                case CompiledExpression.IMPLICATION -> {
+                    polarities[a] |= flip(polarity);
+                    polarities[b] |= polarity;
+                }
+                case CompiledExpression.NOT -> polarities[a] |= flip(polarity);
+                default -> {
+                }
+            }
+        }
+        return polarities;
+    }
+
+    private static int flip(int polarity) {
+        return (polarity & POSITIVE) << 1 | (polarity & NEGATIVE) >> 1;
+    }
+
+    /**
+     * @return A new literal 'x', where x ➔ a ⋀ b if it is positive, and a ⋀ b ➔ x if it is negative
+     */
+    private int and(int a, int b, int polarity) {
+        final int x = ++numberOfVariables;
+        if ((polarity & POSITIVE) != 0) {
+            addClause(-x, a);
+            addClause(-x, b);
+        }
+        if ((polarity & NEGATIVE) != 0) {
+            addClause(x, -a, -b);
+        }
+        return x;
+    }
+
+    private int falseLiteral() {
+        if (falseLiteral == 0) {
+            falseLiteral = ++numberOfVariables;
+            addClause(-falseLiteral);
+        }
+        return falseLiteral;
+    }
+
+    private void addClause(int a) {
+        ensureCapacity(2);
+        arena[size++] = a;
+        arena[size++] = 0;
+        numberOfClauses++;
+    }
+
+    private void addClause(int a, int b) {
+        ensureCapacity(3);
+        arena[size++] = a;
+        arena[size++] = b;
+        arena[size++] = 0;
+        numberOfClauses++;
+    }
+
+    private void addClause(int a, int b, int c) {
+        ensureCapacity(4);
+        arena[size++] = a;
+        arena[size++] = b;
+        arena[size++] = c;
+        arena[size++] = 0;
+        numberOfClauses++;
+    }
+
+    private void ensureCapacity(int literals) {
+        if (size + literals > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, size + literals));
+        }
+    }
+}
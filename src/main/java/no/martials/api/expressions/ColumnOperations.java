@@ -0,0 +1,56 @@
+package no.martials.api.expressions;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Combines packed columns word by word. The vector implementation is used when the incubating vector module is
+ * present, unless the system property 'martials.vector' is false, otherwise the scalar implementation is used.
+ * <p>
+ * The module is added by Maven when the tests or {@code spring-boot:run} are run. A war that is deployed to a standalone
+ * Tomcat only gets it from the JVM options of that server, eg: {@code CATALINA_OPTS="--add-modules jdk.incubator.vector"}
+ * in {@code bin/setenv.sh}. Without it the scalar implementation is used. The choice is logged when the first
+ * expression is evaluated.
+ */
+interface ColumnOperations {
+
+    /**
+     * Set to false to always use the scalar implementation
+     */
+    String VECTOR_PROPERTY = "martials.vector";
+    String VECTOR_MODULE = "jdk.incubator.vector";
+
+    void and(@NotNull long[] a, @NotNull long[] b, @NotNull long[] dst, int words);
+
+    void or(@NotNull long[] a, @NotNull long[] b, @NotNull long[] dst, int words);
+
+    void implication(@NotNull long[] a, @NotNull long[] b, @NotNull long[] dst, int words);
+
+    void not(@NotNull long[] a, @NotNull long[] dst, int words);
+
+    /**
+     * @return The vector implementation if the vector module is present, otherwise the scalar implementation
+     */
+    @NotNull
+    static ColumnOperations select() {
+        final Logger log = LoggerFactory.getLogger(ColumnOperations.class);
+
+        if (Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true")) &&
+                ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                // Loaded by name, so the vector classes are never linked when the module is missing
+                final ColumnOperations operations = (ColumnOperations) Class
+                        .forName("no.martials.api.expressions.VectorColumnOperations")
+                        .getDeclaredConstructor()
+                        .newInstance();
+                log.info("Using vector column operations: {}", operations);
+                return operations;
+            }
+            catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("Vector column operations are not available, using scalar operations", e);
+            }
+        }
+        return new ScalarColumnOperations();
+    }
+}
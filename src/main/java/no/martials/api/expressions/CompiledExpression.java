@@ -0,0 +1,304 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Operator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One or more expressions compiled to a flat list of instructions.
+ * Each instruction is an opcode followed by two operand slots, and writes its result to the register with the same
+ * index as the instruction. The operands are the indexes of the registers it reads.
+ * A register holds packed truth values, so every instruction evaluates 64 rows per word with no recursion.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class CompiledExpression {
+
+    /**
+     * Loads the values of the atomic value with the index in the first slot
+     */
+    static final int ATOMIC = 0;
+    static final int AND = 1;
+    static final int OR = 2;
+    static final int IMPLICATION = 3;
+    static final int NOT = 4;
+    /**
+     * Loads false, used for missing children
+     */
+    static final int FALSE = 5;
+
+    static final int INSTRUCTION_SIZE = 3;
+
+    /**
+     * Combines the registers when a range of rows is evaluated, uses vectors if the vector module is present
+     */
+    private static final ColumnOperations OPERATIONS = ColumnOperations.select();
+
+    /**
+     * The repeating bit patterns of an atomic value that changes every 2^p rows, for p < 6
+     */
+    private static final long[] PATTERNS = {
+            0x5555555555555555L,
+            0x3333333333333333L,
+            0x0F0F0F0F0F0F0F0FL,
+            0x00FF00FF00FF00FFL,
+            0x0000FFFF0000FFFFL,
+            0x00000000FFFFFFFFL
+    };
+
+    @NotNull
+    private final int[] code;
+    @NotNull
+    private final int[] outputs;
+    @NotNull
+    private final String[] atomics;
+
+    private CompiledExpression(@NotNull int[] code, @NotNull int[] outputs, @NotNull String[] atomics) {
+        this.code = code;
+        this.outputs = outputs;
+        this.atomics = atomics;
+    }
+
+    /**
+     * Compiles the expressions to a single program, subexpressions that are the same object are only compiled once.
+     * The atomic values are numbered in the order they appear, atomic values that are not inverted are numbered first.
+     *
+     * @param expressions The expressions to compile, each will be an output of the program
+     * @return The compiled program
+     */
+    @NotNull
+    public static CompiledExpression compile(@NotNull Expression... expressions) {
+        return new Compiler(expressions).compile();
+    }
+
+    /**
+     * Evaluates all the instructions for a range of rows, the atomic values are derived from the bits of the row index.
+     * The atomic value with index 'k' is true in row 'r', if the bit '(n - 1 - k)' of 'r' is 0.
+     *
+     * @param registers The registers to write to, each must have room for the given number of words
+     * @param firstWord The index of the first word, the first row is 'firstWord * 64'
+     * @param words     The number of words to evaluate
+     */
+    public void evaluate(@NotNull long[][] registers, long firstWord, int words) {
+        for (int pc = 0, register = 0; pc < code.length; pc += INSTRUCTION_SIZE, register++) {
+            final long[] dst = registers[register];
+
+            switch (code[pc]) {
+                case ATOMIC -> {
+                    final int bit = atomics.length - 1 - code[pc + 1];
+                    for (int i = 0; i < words; i++) {
+                        dst[i] = atomicWord(bit, firstWord + i);
+                    }
+                }
+                case AND -> OPERATIONS.and(registers[code[pc + 1]], registers[code[pc + 2]], dst, words);
+                case OR -> OPERATIONS.or(registers[code[pc + 1]], registers[code[pc + 2]], dst, words);
+                case IMPLICATION -> OPERATIONS.implication(registers[code[pc + 1]], registers[code[pc + 2]], dst, words);
+                case NOT -> OPERATIONS.not(registers[code[pc + 1]], dst, words);
+                case FALSE -> Arrays.fill(dst, 0, words, 0L);
+                default -> throw new IllegalStateException("Unknown opcode " + code[pc]);
+            }
+        }
+    }
+
+    /**
+     * Evaluates all the instructions for up to 64 given assignments of the atomic values
+     *
+     * @param atomicValues The values of each atomic value, bit 'i' belongs to assignment 'i'
+     * @param registers    The registers to write to, one word per register
+     */
+    public void evaluate(@NotNull long[] atomicValues, @NotNull long[] registers) {
+        for (int pc = 0, register = 0; pc < code.length; pc += INSTRUCTION_SIZE, register++) {
+            registers[register] = switch (code[pc]) {
+                case ATOMIC -> atomicValues[code[pc + 1]];
+                case AND -> registers[code[pc + 1]] & registers[code[pc + 2]];
+                case OR -> registers[code[pc + 1]] | registers[code[pc + 2]];
+                case IMPLICATION -> ~registers[code[pc + 1]] | registers[code[pc + 2]];
+                case NOT -> ~registers[code[pc + 1]];
+                case FALSE -> 0L;
+                default -> throw new IllegalStateException("Unknown opcode " + code[pc]);
+            };
+        }
+    }
+
+    /**
+     * @param bit  The bit of the row index that determines the value
+     * @param word The index of the word
+     * @return The 64 values of an atomic value, starting at row 'word * 64'
+     */
+    static long atomicWord(int bit, long word) {
+        if (bit < PATTERNS.length) {
+            return PATTERNS[bit];
+        }
+        return (word >>> (bit - PATTERNS.length) & 1) == 0 ? -1L : 0L;
+    }
+
+    /**
+     * @param words The number of words in each register
+     * @return Empty registers for this program
+     */
+    @NotNull
+    public long[][] newRegisters(int words) {
+        return new long[getNumberOfRegisters()][words];
+    }
+
+    /**
+     * @param output The index of the compiled expression
+     * @return The register that holds the values of the expression
+     */
+    public int getOutput(int output) {
+        return outputs[output];
+    }
+
+    public int getNumberOfOutputs() {
+        return outputs.length;
+    }
+
+    public int getNumberOfRegisters() {
+        return code.length / INSTRUCTION_SIZE;
+    }
+
+    public int getNumberOfAtomics() {
+        return atomics.length;
+    }
+
+    /**
+     * @return The atomic values ordered by their index
+     */
+    @NotNull
+    public String[] getAtomics() {
+        return atomics.clone();
+    }
+
+    @NotNull
+    int[] getCode() {
+        return code;
+    }
+
+    /**
+     * The instructions and the output register without the names of the atomic values,
+     * so expressions with the same structure have the same form, example: A ⋀ B and C ⋀ D
+     *
+     * @param output The index of the output
+     * @return A string that is equal for programs that compute the same output the same way
+     */
+    @NotNull
+    String canonicalForm(int output) {
+        final StringBuilder s = new StringBuilder(code.length * 2);
+        for (int instruction : code) {
+            s.append(instruction).append(',');
+        }
+        return s.append("n=").append(atomics.length).append(",out=").append(outputs[output]).toString();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder s = new StringBuilder("CompiledExpression{");
+        for (int pc = 0; pc < code.length; pc += INSTRUCTION_SIZE) {
+            s.append("\n\tr").append(pc / INSTRUCTION_SIZE).append(" = ");
+            switch (code[pc]) {
+                case ATOMIC -> s.append(atomics[code[pc + 1]]);
+                case AND -> s.append('r').append(code[pc + 1]).append(" ⋀ r").append(code[pc + 2]);
+                case OR -> s.append('r').append(code[pc + 1]).append(" ⋁ r").append(code[pc + 2]);
+                case IMPLICATION -> s.append('r').append(code[pc + 1]).append(" ➔ r").append(code[pc + 2]);
+                case NOT -> s.append("¬r").append(code[pc + 1]);
+                case FALSE -> s.append("false");
+            }
+        }
+        return s.append("\n} outputs=").append(Arrays.toString(outputs)).toString();
+    }
+
+    private static final class Compiler {
+
+        @NotNull
+        private final Expression[] expressions;
+        @NotNull
+        private final Map<String, Integer> atomics = new LinkedHashMap<>();
+        @NotNull
+        private final Map<String, Integer> atomicRegisters = new LinkedHashMap<>();
+        @NotNull
+        private final Map<Expression, Integer> registers = new IdentityHashMap<>();
+        @NotNull
+        private final List<Integer> code = new ArrayList<>();
+        private int falseRegister = -1;
+
+        private Compiler(@NotNull Expression[] expressions) {
+            this.expressions = expressions;
+        }
+
+        @NotNull
+        private CompiledExpression compile() {
+            for (Expression exp : expressions) {
+                if (exp.isAtomic() && !exp.isInverse()) {
+                    atomics.putIfAbsent(exp.getAtomic(), atomics.size());
+                }
+            }
+            final int[] outputs = new int[expressions.length];
+            for (int i = 0; i < expressions.length; i++) {
+                outputs[i] = compile(expressions[i]);
+            }
+            return new CompiledExpression(
+                    code.stream().mapToInt(Integer::intValue).toArray(),
+                    outputs,
+                    atomics.keySet().toArray(String[]::new));
+        }
+
+        /**
+         * @param exp The expression to compile
+         * @return The register with the result of the expression
+         */
+        private int compile(@Nullable Expression exp) {
+            if (exp == null) {
+                if (falseRegister == -1) {
+                    falseRegister = emit(FALSE, 0, 0);
+                }
+                return falseRegister;
+            }
+            final Integer existing = registers.get(exp);
+            if (existing != null) {
+                return existing;
+            }
+
+            int result;
+            if (exp.isAtomic()) {
+                final int atomic = atomics.computeIfAbsent(exp.getAtomic(), k -> atomics.size());
+                result = atomicRegisters.computeIfAbsent(exp.getAtomic(), k -> emit(ATOMIC, atomic, 0));
+            }
+            else if (exp.getOperator() == null) {
+                result = compile(exp.getLeft());
+            }
+            else {
+                final int left = compile(exp.getLeft());
+                final int right = compile(exp.getRight());
+                result = emit(opcode(exp.getOperator()), left, right);
+            }
+            if (exp.isInverse()) {
+                result = emit(NOT, result, 0);
+            }
+            registers.put(exp, result);
+            return result;
+        }
+
+        private static int opcode(@NotNull Operator operator) {
+            return switch (operator) {
+                case AND -> AND;
+                case OR -> OR;
+                case IMPLICATION -> IMPLICATION;
+                case NOT -> NOT;
+            };
+        }
+
+        private int emit(int opcode, int a, int b) {
+            code.add(opcode);
+            code.add(a);
+            code.add(b);
+            return code.size() / INSTRUCTION_SIZE - 1;
+        }
+    }
+}
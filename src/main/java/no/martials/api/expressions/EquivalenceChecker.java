@@ -0,0 +1,100 @@
+package no.martials.api.expressions;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Checks if two expressions have the same value for every assignment of the atomic values, without creating a table.
+ * Small expressions are evaluated 64 rows at a time, and the words of the two expressions are compared with 'xor'.
+ * Larger expressions are built in a shared decision diagram, where equivalent functions are the same node.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class EquivalenceChecker {
+
+    /**
+     * The max number of atomic values where the truth tables are compared, instead of decision diagrams
+     */
+    static final int MAX_TABLE_ATOMICS = 16;
+    /**
+     * The max number of nodes in the decision diagram of one comparison, about 36 MB
+     */
+    static final int MAX_NODES = 1 << 20;
+
+    private EquivalenceChecker() {
+    }
+
+    /**
+     * @return True if the expressions are equivalent
+     * @throws IllegalStateException If the decision diagram needs more than the max number of nodes
+     */
+    public static boolean isEquivalent(@NotNull Expression expression, @NotNull Expression other) {
+        return counterexample(expression, other) == null;
+    }
+
+    /**
+     * @return The value of each atomic value in an assignment where the expressions have different values,
+     * or null if the expressions are equivalent. The atomic values are in the order they appear.
+     * @throws IllegalStateException If the decision diagram needs more than the max number of nodes
+     */
+    @Nullable
+    public static Map<String, Boolean> counterexample(@NotNull Expression expression, @NotNull Expression other) {
+        final CompiledExpression program = CompiledExpression.compile(expression, other);
+        final boolean[] assignment = program.getNumberOfAtomics() > MAX_TABLE_ATOMICS ?
+                counterexampleBdd(program) : counterexampleTable(program);
+        if (assignment == null) {
+            return null;
+        }
+        final String[] atomics = program.getAtomics();
+        final Map<String, Boolean> values = new LinkedHashMap<>();
+        for (int atomic = 0; atomic < atomics.length; atomic++) {
+            values.put(atomics[atomic], assignment[atomic]);
+        }
+        return values;
+    }
+
+    /**
+     * @return The first row where the outputs differ, as the value of each atomic value
+     */
+    @Nullable
+    static boolean[] counterexampleTable(@NotNull CompiledExpression program) {
+        final int atomics = program.getNumberOfAtomics();
+        // Fewer than 6 atomic values repeat the same rows in one word
+        final int words = atomics < 6 ? 1 : 1 << atomics - 6;
+        final long mask = atomics < 6 ? (1L << (1 << atomics)) - 1 : -1L;
+        final long[][] registers = program.newRegisters(words);
+        program.evaluate(registers, 0, words);
+
+        final long[] values = registers[program.getOutput(0)];
+        final long[] otherValues = registers[program.getOutput(1)];
+        for (int word = 0; word < words; word++) {
+            final long difference = (values[word] ^ otherValues[word]) & mask;
+            if (difference != 0) {
+                final long row = (long) word * Long.SIZE + Long.numberOfTrailingZeros(difference);
+                final boolean[] assignment = new boolean[atomics];
+                // The atomic value with index 'k' is true if the bit 'n - 1 - k' of the row is 0
+                for (int atomic = 0; atomic < atomics; atomic++) {
+                    assignment[atomic] = (row >>> (atomics - 1 - atomic) & 1) == 0;
+                }
+                return assignment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return An assignment that satisfies the 'xor' of the outputs
+     */
+    @Nullable
+    static boolean[] counterexampleBdd(@NotNull CompiledExpression program) {
+        final Bdd bdd = new Bdd(program.getNumberOfAtomics(), MAX_NODES);
+        final int[] functions = bdd.build(program);
+        if (functions[0] == functions[1]) {
+            return null;
+        }
+        return bdd.satisfyingAssignment(bdd.ite(functions[0], bdd.not(functions[1]), functions[1]));
+    }
+}
@@ -0,0 +1,433 @@
+package no.martials.api.expressions;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Finds a small sum of products of an expression with many atomic values, without creating the truth table.
+ * The cover is a list of cubes that starts as the paths to true in a {@link Bdd} of the expression, and is improved
+ * with the loop of Espresso: expand each cube as much as possible, remove the cubes that are covered by the others,
+ * and reduce each cube to the part that only it covers, until the cover stops improving or the budget is used.
+ * The result is not always minimal, see {@link QuineMcCluskey} for expressions with fewer atomic values.
+ * <p>
+ * A cube is a pair of longs, a mask and a value, with the same bits as the implicants of {@link QuineMcCluskey}.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class EspressoMinimizer {
+
+    /**
+     * The max number of atomic values
+     */
+    public static final int MAX_ATOMICS = 32;
+    public static final int DEFAULT_MAX_ITERATIONS = 16;
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 200;
+    /**
+     * The max number of cubes in the first cover, expressions with more paths are not minimized
+     */
+    static final int MAX_CUBES = 1 << 14;
+    /**
+     * The max number of nodes in the diagram, the loop stops when there are more
+     */
+    private static final int MAX_NODES = 1 << 20;
+
+    private final int maxIterations;
+    private final long timeBudgetMillis;
+
+    /**
+     * @param maxIterations    The max number of times the cover is reduced and expanded again, 0 only expands once
+     * @param timeBudgetMillis The time after which the best cover so far is used
+     */
+    public EspressoMinimizer(int maxIterations, long timeBudgetMillis) {
+        if (maxIterations < 0) {
+            throw new IllegalArgumentException("Max iterations must not be negative");
+        }
+        else if (timeBudgetMillis < 1) {
+            throw new IllegalArgumentException("Time budget must be greater than 0");
+        }
+        this.maxIterations = maxIterations;
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * A minimizer with the default iterations and time budget
+     */
+    public EspressoMinimizer() {
+        this(DEFAULT_MAX_ITERATIONS, DEFAULT_TIME_BUDGET_MILLIS);
+    }
+
+    /**
+     * @param expression    The expression to minimize
+     * @param caseSensitive Whether or not the atomic values of the result are case sensitive
+     * @return An equivalent sum of products, or the expression itself if it has too many paths to minimize
+     * @throws IllegalArgumentException If the expression has more than {@link #MAX_ATOMICS} atomic values
+     */
+    @NotNull
+    public Expression minimize(@NotNull Expression expression, boolean caseSensitive) {
+        final CompiledExpression program = CompiledExpression.compile(expression);
+        if (program.getNumberOfAtomics() > MAX_ATOMICS) {
+            throw new IllegalArgumentException("Expression must not have more than " + MAX_ATOMICS + " atomic values");
+        }
+        final long[] cover = minimize(program);
+        return cover != null ? QuineMcCluskey.toExpression(cover, program.getAtomics(), caseSensitive) : expression;
+    }
+
+    /**
+     * @return The cubes of the cover, or null if the first cover is too large
+     */
+    @Nullable
+    long[] minimize(@NotNull CompiledExpression program) {
+        final Bdd bdd = new Bdd(program.getNumberOfAtomics(), MAX_NODES);
+        final int function;
+        try {
+            function = bdd.build(program)[0];
+        }
+        catch (IllegalStateException e) {
+            return null;
+        }
+        final Cover cover = new Cover(bdd, function, System.nanoTime() + timeBudgetMillis * 1_000_000);
+        if (!cover.paths()) {
+            return null;
+        }
+
+        long[] best = null;
+        try {
+            cover.expand();
+            cover.irredundant();
+            best = cover.toArray();
+
+            for (int iteration = 0; iteration < maxIterations && !cover.isOverBudget(); iteration++) {
+                cover.reduce();
+                cover.expand();
+                cover.irredundant();
+                if (!cover.isBetterThan(best)) {
+                    break;
+                }
+                best = cover.toArray();
+            }
+        }
+        catch (IllegalStateException e) {
+            // The diagram is full, the last complete cover is used
+        }
+        return best != null ? best : cover.toArray();
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "EspressoMinimizer{" +
+                "maxIterations=" + maxIterations +
+                ", timeBudgetMillis=" + timeBudgetMillis +
+                '}';
+    }
+
+    /**
+     * A list of cubes that together are the function. Every cube is an implicant of the function,
+     * so each step can stop when the time is up and the cubes are still a cover.
+     */
+    private static final class Cover {
+
+        @NotNull
+        private final Bdd bdd;
+        private final int function;
+        private final int atomics;
+        private final long deadline;
+
+        @NotNull
+        private long[] masks = new long[16];
+        @NotNull
+        private long[] values = new long[16];
+        private int size;
+
+        /**
+         * Marks the nodes that have been checked by {@link #contains(int, long, long)}, with the result
+         */
+        @NotNull
+        private int[] visited = new int[0];
+        @NotNull
+        private boolean[] results = new boolean[0];
+        private int visit;
+
+        private Cover(@NotNull Bdd bdd, int function, long deadline) {
+            this.bdd = bdd;
+            this.function = function;
+            this.atomics = bdd.getNumberOfVariables();
+            this.deadline = deadline;
+        }
+
+        private boolean isOverBudget() {
+            return System.nanoTime() - deadline > 0;
+        }
+
+        /**
+         * Adds a cube for each path to true, the paths do not overlap
+         *
+         * @return False if there are more than {@link #MAX_CUBES} paths
+         */
+        private boolean paths() {
+            if (paths(function, new long[bdd.size()]) > MAX_CUBES) {
+                return false;
+            }
+            addPaths(function, 0, 0);
+            return true;
+        }
+
+        private long paths(int node, long[] counts) {
+            if (node == Bdd.TRUE || node == Bdd.FALSE) {
+                return node;
+            }
+            if (counts[node] == 0) {
+                counts[node] = Math.min(paths(bdd.getLow(node), counts) + paths(bdd.getHigh(node), counts), MAX_CUBES + 1);
+            }
+            return counts[node];
+        }
+
+        private void addPaths(int node, long mask, long value) {
+            if (node == Bdd.TRUE) {
+                add(mask, value);
+            }
+            else if (node != Bdd.FALSE) {
+                final long bit = bit(bdd.getVariable(node));
+                addPaths(bdd.getLow(node), mask | bit, value | bit);
+                addPaths(bdd.getHigh(node), mask | bit, value);
+            }
+        }
+
+        /**
+         * Removes as many literals from each cube as possible, starting with the largest cubes.
+         * The literals that are missing from the most cubes are removed first, and cubes that are contained in an
+         * expanded cube are removed.
+         */
+        private void expand() {
+            sortByLiterals(true);
+            final int[] missing = new int[atomics];
+            for (int cube = 0; cube < size; cube++) {
+                for (int atomic = 0; atomic < atomics; atomic++) {
+                    if ((masks[cube] & bit(atomic)) == 0) {
+                        missing[atomic]++;
+                    }
+                }
+            }
+            final Integer[] order = new Integer[atomics];
+            Arrays.setAll(order, atomic -> atomic);
+            Arrays.sort(order, (a, b) -> missing[b] - missing[a]);
+
+            final boolean[] removed = new boolean[size];
+            for (int cube = 0; cube < size && !isOverBudget(); cube++) {
+                if (removed[cube]) {
+                    continue;
+                }
+                for (int atomic : order) {
+                    final long bit = bit(atomic);
+                    if ((masks[cube] & bit) != 0 && contains(function, masks[cube] & ~bit, values[cube] & ~bit)) {
+                        masks[cube] &= ~bit;
+                        values[cube] &= ~bit;
+                    }
+                }
+                for (int other = 0; other < size; other++) {
+                    if (other != cube && !removed[other] && containsCube(cube, other)) {
+                        removed[other] = true;
+                    }
+                }
+            }
+            removeAll(removed);
+        }
+
+        /**
+         * Removes the cubes that are covered by the rest of the cubes, starting with the smallest cubes
+         */
+        private void irredundant() {
+            sortByLiterals(false);
+            final int[] after = cubesAfter();
+            final boolean[] removed = new boolean[size];
+            int kept = Bdd.FALSE;
+
+            for (int cube = 0; cube < size && !isOverBudget(); cube++) {
+                final int others = bdd.or(kept, after[cube + 1]);
+                if (contains(others, masks[cube], values[cube])) {
+                    removed[cube] = true;
+                }
+                else {
+                    kept = bdd.or(kept, cube(masks[cube], values[cube]));
+                }
+            }
+            removeAll(removed);
+        }
+
+        /**
+         * Replaces each cube with the smallest cube that contains the part of the function only it covers,
+         * starting with the largest cubes. A cube that covers nothing alone is removed.
+         */
+        private void reduce() {
+            sortByLiterals(true);
+            final int[] after = cubesAfter();
+            final boolean[] removed = new boolean[size];
+            int reduced = Bdd.FALSE;
+
+            for (int cube = 0; cube < size && !isOverBudget(); cube++) {
+                final int only = bdd.and(cube(masks[cube], values[cube]), bdd.not(bdd.or(reduced, after[cube + 1])));
+                if (only == Bdd.FALSE) {
+                    removed[cube] = true;
+                    continue;
+                }
+                for (int atomic = 0; atomic < atomics; atomic++) {
+                    final long bit = bit(atomic);
+                    if ((masks[cube] & bit) == 0) {
+                        final int variable = bdd.variable(atomic);
+                        if (bdd.and(only, variable) == Bdd.FALSE) {
+                            masks[cube] |= bit;
+                            values[cube] |= bit;
+                        }
+                        else if (bdd.and(only, bdd.not(variable)) == Bdd.FALSE) {
+                            masks[cube] |= bit;
+                        }
+                    }
+                }
+                reduced = bdd.or(reduced, cube(masks[cube], values[cube]));
+            }
+            removeAll(removed);
+        }
+
+        /**
+         * @return The function of the cubes from each index to the end, the last is false
+         */
+        @NotNull
+        private int[] cubesAfter() {
+            final int[] after = new int[size + 1];
+            after[size] = Bdd.FALSE;
+            for (int cube = size - 1; cube >= 0; cube--) {
+                after[cube] = bdd.or(cube(masks[cube], values[cube]), after[cube + 1]);
+            }
+            return after;
+        }
+
+        /**
+         * @return The function of the cube, built from the last atomic value so each node is created directly
+         */
+        private int cube(long mask, long value) {
+            int node = Bdd.TRUE;
+            for (int atomic = atomics - 1; atomic >= 0; atomic--) {
+                final long bit = bit(atomic);
+                if ((mask & bit) != 0) {
+                    final int variable = bdd.variable(atomic);
+                    node = (value & bit) == 0 ? bdd.ite(variable, node, Bdd.FALSE) : bdd.ite(variable, Bdd.FALSE, node);
+                }
+            }
+            return node;
+        }
+
+        /**
+         * @return True if every assignment in the cube makes the function true
+         */
+        private boolean contains(int node, long mask, long value) {
+            if (visited.length < bdd.size()) {
+                visited = Arrays.copyOf(visited, bdd.size() * 2);
+                results = Arrays.copyOf(results, bdd.size() * 2);
+            }
+            visit++;
+            return contains(node, mask, value, visit);
+        }
+
+        private boolean contains(int node, long mask, long value, int visit) {
+            if (node == Bdd.TRUE || node == Bdd.FALSE) {
+                return node == Bdd.TRUE;
+            }
+            if (visited[node] != visit) {
+                final long bit = bit(bdd.getVariable(node));
+                final boolean result;
+                if ((mask & bit) != 0) {
+                    result = contains((value & bit) == 0 ? bdd.getHigh(node) : bdd.getLow(node), mask, value, visit);
+                }
+                else {
+                    result = contains(bdd.getLow(node), mask, value, visit) && contains(bdd.getHigh(node), mask, value, visit);
+                }
+                visited[node] = visit;
+                results[node] = result;
+            }
+            return results[node];
+        }
+
+        /**
+         * @return True if the first cube contains the second cube
+         */
+        private boolean containsCube(int cube, int other) {
+            return (masks[cube] & ~masks[other]) == 0 && ((values[cube] ^ values[other]) & masks[cube]) == 0;
+        }
+
+        private boolean isBetterThan(@NotNull long[] cover) {
+            if (size != cover.length / 2) {
+                return size < cover.length / 2;
+            }
+            int literals = 0, coverLiterals = 0;
+            for (int cube = 0; cube < size; cube++) {
+                literals += Long.bitCount(masks[cube]);
+                coverLiterals += Long.bitCount(cover[cube * 2]);
+            }
+            return literals < coverLiterals;
+        }
+
+        /**
+         * The bit of the atomic value, the same as the bit in the row index of a table
+         */
+        private long bit(int atomic) {
+            return 1L << atomics - 1 - atomic;
+        }
+
+        private void add(long mask, long value) {
+            if (size == masks.length) {
+                masks = Arrays.copyOf(masks, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            masks[size] = mask;
+            values[size] = value;
+            size++;
+        }
+
+        private void removeAll(@NotNull boolean[] removed) {
+            int kept = 0;
+            for (int cube = 0; cube < size; cube++) {
+                if (!removed[cube]) {
+                    masks[kept] = masks[cube];
+                    values[kept] = values[cube];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+
+        /**
+         * Sorts the cubes by the number of literals, the fewest first if 'ascending'
+         */
+        private void sortByLiterals(boolean ascending) {
+            final long[][] cubes = new long[size][];
+            for (int cube = 0; cube < size; cube++) {
+                cubes[cube] = new long[] {masks[cube], values[cube]};
+            }
+            Arrays.sort(cubes, (a, b) -> ascending ?
+                    Long.bitCount(a[0]) - Long.bitCount(b[0]) : Long.bitCount(b[0]) - Long.bitCount(a[0]));
+            for (int cube = 0; cube < size; cube++) {
+                masks[cube] = cubes[cube][0];
+                values[cube] = cubes[cube][1];
+            }
+        }
+
+        @NotNull
+        private long[] toArray() {
+            final long[] cover = new long[size * 2];
+            for (int cube = 0; cube < size; cube++) {
+                cover[cube * 2] = masks[cube];
+                cover[cube * 2 + 1] = values[cube];
+            }
+            return cover;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package no.martials.api.expressions;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches generated evaluators by the canonical form of the expression, so expressions with the same structure share
+ * the same hidden class. An evaluator is only generated when an expression has been requested a number of times,
+ * before that the expression is interpreted.
+ * The evaluators are softly referenced, so the hidden classes can be unloaded when memory is low.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class EvaluatorCache {
+
+    /**
+     * Expressions are generated on the third request by default
+     */
+    public static final int DEFAULT_HOT_THRESHOLD = 3;
+    /**
+     * The max number of canonical forms that are counted, the cache is cleared when there are more
+     */
+    static final int MAX_ENTRIES = 4096;
+
+    private final int hotThreshold;
+    @NotNull
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+
+        private int requests;
+        @Nullable
+        private SoftReference<BitEvaluator> evaluator;
+    }
+
+    /**
+     * @param hotThreshold The number of requests before an evaluator is generated, 0 never generates evaluators
+     */
+    public EvaluatorCache(int hotThreshold) {
+        if (hotThreshold < 0) {
+            throw new IllegalArgumentException("Hot threshold must not be negative");
+        }
+        this.hotThreshold = hotThreshold;
+    }
+
+    /**
+     * Counts a request of the expression, and returns the generated evaluator if the expression is hot
+     *
+     * @param program The compiled expression
+     * @param output  The index of the output to evaluate
+     * @return The generated evaluator, or null if the expression should be interpreted
+     */
+    @Nullable
+    public BitEvaluator get(@NotNull CompiledExpression program, int output) {
+        if (hotThreshold == 0) {
+            return null;
+        }
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+        final Entry entry = entries.computeIfAbsent(program.canonicalForm(output), key -> new Entry());
+
+        synchronized (entry) {
+            if (entry.requests < hotThreshold) {
+                entry.requests++;
+            }
+            if (entry.requests < hotThreshold) {
+                return null;
+            }
+            BitEvaluator evaluator = entry.evaluator != null ? entry.evaluator.get() : null;
+            if (evaluator == null) {
+                evaluator = EvaluatorGenerator.generate(program, output);
+                entry.evaluator = new SoftReference<>(evaluator);
+            }
+            return evaluator;
+        }
+    }
+
+    public int getHotThreshold() {
+        return hotThreshold;
+    }
+
+    /**
+     * @return The number of canonical forms that have been requested
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "EvaluatorCache{" +
+                "hotThreshold=" + hotThreshold +
+                ", size=" + entries.size() +
+                '}';
+    }
+}
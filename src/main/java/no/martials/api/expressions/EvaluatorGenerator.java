@@ -0,0 +1,114 @@
+package no.martials.api.expressions;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Generates a hidden class for a compiled expression, with a straight line {@link BitEvaluator#eval(long[])} method.
+ * Each instruction becomes a few bytecodes that store the result in a local variable, so the JIT can inline the
+ * whole expression and keep the values in registers.
+ * The hidden classes are not strongly linked to the class loader, so they are unloaded when the evaluator is no longer
+ * referenced.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class EvaluatorGenerator {
+
+    private static final String CLASS_NAME = "no/martials/api/expressions/GeneratedEvaluator";
+    private static final String EVALUATOR = "no/martials/api/expressions/BitEvaluator";
+    /**
+     * Slot 0 is 'this' and slot 1 is the atomic values, each register is a long and uses two slots
+     */
+    private static final int FIRST_REGISTER_SLOT = 2;
+
+    private EvaluatorGenerator() {
+    }
+
+    /**
+     * @param program The compiled expression
+     * @param output  The index of the output to evaluate
+     * @return An evaluator of a new hidden class
+     * @throws IllegalStateException If the class could not be defined
+     */
+    @NotNull
+    public static BitEvaluator generate(@NotNull CompiledExpression program, int output) {
+        final byte[] bytes = generateClass(program, program.getOutput(output));
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (BitEvaluator) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        }
+        catch (Throwable e) {
+            throw new IllegalStateException("Could not define evaluator for " + program, e);
+        }
+    }
+
+    @NotNull
+    static byte[] generateClass(@NotNull CompiledExpression program, int outputRegister) {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V21, Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, CLASS_NAME, null, "java/lang/Object",
+                new String[] {EVALUATOR});
+
+        final MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        final MethodVisitor eval = writer.visitMethod(Opcodes.ACC_PUBLIC, "eval", "([J)J", null, null);
+        eval.visitCode();
+
+        final int[] code = program.getCode();
+        for (int pc = 0, register = 0; pc < code.length; pc += CompiledExpression.INSTRUCTION_SIZE, register++) {
+            final int a = code[pc + 1], b = code[pc + 2];
+
+            switch (code[pc]) {
+                case CompiledExpression.ATOMIC -> {
+                    eval.visitVarInsn(Opcodes.ALOAD, 1);
+                    eval.visitLdcInsn(a);
+                    eval.visitInsn(Opcodes.LALOAD);
+                }
+                case CompiledExpression.AND -> binary(eval, a, b, Opcodes.LAND);
+                case CompiledExpression.OR -> binary(eval, a, b, Opcodes.LOR);
+                case CompiledExpression.IMPLICATION -> {
+                    not(eval, a);
+                    eval.visitVarInsn(Opcodes.LLOAD, slot(b));
+                    eval.visitInsn(Opcodes.LOR);
+                }
+                case CompiledExpression.NOT -> not(eval, a);
+                case CompiledExpression.FALSE -> eval.visitInsn(Opcodes.LCONST_0);
+                default -> throw new IllegalStateException("Unknown opcode " + code[pc]);
+            }
+            eval.visitVarInsn(Opcodes.LSTORE, slot(register));
+        }
+        eval.visitVarInsn(Opcodes.LLOAD, slot(outputRegister));
+        eval.visitInsn(Opcodes.LRETURN);
+        eval.visitMaxs(0, 0);
+        eval.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void binary(@NotNull MethodVisitor eval, int a, int b, int opcode) {
+        eval.visitVarInsn(Opcodes.LLOAD, slot(a));
+        eval.visitVarInsn(Opcodes.LLOAD, slot(b));
+        eval.visitInsn(opcode);
+    }
+
+    private static void not(@NotNull MethodVisitor eval, int a) {
+        eval.visitVarInsn(Opcodes.LLOAD, slot(a));
+        eval.visitLdcInsn(-1L);
+        eval.visitInsn(Opcodes.LXOR);
+    }
+
+    private static int slot(int register) {
+        return FIRST_REGISTER_SLOT + register * 2;
+    }
+}
@@ -14,8 +14,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 @Schema(name = "Expression", description = "A tree structure that represents an expression, each node contains an operator and two expressions.")
 @SchemaProperties(value = {
@@ -38,6 +40,22 @@ public class Expression { // TODO move some of the logic it's own class and exte
     @Nullable
     private String atomic;
     private boolean caseSensitive;
+    /**
+     * The expression this is a child of, it is told when this is changed
+     */
+    @Nullable
+    private Expression parent;
+    /**
+     * The number of times this or an expression in it was changed
+     */
+    private int version;
+    /**
+     * The hash and the string are cached until this or an expression in it is changed
+     */
+    private boolean hashed;
+    private int hash;
+    @Nullable
+    private String string;
 
     private final Logger log = LoggerFactory.getLogger(Expression.class);
 
@@ -60,9 +78,9 @@ public class Expression { // TODO move some of the logic it's own class and exte
         assert operator != Operator.NOT : "Operator cannot be 'not'.";
 
         this.leading = leading;
-        this.left = left;
+        this.left = adopt(left);
         this.operator = operator;
-        this.right = right;
+        this.right = adopt(right);
         this.trailing = trailing;
         this.atomic = atomic;
         this.caseSensitive = caseSensitive;
@@ -101,7 +119,7 @@ public class Expression { // TODO move some of the logic it's own class and exte
             if (this == other) { // If they are the same object, return true
                 return true;
             }
-            if (!(other instanceof Expression otherExp)) {
+            if (!(other instanceof Expression otherExp) || hashCode() != otherExp.hashCode()) {
                 return false;
             }
 
@@ -112,13 +130,69 @@ public class Expression { // TODO move some of the logic it's own class and exte
             // If neither is atomic
             else if (operator != null && !(isAtomic() || otherExp.isAtomic()) && operator == otherExp.operator) {
 
-                return Objects.equals(leading, otherExp.leading) && (Objects.equals(left, otherExp.left) &&
-                        Objects.equals(right, otherExp.right) || Objects.equals(left, otherExp.right) && Objects.equals(right, otherExp.left));
+                return Objects.equals(leading, otherExp.leading) && hasSameChildren(otherExp);
             }
         }
         return false;
     }
 
+    /**
+     * The hash is the same as the hash of the {@link ExpressionNode} with the same structure,
+     * so the children of 'and' and 'or' can be swapped. It is cached until the expression is changed.
+     */
+    @Override
+    public int hashCode() {
+        if (!hashed) {
+            hash = computeHash();
+            hashed = true;
+        }
+        return hash;
+    }
+
+    private int computeHash() {
+        final int hash;
+        if (isAtomic()) {
+            hash = ExpressionNode.atomicHash(atomic);
+        }
+        else if (operator != null && left != null && right != null) {
+            hash = ExpressionNode.binaryHash(operator, left.hashCode(), right.hashCode());
+        }
+        else { // Only equal to itself
+            return System.identityHashCode(this);
+        }
+        return isInverse() ? ExpressionNode.negatedHash(hash) : hash;
+    }
+
+    /**
+     * Removes the cached values of this expression and the expressions it is in, and updates their versions
+     */
+    private void changed() {
+        for (Expression exp = this; exp != null; exp = exp.parent) {
+            exp.version++;
+            exp.hashed = false;
+            exp.string = null;
+        }
+    }
+
+    /**
+     * @return A number that is changed when this expression or an expression in it is changed
+     */
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * @param child The new child of this expression
+     * @return The child
+     */
+    @Nullable
+    private Expression adopt(@Nullable Expression child) {
+        if (child != null) {
+            child.parent = this;
+        }
+        return child;
+    }
+
     /**
      * @param other The other expression
      *              example: A & !A => true, A & A => false
@@ -136,8 +210,55 @@ public class Expression { // TODO move some of the logic it's own class and exte
                 operator != Operator.IMPLICATION && other.operator != Operator.IMPLICATION;
     }
 
+    /**
+     * @return True if this expression without negations equals the other expression
+     */
     private boolean comparePositiveEquals(@NotNull Expression other) {
-        return new Expression(left, operator, right, atomic).equals(other);
+        if (isAtomic()) {
+            return other.isAtomic() && Objects.equals(atomic, other.atomic) && !other.isInverse();
+        }
+        return operator != null && !other.isAtomic() && operator == other.operator && other.leading.isEmpty() &&
+                hasSameChildren(other);
+    }
+
+    /**
+     * Implications are not commutative, so the children can only be swapped for the other operators
+     *
+     * @return True if the children are equal, regardless of order
+     */
+    private boolean hasSameChildren(@NotNull Expression other) {
+        return Objects.equals(left, other.left) && Objects.equals(right, other.right) ||
+                operator != Operator.IMPLICATION && other.operator != Operator.IMPLICATION &&
+                        Objects.equals(left, other.right) && Objects.equals(right, other.left);
+    }
+
+    /**
+     * Unlike {@link #equalsAndOpposite(Expression)} the children of expressions that are not atomic are also compared
+     * example: A & B and ¬(B & A) => true, A & B and ¬(A | B) => false
+     *
+     * @param other The other expression
+     * @return True if the other expression is the same as this, except for the negation
+     */
+    private boolean isOpposite(@NotNull Expression other) {
+        if (isInverse() == other.isInverse()) {
+            return false;
+        }
+        else if (isAtomic() || other.isAtomic()) {
+            return isAtomic() && other.isAtomic() && Objects.equals(atomic, other.atomic);
+        }
+        return isAndOr() && operator == other.operator && hasSameChildren(other);
+    }
+
+    /**
+     * @return True if the expression has two children and the operator is 'and' or 'or'
+     */
+    private boolean isAndOr() {
+        return left != null && right != null && (operator == Operator.AND || operator == Operator.OR);
+    }
+
+    @NotNull
+    private static Operator dual(@Nullable Operator operator) {
+        return operator == Operator.AND ? Operator.OR : Operator.AND;
     }
 
     /**
@@ -145,46 +266,114 @@ public class Expression { // TODO move some of the logic it's own class and exte
      *
      * @param exp The expression the method compares to
      * @param law The previously used law
+     * @param operations The list the step is added to, or null if the steps are not recorded
      * @return {string} If the expression is changed, return the new toString() value of it, otherwise return the old
      */
     @NotNull
-    public String isChangedThenAdd(@NotNull String exp, @NotNull String law, List<OrderOperations> operations) {
-        if (!exp.equals(toString())) {
-            OrderOperations op = new OrderOperations(exp, toString(), law);
-            operations.add(op);
-            exp = toString();
+    public String isChangedThenAdd(@NotNull String exp, @NotNull String law, @Nullable List<OrderOperations> operations) {
+        return isChangedThenAdd(exp, law, StepRecorder.of(operations));
+    }
+
+    /**
+     * @param steps Receives the step, or null if the steps are not recorded
+     * @see #isChangedThenAdd(String, String, List)
+     */
+    @NotNull
+    public String isChangedThenAdd(@NotNull String exp, @NotNull String law, @Nullable StepRecorder steps) {
+        if (steps == null) { // The steps are not recorded
+            return exp;
+        }
+        final String after = toString();
+        if (!exp.equals(after)) {
+            steps.add(law, exp, after);
+            exp = after;
         }
         return exp;
     }
 
+    /**
+     * Only creates the string of the expression if the version of the expression has changed,
+     * and the steps are recorded with the expressions
+     *
+     * @param exp     The string of this expression when it had the given version, or empty if the steps are only counted
+     * @param version The version of this expression when the string was created
+     * @see #isChangedThenAdd(String, String, List)
+     */
+    @NotNull
+    private String isChangedThenAdd(@NotNull String exp, int version, @NotNull String law, @Nullable StepRecorder steps) {
+        if (steps == null || version == this.version) {
+            return exp;
+        }
+        else if (!steps.recordsExpressions()) {
+            steps.add(law, null, null);
+            return exp;
+        }
+        return isChangedThenAdd(exp, law, steps);
+    }
+
     /**
      * Calls all the laws then checks if the expression has been changed after
+     *
+     * @param operations The list the steps are added to, or null if the steps are not recorded
+     */
+    public void laws(@Nullable List<OrderOperations> operations, Language language) {
+        laws(StepRecorder.of(operations), language);
+    }
+
+    /**
+     * @param operations Receives the steps, or null if the steps are not recorded
+     * @see #laws(List, Language)
      */
-    public void laws(List<OrderOperations> operations, Language language) {
+    public void laws(@Nullable StepRecorder operations, Language language) {
         boolean isEnglish = language == Language.ENGLISH;
 
-        String exp = toString();
+        if (operations == null) {
+            eliminationOfImplication();
+            doubleNegation();
+            deMorgansLaws();
+            absorptionLaw();
+            associativeProperty();
+            distributiveProperty();
+            return;
+        }
+
+        String exp = operations.recordsExpressions() ? toString() : "";
+        int version = this.version;
         eliminationOfImplication();
-        exp = isChangedThenAdd(exp, isEnglish ? "Elimination of implication" : "Eliminering av implikasjon", operations);
+        exp = isChangedThenAdd(exp, version, isEnglish ? "Elimination of implication" : "Eliminering av implikasjon", operations);
+        version = this.version;
         doubleNegation();
-        exp = isChangedThenAdd(exp, isEnglish ? "Double negation" : "Dobbel negasjon", operations);
+        exp = isChangedThenAdd(exp, version, isEnglish ? "Double negation" : "Dobbel negasjon", operations);
+        version = this.version;
         deMorgansLaws();
-        exp = isChangedThenAdd(exp, isEnglish ? "De Morgan's Laws" : "De Morgans lover", operations);
+        exp = isChangedThenAdd(exp, version, isEnglish ? "De Morgan's Laws" : "De Morgans lover", operations);
+        version = this.version;
         absorptionLaw();
-        exp = isChangedThenAdd(exp, isEnglish ? "Absorption law" : "Absorpsjons loven", operations);
+        exp = isChangedThenAdd(exp, version, isEnglish ? "Absorption law" : "Absorpsjons loven", operations);
+        version = this.version;
         associativeProperty();
-        exp = isChangedThenAdd(exp, isEnglish ? "Associative property" : "Assosisative egenskaper", operations);
+        exp = isChangedThenAdd(exp, version, isEnglish ? "Associative property" : "Assosisative egenskaper", operations);
+        version = this.version;
         distributiveProperty();
-        isChangedThenAdd(exp, isEnglish ? "Distributivity" : "Distributivitet", operations);
+        isChangedThenAdd(exp, version, isEnglish ? "Distributivity" : "Distributivitet", operations);
     }
 
     /**
      * Removes unnecessary parentheses
      */
-    public void removeParenthesis(List<OrderOperations> operations) {
+    public void removeParenthesis(@Nullable List<OrderOperations> operations) {
+        removeParenthesis(StepRecorder.of(operations));
+    }
+
+    /**
+     * @param operations Receives the step, or null if the steps are not recorded
+     * @see #removeParenthesis(List)
+     */
+    public void removeParenthesis(@Nullable StepRecorder operations) {
 
         if (left != null && right != null) {
-            final String exp = toString();
+            final String exp = operations != null && operations.recordsExpressions() ? toString() : "";
+            final int version = this.version;
 
             if (operator == Operator.AND && !isInverse() || isAtomic()) {
                 removeLeadingAndTrailing();
@@ -211,7 +400,7 @@ public class Expression { // TODO move some of the logic it's own class and exte
                     right.removeLeadingAndTrailing();
                 }
             }
-            isChangedThenAdd(exp, "Removal of parentheses", operations);
+            isChangedThenAdd(exp, version, "Removal of parentheses", operations);
         }
     }
 
@@ -223,36 +412,33 @@ public class Expression { // TODO move some of the logic it's own class and exte
      */
     public void distributiveProperty() {
 
-        if (left != null && right != null && !eitherChildAtomic()) {
+        // Ex: (A & B) | (A & C), the children must use the other operator, and can not be negated
+        if (isAndOr() && left.isAndOr() && right.isAndOr() && !left.isInverse() && !right.isInverse() &&
+                left.operator == dual(operator) && right.operator == left.operator) {
 
-            // TODO clean up
-            if (left.left != null && left.right != null && right.left != null && right.right != null &&
-                    left.operator != operator) {
+            final Expression leftLeft = left.left;
+            final Expression leftRight = left.right;
+            final Expression rightLeft = right.left;
+            final Expression rightRight = right.right;
 
-                final String leftLeft = left.left.atomic;
-                final String leftRight = left.right.atomic;
-                final String rightLeft = right.left.atomic;
-                final String rightRight = right.right.atomic;
-
-                if (leftLeft != null && Objects.equals(leftLeft, rightLeft) && !Objects.equals(leftRight, rightRight)) {
-                    setObjects(left.right, right.right, left.left);
-                }
-                else if (leftLeft != null && Objects.equals(leftLeft, rightRight) && !Objects.equals(leftRight, rightLeft)) {
-                    setObjects(left.right, right.left, left.left);
-                }
-                else if (leftRight != null && Objects.equals(leftRight, rightLeft) && !Objects.equals(leftLeft, rightRight)) {
-                    setObjects(left.left, right.right, left.right);
-                }
-                else if (leftRight != null && Objects.equals(leftRight, rightRight) && !Objects.equals(leftLeft, rightLeft)) {
-                    setObjects(left.left, right.left, left.right);
-                }
+            if (leftLeft.isAtomic() && leftLeft.equals(rightLeft) && !leftRight.equals(rightRight)) {
+                setObjects(leftRight, rightRight, leftLeft);
+            }
+            else if (leftLeft.isAtomic() && leftLeft.equals(rightRight) && !leftRight.equals(rightLeft)) {
+                setObjects(leftRight, rightLeft, leftLeft);
+            }
+            else if (leftRight.isAtomic() && leftRight.equals(rightLeft) && !leftLeft.equals(rightRight)) {
+                setObjects(leftLeft, rightRight, leftRight);
+            }
+            else if (leftRight.isAtomic() && leftRight.equals(rightRight) && !leftLeft.equals(rightLeft)) {
+                setObjects(leftLeft, rightLeft, leftRight);
             }
         }
     }
 
     private void setObjects(@NotNull Expression left, @NotNull Expression right, @NotNull Expression common) {
-        this.right = new Expression(left, operator, right);
-        this.left = new Expression(common);
+        this.right = adopt(new Expression(left, operator, right));
+        this.left = adopt(new Expression(common));
         this.operator = operator == Operator.AND ? Operator.OR : Operator.AND;
 
         if (operator != Operator.AND) {
@@ -266,6 +452,8 @@ public class Expression { // TODO move some of the logic it's own class and exte
             this.right.leading = "(";
             this.right.trailing = ")";
         }
+        // After the parentheses are added, also changes this expression and the expressions it is in
+        this.right.changed();
     }
 
     private boolean noParentheses() {
@@ -279,7 +467,8 @@ public class Expression { // TODO move some of the logic it's own class and exte
      */
     public void deMorgansLaws() {
 
-        if (left != null && right != null) {
+        // The laws do not hold for implications
+        if (isAndOr()) {
             // Left and right side uses negation
             if (bothChildrenInverse()) {
                 Operator newOperator = null;
@@ -292,11 +481,14 @@ public class Expression { // TODO move some of the logic it's own class and exte
                 }
 
                 if (newOperator != null) {
-                    leading = "¬(";
+                    // The negation of the children cancels an existing negation
+                    final boolean inverse = isInverse();
+                    leading = inverse ? "" : "¬(";
                     left.removeNot();
                     operator = newOperator;
                     right.removeNot();
-                    trailing = ")";
+                    trailing = inverse ? "" : ")";
+                    changed();
                 }
             }
             // The entire expression uses negation
@@ -319,6 +511,7 @@ public class Expression { // TODO move some of the logic it's own class and exte
     private void flipOperatorAndRemoveLeadingAndTrailing() {
         removeLeadingAndTrailing();
         operator = operator == Operator.AND ? Operator.OR : Operator.AND;
+        changed();
 
         if (left != null && !left.isAtomic()) {
             left.removeLeadingAndTrailing();
@@ -329,8 +522,11 @@ public class Expression { // TODO move some of the logic it's own class and exte
     }
 
     private void removeLeadingAndTrailing() {
-        leading = "";
-        trailing = "";
+        if (!leading.isEmpty() || !trailing.isEmpty()) {
+            leading = "";
+            trailing = "";
+            changed();
+        }
     }
 
     private void setNot(@NotNull Expression remove, @NotNull Expression add) {
@@ -341,6 +537,7 @@ public class Expression { // TODO move some of the logic it's own class and exte
             add.leading += "(";
             add.trailing = ")";
         }
+        add.changed();
     }
 
     /**
@@ -365,7 +562,10 @@ public class Expression { // TODO move some of the logic it's own class and exte
      * Removes a single ¬ operator, with an empty string
      */
     private void removeNot() {
-        leading = leading.replace("¬", "");
+        if (leading.indexOf('¬') >= 0) {
+            leading = leading.replace("¬", "");
+            changed();
+        }
     }
 
     /**
@@ -376,17 +576,26 @@ public class Expression { // TODO move some of the logic it's own class and exte
     }
 
     /**
-     * example: B & A <=> A & B
+     * example: B & A <=> A & B, implications are not commutative and are never swapped
      *
      * @link <a href="https://en.wikipedia.org/wiki/Commutative_property">Wikipedia</a>
      */
-    public void commutativeProperty(List<OrderOperations> operations) {
+    public void commutativeProperty(@Nullable List<OrderOperations> operations) {
+        commutativeProperty(StepRecorder.of(operations));
+    }
+
+    /**
+     * @param operations Receives the step, or null if the steps are not recorded
+     * @see #commutativeProperty(List)
+     */
+    public void commutativeProperty(@Nullable StepRecorder operations) {
 
-        if (left != null && bothChildrenAtomic() && left.atomic.compareTo(right.atomic) >= 0) {
-            String exp = toString();
+        if (left != null && operator != Operator.IMPLICATION && bothChildrenAtomic() && left.atomic.compareTo(right.atomic) >= 0) {
+            final String exp = operations != null && operations.recordsExpressions() ? toString() : "";
+            final int version = this.version;
             if (!Objects.equals(left.atomic, right.atomic) || left.equalsAndOpposite(right) && !right.isInverse()) {
                 swapChildren();
-                isChangedThenAdd(exp, "Commutative", operations);
+                isChangedThenAdd(exp, version, "Commutative", operations);
             }
         }
     }
@@ -395,6 +604,7 @@ public class Expression { // TODO move some of the logic it's own class and exte
         Expression help = left;
         left = right;
         right = help;
+        changed();
         log.debug("Left and right child swapped");
     }
 
@@ -404,13 +614,9 @@ public class Expression { // TODO move some of the logic it's own class and exte
     public void eliminationOfImplication() {
 
         if (left != null && right != null && operator == Operator.IMPLICATION) {
-
-            if (!left.isAtomic() && left.noParentheses()) {
-                left.leading += "(";
-                left.trailing += ")";
-            }
-            left.leading = "¬" + left.leading;
+            left.negate();
             operator = Operator.OR;
+            changed();
         }
     }
 
@@ -421,134 +627,124 @@ public class Expression { // TODO move some of the logic it's own class and exte
      */
     public void absorptionLaw() {
 
-        if (left != null && right != null) {
-
-            // If both are atomic values
-            if (bothChildrenAtomic()) {
-                if (left.equals(right)) {
-                    removeRight();
-                }
+        if (!isAndOr()) {
+            return;
+        }
+        // Ex: A | A or (A & B) | (B & A)
+        if (left.equals(right)) {
+            removeRight();
+            if (!left.isInverse()) {
+                left.removeLeadingAndTrailing();
             }
-            else if (eitherChildAtomic()) { // If one is atomic eg: A | (A & B)
-
-                // TODO simplify
-
-                if (left.isAtomic()) {
-                    removeRedundant(left, right, false);
-                }
-                else { // Right is atomic
-                    removeRedundant(right, left, true);
+        }
+        else if (left.isAtomic()) { // If one is atomic eg: A | (A & B)
+            removeRedundant(left, right, false);
+        }
+        else if (right.isAtomic()) {
+            removeRedundant(right, left, true);
+        }
+        else if (left.isAndOr() && right.isAndOr()) {
+            final boolean negated = left.isInverse();
+
+            // Ex: (A | B) | (A & B), remove (A & B), or ¬(A | B) | ¬(A & B), remove ¬(A | B)
+            if (negated == right.isInverse() && left.hasSameChildren(right)) {
+                final Operator keep = negated ? dual(operator) : operator;
+                if (left.operator != keep && right.operator == keep) {
+                    left = right;
                 }
+                removeRight();
             }
-            else { // Neither of the expressions are atomic, eg: (A & B) | (A & B)
-                if (left.equals(right)) {
-                    if (!bothChildrenInverse() || bothChildrenInverse()) {
-                        removeRight();
-                    }
-                    if (!left.isInverse()) {
-                        left.removeLeadingAndTrailing();
-                    }
+            // Ex: (A | B) | (A | C) <=> A | B | C
+            else if (!negated && !right.isInverse() && left.operator == operator && right.operator == operator) {
+                if (right.left.equals(left.left) || right.left.equals(left.right)) {
+                    right.left = right.right;
+                    right.removeRight();
                 }
-                else {
-                    if (!left.equalsAndOpposite(right)) {
-
-                        final boolean leftLeftEqRightLeft = Objects.equals(left.left, right.left);
-                        final boolean leftRightEqRightRight = Objects.equals(left.right, right.right);
-                        final boolean leftLeftEqRightRight = Objects.equals(left.left, right.right);
-                        final boolean leftRightEqRightLeft = Objects.equals(left.right, right.left);
-
-                        // Ex: (A | B) | (A & B), remove (A & B)
-                        if (left.inverseEqual(right) &&
-                                (leftLeftEqRightLeft && leftRightEqRightRight || leftLeftEqRightRight && leftRightEqRightLeft)) {
-
-                            if (left.operator == Operator.AND) {
-                                left = right;
-                                removeRight();
-                            }
-                            else if (right.operator == Operator.AND) {
-                                removeRight();
-                            }
-                        }
-                        else if (left.operator == operator && right.operator == operator) {
-                            // Ex: (A | B) | (A | C) <=> A | B | C
-                            if (leftLeftEqRightLeft || leftRightEqRightLeft) {
-                                right.left = right.right;
-                                right.removeRight();
-                            }
-                            else if (leftLeftEqRightRight || leftRightEqRightRight) {
-                                right.removeRight();
-                            }
-                        }
-                    }
+                else if (right.right.equals(left.left) || right.right.equals(left.right)) {
+                    right.removeRight();
                 }
             }
         }
     }
 
+    /**
+     * Removes this operator and the right side, the negation of this expression is moved to the left side
+     */
     private void removeRight() {
         if (isInverse() && left != null) {
-            left.leading = "¬";
+            left.negate();
         }
         leading = "";
         operator = null;
         right = null;
         trailing = "";
+        changed();
     }
 
-    private boolean inverseEqual(@NotNull Expression other) {
-        return isInverse() == other.isInverse();
+    /**
+     * Removes the negation if the expression is negated, otherwise adds a negation and parentheses if needed
+     */
+    private void negate() {
+        if (isInverse()) {
+            removeNot();
+            return;
+        }
+        if (!isAtomic() && noParentheses()) {
+            leading += "(";
+            trailing += ")";
+        }
+        leading = "¬" + leading;
+        changed();
     }
 
     /**
-     * TODO Simplify
+     * A negated expression is the other operator used on the negated children,
+     * eg: ¬(A & B) <=> ¬A | ¬B, so 'A' is the opposite of a child of ¬(¬A & B)
+     *
+     * @param atomic          The atomic side of this expression
+     * @param other           The other side of this expression
+     * @param atomicIsOnRight True if the atomic side is the right side
      */
-    private void removeRedundant(@NotNull Expression left, @NotNull Expression right, boolean removeLeft) {
+    private void removeRedundant(@NotNull Expression atomic, @NotNull Expression other, boolean atomicIsOnRight) {
 
-        if (right.left != null && right.right != null) {
+        if (!other.isAndOr()) {
+            return;
+        }
+        final boolean negated = other.isInverse();
+        final Operator otherOperator = negated ? dual(other.operator) : other.operator;
 
-            boolean leftEqualsLeft = left.equals(right.left);
-            boolean leftEqualsRight = left.equals(right.right);
+        final boolean sameAsLeft = negated ? atomic.isOpposite(other.left) : atomic.equals(other.left);
+        final boolean sameAsRight = negated ? atomic.isOpposite(other.right) : atomic.equals(other.right);
 
-            // Remove the entire left side
-            if (operator == Operator.AND && right.left.equalsAndOpposite(right.right)) {
-                if (!removeLeft) {
-                    this.left = this.right;
-                }
-                removeRight();
-            }
-            // Removed the entire right side
-            else if ((operator == Operator.OR && right.operator == Operator.AND ||
-                    operator == Operator.AND && right.operator == Operator.OR) &&
-                    !right.isInverse() && (leftEqualsLeft || leftEqualsRight)) {
-                if (removeLeft) {
+        if (otherOperator != operator) {
+            final boolean oppositeOfLeft = negated ? atomic.equals(other.left) : atomic.isOpposite(other.left);
+            final boolean oppositeOfRight = negated ? atomic.equals(other.right) : atomic.isOpposite(other.right);
+
+            // Remove the other side, eg: A | (A & B) <=> A, or A & (B | ¬B) <=> A
+            if (sameAsLeft || sameAsRight || other.left.isOpposite(other.right)) {
+                if (atomicIsOnRight) {
                     this.left = this.right;
                 }
                 removeRight();
             }
-            // If right side is always false and operator is "or", remove right side (Ex: B | (A & ¬A) <=> B)
-            else if (operator == Operator.OR && right.left.equalsAndOpposite(right.right) && right.operator == Operator.AND) {
-                if (removeLeft) {
-                    this.left = this.right;
-                }
-                removeRight();
+            // Removes the left side of the other side, eg: A | (¬A & B) <=> A | B
+            else if (oppositeOfLeft) {
+                other.left = other.right;
+                other.removeRight();
             }
-            // Removes the left side of the right side
-            else {
-                if (leftEqualsLeft && (operator != Operator.IMPLICATION || right.operator == Operator.AND) &&
-                        (!right.isInverse() || right.operator == Operator.OR) ||
-                        left.equalsAndOpposite(right.left) && operator == Operator.OR &&
-                                right.operator == Operator.AND || left.equalsAndOpposite(right.right)) {
-                    right.left = right.right;
-                    right.removeRight();
-                }
-                // Removes the right side of the right side
-                else if (leftEqualsRight || leftEqualsLeft && (operator == Operator.IMPLICATION &&
-                        right.operator == Operator.OR || !Objects.equals(left.leading, right.leading)) ||
-                        left.equalsAndOpposite(right.right) || left.equalsAndOpposite(right.left)) {
-                    right.removeRight();
-                }
+            // Removes the right side of the other side
+            else if (oppositeOfRight) {
+                other.removeRight();
             }
         }
+        // Ex: A | (A | B) <=> A | B
+        else if (sameAsLeft) {
+            other.left = other.right;
+            other.removeRight();
+        }
+        else if (sameAsRight) {
+            other.removeRight();
+        }
     }
 
     /**
@@ -568,6 +764,7 @@ public class Expression { // TODO move some of the logic it's own class and exte
             if (index % 2 == 1) {
                 leading = "¬" + leading;
             }
+            changed();
         }
         // TODO should not be necessarry
         if (left != null) {
@@ -626,40 +823,59 @@ public class Expression { // TODO move some of the logic it's own class and exte
     @NotNull
     public Expression[] toSetArray(boolean hideIntermediates) {
         final List<Expression> list = new ArrayList<>();
-        toSetArray(this, this, list, hideIntermediates);
+        toSetArray(this, this, list, new HashSet<>(), hideIntermediates);
         return list.toArray(Expression[]::new);
     }
 
     /**
+     * Expressions are compared by their interned nodes, so each expression is only compared once
+     *
      * @param exp         The current object
      * @param expressions An empty list of type Expression, where the objects will be stored
+     * @param nodes       The nodes of the expressions in the list
+     * @return The node of the current object, or null if it has no node
      */
-    private static void toSetArray(@Nullable Expression exp, @NotNull Expression root, @NotNull List<Expression> expressions, boolean hideIntermediates) {
-        if (exp != null) {
-            toSetArray(exp.left, root, expressions, hideIntermediates);
-            toSetArray(exp.right, root, expressions, hideIntermediates);
-
-            boolean oppositeExists = false;
+    @Nullable
+    private static ExpressionNode toSetArray(@Nullable Expression exp, @NotNull Expression root, @NotNull List<Expression> expressions,
+                                             @NotNull Set<ExpressionNode> nodes, boolean hideIntermediates) {
+        if (exp == null) {
+            return null;
+        }
+        final ExpressionNode node = ExpressionNode.of(exp,
+                toSetArray(exp.left, root, expressions, nodes, hideIntermediates),
+                toSetArray(exp.right, root, expressions, nodes, hideIntermediates));
 
-            if (hideIntermediates) {
-                if (exp != root && !exp.isAtomic()) {
-                    return;
-                }
-            }
-            for (Expression ex : expressions) {
-                if (exp.equals(ex)) {
-                    return;
-                }
-                else if (exp.equalsAndOpposite(ex)) {
-                    oppositeExists = true;
-                }
+        if (hideIntermediates) {
+            if (exp != root && !exp.isAtomic()) {
+                return node;
             }
+        }
+        if (node != null && nodes.contains(node)) {
+            return node;
+        }
+        final boolean oppositeExists = node != null && nodes.contains(node.not());
 
-            if (!oppositeExists && StringUtils.numberOfChar(exp.leading, '¬') % 2 == 1) {
-                expressions.add(new Expression(exp.left, exp.operator, exp.right, exp.atomic));
+        if (!oppositeExists && exp.isInverse()) {
+            expressions.add(exp.withoutNegation());
+            if (node != null) {
+                nodes.add(node.not());
             }
-            expressions.add(exp);
         }
+        expressions.add(exp);
+        if (node != null) {
+            nodes.add(node);
+        }
+        return node;
+    }
+
+    /**
+     * The children are copied, so they are not moved from this expression
+     *
+     * @return The expression without negation and parentheses
+     */
+    @NotNull
+    private Expression withoutNegation() {
+        return new Expression(left != null ? left.copy() : null, operator, right != null ? right.copy() : null, atomic);
     }
 
     /**
@@ -686,10 +902,12 @@ public class Expression { // TODO move some of the logic it's own class and exte
 
     public void setLeading(@NotNull String leading) {
         this.leading = leading;
+        changed();
     }
 
     public void appendLeading(String leading) {
         this.leading += leading;
+        changed();
     }
 
     @Nullable
@@ -698,7 +916,8 @@ public class Expression { // TODO move some of the logic it's own class and exte
     }
 
     public void setLeft(@Nullable Expression left) {
-        this.left = left;
+        this.left = adopt(left);
+        changed();
     }
 
     @Nullable
@@ -708,6 +927,7 @@ public class Expression { // TODO move some of the logic it's own class and exte
 
     public void setOperator(@Nullable Operator operator) {
         this.operator = operator;
+        changed();
     }
 
     @Nullable
@@ -716,7 +936,8 @@ public class Expression { // TODO move some of the logic it's own class and exte
     }
 
     public void setRight(@Nullable Expression right) {
-        this.right = right;
+        this.right = adopt(right);
+        changed();
     }
 
     @NotNull
@@ -726,10 +947,12 @@ public class Expression { // TODO move some of the logic it's own class and exte
 
     public void setTrailing(@NotNull String trailing) {
         this.trailing = trailing;
+        changed();
     }
 
     public void appendTrailing(String trailing) {
         this.trailing = trailing;
+        changed();
     }
 
     public String getAtomic() {
@@ -738,15 +961,30 @@ public class Expression { // TODO move some of the logic it's own class and exte
 
     public void setAtomic(@Nullable String atomic) {
         this.atomic = atomic;
+        changed();
     }
 
     @Hidden
     public void setCaseSensitive(boolean caseSensitive) {
         this.caseSensitive = caseSensitive;
+        changed();
+    }
+
+    boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    /**
+     * @return A deep copy of the expression
+     */
+    @NotNull
+    Expression copy() {
+        return new Expression(leading, left != null ? left.copy() : null, operator,
+                right != null ? right.copy() : null, trailing, atomic, caseSensitive);
     }
 
     /**
-     * Returns a string representation of the expression
+     * Returns a string representation of the expression, it is cached until the expression is changed
      * example: A & B | (¬C -> D)
      *
      * @return {string} A string representation of the expression
@@ -754,20 +992,39 @@ public class Expression { // TODO move some of the logic it's own class and exte
     @NotNull
     @Override
     public String toString() {
-        if (isAtomic()) {
-            return leading + (!caseSensitive ? StringUtils.capitalizeFirstLetter(atomic) : atomic);
+        String string = this.string;
+        if (string == null) {
+            final StringBuilder s = new StringBuilder();
+            appendTo(s);
+            string = s.toString();
+            this.string = string;
         }
-        StringBuilder s = new StringBuilder(leading);
-        if (left != null) {
-            s.append(left);
+        return string;
+    }
+
+    /**
+     * Only the string of this expression is cached, the strings of the expressions in it are appended to the same
+     * builder, unless they are already cached
+     */
+    private void appendTo(@NotNull StringBuilder s) {
+        if (string != null) {
+            s.append(string);
         }
-        if (operator != null) {
-            s.append(" ").append(operator).append(" ");
+        else if (isAtomic()) {
+            s.append(leading).append(!caseSensitive ? StringUtils.capitalizeFirstLetter(atomic) : atomic);
         }
-        if (right != null) {
-            s.append(right);
+        else {
+            s.append(leading);
+            if (left != null) {
+                left.appendTo(s);
+            }
+            if (operator != null) {
+                s.append(" ").append(operator).append(" ");
+            }
+            if (right != null) {
+                right.appendTo(s);
+            }
+            s.append(trailing);
         }
-        s.append(trailing);
-        return s.toString();
     }
 }
@@ -0,0 +1,80 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Operator;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Splits an expression into tokens in a single pass.
+ * The tokens are stored in a flat array, where each token is its kind followed by the index of its first character
+ * and the index after its last character. Spaces are skipped, and every other character that is not an operator
+ * or a parenthesis is a part of an atomic value.
+ * The expression must use the output operators, see {@link no.martials.api.utils.StringUtils#formatString}.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class ExpressionLexer {
+
+    /**
+     * The kinds of the operators are the ordinals of {@link Operator}
+     */
+    public static final int IMPLICATION = 0;
+    public static final int OR = 1;
+    public static final int AND = 2;
+    public static final int NOT = 3;
+    public static final int ATOMIC = 4;
+    public static final int OPEN = 5;
+    public static final int CLOSE = 6;
+
+    public static final int TOKEN_SIZE = 3;
+
+    private ExpressionLexer() {
+    }
+
+    /**
+     * @param expression The expression with output operators
+     * @return The tokens, each token is {kind, start, end}
+     */
+    @NotNull
+    public static int[] tokenize(@NotNull String expression) {
+        int[] tokens = new int[TOKEN_SIZE * 8];
+        int size = 0;
+        int i = 0;
+        while (i < expression.length()) {
+            final int start = i;
+            final int kind = kind(expression.charAt(i++));
+            if (kind < 0) {
+                continue;
+            }
+            if (kind == ATOMIC) {
+                while (i < expression.length() && kind(expression.charAt(i)) == ATOMIC) {
+                    i++;
+                }
+            }
+            if (size == tokens.length) {
+                tokens = Arrays.copyOf(tokens, size * 2);
+            }
+            tokens[size++] = kind;
+            tokens[size++] = start;
+            tokens[size++] = i;
+        }
+        return Arrays.copyOf(tokens, size);
+    }
+
+    /**
+     * @return The kind of token the character is a part of, or -1 if it is a space
+     */
+    private static int kind(char c) {
+        return switch (c) {
+            case ' ' -> -1;
+            case '(' -> OPEN;
+            case ')' -> CLOSE;
+            case '➔' -> IMPLICATION;
+            case '⋁' -> OR;
+            case '⋀' -> AND;
+            case '¬' -> NOT;
+            default -> ATOMIC;
+        };
+    }
+}
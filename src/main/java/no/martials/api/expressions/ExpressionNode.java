@@ -0,0 +1,318 @@
+package no.martials.api.expressions;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import no.martials.api.enums.Operator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable node of an expression. Each node is interned in a unique table that is shared by all threads,
+ * so two nodes with the same structure are the same object, and equality is a reference comparison.
+ * The children of 'and' and 'or' are ordered, so 'A ⋀ B' and 'B ⋀ A' are the same node, but the children of an
+ * implication are not. A node only knows if it is negated, not how many negations or parentheses were written.
+ * <p>
+ * The hash is computed once, from the hashes of the children. Nodes that are not used anymore are removed from the
+ * table by the garbage collector. A node is serialized as an {@link Expression}, so the JSON is the same.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class ExpressionNode {
+
+    /**
+     * Flips the hash of a negated node
+     */
+    private static final int NEGATION = 0x5BD1E995;
+
+    @NotNull
+    private static final Map<Key, Entry> TABLE = new ConcurrentHashMap<>();
+    @NotNull
+    private static final ReferenceQueue<ExpressionNode> QUEUE = new ReferenceQueue<>();
+
+    @Nullable
+    private final String atomic;
+    @Nullable
+    private final Operator operator;
+    @Nullable
+    private final ExpressionNode left;
+    @Nullable
+    private final ExpressionNode right;
+    private final boolean inverse;
+    private final int hash;
+
+    /**
+     * The fields of a node, the children are compared by reference
+     */
+    private record Key(@Nullable String atomic, @Nullable Operator operator, @Nullable ExpressionNode left,
+                       @Nullable ExpressionNode right, boolean inverse) {
+    }
+
+    /**
+     * A weakly referenced node, that knows its key, so it can be removed from the table
+     */
+    private static final class Entry extends WeakReference<ExpressionNode> {
+
+        @NotNull
+        private final Key key;
+
+        private Entry(@NotNull ExpressionNode node, @NotNull Key key) {
+            super(node, QUEUE);
+            this.key = key;
+        }
+    }
+
+    private ExpressionNode(@NotNull Key key, int hash) {
+        this.atomic = key.atomic();
+        this.operator = key.operator();
+        this.left = key.left();
+        this.right = key.right();
+        this.inverse = key.inverse();
+        this.hash = hash;
+    }
+
+    /**
+     * @param atomic The name of the atomic value
+     * @return The atomic value that is not negated
+     */
+    @NotNull
+    public static ExpressionNode atomic(@NotNull String atomic) {
+        return intern(new Key(atomic, null, null, null, false), atomicHash(atomic));
+    }
+
+    /**
+     * @param operator The operator, 'and', 'or' or 'implication'
+     * @param left     The left side of the operator
+     * @param right    The right side of the operator
+     * @return The node that is not negated, the children of 'and' and 'or' may be swapped
+     * @throws IllegalArgumentException If the operator is 'not'
+     */
+    @NotNull
+    public static ExpressionNode of(@NotNull Operator operator, @NotNull ExpressionNode left, @NotNull ExpressionNode right) {
+        if (operator == Operator.NOT) {
+            throw new IllegalArgumentException("Operator cannot be 'not'.");
+        }
+        if (operator != Operator.IMPLICATION && compare(left, right) > 0) {
+            return intern(new Key(null, operator, right, left, false), binaryHash(operator, right.hash, left.hash));
+        }
+        return intern(new Key(null, operator, left, right, false), binaryHash(operator, left.hash, right.hash));
+    }
+
+    /**
+     * Creates the nodes of an expression and all the expressions in it
+     *
+     * @param exp The expression
+     * @return The node with the same structure, or null if the expression has no operator and is not atomic
+     */
+    @Nullable
+    public static ExpressionNode of(@NotNull Expression exp) {
+        final ExpressionNode left = exp.getLeft() != null ? of(exp.getLeft()) : null;
+        final ExpressionNode right = exp.getRight() != null ? of(exp.getRight()) : null;
+        return of(exp, left, right);
+    }
+
+    /**
+     * @param exp   The expression
+     * @param left  The node of the left side of the expression
+     * @param right The node of the right side of the expression
+     * @return The node of the expression, or null if the expression has no operator and is not atomic
+     */
+    @Nullable
+    static ExpressionNode of(@NotNull Expression exp, @Nullable ExpressionNode left, @Nullable ExpressionNode right) {
+        final ExpressionNode node;
+        if (exp.isAtomic()) {
+            node = atomic(exp.getAtomic());
+        }
+        else if (exp.getOperator() != null && left != null && right != null) {
+            node = of(exp.getOperator(), left, right);
+        }
+        else {
+            return null;
+        }
+        return exp.isInverse() ? node.not() : node;
+    }
+
+    /**
+     * @return The negation of this node, the negation of a negated node is the node without negation
+     */
+    @NotNull
+    public ExpressionNode not() {
+        return intern(new Key(atomic, operator, left, right, !inverse), negatedHash(hash));
+    }
+
+    /**
+     * Most nodes already exist, so the table is read before a new node is created
+     */
+    @NotNull
+    private static ExpressionNode intern(@NotNull Key key, int hash) {
+        removeCollected();
+        final Entry found = TABLE.get(key);
+        final ExpressionNode existing = found != null ? found.get() : null;
+        if (existing != null) {
+            return existing;
+        }
+        final ExpressionNode candidate = new ExpressionNode(key, hash);
+        while (true) {
+            final Entry entry = TABLE.compute(key, (k, current) ->
+                    current != null && current.get() != null ? current : new Entry(candidate, k));
+            final ExpressionNode node = entry.get();
+            // The existing node may have been collected after it was found
+            if (node != null) {
+                return node;
+            }
+        }
+    }
+
+    private static void removeCollected() {
+        Entry entry;
+        while ((entry = (Entry) QUEUE.poll()) != null) {
+            TABLE.remove(entry.key, entry);
+        }
+    }
+
+    /**
+     * @return The number of nodes in the unique table, including nodes that are collected but not yet removed
+     */
+    static int tableSize() {
+        return TABLE.size();
+    }
+
+    static int atomicHash(@NotNull String atomic) {
+        return mix(atomic.hashCode());
+    }
+
+    /**
+     * The hash of 'and' and 'or' does not depend on the order of the children, unlike the hash of an implication
+     */
+    static int binaryHash(@NotNull Operator operator, int left, int right) {
+        if (operator != Operator.IMPLICATION && left > right) {
+            return binaryHash(operator, right, left);
+        }
+        return mix(mix(mix(operator.ordinal() + 1) + left) + right);
+    }
+
+    static int negatedHash(int hash) {
+        return hash ^ NEGATION;
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+
+    /**
+     * A total order of the nodes, used to order the children of 'and' and 'or'.
+     * Atomic values are ordered by name and come first, other nodes are ordered by their hash.
+     * Nodes with the same hash are ordered by their fields, the children are the same object if they are equal,
+     * so only the children that differ are compared.
+     */
+    private static int compare(@NotNull ExpressionNode node, @NotNull ExpressionNode other) {
+        if (node == other) {
+            return 0;
+        }
+        if (node.isAtomic() != other.isAtomic()) {
+            return node.isAtomic() ? -1 : 1;
+        }
+        if (node.isAtomic() && !node.atomic.equals(other.atomic)) {
+            return node.atomic.compareTo(other.atomic);
+        }
+        if (node.hash != other.hash) {
+            return Integer.compare(node.hash, other.hash);
+        }
+        if (node.inverse != other.inverse) {
+            return node.inverse ? 1 : -1;
+        }
+        if (node.isAtomic()) { // Only the negation differs
+            return 0;
+        }
+        assert node.operator != null && other.operator != null && node.left != null && node.right != null &&
+                other.left != null && other.right != null;
+        if (node.operator != other.operator) {
+            return node.operator.compareTo(other.operator);
+        }
+        final int left = compare(node.left, other.left);
+        return left != 0 ? left : compare(node.right, other.right);
+    }
+
+    /**
+     * Creates a new mutable expression, with the parentheses that are needed to read it as the same tree
+     *
+     * @return The expression with the same structure as this node
+     */
+    @JsonValue
+    @NotNull
+    public Expression toExpression() {
+        return toExpression(false);
+    }
+
+    /**
+     * @param caseSensitive If the atomic values are case-sensitive
+     * @return The expression with the same structure as this node
+     */
+    @NotNull
+    public Expression toExpression(boolean caseSensitive) {
+        final Expression exp = toExpressionRec(caseSensitive);
+        RewriteEngine.addParentheses(exp);
+        return exp;
+    }
+
+    @NotNull
+    private Expression toExpressionRec(boolean caseSensitive) {
+        final String leading = inverse ? "¬" : "";
+        if (atomic != null) {
+            return new Expression(leading, null, null, null, "", atomic, caseSensitive);
+        }
+        assert left != null && right != null;
+        return new Expression(leading, left.toExpressionRec(caseSensitive), operator,
+                right.toExpressionRec(caseSensitive), "", null, caseSensitive);
+    }
+
+    @Nullable
+    public String getAtomic() {
+        return atomic;
+    }
+
+    @Nullable
+    public Operator getOperator() {
+        return operator;
+    }
+
+    @Nullable
+    public ExpressionNode getLeft() {
+        return left;
+    }
+
+    @Nullable
+    public ExpressionNode getRight() {
+        return right;
+    }
+
+    public boolean isAtomic() {
+        return atomic != null;
+    }
+
+    public boolean isInverse() {
+        return inverse;
+    }
+
+    /**
+     * Nodes are interned, so they are only equal to themselves
+     */
+    @Override
+    public boolean equals(Object other) {
+        return this == other;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return toExpression().toString();
+    }
+}
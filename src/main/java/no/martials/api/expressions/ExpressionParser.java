@@ -0,0 +1,167 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Language;
+import no.martials.api.enums.Operator;
+import no.martials.api.exceptions.ExpressionInvalidException;
+import no.martials.api.exceptions.MissingCharacterException;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the tokens of {@link ExpressionLexer} to an expression, in a single pass with no substrings.
+ * The operators bind in the order of {@link Operator}, so 'and' binds tighter than 'or', which binds tighter than
+ * implication. A chain of operators is split at the rightmost operator with the lowest weight,
+ * except when all the operators in the chain are the same, then it is split at the operator in the middle.
+ * <p>
+ * A parenthesized expression gets the parentheses and the negations in front of it in its leading and trailing,
+ * a parenthesis around a single atomic value is removed. The expression is not simplified.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class ExpressionParser {
+
+    @NotNull
+    private final String expression;
+    @NotNull
+    private final int[] tokens;
+    private final boolean caseSensitive;
+    @NotNull
+    private final Language language;
+    private int position = 0;
+
+    private ExpressionParser(@NotNull String expression, boolean caseSensitive, @NotNull Language language) {
+        this.expression = expression;
+        this.tokens = ExpressionLexer.tokenize(expression);
+        this.caseSensitive = caseSensitive;
+        this.language = language;
+    }
+
+    /**
+     * @param expression    The expression with output operators
+     * @param caseSensitive If the atomic values are case-sensitive
+     * @param language      The language of the error messages
+     * @return The root of the expression
+     * @throws ExpressionInvalidException If a token is in the wrong place
+     * @throws MissingCharacterException  If an atomic value or a parenthesis is missing
+     */
+    @NotNull
+    public static Expression parse(@NotNull String expression, boolean caseSensitive, @NotNull Language language)
+            throws ExpressionInvalidException, MissingCharacterException {
+        final ExpressionParser parser = new ExpressionParser(expression, caseSensitive, language);
+        final Expression exp = parser.parseOperator(ExpressionLexer.IMPLICATION);
+        if (parser.position < parser.tokens.length) {
+            throw parser.invalid();
+        }
+        return exp;
+    }
+
+    /**
+     * Parses a chain of operands separated by the operator, where each operand is a chain of the next operator.
+     */
+    @NotNull
+    private Expression parseOperator(int operator) {
+        if (operator == ExpressionLexer.NOT) {
+            return parseOperand();
+        }
+        final Expression first = parseOperator(operator + 1);
+        if (kind() != operator) {
+            return first;
+        }
+        final List<Expression> operands = new ArrayList<>();
+        operands.add(first);
+        // The index of the first operand that contains another operator, the operators before it are all the same
+        int mixed = isChain(first) ? 0 : -1;
+        while (kind() == operator) {
+            position += ExpressionLexer.TOKEN_SIZE;
+            final Expression operand = parseOperator(operator + 1);
+            if (mixed < 0 && isChain(operand)) {
+                mixed = operands.size();
+            }
+            operands.add(operand);
+        }
+
+        final Operator op = Operator.values()[operator];
+        if (mixed < 0) {
+            return balanced(operands, op, 0, operands.size() - 1);
+        }
+        Expression exp = mixed == 0 ? first : balanced(operands, op, 0, mixed - 1);
+        for (int i = Math.max(mixed, 1); i < operands.size(); i++) {
+            exp = binary(exp, op, operands.get(i));
+        }
+        return exp;
+    }
+
+    /**
+     * Splits the operands at the operator in the middle, the left side gets the extra operand
+     */
+    @NotNull
+    private Expression balanced(@NotNull List<Expression> operands, @NotNull Operator operator, int from, int to) {
+        if (from == to) {
+            return operands.get(from);
+        }
+        final int center = from + (to - from) / 2;
+        return binary(balanced(operands, operator, from, center), operator, balanced(operands, operator, center + 1, to));
+    }
+
+    @NotNull
+    private Expression binary(@NotNull Expression left, @NotNull Operator operator, @NotNull Expression right) {
+        return new Expression("", left, operator, right, "", null, caseSensitive);
+    }
+
+    /**
+     * @return True if the operand has an operator that is not inside a parenthesis
+     */
+    private static boolean isChain(@NotNull Expression operand) {
+        return !operand.isAtomic() && operand.getLeading().isEmpty();
+    }
+
+    /**
+     * Parses an atomic value or a parenthesized expression, with the negations in front of it
+     */
+    @NotNull
+    private Expression parseOperand() {
+        final StringBuilder negations = new StringBuilder();
+        while (kind() == ExpressionLexer.NOT) {
+            negations.append(Operator.NOT.getOutputOperator());
+            position += ExpressionLexer.TOKEN_SIZE;
+        }
+        if (kind() == ExpressionLexer.ATOMIC) {
+            final String atomic = expression.substring(tokens[position + 1], tokens[position + 2]);
+            position += ExpressionLexer.TOKEN_SIZE;
+            return new Expression(negations.toString(), null, null, null, "", atomic, caseSensitive);
+        }
+        if (kind() != ExpressionLexer.OPEN) {
+            throw position < tokens.length ? invalid() : new MissingCharacterException(language, 'A', expression.length());
+        }
+        position += ExpressionLexer.TOKEN_SIZE;
+        final Expression exp = parseOperator(ExpressionLexer.IMPLICATION);
+        if (kind() != ExpressionLexer.CLOSE) {
+            throw position < tokens.length ? invalid() : new MissingCharacterException(language, ')', expression.length());
+        }
+        position += ExpressionLexer.TOKEN_SIZE;
+
+        if (exp.isAtomic()) {
+            exp.setLeading(negations + exp.getLeading());
+        }
+        else {
+            exp.setLeading(negations + "(" + exp.getLeading());
+            exp.appendTrailing(")");
+        }
+        return exp;
+    }
+
+    /**
+     * @return The kind of the current token, or -1 at the end
+     */
+    private int kind() {
+        return position < tokens.length ? tokens[position] : -1;
+    }
+
+    @NotNull
+    private ExpressionInvalidException invalid() {
+        final int start = tokens[position + 1];
+        return new ExpressionInvalidException(language, expression.substring(start, tokens[position + 2]), start);
+    }
+}
@@ -0,0 +1,403 @@
+package no.martials.api.expressions;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the number of assignments of the atomic values that makes an expression true, without creating a table.
+ * Small expressions are counted by evaluating the packed truth values and counting the bits.
+ * Larger expressions are split into parts that share no atomic values, and the parts are counted separately.
+ * Parts that can't be split are split on a shared atomic value, by setting it to true and false.
+ * The splits can grow exponentially for some expressions, so the number of nodes and the number of nodes that are
+ * visited by the splits are limited.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class ModelCounter {
+
+    /**
+     * The max number of atomic values that are counted by evaluating the table
+     */
+    static final int MAX_TABLE_ATOMICS = 20;
+    /**
+     * The number of assignments of 63 atomic values does not fit in a long
+     */
+    public static final int MAX_ATOMICS = 62;
+
+    /**
+     * The max number of nodes when an expression is split, about 30 MB with the unique table and the counts
+     */
+    static final int MAX_NODES = 1 << 18;
+    /**
+     * The max number of nodes that are visited when atomic values are replaced with true or false
+     */
+    static final int MAX_STEPS = 1 << 24;
+
+    private static final int BLOCK_WORDS = 64;
+
+    private ModelCounter() {
+    }
+
+    /**
+     * The number of unique atomic values in an expression, and the number of assignments of them that makes it true
+     */
+    public record Count(int atomics, long satisfying) {
+    }
+
+    /**
+     * @param expression The expression to count
+     * @return The number of assignments of the unique atomic values that makes the expression true
+     * @throws IllegalArgumentException If the expression has more than {@link #MAX_ATOMICS} atomic values
+     * @throws IllegalStateException    If the expression needs more than the max number of nodes or steps
+     */
+    public static long count(@NotNull Expression expression) {
+        return count(expression, null);
+    }
+
+    /**
+     * @param expression The expression to count
+     * @param evaluators Generates evaluators for the expressions that are counted often, or null to always interpret
+     * @return The number of assignments of the unique atomic values that makes the expression true
+     * @throws IllegalArgumentException If the expression has more than {@link #MAX_ATOMICS} atomic values
+     * @throws IllegalStateException    If the expression needs more than the max number of nodes or steps
+     */
+    public static long count(@NotNull Expression expression, @Nullable EvaluatorCache evaluators) {
+        return countModels(expression, evaluators).satisfying();
+    }
+
+    /**
+     * Compiles the expression once, and counts it
+     *
+     * @param expression The expression to count
+     * @param evaluators Generates evaluators for the expressions that are counted often, or null to always interpret
+     * @return The number of unique atomic values, and the number of assignments of them that makes the expression true
+     * @throws IllegalArgumentException If the expression has more than {@link #MAX_ATOMICS} atomic values
+     * @throws IllegalStateException    If the expression needs more than the max number of nodes or steps
+     */
+    @NotNull
+    public static Count countModels(@NotNull Expression expression, @Nullable EvaluatorCache evaluators) {
+        final CompiledExpression program = compile(expression);
+        final long satisfying = program.getNumberOfAtomics() <= MAX_TABLE_ATOMICS ?
+                countTable(program, evaluators) : countDecomposed(program);
+        return new Count(program.getNumberOfAtomics(), satisfying);
+    }
+
+    /**
+     * @param expression The expression
+     * @return The number of unique atomic values in the expression
+     */
+    public static int numberOfAtomics(@NotNull Expression expression) {
+        return CompiledExpression.compile(expression).getNumberOfAtomics();
+    }
+
+    @NotNull
+    static CompiledExpression compile(@NotNull Expression expression) {
+        final CompiledExpression program = CompiledExpression.compile(expression);
+        if (program.getNumberOfAtomics() > MAX_ATOMICS) {
+            throw new IllegalArgumentException("Expression must not have more than " + MAX_ATOMICS + " atomic values");
+        }
+        return program;
+    }
+
+    /**
+     * Evaluates the rows in blocks and counts the true rows.
+     * Expressions that are counted often are evaluated by a generated evaluator, 64 rows at a time.
+     */
+    static long countTable(@NotNull CompiledExpression program, @Nullable EvaluatorCache evaluators) {
+        final BitEvaluator evaluator = evaluators != null ? evaluators.get(program, 0) : null;
+        return evaluator != null ? countTable(evaluator, program.getNumberOfAtomics()) : countInterpreted(program);
+    }
+
+    static long countTable(@NotNull BitEvaluator evaluator, int numberOfAtomics) {
+        final long rows = 1L << numberOfAtomics;
+        final long words = (rows + Long.SIZE - 1) / Long.SIZE;
+        final long mask = rows < Long.SIZE ? (1L << rows) - 1 : -1L;
+        final long[] atomicValues = new long[numberOfAtomics];
+        long count = 0;
+
+        for (long word = 0; word < words; word++) {
+            for (int atomic = 0; atomic < numberOfAtomics; atomic++) {
+                atomicValues[atomic] = CompiledExpression.atomicWord(numberOfAtomics - 1 - atomic, word);
+            }
+            count += Long.bitCount(evaluator.eval(atomicValues) & mask);
+        }
+        return count;
+    }
+
+    static long countInterpreted(@NotNull CompiledExpression program) {
+        final long rows = 1L << program.getNumberOfAtomics();
+        final long words = (rows + Long.SIZE - 1) / Long.SIZE;
+        final long[][] registers = program.newRegisters(BLOCK_WORDS);
+        final long[] output = registers[program.getOutput(0)];
+
+        if (rows < Long.SIZE) {
+            program.evaluate(registers, 0, 1);
+            return Long.bitCount(output[0] & (1L << rows) - 1);
+        }
+        long count = 0;
+
+        for (long firstWord = 0; firstWord < words; firstWord += BLOCK_WORDS) {
+            final int blockWords = (int) Math.min(BLOCK_WORDS, words - firstWord);
+            program.evaluate(registers, firstWord, blockWords);
+
+            for (int word = 0; word < blockWords; word++) {
+                count += Long.bitCount(output[word]);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts by splitting the expression into independent parts
+     */
+    static long countDecomposed(@NotNull CompiledExpression program) {
+        return countDecomposed(program, MAX_NODES, MAX_STEPS);
+    }
+
+    /**
+     * @param maxNodes The max number of nodes
+     * @param maxSteps The max number of nodes that are visited when atomic values are replaced
+     * @throws IllegalStateException If the expression needs more than the max number of nodes or steps
+     */
+    static long countDecomposed(@NotNull CompiledExpression program, int maxNodes, long maxSteps) {
+        final Counter counter = new Counter(maxNodes, maxSteps);
+        final Node root = counter.convert(program);
+        return counter.count(root) << (program.getNumberOfAtomics() - Long.bitCount(root.atomics));
+    }
+
+    /**
+     * A node in the expression, nodes are unique so equal nodes are the same object
+     */
+    private static final class Node {
+
+        private static final int TRUE = 0;
+        private static final int FALSE = 1;
+        private static final int ATOMIC = 2;
+        private static final int NOT = 3;
+        private static final int AND = 4;
+        private static final int OR = 5;
+
+        private final int kind;
+        private final int atomic;
+        private final Node left;
+        private final Node right;
+        /**
+         * The atomic values in this node, bit 'i' is the atomic value with index 'i'
+         */
+        private final long atomics;
+        private final int id;
+
+        private Node(int kind, int atomic, Node left, Node right, int id) {
+            this.kind = kind;
+            this.atomic = atomic;
+            this.left = left;
+            this.right = right;
+            this.id = id;
+
+            long atomics = kind == ATOMIC ? 1L << atomic : 0L;
+            if (left != null) {
+                atomics |= left.atomics;
+            }
+            if (right != null) {
+                atomics |= right.atomics;
+            }
+            this.atomics = atomics;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Node node && kind == node.kind && atomic == node.atomic &&
+                    left == node.left && right == node.right;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = kind * 31 + atomic;
+            hash = hash * 31 + (left != null ? left.id : -1);
+            return hash * 31 + (right != null ? right.id : -1);
+        }
+    }
+
+    private static final class Counter {
+
+        private final int maxNodes;
+        private final long maxSteps;
+        @NotNull
+        private final Map<Node, Node> unique = new HashMap<>();
+        @NotNull
+        private final Map<Node, Long> counts = new IdentityHashMap<>();
+        @NotNull
+        private final Node trueNode;
+        @NotNull
+        private final Node falseNode;
+        private long steps;
+
+        private Counter(int maxNodes, long maxSteps) {
+            this.maxNodes = maxNodes;
+            this.maxSteps = maxSteps;
+            trueNode = node(Node.TRUE, 0, null, null);
+            falseNode = node(Node.FALSE, 0, null, null);
+        }
+
+        /**
+         * Converts each instruction of the program to a node
+         *
+         * @return The node of the first output
+         */
+        @NotNull
+        private Node convert(@NotNull CompiledExpression program) {
+            final int[] code = program.getCode();
+            final List<Node> registers = new ArrayList<>(program.getNumberOfRegisters());
+
+            for (int pc = 0; pc < code.length; pc += CompiledExpression.INSTRUCTION_SIZE) {
+                final int a = code[pc + 1], b = code[pc + 2];
+                registers.add(switch (code[pc]) {
+                    case CompiledExpression.ATOMIC -> node(Node.ATOMIC, a, null, null);
+                    case CompiledExpression.AND -> and(registers.get(a), registers.get(b));
+                    case CompiledExpression.OR -> or(registers.get(a), registers.get(b));
+                    case CompiledExpression.IMPLICATION -> or(not(registers.get(a)), registers.get(b));
+                    case CompiledExpression.NOT -> not(registers.get(a));
+                    case CompiledExpression.FALSE -> falseNode;
+                    default -> throw new IllegalStateException("Unknown opcode " + code[pc]);
+                });
+            }
+            return registers.get(program.getOutput(0));
+        }
+
+        /**
+         * @return The number of assignments of the atomic values in the node that makes it true
+         */
+        private long count(@NotNull Node node) {
+            if (node.kind == Node.TRUE || node.kind == Node.ATOMIC) {
+                return 1;
+            }
+            else if (node.kind == Node.FALSE) {
+                return 0;
+            }
+            final Long existing = counts.get(node);
+            if (existing != null) {
+                return existing;
+            }
+
+            final long all = 1L << Long.bitCount(node.atomics);
+            final long count;
+
+            if (node.kind == Node.NOT) {
+                count = all - count(node.left);
+            }
+            else if ((node.left.atomics & node.right.atomics) == 0) {
+                final long left = count(node.left);
+                final long right = count(node.right);
+
+                if (node.kind == Node.AND) {
+                    count = left * right;
+                }
+                else {
+                    final long leftFalse = (1L << Long.bitCount(node.left.atomics)) - left;
+                    final long rightFalse = (1L << Long.bitCount(node.right.atomics)) - right;
+                    count = all - leftFalse * rightFalse;
+                }
+            }
+            else {
+                final int atomic = Long.numberOfTrailingZeros(node.left.atomics & node.right.atomics);
+                final long remaining = node.atomics & ~(1L << atomic);
+
+                count = countWithin(restrict(node, atomic, true, new IdentityHashMap<>()), remaining) +
+                        countWithin(restrict(node, atomic, false, new IdentityHashMap<>()), remaining);
+            }
+            counts.put(node, count);
+            return count;
+        }
+
+        /**
+         * @param atomics The atomic values to count the assignments of, must contain the atomic values of the node
+         */
+        private long countWithin(@NotNull Node node, long atomics) {
+            return count(node) << (Long.bitCount(atomics) - Long.bitCount(node.atomics));
+        }
+
+        /**
+         * @return The node where the atomic value is replaced with the given value
+         */
+        @NotNull
+        private Node restrict(@NotNull Node node, int atomic, boolean value, @NotNull Map<Node, Node> restricted) {
+            if ((node.atomics & 1L << atomic) == 0) {
+                return node;
+            }
+            if (++steps > maxSteps) {
+                throw new IllegalStateException("The expression needs more than " + maxSteps + " steps to count");
+            }
+            final Node existing = restricted.get(node);
+            if (existing != null) {
+                return existing;
+            }
+            final Node result = switch (node.kind) {
+                case Node.ATOMIC -> value ? trueNode : falseNode;
+                case Node.NOT -> not(restrict(node.left, atomic, value, restricted));
+                case Node.AND -> and(restrict(node.left, atomic, value, restricted), restrict(node.right, atomic, value, restricted));
+                case Node.OR -> or(restrict(node.left, atomic, value, restricted), restrict(node.right, atomic, value, restricted));
+                default -> node;
+            };
+            restricted.put(node, result);
+            return result;
+        }
+
+        @NotNull
+        private Node not(@NotNull Node node) {
+            return switch (node.kind) {
+                case Node.TRUE -> falseNode;
+                case Node.FALSE -> trueNode;
+                case Node.NOT -> node.left;
+                default -> node(Node.NOT, 0, node, null);
+            };
+        }
+
+        @NotNull
+        private Node and(@NotNull Node left, @NotNull Node right) {
+            if (left.kind == Node.FALSE || right.kind == Node.FALSE) {
+                return falseNode;
+            }
+            else if (left.kind == Node.TRUE || left == right) {
+                return right;
+            }
+            else if (right.kind == Node.TRUE) {
+                return left;
+            }
+            return left.id < right.id ? node(Node.AND, 0, left, right) : node(Node.AND, 0, right, left);
+        }
+
+        @NotNull
+        private Node or(@NotNull Node left, @NotNull Node right) {
+            if (left.kind == Node.TRUE || right.kind == Node.TRUE) {
+                return trueNode;
+            }
+            else if (left.kind == Node.FALSE || left == right) {
+                return right;
+            }
+            else if (right.kind == Node.FALSE) {
+                return left;
+            }
+            return left.id < right.id ? node(Node.OR, 0, left, right) : node(Node.OR, 0, right, left);
+        }
+
+        @NotNull
+        private Node node(int kind, int atomic, Node left, Node right) {
+            final Node node = new Node(kind, atomic, left, right, unique.size());
+            final Node existing = unique.get(node);
+            if (existing != null) {
+                return existing;
+            }
+            if (unique.size() == maxNodes) {
+                throw new IllegalStateException("The expression needs more than " + maxNodes + " nodes to count");
+            }
+            unique.put(node, node);
+            return node;
+        }
+    }
+}
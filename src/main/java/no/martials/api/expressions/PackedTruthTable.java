@@ -0,0 +1,159 @@
+package no.martials.api.expressions;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import no.martials.api.enums.Hide;
+import no.martials.api.enums.Sort;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * A truth table where each column is sent as a bitset, instead of a matrix of boolean values.
+ * The columns are in the same order as the header, and the rows are hidden and sorted the same way as a
+ * {@link TruthTable}. A column uses one bit per row, so the size of the table is 'rows / 8' bytes per column.
+ * <p>
+ * Decoding a column:
+ * <ol>
+ *     <li>Decode the column with standard base64 (RFC 4648, with padding) to get 'ceil(rows / 8)' bytes</li>
+ *     <li>The value of row 'r' is bit 'r % 8' of byte 'r / 8', where bit 0 is the least significant bit</li>
+ *     <li>A bit that is 1 is true, and a bit that is 0 is false. The unused bits of the last byte are 0</li>
+ * </ol>
+ * example: the 3 rows of A ⋀ B with the true rows hidden has the columns "AQ==", "Ag==" and "AA==".
+ * Those are the bytes 1, 2 and 0, so the column of A is [true, false, false], the column of B is
+ * [false, true, false] and the column of A ⋀ B is [false, false, false], one value per row.
+ */
+@Schema(name = "PackedTruthTable", description = "A truth table where each column is a base64 encoded bitset. " +
+        "Decode a column with standard base64, the value of row 'r' is bit 'r % 8' of byte 'r / 8', " +
+        "where bit 0 is the least significant bit and 1 is true.")
+public class PackedTruthTable extends TruthTable {
+
+    @Schema(description = "The number of rows in the table")
+    private final int rows;
+    @NotNull
+    private final long[][] packedColumns;
+
+    private PackedTruthTable(@NotNull Expression[] expressions, int rows, @NotNull long[][] columns) {
+        super(expressions, new boolean[0][]);
+        this.rows = rows;
+        this.packedColumns = columns;
+    }
+
+    /**
+     * Creates the packed columns without creating the rows.
+     * If no rows are hidden or sorted the evaluated columns are used directly,
+     * otherwise each shown row is added to the end of the columns.
+     *
+     * @param expressions The expressions in the table
+     * @param hide        Which rows to hide
+     * @param sort        How to sort the rows
+     * @return A table with the packed columns
+     */
+    @NotNull
+    public static PackedTruthTable of(@NotNull Expression[] expressions, @NotNull Hide hide, @NotNull Sort sort) {
+        return of(expressions, hide, sort, TableParallelism.SEQUENTIAL, null);
+    }
+
+    /**
+     * @param parallelism Decides if the columns are evaluated on multiple threads, when they are used directly
+     * @param evaluators  Gives a generated evaluator for the hidden or sorted rows of a hot expression, or null
+     * @see #of(Expression[], Hide, Sort)
+     */
+    @NotNull
+    public static PackedTruthTable of(@NotNull Expression[] expressions, @NotNull Hide hide, @NotNull Sort sort,
+                                      @NotNull TableParallelism parallelism, @Nullable EvaluatorCache evaluators) {
+        if (hide == Hide.NONE && sort == Sort.DEFAULT || expressions[expressions.length - 1].isAtomic()) {
+            final TruthColumns truthColumns = new TruthColumns(expressions, parallelism);
+            final long[][] columns = new long[expressions.length][];
+            for (int column = 0; column < columns.length; column++) {
+                columns[column] = truthColumns.getColumn(column);
+            }
+            return new PackedTruthTable(expressions, truthColumns.getRows(), columns);
+        }
+
+        final TruthTableRows truthTableRows = new TruthTableRows(expressions, hide, sort, evaluators);
+        final long[][] columns = new long[expressions.length][TruthColumns.numberOfWords(truthTableRows.getRows())];
+        final int[] rows = {0};
+        try {
+            truthTableRows.forEach(row -> {
+                final int index = rows[0]++;
+                for (int column = 0; column < row.length; column++) {
+                    if (row[column]) {
+                        columns[column][index >>> 6] |= 1L << index;
+                    }
+                }
+            });
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new PackedTruthTable(expressions, rows[0], columns);
+    }
+
+    /**
+     * @param words The packed values of a column
+     * @param rows  The number of rows in the column
+     * @return The column as base64, where row 'r' is bit 'r % 8' of byte 'r / 8'
+     */
+    @NotNull
+    static String encode(@NotNull long[] words, int rows) {
+        final byte[] bytes = new byte[(rows + Byte.SIZE - 1) / Byte.SIZE];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (words[i >>> 3] >>> (i & 7) * Byte.SIZE);
+        }
+        if (rows % Byte.SIZE != 0) {
+            bytes[bytes.length - 1] &= (byte) ((1 << rows % Byte.SIZE) - 1);
+        }
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    @NotNull
+    @ArraySchema(schema = @Schema(type = "string", format = "byte",
+            description = "A base64 encoded column, in the same order as the header"))
+    public String[] getColumns() {
+        final String[] encoded = new String[packedColumns.length];
+        for (int column = 0; column < packedColumns.length; column++) {
+            encoded[column] = encode(packedColumns[column], rows);
+        }
+        return encoded;
+    }
+
+    @NotNull
+    @Schema(description = "The encoding of the columns")
+    public String getEncoding() {
+        return "base64";
+    }
+
+    /**
+     * @return The rows of the table, decoded from the packed columns
+     */
+    @Override
+    @JsonIgnore
+    public boolean[][] getTruthMatrix() {
+        final boolean[][] truthMatrix = new boolean[rows][packedColumns.length];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < packedColumns.length; column++) {
+                truthMatrix[row][column] = (packedColumns[column][row >>> 6] >>> row & 1) != 0;
+            }
+        }
+        return truthMatrix;
+    }
+
+    @Override
+    public String toString() {
+        return "PackedTruthTable{" +
+                "expressions=" + Arrays.toString(getExpressions()) +
+                ", rows=" + rows +
+                ", columns=" + Arrays.toString(getColumns()) +
+                '}';
+    }
+}
@@ -0,0 +1,480 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Operator;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Finds a minimal sum of products of an expression from the packed truth values, instead of using the laws.
+ * The prime implicants are found by splitting the truth values on one atomic value at a time, and the primes that
+ * cover the table are chosen with Petrick's method, or greedily if the products get too large.
+ * <p>
+ * An implicant is a pair of longs, a mask of the atomic values in it, and their values.
+ * The bits are the bits of the row index, so the atomic value 'k' of 'n' is bit 'n - 1 - k',
+ * and a bit that is 0 means the atomic value is true.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class QuineMcCluskey {
+
+    /**
+     * The max number of atomic values, the table has 2^16 rows
+     */
+    public static final int MAX_ATOMICS = 16;
+    /**
+     * The max number of products when multiplying out the sums of Petrick's method, a greedy cover is used above it
+     */
+    static final int MAX_PETRICK_PRODUCTS = 1 << 10;
+
+    private static final long[] NO_IMPLICANTS = new long[0];
+
+    private QuineMcCluskey() {
+    }
+
+    /**
+     * @param expression    The expression to minimize
+     * @param caseSensitive Whether or not the atomic values of the result are case sensitive
+     * @return An equivalent expression, that is a disjunction of the fewest conjunctions of atomic values.
+     * A tautology is 'A ⋁ ¬A' and a contradiction is 'A ⋀ ¬A', where 'A' is the first atomic value
+     * @throws IllegalArgumentException If the expression has more than {@link #MAX_ATOMICS} atomic values
+     */
+    @NotNull
+    public static Expression minimize(@NotNull Expression expression, boolean caseSensitive) {
+        final CompiledExpression program = CompiledExpression.compile(expression);
+        if (program.getNumberOfAtomics() > MAX_ATOMICS) {
+            throw new IllegalArgumentException("Expression must not have more than " + MAX_ATOMICS + " atomic values");
+        }
+        final long[] cover = minimumCover(truthValues(program), program.getNumberOfAtomics());
+        return toExpression(cover, program.getAtomics(), caseSensitive);
+    }
+
+    /**
+     * @return The truth values of the first output, row 'r' is bit 'r % 64' of word 'r / 64'
+     */
+    @NotNull
+    static long[] truthValues(@NotNull CompiledExpression program) {
+        final int atomics = program.getNumberOfAtomics();
+        final int words = atomics < 6 ? 1 : 1 << atomics - 6;
+        final long[][] registers = program.newRegisters(words);
+        program.evaluate(registers, 0, words);
+
+        final long[] values = registers[program.getOutput(0)].clone();
+        if (atomics < 6) {
+            values[0] &= (1L << (1 << atomics)) - 1;
+        }
+        return values;
+    }
+
+    /**
+     * @param table The truth values of a function of 'atomics' atomic values
+     * @return The prime implicants of the function, as pairs of mask and value
+     */
+    @NotNull
+    static long[] primeImplicants(@NotNull long[] table, int atomics) {
+        return new Primes().primes(table, atomics);
+    }
+
+    /**
+     * Chooses the essential primes first, then covers the rest of the rows with the fewest primes.
+     * Ties are broken by the number of atomic values in the primes.
+     *
+     * @return The implicants that cover the function, as pairs of mask and value
+     */
+    @NotNull
+    static long[] minimumCover(@NotNull long[] table, int atomics) {
+        final long[] primes = primeImplicants(table, atomics);
+        final int numberOfPrimes = primes.length / 2;
+        if (numberOfPrimes <= 1) {
+            return primes;
+        }
+        final int rows = 1 << atomics;
+        final int[] covering = new int[rows];
+        final int[] lastPrime = new int[rows];
+        for (int prime = 0; prime < numberOfPrimes; prime++) {
+            final int p = prime;
+            forEachRow(primes, prime, rows, row -> {
+                covering[row]++;
+                lastPrime[row] = p;
+            });
+        }
+
+        final boolean[] selected = new boolean[numberOfPrimes];
+        for (int row = 0; row < rows; row++) {
+            if (covering[row] == 1) {
+                selected[lastPrime[row]] = true;
+            }
+        }
+        final boolean[] covered = new boolean[rows];
+        for (int prime = 0; prime < numberOfPrimes; prime++) {
+            if (selected[prime]) {
+                forEachRow(primes, prime, rows, row -> covered[row] = true);
+            }
+        }
+
+        final int[] candidates = new int[numberOfPrimes];
+        int numberOfCandidates = 0;
+        for (int prime = 0; prime < numberOfPrimes; prime++) {
+            if (!selected[prime] && coveredRows(primes, prime, rows, covered) > 0) {
+                candidates[numberOfCandidates++] = prime;
+            }
+        }
+        if (numberOfCandidates > 0) {
+            final long product = numberOfCandidates <= Long.SIZE ?
+                    petrick(primes, Arrays.copyOf(candidates, numberOfCandidates), rows, covered) : -1;
+
+            if (product != -1) {
+                for (long bits = product; bits != 0; bits &= bits - 1) {
+                    selected[candidates[Long.numberOfTrailingZeros(bits)]] = true;
+                }
+            }
+            else {
+                greedy(primes, Arrays.copyOf(candidates, numberOfCandidates), rows, covered, selected);
+            }
+        }
+
+        final long[] cover = new long[primes.length];
+        int size = 0;
+        for (int prime = 0; prime < numberOfPrimes; prime++) {
+            if (selected[prime]) {
+                cover[size++] = primes[prime * 2];
+                cover[size++] = primes[prime * 2 + 1];
+            }
+        }
+        return Arrays.copyOf(cover, size);
+    }
+
+    /**
+     * Writes the rows that are not covered as sums of the candidates that cover them, and multiplies the sums out,
+     * removing the products that contain an other product.
+     *
+     * @return The product with the fewest candidates, bit 'j' is the candidate 'j', or -1 if there are too many products
+     */
+    private static long petrick(@NotNull long[] primes, @NotNull int[] candidates, int rows, @NotNull boolean[] covered) {
+        final long[] sums = new long[rows];
+        for (int candidate = 0; candidate < candidates.length; candidate++) {
+            final long bit = 1L << candidate;
+            forEachRow(primes, candidates[candidate], rows, row -> {
+                if (!covered[row]) {
+                    sums[row] |= bit;
+                }
+            });
+        }
+        Arrays.sort(sums);
+        int numberOfSums = 0;
+        for (long sum : sums) {
+            if (sum != 0 && (numberOfSums == 0 || sums[numberOfSums - 1] != sum)) {
+                sums[numberOfSums++] = sum;
+            }
+        }
+        final long[] distinctSums = sortByBitCount(sums, numberOfSums);
+
+        long[] products = {0};
+        for (long sum : distinctSums) {
+            final long[] next = new long[products.length * Long.bitCount(sum)];
+            int size = 0;
+            for (long product : products) {
+                if ((product & sum) != 0) {
+                    next[size++] = product;
+                }
+                else {
+                    for (long bits = sum; bits != 0; bits &= bits - 1) {
+                        next[size++] = product | Long.lowestOneBit(bits);
+                    }
+                }
+            }
+            products = absorb(next, size);
+            if (products.length > MAX_PETRICK_PRODUCTS) {
+                return -1;
+            }
+        }
+
+        long best = products[0];
+        for (long product : products) {
+            final int difference = Long.bitCount(product) - Long.bitCount(best);
+            if (difference < 0 || difference == 0 && literals(primes, candidates, product) < literals(primes, candidates, best)) {
+                best = product;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Selects the candidate that covers the most rows that are not covered, until all rows are covered
+     */
+    private static void greedy(@NotNull long[] primes, @NotNull int[] candidates, int rows,
+                               @NotNull boolean[] covered, @NotNull boolean[] selected) {
+        while (true) {
+            int best = -1, bestRows = 0;
+            for (int candidate : candidates) {
+                final int coveredRows = coveredRows(primes, candidate, rows, covered);
+                if (coveredRows > bestRows || coveredRows == bestRows && coveredRows > 0 &&
+                        Long.bitCount(primes[candidate * 2]) < Long.bitCount(primes[best * 2])) {
+                    best = candidate;
+                    bestRows = coveredRows;
+                }
+            }
+            if (best == -1) {
+                return;
+            }
+            selected[best] = true;
+            forEachRow(primes, best, rows, row -> covered[row] = true);
+        }
+    }
+
+    /**
+     * @return The products without duplicates and without products that contain an other product
+     */
+    @NotNull
+    private static long[] absorb(@NotNull long[] products, int size) {
+        final long[] sorted = sortByBitCount(products, size);
+        final long[] kept = new long[size];
+        int numberOfKept = 0;
+
+        outer:
+        for (long product : sorted) {
+            for (int i = 0; i < numberOfKept; i++) {
+                if ((kept[i] & product) == kept[i]) {
+                    continue outer;
+                }
+            }
+            kept[numberOfKept++] = product;
+        }
+        return Arrays.copyOf(kept, numberOfKept);
+    }
+
+    /**
+     * @return The first 'size' values, sorted by the number of bits that are set
+     */
+    @NotNull
+    private static long[] sortByBitCount(@NotNull long[] values, int size) {
+        final int[] starts = new int[Long.SIZE + 2];
+        for (int i = 0; i < size; i++) {
+            starts[Long.bitCount(values[i]) + 1]++;
+        }
+        for (int bits = 1; bits < starts.length; bits++) {
+            starts[bits] += starts[bits - 1];
+        }
+        final long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[starts[Long.bitCount(values[i])]++] = values[i];
+        }
+        return sorted;
+    }
+
+    private static int literals(@NotNull long[] primes, @NotNull int[] candidates, long product) {
+        int literals = 0;
+        for (long bits = product; bits != 0; bits &= bits - 1) {
+            literals += Long.bitCount(primes[candidates[Long.numberOfTrailingZeros(bits)] * 2]);
+        }
+        return literals;
+    }
+
+    private static int coveredRows(@NotNull long[] primes, int prime, int rows, @NotNull boolean[] covered) {
+        final int[] count = {0};
+        forEachRow(primes, prime, rows, row -> {
+            if (!covered[row]) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Calls the action with each row of the implicant
+     */
+    private static void forEachRow(@NotNull long[] implicants, int implicant, int rows, @NotNull IntConsumer action) {
+        final int free = (int) ~implicants[implicant * 2] & rows - 1;
+        final int value = (int) implicants[implicant * 2 + 1];
+        int subset = 0;
+        do {
+            action.accept(value | subset);
+            subset = subset - free & free;
+        } while (subset != 0);
+    }
+
+    /**
+     * @param cover   The implicants
+     * @param atomics The names of the atomic values, ordered by their index
+     * @return A disjunction of the implicants, each implicant is a conjunction of the atomic values in it
+     */
+    @NotNull
+    static Expression toExpression(@NotNull long[] cover, @NotNull String[] atomics, boolean caseSensitive) {
+        final int numberOfAtomics = atomics.length;
+        if (cover.length == 0) {
+            return new Expression(literal(atomics[0], false, caseSensitive), Operator.AND, literal(atomics[0], true, caseSensitive));
+        }
+        else if (cover.length == 2 && cover[0] == 0) {
+            return new Expression(literal(atomics[0], false, caseSensitive), Operator.OR, literal(atomics[0], true, caseSensitive));
+        }
+
+        // Implicants with the first atomic values come first, and true comes before false
+        final int implicants = cover.length / 2;
+        final long[][] ordered = new long[implicants][];
+        for (int implicant = 0; implicant < implicants; implicant++) {
+            long order = 0;
+            for (int atomic = 0; atomic < numberOfAtomics; atomic++) {
+                final long bit = 1L << numberOfAtomics - 1 - atomic;
+                order = order * 3 + ((cover[implicant * 2] & bit) == 0 ? 2 : (cover[implicant * 2 + 1] & bit) == 0 ? 0 : 1);
+            }
+            ordered[implicant] = new long[] {order, cover[implicant * 2], cover[implicant * 2 + 1]};
+        }
+        Arrays.sort(ordered, (a, b) -> Long.compare(a[0], b[0]));
+
+        Expression disjunction = null;
+        for (long[] implicant : ordered) {
+            Expression conjunction = null;
+            for (int atomic = 0; atomic < numberOfAtomics; atomic++) {
+                final long bit = 1L << numberOfAtomics - 1 - atomic;
+                if ((implicant[1] & bit) != 0) {
+                    final Expression literal = literal(atomics[atomic], (implicant[2] & bit) != 0, caseSensitive);
+                    conjunction = conjunction == null ? literal : operation(conjunction, Operator.AND, literal, caseSensitive);
+                }
+            }
+            assert conjunction != null : "An implicant of a function that is not a tautology has atomic values";
+            if (implicants > 1 && !conjunction.isAtomic()) {
+                conjunction.setLeading("(");
+                conjunction.setTrailing(")");
+            }
+            disjunction = disjunction == null ? conjunction : operation(disjunction, Operator.OR, conjunction, caseSensitive);
+        }
+        return disjunction;
+    }
+
+    @NotNull
+    private static Expression literal(@NotNull String atomic, boolean inverse, boolean caseSensitive) {
+        return new Expression(inverse ? "¬" : "", null, null, null, "", atomic, caseSensitive);
+    }
+
+    @NotNull
+    private static Expression operation(@NotNull Expression left, @NotNull Operator operator,
+                                        @NotNull Expression right, boolean caseSensitive) {
+        return new Expression("", left, operator, right, "", null, caseSensitive);
+    }
+
+    /**
+     * Finds the prime implicants by splitting on the highest row bit.
+     * A prime without the atomic value is a prime of both halves, and a prime with it is a prime of one half that
+     * is not a prime of both. The primes of equal tables are only found once.
+     */
+    private static final class Primes {
+
+        @NotNull
+        private final Map<Table, long[]> primes = new HashMap<>();
+
+        @NotNull
+        private long[] primes(@NotNull long[] table, int atomics) {
+            if (isFalse(table)) {
+                return NO_IMPLICANTS;
+            }
+            else if (isTrue(table, atomics)) {
+                return new long[] {0, 0};
+            }
+            final Table key = new Table(table, atomics);
+            final long[] existing = primes.get(key);
+            if (existing != null) {
+                return existing;
+            }
+
+            final long[] low = half(table, atomics, false);
+            final long[] high = half(table, atomics, true);
+            final long[] result;
+
+            if (Arrays.equals(low, high)) {
+                result = primes(low, atomics - 1);
+            }
+            else {
+                final long[] both = new long[low.length];
+                for (int word = 0; word < both.length; word++) {
+                    both[word] = low[word] & high[word];
+                }
+                final long[] shared = primes(both, atomics - 1);
+                final long[] lowPrimes = primes(low, atomics - 1);
+                final long[] highPrimes = primes(high, atomics - 1);
+
+                final long[] sharedKeys = new long[shared.length / 2];
+                for (int i = 0; i < sharedKeys.length; i++) {
+                    sharedKeys[i] = shared[i * 2] << Integer.SIZE | shared[i * 2 + 1];
+                }
+                Arrays.sort(sharedKeys);
+
+                final long bit = 1L << atomics - 1;
+                final long[] all = Arrays.copyOf(shared, shared.length + lowPrimes.length + highPrimes.length);
+                int size = shared.length;
+                size = addWithBit(all, size, lowPrimes, sharedKeys, bit, 0);
+                size = addWithBit(all, size, highPrimes, sharedKeys, bit, bit);
+                result = Arrays.copyOf(all, size);
+            }
+            primes.put(key, result);
+            return result;
+        }
+
+        /**
+         * Adds the implicants that are not shared, with the bit added to the mask and the value
+         */
+        private static int addWithBit(@NotNull long[] all, int size, @NotNull long[] implicants,
+                                      @NotNull long[] sharedKeys, long bit, long value) {
+            for (int i = 0; i < implicants.length; i += 2) {
+                if (Arrays.binarySearch(sharedKeys, implicants[i] << Integer.SIZE | implicants[i + 1]) < 0) {
+                    all[size++] = implicants[i] | bit;
+                    all[size++] = implicants[i + 1] | value;
+                }
+            }
+            return size;
+        }
+
+        /**
+         * @return The truth values of the rows where the highest bit is 1 if 'high', otherwise 0
+         */
+        @NotNull
+        private static long[] half(@NotNull long[] table, int atomics, boolean high) {
+            if (atomics > 6) {
+                final int words = table.length / 2;
+                return high ? Arrays.copyOfRange(table, words, table.length) : Arrays.copyOf(table, words);
+            }
+            final int rows = 1 << atomics - 1;
+            final long mask = (1L << rows) - 1;
+            return new long[] {(high ? table[0] >>> rows : table[0]) & mask};
+        }
+
+        private static boolean isFalse(@NotNull long[] table) {
+            for (long word : table) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isTrue(@NotNull long[] table, int atomics) {
+            if (atomics < 6) {
+                return table[0] == (1L << (1 << atomics)) - 1;
+            }
+            for (long word : table) {
+                if (word != -1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The truth values of a function of some atomic values, used as a key
+     */
+    private record Table(@NotNull long[] words, int atomics) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Table table && atomics == table.atomics && Arrays.equals(words, table.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(words) * 31 + atomics;
+        }
+    }
+}
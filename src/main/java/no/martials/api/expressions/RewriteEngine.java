@@ -0,0 +1,327 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Language;
+import no.martials.api.enums.Operator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Uses the laws on an expression until none of them changes it, or the budget of steps is used.
+ * Each law is a rule that is indexed by the operator of the expression and whether it is negated,
+ * so only the rules that can change an expression are tried. When a rule changes the children,
+ * the children are rewritten again. The result of each rewritten expression is remembered by its {@link ExpressionNode},
+ * so an expression that is written the same way is only rewritten once.
+ * <p>
+ * The rules are used in the same order as {@link Expression#laws(List, Language)}. Each law only changes the shapes of
+ * expressions it holds for, with assertions enabled every step is checked to keep the truth values of the expression.
+ * The laws are checked on random expressions by the tests, requests are not checked at runtime.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class RewriteEngine {
+
+    /**
+     * The max number of times the rules change the expressions of one simplification
+     */
+    public static final int DEFAULT_MAX_STEPS = 1000;
+    /**
+     * The max number of times the rules are tried on the same expression
+     */
+    static final int MAX_PASSES = 8;
+    private static final int POSITIVE = 0;
+    private static final int NEGATED = 1;
+    /**
+     * The expression starts with more than one negation
+     */
+    private static final int MULTIPLE_NEGATIONS = 2;
+    private static final int NEGATION_STATES = 3;
+    private static final int ALL_STATES = 0b111;
+
+    private static final List<Rule> RULES = List.of(
+            new Rule("Elimination of implication", "Eliminering av implikasjon",
+                    Expression::eliminationOfImplication, RewriteEngine::isBinary,
+                    ALL_STATES, Operator.IMPLICATION),
+            new Rule("Double negation", "Dobbel negasjon",
+                    Expression::doubleNegation, RewriteEngine::hasMultipleNegations,
+                    ALL_STATES, null, Operator.AND, Operator.OR, Operator.IMPLICATION),
+            new Rule("De Morgan's Laws", "De Morgans lover",
+                    Expression::deMorgansLaws, RewriteEngine::hasNegatedChild,
+                    ALL_STATES, Operator.AND, Operator.OR),
+            new Rule("Absorption law", "Absorpsjons loven",
+                    Expression::absorptionLaw, RewriteEngine::isBinary,
+                    ALL_STATES, Operator.AND, Operator.OR),
+            new Rule("Distributivity", "Distributivitet",
+                    Expression::distributiveProperty, RewriteEngine::hasBinaryChildrenWithOtherOperator,
+                    ALL_STATES, Operator.AND, Operator.OR)
+    );
+
+    /**
+     * The rules for each operator and negation state, bit 'i' is the rule with index 'i'.
+     * The first index is 0 for atomic values, otherwise the ordinal of the operator + 1.
+     */
+    private static final int[][] INDEX = new int[Operator.values().length + 1][NEGATION_STATES];
+
+    static {
+        for (int rule = 0; rule < RULES.size(); rule++) {
+            for (Operator operator : RULES.get(rule).operators()) {
+                for (int state = 0; state < NEGATION_STATES; state++) {
+                    if ((RULES.get(rule).states() & 1 << state) != 0) {
+                        INDEX[operatorIndex(operator)][state] |= 1 << rule;
+                    }
+                }
+            }
+        }
+        // Atomic values can only have too many negations
+        INDEX[operatorIndex(null)][POSITIVE] = 0;
+        INDEX[operatorIndex(null)][NEGATED] = 0;
+    }
+
+    @NotNull
+    private final Language language;
+    @Nullable
+    private final StepRecorder operations;
+    private final int maxSteps;
+    @NotNull
+    private final Map<ExpressionNode, Rewritten> rewritten = new HashMap<>();
+    /**
+     * The recorded steps, so the steps of a rewritten expression can be recorded again
+     */
+    @NotNull
+    private final List<Step> recorded = new ArrayList<>();
+
+    private int steps;
+    private int attempts;
+
+    /**
+     * A rewritten expression, and the steps that were used.
+     * The node of 'A ⋀ B' is the same as the node of 'B ⋀ A', so the string of the expression before it was rewritten
+     * is also kept, and the steps are only used again for an expression that is written the same way.
+     */
+    private record Rewritten(@NotNull String before, @NotNull Expression result, @NotNull List<Step> steps) {
+    }
+
+    /**
+     * @param before The expression before the step, or null if the steps are only counted
+     * @param after  The expression after the step, or null if the steps are only counted
+     */
+    private record Step(@NotNull String law, @Nullable String before, @Nullable String after) {
+    }
+
+    /**
+     * @param english   The name of the law in english
+     * @param norwegian The name of the law in norwegian
+     * @param law       Uses the law on an expression
+     * @param isUseful  False if the law can not change the expression, checked before the law is used
+     * @param states    The negation states the rule is used for, bit 'i' is the state 'i'
+     * @param operators The operators the rule is used for, null is atomic values
+     */
+    private record Rule(@NotNull String english, @NotNull String norwegian, @NotNull Consumer<Expression> law,
+                        @NotNull Predicate<Expression> isUseful, int states, @NotNull Operator... operators) {
+    }
+
+    /**
+     * @param language   The language of the names of the laws
+     * @param operations The list the steps are added to, or null if the steps are not recorded
+     */
+    public RewriteEngine(@NotNull Language language, @Nullable List<OrderOperations> operations) {
+        this(language, operations, DEFAULT_MAX_STEPS);
+    }
+
+    public RewriteEngine(@NotNull Language language, @Nullable List<OrderOperations> operations, int maxSteps) {
+        this(language, StepRecorder.of(operations), maxSteps);
+    }
+
+    /**
+     * @param operations Receives the steps, or null if the steps are not recorded
+     */
+    public RewriteEngine(@NotNull Language language, @Nullable StepRecorder operations, int maxSteps) {
+        if (maxSteps < 0) {
+            throw new IllegalArgumentException("Max steps must not be negative");
+        }
+        this.language = language;
+        this.operations = operations;
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * Uses the rules on the expression until it does not change, the children must already be rewritten
+     *
+     * @param exp The expression, it is changed in place
+     */
+    public void rewrite(@NotNull Expression exp) {
+        final ExpressionNode key = ExpressionNode.of(exp);
+        final String original = exp.toString();
+        final Rewritten existing = rewritten.get(key);
+        if (existing != null && existing.before().equals(original)) {
+            replace(exp, existing.result().copy());
+            for (Step step : existing.steps()) {
+                record(step);
+            }
+            return;
+        }
+        final int firstStep = recorded.size();
+
+        boolean changed = true;
+        for (int pass = 0; changed && pass < MAX_PASSES && steps < maxSteps; pass++) {
+            changed = false;
+
+            for (int rule = 0; rule < RULES.size() && steps < maxSteps; rule++) {
+                // The operator or negation may have been changed by the previous rule
+                if ((INDEX[operatorIndex(exp.getOperator())][negationState(exp)] & 1 << rule) == 0 ||
+                        !RULES.get(rule).isUseful().test(exp)) {
+                    continue;
+                }
+                attempts++;
+                // The string is cached until the expression is changed, and only created if it is recorded
+                final String before = operations != null && operations.recordsExpressions() ? exp.toString() : null;
+                final int version = exp.getVersion();
+                Expression saved = null;
+                assert (saved = exp.copy()) != null;
+                RULES.get(rule).law().accept(exp);
+                addParentheses(exp);
+
+                if (exp.getVersion() != version) {
+                    assert EquivalenceChecker.isEquivalent(saved, exp) : name(RULES.get(rule)) + " changed " + saved;
+                    addStep(before, exp, RULES.get(rule));
+                    steps++;
+                    changed = true;
+                }
+            }
+            if (changed && exp.getRight() != null) {
+                rewriteChildren(exp);
+            }
+        }
+        rewritten.put(key, new Rewritten(original, exp.copy(), List.copyOf(recorded.subList(firstStep, recorded.size()))));
+    }
+
+    /**
+     * Adds a step, unless the steps are not recorded or the string of the expression is the same.
+     * The steps that are only counted are always added, the expression is known to be changed.
+     */
+    private void addStep(@Nullable String before, @NotNull Expression exp, @NotNull Rule rule) {
+        if (operations == null) {
+            return;
+        }
+        if (before == null) {
+            record(new Step(name(rule), null, null));
+        }
+        else if (!before.equals(exp.toString())) {
+            record(new Step(name(rule), before, exp.toString()));
+        }
+    }
+
+    private void record(@NotNull Step step) {
+        assert operations != null;
+        recorded.add(step);
+        operations.add(step.law(), step.before(), step.after());
+    }
+
+    private void rewriteChildren(@NotNull Expression exp) {
+        for (Expression child : new Expression[] {exp.getLeft(), exp.getRight()}) {
+            if (child != null && !child.isAtomic() && child.getRight() != null) {
+                rewrite(child);
+            }
+        }
+    }
+
+    @NotNull
+    private String name(@NotNull Rule rule) {
+        return language == Language.ENGLISH ? rule.english() : rule.norwegian();
+    }
+
+    /**
+     * @return The number of rules that changed an expression
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return The number of rules that were used, including the ones that did not change anything
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+
+    /**
+     * Adds the parentheses that are needed to read the string of the expression as the same tree.
+     * A negated expression, or an expression with a weaker operator than its parent, needs parentheses,
+     * and so does an implication in an implication.
+     */
+    static void addParentheses(@NotNull Expression exp) {
+        if (isBinary(exp) && exp.isInverse() && !exp.getLeading().contains("(")) {
+            exp.appendLeading("(");
+            exp.setTrailing(")" + exp.getTrailing());
+        }
+        addParentheses(exp, exp.getLeft());
+        addParentheses(exp, exp.getRight());
+    }
+
+    private static void addParentheses(@NotNull Expression parent, @Nullable Expression child) {
+        if (child == null || child.isAtomic()) {
+            return;
+        }
+        final Operator operator = child.getOperator();
+        if (operator != null && parent.getOperator() != null && !child.getLeading().contains("(") && (child.isInverse() ||
+                operator.ordinal() < parent.getOperator().ordinal() ||
+                operator == Operator.IMPLICATION && parent.getOperator() == Operator.IMPLICATION)) {
+            child.appendLeading("(");
+            child.setTrailing(")" + child.getTrailing());
+        }
+        addParentheses(child, child.getLeft());
+        addParentheses(child, child.getRight());
+    }
+
+    private static void replace(@NotNull Expression exp, @NotNull Expression with) {
+        exp.setLeading(with.getLeading());
+        exp.setLeft(with.getLeft());
+        exp.setOperator(with.getOperator());
+        exp.setRight(with.getRight());
+        exp.setTrailing(with.getTrailing());
+        exp.setAtomic(with.getAtomic());
+    }
+
+    private static int operatorIndex(@Nullable Operator operator) {
+        return operator == null ? 0 : operator.ordinal() + 1;
+    }
+
+    private static int negationState(@NotNull Expression exp) {
+        final String leading = exp.getLeading();
+        if (leading.startsWith("¬¬")) {
+            return MULTIPLE_NEGATIONS;
+        }
+        return exp.isInverse() ? NEGATED : POSITIVE;
+    }
+
+    private static boolean isBinary(@NotNull Expression exp) {
+        return exp.getLeft() != null && exp.getRight() != null;
+    }
+
+    private static boolean hasNegatedChild(@NotNull Expression exp) {
+        return isBinary(exp) && (exp.getLeft().isInverse() || exp.getRight().isInverse());
+    }
+
+    private static boolean hasBinaryChildrenWithOtherOperator(@NotNull Expression exp) {
+        return isBinary(exp) && isBinary(exp.getLeft()) && isBinary(exp.getRight()) &&
+                exp.getLeft().getOperator() != exp.getOperator();
+    }
+
+    /**
+     * @return True if the expression or any expression in it starts with more than one negation
+     */
+    private static boolean hasMultipleNegations(@Nullable Expression exp) {
+        return exp != null && (exp.getLeading().startsWith("¬¬") ||
+                hasMultipleNegations(exp.getLeft()) || hasMultipleNegations(exp.getRight()));
+    }
+}
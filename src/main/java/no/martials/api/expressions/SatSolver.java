@@ -0,0 +1,676 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.CnfEncoding;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A conflict driven clause learning SAT solver.
+ * Each clause watches two of its literals, and is only visited when one of them becomes false.
+ * When a conflict is found, a clause is learned from the first unique implication point, and the solver jumps back to
+ * the second highest level in the clause. The next variable is the unassigned variable with the highest activity,
+ * the activity of the variables in a conflict is increased, and older conflicts count less (VSIDS).
+ * The search is restarted after a number of conflicts that follows the Luby sequence, the value of each variable is
+ * kept between restarts. When there are too many learned clauses at a restart, the half with the most levels in them
+ * is removed (LBD), except the clauses with only two levels, and the limit is increased.
+ * <p>
+ * The clauses are added with the literals of the DIMACS format, variable 'v' is the literal 'v + 1',
+ * and its negation is '-(v + 1)'. Inside the solver the literal of 'v' is '2v', and its negation is '2v + 1'.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class SatSolver {
+
+    public static final int DEFAULT_MAX_CONFLICTS = 1_000_000;
+
+    private static final int UNASSIGNED = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = -1;
+
+    private static final int SATISFIABLE = 1;
+    private static final int UNSATISFIABLE = -1;
+    private static final int RESTART = 0;
+
+    private static final double ACTIVITY_DECAY = 0.95;
+    private static final double MAX_ACTIVITY = 1e100;
+    /**
+     * The number of conflicts before the first restart, multiplied by the Luby sequence
+     */
+    private static final int RESTART_CONFLICTS = 100;
+    /**
+     * The min number of learned clauses that are kept, before the clauses are reduced
+     */
+    static final int MIN_LEARNT_CLAUSES = 2000;
+    /**
+     * Learned clauses with at most this number of levels are never removed
+     */
+    private static final int GLUE_LEVELS = 2;
+    private static final double LEARNT_CLAUSES_GROWTH = 1.1;
+
+    private final int numberOfVariables;
+    private final int maxConflicts;
+
+    @NotNull
+    private final List<int[]> clauses = new ArrayList<>();
+    /**
+     * The number of levels in each learned clause when it was learned, and 0 for the clauses that were added
+     */
+    @NotNull
+    private final IntList clauseLevels = new IntList();
+    private int learntClauses = 0;
+    private double maxLearntClauses;
+    private int reductions = 0;
+    /**
+     * The clauses that watch each literal
+     */
+    @NotNull
+    private final IntList[] watches;
+    @NotNull
+    private final int[] values;
+    @NotNull
+    private final int[] levels;
+    /**
+     * The clause that implied the value of each variable, or -1 if it was decided
+     */
+    @NotNull
+    private final int[] reasons;
+    /**
+     * The last value of each variable
+     */
+    @NotNull
+    private final boolean[] phases;
+    @NotNull
+    private final double[] activity;
+    @NotNull
+    private final boolean[] seen;
+    /**
+     * The last learned clause that had a literal from each level, used to count the levels of a clause
+     */
+    @NotNull
+    private final int[] levelSeen;
+
+    @NotNull
+    private final int[] trail;
+    private int trailSize = 0;
+    private int propagated = 0;
+    /**
+     * The size of the trail when each level was started
+     */
+    @NotNull
+    private final int[] levelStarts;
+    private int level = 0;
+
+    /**
+     * The unassigned variables ordered by their activity, the variable with the highest activity is first
+     */
+    @NotNull
+    private final int[] heap;
+    @NotNull
+    private final int[] heapIndexes;
+    private int heapSize = 0;
+
+    private double increment = 1;
+    private boolean unsatisfiable = false;
+    private int conflicts = 0;
+    @NotNull
+    private final IntList learnt = new IntList();
+
+    /**
+     * A list of ints that can grow
+     */
+    private static final class IntList {
+
+        @NotNull
+        private int[] data = new int[4];
+        private int size = 0;
+
+        private void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+    }
+
+    /**
+     * @param numberOfVariables The number of variables
+     * @param maxConflicts      The max number of conflicts before the search is stopped
+     */
+    public SatSolver(int numberOfVariables, int maxConflicts) {
+        this(numberOfVariables, maxConflicts, MIN_LEARNT_CLAUSES);
+    }
+
+    /**
+     * @param minLearntClauses The min number of learned clauses that are kept, before the clauses are reduced
+     */
+    SatSolver(int numberOfVariables, int maxConflicts, int minLearntClauses) {
+        this.numberOfVariables = numberOfVariables;
+        this.maxConflicts = maxConflicts;
+        this.maxLearntClauses = minLearntClauses;
+        watches = new IntList[2 * numberOfVariables];
+        for (int literal = 0; literal < watches.length; literal++) {
+            watches[literal] = new IntList();
+        }
+        values = new int[numberOfVariables];
+        levels = new int[numberOfVariables];
+        reasons = new int[numberOfVariables];
+        phases = new boolean[numberOfVariables];
+        activity = new double[numberOfVariables];
+        seen = new boolean[numberOfVariables];
+        levelSeen = new int[numberOfVariables + 1];
+        trail = new int[numberOfVariables];
+        levelStarts = new int[numberOfVariables + 1];
+        heap = new int[numberOfVariables];
+        heapIndexes = new int[numberOfVariables];
+        for (int variable = 0; variable < numberOfVariables; variable++) {
+            heapIndexes[variable] = -1;
+            insert(variable);
+        }
+    }
+
+    public SatSolver(int numberOfVariables) {
+        this(numberOfVariables, DEFAULT_MAX_CONFLICTS);
+    }
+
+    /**
+     * @param expression The expression
+     * @return The value of each atomic value in an assignment that makes the expression true,
+     * or null if the expression is never true. The atomic values are in the same order as the columns of a table.
+     * @throws IllegalStateException If the solver needs more than the default max number of conflicts
+     */
+    @Nullable
+    public static Map<String, Boolean> satisfyingAssignment(@NotNull Expression expression) {
+        final CnfEncoder.Cnf cnf = CnfEncoder.encode(expression, CnfEncoding.PLAISTED_GREENBAUM);
+        final SatSolver solver = new SatSolver(cnf.numberOfVariables());
+        solver.addClauses(cnf);
+        if (!solver.solve()) {
+            return null;
+        }
+        final Map<String, Boolean> assignment = new LinkedHashMap<>();
+        for (int atomic = 0; atomic < cnf.atomics().length; atomic++) {
+            assignment.put(cnf.atomics()[atomic], solver.getValue(atomic));
+        }
+        return assignment;
+    }
+
+    /**
+     * Adds a clause, a literal can be used more than once, and a clause with both a literal and its negation is ignored
+     *
+     * @param literals The literals of the clause, in the DIMACS format
+     * @throws IllegalArgumentException If a literal is 0, or its variable does not exist
+     */
+    public void addClause(@NotNull int... literals) {
+        addClause(literals, 0, literals.length);
+    }
+
+    /**
+     * @param cnf The clauses to add, the formula must not have more variables than the solver
+     * @throws IllegalArgumentException If a variable does not exist
+     */
+    public void addClauses(@NotNull CnfEncoder.Cnf cnf) {
+        final int[] clauses = cnf.clauses();
+        int start = 0;
+        for (int end = 0; end < clauses.length; end++) {
+            if (clauses[end] == 0) {
+                addClause(clauses, start, end);
+                start = end + 1;
+            }
+        }
+    }
+
+    /**
+     * @param from The index of the first literal
+     * @param to   The index after the last literal
+     */
+    private void addClause(@NotNull int[] literals, int from, int to) {
+        cancelUntil(0);
+        learnt.size = 0;
+        for (int i = from; i < to; i++) {
+            final int dimacs = literals[i];
+            if (dimacs == 0 || Math.abs(dimacs) > numberOfVariables) {
+                throw new IllegalArgumentException("Literal " + dimacs + " does not exist");
+            }
+            final int literal = dimacs > 0 ? 2 * (dimacs - 1) : 2 * (-dimacs - 1) + 1;
+            if (value(literal) == TRUE || contains(learnt, literal ^ 1)) {
+                return;
+            }
+            if (value(literal) == UNASSIGNED && !contains(learnt, literal)) {
+                learnt.add(literal);
+            }
+        }
+        if (learnt.size == 0) {
+            unsatisfiable = true;
+        }
+        else if (learnt.size == 1) {
+            enqueue(learnt.data[0], -1);
+            unsatisfiable |= propagate() >= 0;
+        }
+        else {
+            addWatched(Arrays.copyOf(learnt.data, learnt.size), 0);
+        }
+    }
+
+    private static boolean contains(@NotNull IntList list, int value) {
+        for (int i = 0; i < list.size; i++) {
+            if (list.data[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if there is an assignment that satisfies all the clauses, the assignment is kept
+     * @throws IllegalStateException If the solver needs more than the max number of conflicts
+     */
+    public boolean solve() {
+        cancelUntil(0);
+        if (unsatisfiable || propagate() >= 0) {
+            unsatisfiable = true;
+            return false;
+        }
+        for (int restart = 0; ; restart++) {
+            final int result = search(luby(restart) * RESTART_CONFLICTS);
+            if (result != RESTART) {
+                return result == SATISFIABLE;
+            }
+            cancelUntil(0);
+            if (learntClauses > maxLearntClauses) {
+                reduce();
+                maxLearntClauses *= LEARNT_CLAUSES_GROWTH;
+            }
+        }
+    }
+
+    /**
+     * @param variable The variable, starting at 0
+     * @return The value of the variable in the last satisfying assignment
+     */
+    public boolean getValue(int variable) {
+        return values[variable] == TRUE;
+    }
+
+    public int getNumberOfVariables() {
+        return numberOfVariables;
+    }
+
+    public int getNumberOfClauses() {
+        return clauses.size();
+    }
+
+    public int getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * @return The number of learned clauses that are kept
+     */
+    public int getNumberOfLearntClauses() {
+        return learntClauses;
+    }
+
+    /**
+     * @return The number of times the learned clauses were reduced
+     */
+    public int getReductions() {
+        return reductions;
+    }
+
+    private int search(long maxConflictsBeforeRestart) {
+        long conflictsBeforeRestart = 0;
+        while (true) {
+            final int conflict = propagate();
+            if (conflict >= 0) {
+                if (++conflicts > maxConflicts) {
+                    throw new IllegalStateException("The solver needs more than " + maxConflicts + " conflicts");
+                }
+                conflictsBeforeRestart++;
+                if (level == 0) {
+                    unsatisfiable = true;
+                    return UNSATISFIABLE;
+                }
+                learn(conflict);
+                increment /= ACTIVITY_DECAY;
+            }
+            else if (conflictsBeforeRestart >= maxConflictsBeforeRestart) {
+                return RESTART;
+            }
+            else {
+                final int variable = nextVariable();
+                if (variable < 0) {
+                    return SATISFIABLE;
+                }
+                levelStarts[level++] = trailSize;
+                enqueue(phases[variable] ? 2 * variable : 2 * variable + 1, -1);
+            }
+        }
+    }
+
+    /**
+     * Propagates the values on the trail, until every clause has a true literal or two unassigned literals
+     *
+     * @return The clause that is false, or -1 if there is no conflict
+     */
+    private int propagate() {
+        while (propagated < trailSize) {
+            final int falseLiteral = trail[propagated++] ^ 1;
+            final IntList watching = watches[falseLiteral];
+            int kept = 0;
+            int i = 0;
+            while (i < watching.size) {
+                final int index = watching.data[i++];
+                final int[] clause = clauses.get(index);
+                // The false literal is always second
+                if (clause[0] == falseLiteral) {
+                    clause[0] = clause[1];
+                    clause[1] = falseLiteral;
+                }
+                watching.data[kept++] = index;
+                if (value(clause[0]) == TRUE) {
+                    continue;
+                }
+                if (watchOther(clause, index)) {
+                    kept--;
+                }
+                else if (value(clause[0]) == FALSE) {
+                    while (i < watching.size) {
+                        watching.data[kept++] = watching.data[i++];
+                    }
+                    watching.size = kept;
+                    propagated = trailSize;
+                    return index;
+                }
+                else {
+                    enqueue(clause[0], index);
+                }
+            }
+            watching.size = kept;
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the second watch to a literal that is not false
+     *
+     * @return True if a literal was found
+     */
+    private boolean watchOther(@NotNull int[] clause, int index) {
+        for (int k = 2; k < clause.length; k++) {
+            if (value(clause[k]) != FALSE) {
+                final int literal = clause[k];
+                clause[k] = clause[1];
+                clause[1] = literal;
+                watches[literal].add(index);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Learns a clause from the conflict, where only one literal is from the current level, and jumps back to the
+     * highest level of the other literals. The literal from the current level is then implied by the learned clause.
+     */
+    private void learn(int conflict) {
+        learnt.size = 0;
+        learnt.add(-1);
+        int paths = 0;
+        int literal = -1;
+        int index = trailSize - 1;
+        int reason = conflict;
+
+        do {
+            final int[] clause = clauses.get(reason);
+            // The first literal of a reason is the literal it implied
+            for (int k = literal < 0 ? 0 : 1; k < clause.length; k++) {
+                final int variable = clause[k] >> 1;
+                if (!seen[variable] && levels[variable] > 0) {
+                    seen[variable] = true;
+                    bump(variable);
+                    if (levels[variable] == level) {
+                        paths++;
+                    }
+                    else {
+                        learnt.add(clause[k]);
+                    }
+                }
+            }
+            while (!seen[trail[index] >> 1]) {
+                index--;
+            }
+            literal = trail[index--];
+            reason = reasons[literal >> 1];
+            seen[literal >> 1] = false;
+            paths--;
+        } while (paths > 0);
+        learnt.data[0] = literal ^ 1;
+
+        int backjump = 0;
+        for (int i = 1; i < learnt.size; i++) {
+            final int variable = learnt.data[i] >> 1;
+            seen[variable] = false;
+            if (levels[variable] > backjump) {
+                backjump = levels[variable];
+                // The literal with the highest level is watched
+                final int highest = learnt.data[i];
+                learnt.data[i] = learnt.data[1];
+                learnt.data[1] = highest;
+            }
+        }
+        final int levels = countLevels();
+        cancelUntil(backjump);
+        if (learnt.size == 1) {
+            enqueue(learnt.data[0], -1);
+        }
+        else {
+            enqueue(learnt.data[0], addWatched(Arrays.copyOf(learnt.data, learnt.size), levels));
+            learntClauses++;
+        }
+    }
+
+    /**
+     * @return The number of different levels of the literals in the learned clause
+     */
+    private int countLevels() {
+        int count = 0;
+        for (int i = 0; i < learnt.size; i++) {
+            final int clauseLevel = levels[learnt.data[i] >> 1];
+            if (levelSeen[clauseLevel] != conflicts) {
+                levelSeen[clauseLevel] = conflicts;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param levels The number of levels in a learned clause, or 0 if the clause was added
+     * @return The index of the clause
+     */
+    private int addWatched(@NotNull int[] clause, int levels) {
+        clauses.add(clause);
+        clauseLevels.add(levels);
+        final int index = clauses.size() - 1;
+        watches[clause[0]].add(index);
+        watches[clause[1]].add(index);
+        return index;
+    }
+
+    /**
+     * Removes the half of the learned clauses with the most levels, the oldest are removed first.
+     * Called at level 0, where the reasons are never used to learn a clause, so every learned clause can be removed.
+     * The clauses that are kept get new indexes, and the watches are created again from the first two literals.
+     */
+    private void reduce() {
+        final long[] candidates = new long[learntClauses];
+        int size = 0;
+        for (int index = 0; index < clauses.size(); index++) {
+            if (clauseLevels.data[index] > GLUE_LEVELS) {
+                // Sorted by the levels, and then by the age, with the newest first
+                candidates[size++] = (long) clauseLevels.data[index] << 32 | Integer.MAX_VALUE - index;
+            }
+        }
+        Arrays.sort(candidates, 0, size);
+        final boolean[] removed = new boolean[clauses.size()];
+        for (int i = size / 2; i < size; i++) {
+            removed[Integer.MAX_VALUE - (int) candidates[i]] = true;
+        }
+
+        int kept = 0;
+        for (int index = 0; index < clauses.size(); index++) {
+            if (!removed[index]) {
+                clauses.set(kept, clauses.get(index));
+                clauseLevels.data[kept++] = clauseLevels.data[index];
+            }
+        }
+        clauses.subList(kept, clauses.size()).clear();
+        clauseLevels.size = kept;
+        learntClauses -= size - size / 2;
+        reductions++;
+
+        for (IntList watching : watches) {
+            watching.size = 0;
+        }
+        for (int index = 0; index < kept; index++) {
+            watches[clauses.get(index)[0]].add(index);
+            watches[clauses.get(index)[1]].add(index);
+        }
+        for (int i = 0; i < trailSize; i++) {
+            reasons[trail[i] >> 1] = -1;
+        }
+    }
+
+    private void enqueue(int literal, int reason) {
+        final int variable = literal >> 1;
+        values[variable] = (literal & 1) == 0 ? TRUE : FALSE;
+        levels[variable] = level;
+        reasons[variable] = reason;
+        trail[trailSize++] = literal;
+    }
+
+    /**
+     * Removes the values of the levels above the given level, the values are saved as the phase of the variables
+     */
+    private void cancelUntil(int target) {
+        if (level <= target) {
+            return;
+        }
+        for (int i = trailSize - 1; i >= levelStarts[target]; i--) {
+            final int variable = trail[i] >> 1;
+            phases[variable] = values[variable] == TRUE;
+            values[variable] = UNASSIGNED;
+            reasons[variable] = -1;
+            if (heapIndexes[variable] < 0) {
+                insert(variable);
+            }
+        }
+        trailSize = levelStarts[target];
+        propagated = trailSize;
+        level = target;
+    }
+
+    /**
+     * @return The value of the literal, {@link #TRUE}, {@link #FALSE} or {@link #UNASSIGNED}
+     */
+    private int value(int literal) {
+        final int value = values[literal >> 1];
+        return (literal & 1) == 0 ? value : -value;
+    }
+
+    /**
+     * @return The unassigned variable with the highest activity, or -1 if all are assigned
+     */
+    private int nextVariable() {
+        while (heapSize > 0) {
+            final int variable = removeFirst();
+            if (values[variable] == UNASSIGNED) {
+                return variable;
+            }
+        }
+        return -1;
+    }
+
+    private void bump(int variable) {
+        activity[variable] += increment;
+        if (activity[variable] > MAX_ACTIVITY) {
+            for (int v = 0; v < numberOfVariables; v++) {
+                activity[v] /= MAX_ACTIVITY;
+            }
+            increment /= MAX_ACTIVITY;
+        }
+        if (heapIndexes[variable] >= 0) {
+            siftUp(heapIndexes[variable]);
+        }
+    }
+
+    private void insert(int variable) {
+        heap[heapSize] = variable;
+        heapIndexes[variable] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int removeFirst() {
+        final int first = heap[0];
+        heapIndexes[first] = -1;
+        if (--heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndexes[heap[0]] = 0;
+            siftDown(0);
+        }
+        return first;
+    }
+
+    private void siftUp(int i) {
+        final int variable = heap[i];
+        while (i > 0 && activity[heap[(i - 1) / 2]] < activity[variable]) {
+            heap[i] = heap[(i - 1) / 2];
+            heapIndexes[heap[i]] = i;
+            i = (i - 1) / 2;
+        }
+        heap[i] = variable;
+        heapIndexes[variable] = i;
+    }
+
+    private void siftDown(int i) {
+        final int variable = heap[i];
+        while (2 * i + 1 < heapSize) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]]) {
+                child++;
+            }
+            if (activity[heap[child]] <= activity[variable]) {
+                break;
+            }
+            heap[i] = heap[child];
+            heapIndexes[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = variable;
+        heapIndexes[variable] = i;
+    }
+
+    /**
+     * @param i The index, starting at 0
+     * @return The i-th number of the Luby sequence: 1, 1, 2, 1, 1, 2, 4, 1, ...
+     */
+    static long luby(int i) {
+        int size = 1;
+        int sequence = 0;
+        while (size < i + 1) {
+            sequence++;
+            size = 2 * size + 1;
+        }
+        while (size - 1 != i) {
+            size = (size - 1) >> 1;
+            sequence--;
+            i = i % size;
+        }
+        return 1L << sequence;
+    }
+}
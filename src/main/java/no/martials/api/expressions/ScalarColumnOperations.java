@@ -0,0 +1,42 @@
+package no.martials.api.expressions;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Combines packed columns one word at a time
+ */
+final class ScalarColumnOperations implements ColumnOperations {
+
+    @Override
+    public void and(@NotNull long[] a, @NotNull long[] b, @NotNull long[] dst, int words) {
+        for (int i = 0; i < words; i++) {
+            dst[i] = a[i] & b[i];
+        }
+    }
+
+    @Override
+    public void or(@NotNull long[] a, @NotNull long[] b, @NotNull long[] dst, int words) {
+        for (int i = 0; i < words; i++) {
+            dst[i] = a[i] | b[i];
+        }
+    }
+
+    @Override
+    public void implication(@NotNull long[] a, @NotNull long[] b, @NotNull long[] dst, int words) {
+        for (int i = 0; i < words; i++) {
+            dst[i] = ~a[i] | b[i];
+        }
+    }
+
+    @Override
+    public void not(@NotNull long[] a, @NotNull long[] dst, int words) {
+        for (int i = 0; i < words; i++) {
+            dst[i] = ~a[i];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ScalarColumnOperations{}";
+    }
+}
@@ -0,0 +1,72 @@
+package no.martials.api.expressions;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives the steps of a simplification. The steps are either kept with the expression before and after each step,
+ * or only counted for each law, then the strings of the expressions are never created.
+ *
+ * @author Martin Berg Alstad
+ */
+public interface StepRecorder {
+
+    /**
+     * @return True if the expression before and after each step is used
+     */
+    boolean recordsExpressions();
+
+    /**
+     * @param law    The name of the law that was used
+     * @param before The expression before the step, or null if the expressions are not used
+     * @param after  The expression after the step, or null if the expressions are not used
+     */
+    void add(@NotNull String law, @Nullable String before, @Nullable String after);
+
+    /**
+     * @param operations The list the steps are added to
+     * @return A recorder that adds each step to the list, or null if the list is null
+     */
+    @Nullable
+    static StepRecorder of(@Nullable List<OrderOperations> operations) {
+        if (operations == null) {
+            return null;
+        }
+        return new StepRecorder() {
+
+            @Override
+            public boolean recordsExpressions() {
+                return true;
+            }
+
+            @Override
+            public void add(@NotNull String law, @Nullable String before, @Nullable String after) {
+                assert before != null && after != null : "The expressions are recorded";
+                operations.add(new OrderOperations(before, after, law));
+            }
+        };
+    }
+
+    /**
+     * @param counts The number of times each law was used, it is updated for each step
+     * @return A recorder that only counts the laws
+     */
+    @NotNull
+    static StepRecorder counting(@NotNull Map<String, Integer> counts) {
+        return new StepRecorder() {
+
+            @Override
+            public boolean recordsExpressions() {
+                return false;
+            }
+
+            @Override
+            public void add(@NotNull String law, @Nullable String before, @Nullable String after) {
+                counts.merge(law, 1, Integer::sum);
+            }
+        };
+    }
+}
@@ -0,0 +1,189 @@
+package no.martials.api.expressions;
+
+import no.martials.api.utils.CpuExecutor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Decides if a truth table is generated on multiple threads, and runs the parts of the table on a {@link CpuExecutor}.
+ * The table is split into ranges of rows, each range starts at a word so the packed columns are never shared.
+ * Tables with fewer rows than the threshold are generated on the calling thread.
+ * <p>
+ * The calling thread generates ranges until there are none left, and is helped by the threads of the executor that
+ * have a free permit when the table is started. A request that holds a permit for the table therefore never uses more
+ * cores than the executor allows, and a busy server generates the table on the calling thread only.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class TableParallelism {
+
+    /**
+     * Tables with 12 or more atomic values are generated in parallel by default
+     */
+    public static final int DEFAULT_THRESHOLD = 1 << 12;
+    /**
+     * The smallest number of words in a range, smaller ranges cost more to schedule than to evaluate
+     */
+    static final int MIN_RANGE_WORDS = 16;
+    /**
+     * The number of ranges per thread, so a slow thread does not delay the whole table
+     */
+    private static final int RANGES_PER_THREAD = 4;
+
+    /**
+     * Generates every table on the calling thread
+     */
+    @NotNull
+    public static final TableParallelism SEQUENTIAL = new TableParallelism(Integer.MAX_VALUE, 1);
+
+    private final int threshold;
+    @NotNull
+    private final CpuExecutor executor;
+    /**
+     * True if the executor was created for this instance, and is stopped by {@link #shutdown()}
+     */
+    private final boolean ownsExecutor;
+
+    /**
+     * @param threshold The smallest number of rows that are generated in parallel
+     * @param executor  The executor whose free permits are used to generate the rows
+     */
+    public TableParallelism(int threshold, @NotNull CpuExecutor executor) {
+        this(threshold, executor, false);
+    }
+
+    /**
+     * @param threshold   The smallest number of rows that are generated in parallel
+     * @param parallelism The number of threads, or 0 to use the number of processors
+     */
+    public TableParallelism(int threshold, int parallelism) {
+        this(threshold, new CpuExecutor(parallelism, CpuExecutor.DEFAULT_MAX_WAIT_MILLIS), true);
+    }
+
+    private TableParallelism(int threshold, @NotNull CpuExecutor executor, boolean ownsExecutor) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be greater than 0");
+        }
+        this.threshold = threshold;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * @param words The number of words in each column of the table
+     * @return The number of ranges to split the table into, 1 if the table should be generated on the calling thread
+     */
+    int ranges(int words) {
+        if ((long) words * Long.SIZE < threshold || getParallelism() < 2) {
+            return 1;
+        }
+        return Math.max(1, Math.min(words / MIN_RANGE_WORDS, getParallelism() * RANGES_PER_THREAD));
+    }
+
+    /**
+     * @param range  The index of the range
+     * @param ranges The number of ranges
+     * @param words  The number of words in each column
+     * @return The first word of the range, the range ends at the first word of the next range
+     */
+    static int firstWord(int range, int ranges, int words) {
+        return (int) ((long) range * words / ranges);
+    }
+
+    /**
+     * Runs the task for each range, and waits for all of them to finish.
+     * The calling thread runs ranges itself, so it's expected to hold a permit of the executor if it has one.
+     * A single range is run on the calling thread.
+     *
+     * @param ranges The number of ranges
+     * @param task   The task that is given the index of the range
+     */
+    void forEach(int ranges, @NotNull IntConsumer task) {
+        if (ranges == 1) {
+            task.accept(0);
+            return;
+        }
+        final AtomicInteger next = new AtomicInteger();
+        final Runnable worker = () -> {
+            for (int range = next.getAndIncrement(); range < ranges; range = next.getAndIncrement()) {
+                task.accept(range);
+            }
+        };
+
+        final List<CompletableFuture<Void>> helpers = new ArrayList<>();
+        for (int helper = 1; helper < Math.min(ranges, getParallelism()); helper++) {
+            final CompletableFuture<Void> done = new CompletableFuture<>();
+            if (!executor.tryExecute(() -> {
+                try {
+                    worker.run();
+                    done.complete(null);
+                }
+                catch (Throwable e) {
+                    done.completeExceptionally(e);
+                }
+            })) {
+                break;
+            }
+            helpers.add(done);
+        }
+
+        try {
+            worker.run();
+        }
+        finally {
+            next.set(ranges); // The helpers stop after their current range if the calling thread failed
+            for (CompletableFuture<Void> helper : helpers) {
+                join(helper);
+            }
+        }
+    }
+
+    /**
+     * Waits for a helper, and throws the exception of its task
+     */
+    private static void join(@NotNull CompletableFuture<Void> helper) {
+        try {
+            helper.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the threads of the executor, unless it's shared with other work
+     */
+    public void shutdown() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public int getParallelism() {
+        return executor.getParallelism();
+    }
+
+    @Override
+    public String toString() {
+        return "TableParallelism{" +
+                "threshold=" + threshold +
+                ", parallelism=" + getParallelism() +
+                '}';
+    }
+}
@@ -0,0 +1,170 @@
+package no.martials.api.expressions;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The columns of a truth table, where each column is stored as a packed bitset.
+ * Bit 'i' of a column is the truth value of the column in row 'i'.
+ * The columns are evaluated by a {@link CompiledExpression}, so 64 rows are computed with a single operation.
+ * The first atomic value changes the least often and all atomic values start as true.
+ * The value of an atomic value is derived from the bits of the row index, so no table of atomic values is stored.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class TruthColumns {
+
+    @NotNull
+    private final CompiledExpression program;
+    private final int rows;
+    @NotNull
+    private final long[][] columns;
+
+    /**
+     * Creates the columns for the given expressions on the calling thread, the atomic values are numbered in the order they appear.
+     *
+     * @param expressions The expressions in the table
+     * @throws IllegalArgumentException If the expressions contain no atomic values
+     */
+    public TruthColumns(@NotNull Expression[] expressions) {
+        this(expressions, TableParallelism.SEQUENTIAL);
+    }
+
+    /**
+     * Creates the columns for the given expressions, large tables are evaluated in ranges of words on multiple threads.
+     * Each range is evaluated into its own registers, and the columns are copied into place.
+     *
+     * @param expressions The expressions in the table
+     * @param parallelism Decides if the columns are evaluated in parallel
+     * @throws IllegalArgumentException If the expressions contain no atomic values
+     */
+    public TruthColumns(@NotNull Expression[] expressions, @NotNull TableParallelism parallelism) {
+        this.program = CompiledExpression.compile(expressions);
+
+        if (program.getNumberOfAtomics() < 1) {
+            throw new IllegalArgumentException("Number of atomics must be greater than 0");
+        }
+        this.rows = 1 << program.getNumberOfAtomics();
+        final int words = numberOfWords(rows);
+        final int ranges = parallelism.ranges(words);
+
+        final long[][] registers;
+        if (ranges == 1) {
+            registers = program.newRegisters(words);
+            program.evaluate(registers, 0, words);
+        }
+        else {
+            registers = new long[program.getNumberOfRegisters()][];
+            for (int column = 0; column < expressions.length; column++) {
+                registers[program.getOutput(column)] = new long[words];
+            }
+            parallelism.forEach(ranges, range -> evaluateRange(registers, range, ranges, words));
+        }
+
+        this.columns = new long[expressions.length][];
+        for (int column = 0; column < expressions.length; column++) {
+            columns[column] = registers[program.getOutput(column)];
+            if (rows < Long.SIZE) {
+                columns[column][0] &= (1L << rows) - 1;
+            }
+        }
+    }
+
+    /**
+     * Evaluates a range of words, and copies the registers that are columns into the given registers
+     */
+    private void evaluateRange(@NotNull long[][] registers, int range, int ranges, int words) {
+        final int firstWord = TableParallelism.firstWord(range, ranges, words);
+        final int rangeWords = TableParallelism.firstWord(range + 1, ranges, words) - firstWord;
+        final long[][] rangeRegisters = program.newRegisters(rangeWords);
+
+        program.evaluate(rangeRegisters, firstWord, rangeWords);
+        for (int register = 0; register < registers.length; register++) {
+            if (registers[register] != null) {
+                System.arraycopy(rangeRegisters[register], 0, registers[register], firstWord, rangeWords);
+            }
+        }
+    }
+
+    /**
+     * @param rows The number of rows
+     * @return The number of longs needed to store a column with the given number of rows
+     */
+    public static int numberOfWords(int rows) {
+        return (rows + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Creates the column of an atomic value. The atomic value with index 'k' is true in row 'r',
+     * if the bit '(n - 1 - k)' of 'r' is 0.
+     *
+     * @param numberOfAtomics The number of unique atomic values in the table
+     * @param atomicIndex     The index of the atomic value
+     * @return A packed column with the values of the atomic value
+     * @throws IllegalArgumentException If the number of atomics is less than 1
+     */
+    @NotNull
+    public static long[] atomicColumn(int numberOfAtomics, int atomicIndex) {
+        if (numberOfAtomics < 1) {
+            throw new IllegalArgumentException("Number of atomics must be greater than 0");
+        }
+        final int rows = 1 << numberOfAtomics;
+        final long[] column = new long[numberOfWords(rows)];
+        final int bit = numberOfAtomics - 1 - atomicIndex;
+
+        for (int word = 0; word < column.length; word++) {
+            column[word] = CompiledExpression.atomicWord(bit, word);
+        }
+        if (rows < Long.SIZE) {
+            column[0] &= (1L << rows) - 1;
+        }
+        return column;
+    }
+
+    /**
+     * @param column The index of the column
+     * @param row    The index of the row
+     * @return The truth value at the given position
+     */
+    public boolean get(int column, int row) {
+        return (columns[column][row >>> 6] >>> row & 1) != 0;
+    }
+
+    /**
+     * @param row The index of the row
+     * @return The truth values of all the columns in the given row
+     */
+    @NotNull
+    public boolean[] getRow(int row) {
+        final boolean[] values = new boolean[columns.length];
+        for (int column = 0; column < columns.length; column++) {
+            values[column] = get(column, row);
+        }
+        return values;
+    }
+
+    /**
+     * @param column The index of the column
+     * @return The packed values of the column, must not be modified
+     */
+    @NotNull
+    public long[] getColumn(int column) {
+        return columns[column];
+    }
+
+    @NotNull
+    public CompiledExpression getProgram() {
+        return program;
+    }
+
+    public int getNumberOfAtomics() {
+        return program.getNumberOfAtomics();
+    }
+
+    public int getNumberOfColumns() {
+        return columns.length;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+}
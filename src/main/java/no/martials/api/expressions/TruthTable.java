@@ -3,15 +3,12 @@ package no.martials.api.expressions;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import no.martials.api.enums.Hide;
 import no.martials.api.enums.Sort;
-import no.martials.api.utils.ExpressionUtils;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.media.SchemaProperty;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 @Schema(name = "TruthTable", description = "A truth table for a given expression")
 public class TruthTable {
@@ -24,159 +21,119 @@ public class TruthTable {
     private final boolean[][] truthMatrix;
 
     public TruthTable(@NotNull Expression[] expressions, Hide hide, Sort sort) {
+        this(expressions, hide, sort, TableParallelism.SEQUENTIAL);
+    }
+
+    /**
+     * @param parallelism Decides if the table is generated on multiple threads
+     */
+    public TruthTable(@NotNull Expression[] expressions, Hide hide, Sort sort, @NotNull TableParallelism parallelism) {
+        this.expressions = expressions;
+        this.truthMatrix = create(hide, sort, parallelism);
+    }
+
+    /**
+     * @param expressions The expressions in the table
+     * @param truthMatrix The rows of the table, that are already generated
+     */
+    protected TruthTable(@NotNull Expression[] expressions, @NotNull boolean[][] truthMatrix) {
         this.expressions = expressions;
-        this.truthMatrix = create(hide, sort);
+        this.truthMatrix = truthMatrix;
     }
 
     public TruthTable(@NotNull Expression[] expressions) {
         this(expressions, Hide.NONE, Sort.DEFAULT);
     }
 
+    /**
+     * Creates the rows of the table from the packed columns.
+     * If the last expression is not atomic, the rows are hidden and sorted by its value.
+     * Sorting is a stable partition, the number of true rows is counted first, then each row is placed directly
+     * at its index in either the true or the false part of the table.
+     * Large tables are split into ranges of rows that are created in parallel, the true rows before each range are
+     * counted first, so every range knows where its rows are placed.
+     *
+     * @param hide        Which rows to hide
+     * @param sort        How to sort the rows
+     * @param parallelism Decides if the table is generated on multiple threads
+     * @return A matrix where each row contains the values of all the expressions
+     */
     @NotNull
-    public static boolean[][] helperMatrix(int numberOfAtomics) {
-        if (numberOfAtomics < 1) {
-            throw new IllegalArgumentException("Number of atomics must be greater than 0");
-        }
-
-        final int powerToLength = (int) Math.pow(2, numberOfAtomics);
-        final boolean[][] helperMatrix = new boolean[numberOfAtomics][powerToLength];
+    public boolean[][] create(Hide hide, Sort sort, @NotNull TableParallelism parallelism) {
 
-        int changeIndex = powerToLength / 2;
+        final TruthColumns columns = new TruthColumns(expressions, parallelism);
+        final int rows = columns.getRows();
+        final int lastExpIndex = expressions.length - 1;
+        final long[] lastColumn = columns.getColumn(lastExpIndex);
 
-        // Creates a helper matrix with the correct truth values, in order to get all the different combinations
-        for (int column = 0; column < helperMatrix.length; column++) {
-            boolean boolValue = true;
-            int counter = 0;
-
-            for (int row = 0; row < helperMatrix[column].length; row++) {
-                if (counter == changeIndex) {
-                    boolValue = !boolValue;
-                    counter = 0;
-                }
-                helperMatrix[column][row] = boolValue;
-                counter++;
-            }
-            changeIndex /= 2;
+        if (expressions[lastExpIndex].isAtomic()) {
+            hide = Hide.NONE;
+            sort = Sort.DEFAULT;
         }
-        return helperMatrix;
-    }
 
-    @NotNull
-    public boolean[][] create(Hide hide, Sort sort) {
-
-        boolean[][] helperMatrix = helperMatrix(ExpressionUtils.getNumberOfUniqueAtomics(expressions));
-
-        int truthMatrixRowIndex = 0;
-        int truthMatrixColIndex = 0;
-
-        // Creates a matrix with the body of the table, using the helper matrix helperMatrix to fill in the correct values.
-        // The expressions that aren't atomic, uses the atomic values to see if they're truthy
-        boolean[][] truthMatrix = new boolean[helperMatrix[0].length][expressions.length];
-
-        for (int row = 0; helperMatrix[0].length > 0 && row < helperMatrix[0].length; row++) {
-
-            for (int column = 0; column < expressions.length && row < truthMatrix.length; column++) {
-
-                final Expression exp = expressions[column];
-
-                assert truthMatrix[row] != null;
-
-                // If not using 'not' operator
-                if (exp.isAtomic() && !exp.isInverse()) {
-                    truthMatrix[row][column] = helperMatrix[truthMatrixRowIndex][truthMatrixColIndex];
-
-                    // Iterates through the helperMatrix
-                    truthMatrixRowIndex = (truthMatrixRowIndex + 1) % helperMatrix.length;
-
-                    if (truthMatrixRowIndex == 0) {
-                        truthMatrixColIndex = (truthMatrixColIndex + 1) % helperMatrix[truthMatrixRowIndex].length;
-                    }
-                }
-                // If using 'not' operator
-                else if (exp.isAtomic()) {
-
-                    final int index = findExp(expressions, new Expression(exp.getLeft(), exp.getOperator(), exp.getRight(), exp.getAtomic()));
-                    boolean oppositeExpVal = false;
-                    if (index != -1) {
-                        oppositeExpVal = truthMatrix[row][index];
-                    }
-                    truthMatrix[row][column] = !oppositeExpVal;
-                }
-                else {
-                    final boolean left = resolveResult(truthMatrix[row], exp.getLeft());
-                    final boolean right = resolveResult(truthMatrix[row], exp.getRight());
-
-                    final boolean expValue = exp.solve(left, right);
-
-                    final int lastExpIndex = expressions.length - 1;
-                    if (exp == expressions[lastExpIndex] && (hide == Hide.TRUE && expValue ||
-                            hide == Hide.FALSE && !expValue)) {
-                        truthMatrix[row] = null;
-                    }
-                    else {
-                        truthMatrix[row][column] = expValue;
-
-                        if (exp == expressions[lastExpIndex] &&
-                                (sort == Sort.TRUE_FIRST && expValue || sort == Sort.FALSE_FIRST && !expValue)) {
-                            int r = row; // TODO use better sort algorithm
-                            while (r > 0 && (truthMatrix[r - 1] == null || truthMatrix[r - 1][lastExpIndex] == !expValue)) {
-                                swap(truthMatrix, r, r - 1);
-                                r--;
-                            }
-                        }
-                    }
-                }
+        final int ranges = parallelism.ranges(lastColumn.length);
+        // The number of true rows before each range, the last value is the number of true rows in the table
+        final int[] trueBefore = new int[ranges + 1];
+        for (int range = 0; range < ranges; range++) {
+            final int endWord = TableParallelism.firstWord(range + 1, ranges, lastColumn.length);
+            trueBefore[range + 1] = trueBefore[range];
+            for (int word = TableParallelism.firstWord(range, ranges, lastColumn.length); word < endWord; word++) {
+                trueBefore[range + 1] += Long.bitCount(lastColumn[word]);
             }
         }
-        truthMatrix = Arrays.stream(truthMatrix).filter(Objects::nonNull).toArray(boolean[][]::new);
-        return truthMatrix;
-    }
 
-    private void swap(@NotNull boolean[][] truthMatrix, int row1, int row2) {
-        final boolean[] help = truthMatrix[row1];
-        truthMatrix[row1] = truthMatrix[row2];
-        truthMatrix[row2] = help;
-    }
-
-    /**
-     * Finds the location of an expression, then checks the value
-     *
-     * @param expressions The expressions to search through
-     * @param exp         The expression to find
-     * @return The index of the expression, or -1 if not found
-     */
-    private int findExp(@NotNull Expression[] expressions, @NotNull Expression exp) {
-        for (int i = 0; i < expressions.length; i++) {
-
-            if (exp.equals(expressions[i])) {
-                return i;
-            }
-        }
-        return -1;
+        final int numberOfTrue = trueBefore[ranges];
+        final int shownTrue = hide == Hide.TRUE ? 0 : numberOfTrue;
+        final int shownFalse = hide == Hide.FALSE ? 0 : rows - numberOfTrue;
+        final boolean[][] truthMatrix = new boolean[shownTrue + shownFalse][];
+
+        final Hide finalHide = hide;
+        final Sort finalSort = sort;
+        parallelism.forEach(ranges, range -> {
+            final int firstRow = TableParallelism.firstWord(range, ranges, lastColumn.length) * Long.SIZE;
+            final int endRow = Math.min(rows, TableParallelism.firstWord(range + 1, ranges, lastColumn.length) * Long.SIZE);
+            final int trueRows = trueBefore[range];
+            final int falseRows = firstRow - trueRows;
+
+            // The index of the first row, and of the first true and false row if the table is sorted
+            final int index = (finalHide == Hide.TRUE ? 0 : trueRows) + (finalHide == Hide.FALSE ? 0 : falseRows);
+            final int trueIndex = (finalSort == Sort.FALSE_FIRST ? shownFalse : 0) + trueRows;
+            final int falseIndex = (finalSort == Sort.TRUE_FIRST ? shownTrue : 0) + falseRows;
+
+            createRows(columns, truthMatrix, finalHide, finalSort, firstRow, endRow, index, trueIndex, falseIndex);
+        });
+        return truthMatrix;
     }
 
     /**
-     * Resolves the result of an expression, using the truth row
+     * Creates the rows in a range of the table
      *
-     * @param truthRow The truth row to search through
-     * @param exp      The expression to resolve
-     * @return The result of the expression or false if not found
+     * @param firstRow   The first row of the range
+     * @param endRow     The row after the last row of the range
+     * @param index      The index of the next row, if the table is not sorted
+     * @param trueIndex  The index of the next true row, if the table is sorted
+     * @param falseIndex The index of the next false row, if the table is sorted
      */
-    private boolean resolveResult(@NotNull boolean[] truthRow, @Nullable Expression exp) {
-        if (exp == null) {
-            return false;
-        }
+    private void createRows(@NotNull TruthColumns columns, @NotNull boolean[][] truthMatrix, @NotNull Hide hide,
+                            @NotNull Sort sort, int firstRow, int endRow, int index, int trueIndex, int falseIndex) {
+        final int lastExpIndex = expressions.length - 1;
 
-        boolean result = false;
-        int index = findExp(expressions, exp);
+        for (int row = firstRow; row < endRow; row++) {
+            final boolean expValue = columns.get(lastExpIndex, row);
 
-        if (index == -1) {
-            boolean left = resolveResult(truthRow, exp.getLeft());
-            boolean right = resolveResult(truthRow, exp.getRight());
-            result = exp.solve(left, right);
+            if (hide == Hide.TRUE && expValue || hide == Hide.FALSE && !expValue) {
+                continue;
+            }
+            if (sort == Sort.DEFAULT) {
+                truthMatrix[index++] = columns.getRow(row);
+            }
+            else if (expValue) {
+                truthMatrix[trueIndex++] = columns.getRow(row);
+            }
+            else {
+                truthMatrix[falseIndex++] = columns.getRow(row);
+            }
         }
-
-        return index != -1 ? truthRow[index] : result;
     }
 
     @JsonIgnore
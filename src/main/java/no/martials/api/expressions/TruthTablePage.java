@@ -0,0 +1,97 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Hide;
+import no.martials.api.enums.Sort;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of a truth table. Only the rows on the page are evaluated, so the cost does not depend on the size of the table.
+ * The next page is found by using the cursor that is returned with the page.
+ */
+@Schema(name = "TruthTablePage", description = "A page of a truth table for a given expression")
+public class TruthTablePage extends TruthTable {
+
+    @Nullable
+    @Schema(description = "The cursor of the next page, or null if this is the last page", nullable = true)
+    private final String nextCursor;
+
+    private TruthTablePage(@NotNull Expression[] expressions, @NotNull boolean[][] truthMatrix, @Nullable String nextCursor) {
+        super(expressions, truthMatrix);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Creates a page that starts after a number of shown rows
+     *
+     * @param offset     The number of rows that are not hidden to skip
+     * @param limit      The max number of rows on the page
+     * @param evaluators Gives a generated evaluator for the hidden or sorted rows of a hot expression, or null
+     * @throws IllegalArgumentException If the offset is negative or the limit is less than 1
+     */
+    @NotNull
+    public static TruthTablePage ofOffset(@NotNull Expression[] expressions, @NotNull Hide hide, @NotNull Sort sort,
+                                          long offset, int limit, @Nullable EvaluatorCache evaluators) {
+        final TruthTableRows rows = new TruthTableRows(expressions, hide, sort, evaluators);
+        final long cursor = rows.skip(offset);
+        if (cursor == -1) {
+            return new TruthTablePage(expressions, new boolean[0][], null);
+        }
+        return create(expressions, rows, cursor, limit);
+    }
+
+    /**
+     * Creates a page that starts at a cursor from a previous page
+     *
+     * @param cursor     The cursor of the previous page
+     * @param limit      The max number of rows on the page
+     * @param evaluators Gives a generated evaluator for the hidden or sorted rows of a hot expression, or null
+     * @throws IllegalArgumentException If the cursor is not valid or the limit is less than 1
+     */
+    @NotNull
+    public static TruthTablePage ofCursor(@NotNull Expression[] expressions, @NotNull Hide hide, @NotNull Sort sort,
+                                          @NotNull String cursor, int limit, @Nullable EvaluatorCache evaluators) {
+        final long position;
+        try {
+            position = Long.parseLong(cursor);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor is not valid: " + cursor, e);
+        }
+        return create(expressions, new TruthTableRows(expressions, hide, sort, evaluators), position, limit);
+    }
+
+    @NotNull
+    private static TruthTablePage create(@NotNull Expression[] expressions, @NotNull TruthTableRows rows, long cursor, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        final List<boolean[]> page = new ArrayList<>(Math.min(limit, rows.getRows()));
+        final long next;
+        try {
+            next = rows.scan(cursor, limit, row -> page.add(row.clone()));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new TruthTablePage(expressions, page.toArray(boolean[][]::new), next == -1 ? null : Long.toString(next));
+    }
+
+    @Nullable
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public String toString() {
+        return "TruthTablePage{" +
+                "nextCursor='" + nextCursor + '\'' +
+                "} " + super.toString();
+    }
+}
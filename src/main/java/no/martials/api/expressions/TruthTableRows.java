@@ -0,0 +1,268 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Hide;
+import no.martials.api.enums.Sort;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Generates the rows of a truth table one at a time, without storing the table.
+ * The rows are evaluated in small blocks, so the memory used does not depend on the number of rows.
+ * Sorted tables are generated in two passes, the first pass gives the rows that are sorted first.
+ * When rows are hidden or sorted, and the expression is requested often, the last column is evaluated first by a
+ * generated evaluator, and the other columns are only evaluated for the blocks that have a shown row.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class TruthTableRows {
+
+    /**
+     * The number of words that are evaluated at once, each word contains 64 rows
+     */
+    private static final int BLOCK_WORDS = 16;
+
+    @NotNull
+    private final CompiledExpression program;
+    private final int numberOfColumns;
+    private final int rows;
+    private final long words;
+    @NotNull
+    private final Hide hide;
+    @NotNull
+    private final Sort sort;
+    /**
+     * Only tables where the last expression is not atomic can be sorted or hidden
+     */
+    private final boolean filterable;
+    /**
+     * Evaluates the last column when rows are hidden or sorted, null if the block is interpreted
+     */
+    @Nullable
+    private final BitEvaluator lastColumn;
+
+    /**
+     * Visits a row of the table
+     */
+    @FunctionalInterface
+    public interface RowVisitor {
+
+        /**
+         * @param row The truth values of the row, the array is reused for the next row
+         */
+        void visit(@NotNull boolean[] row) throws IOException;
+    }
+
+    public TruthTableRows(@NotNull Expression[] expressions, @NotNull Hide hide, @NotNull Sort sort) {
+        this(expressions, hide, sort, null);
+    }
+
+    /**
+     * @param evaluators Gives a generated evaluator of the last column if the expression is hot, or null to interpret
+     *                   every block
+     */
+    public TruthTableRows(@NotNull Expression[] expressions, @NotNull Hide hide, @NotNull Sort sort,
+                          @Nullable EvaluatorCache evaluators) {
+        this.program = CompiledExpression.compile(expressions);
+
+        if (program.getNumberOfAtomics() < 1) {
+            throw new IllegalArgumentException("Number of atomics must be greater than 0");
+        }
+        this.numberOfColumns = expressions.length;
+        this.rows = 1 << program.getNumberOfAtomics();
+        this.words = TruthColumns.numberOfWords(rows);
+        this.hide = hide;
+        this.sort = sort;
+        this.filterable = !expressions[expressions.length - 1].isAtomic();
+        this.lastColumn = evaluators != null && filterable && (hide != Hide.NONE || sort != Sort.DEFAULT) ?
+                evaluators.get(program, numberOfColumns - 1) : null;
+    }
+
+    public TruthTableRows(@NotNull Expression[] expressions) {
+        this(expressions, Hide.NONE, Sort.DEFAULT);
+    }
+
+    /**
+     * Visits all the rows that are not hidden, in sorted order
+     *
+     * @param visitor The visitor that is called for each row
+     * @throws IOException If the visitor throws
+     */
+    public void forEach(@NotNull RowVisitor visitor) throws IOException {
+        scan(0, Long.MAX_VALUE, visitor);
+    }
+
+    /**
+     * Visits the rows that are not hidden, in sorted order, starting at a cursor.
+     * A cursor is the index of a row in the table, plus the number of rows times the current pass.
+     * The values of a row are derived from the bits of the row index, so only the visited rows are evaluated.
+     *
+     * @param cursor  The position to start at, 0 is the start of the table
+     * @param limit   The max number of rows to visit
+     * @param visitor The visitor that is called for each row
+     * @return The cursor of the next row that is not hidden, or -1 if there are no more rows
+     * @throws IOException              If the visitor throws
+     * @throws IllegalArgumentException If the cursor is outside the table
+     */
+    public long scan(long cursor, long limit, @NotNull RowVisitor visitor) throws IOException {
+        checkCursor(cursor);
+
+        final long[][] registers = program.newRegisters(BLOCK_WORDS);
+        final long[] last = registers[program.getOutput(numberOfColumns - 1)];
+        final boolean[] row = new boolean[numberOfColumns];
+        final long[] atomicValues = new long[program.getNumberOfAtomics()];
+        long visited = 0;
+
+        for (int pass = (int) (cursor / rows); pass < passes(); pass++) {
+            final long startRow = pass == cursor / rows ? cursor % rows : 0;
+
+            for (long firstWord = startRow / Long.SIZE; firstWord < words; firstWord += BLOCK_WORDS) {
+                final int blockWords = (int) Math.min(BLOCK_WORDS, words - firstWord);
+                boolean evaluated = lastColumn == null;
+                if (evaluated) {
+                    program.evaluate(registers, firstWord, blockWords);
+                }
+
+                for (int word = 0; word < blockWords; word++) {
+                    final long values = evaluated ? last[word] : lastValues(firstWord + word, atomicValues);
+                    long accepted = accepted(pass, values, firstWord + word, startRow);
+                    if (accepted != 0 && !evaluated) {
+                        program.evaluate(registers, firstWord, blockWords);
+                        evaluated = true;
+                    }
+
+                    while (accepted != 0) {
+                        final int bit = Long.numberOfTrailingZeros(accepted);
+                        accepted &= accepted - 1;
+
+                        if (visited == limit) {
+                            return (long) pass * rows + (firstWord + word) * Long.SIZE + bit;
+                        }
+                        for (int column = 0; column < numberOfColumns; column++) {
+                            row[column] = (registers[program.getOutput(column)][word] >>> bit & 1) != 0;
+                        }
+                        visitor.visit(row);
+                        visited++;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the cursor of a row that is not hidden, by counting the shown rows 64 at a time.
+     * If no rows are hidden, the cursor is found without evaluating the table.
+     *
+     * @param offset The number of shown rows to skip
+     * @return The cursor of the row, or -1 if there are fewer rows
+     * @throws IllegalArgumentException If the offset is negative
+     */
+    public long skip(long offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        if (!filterable || hide == Hide.NONE && sort == Sort.DEFAULT) {
+            return offset < rows ? offset : -1;
+        }
+
+        final long[][] registers = program.newRegisters(BLOCK_WORDS);
+        final long[] last = registers[program.getOutput(numberOfColumns - 1)];
+        final long[] atomicValues = new long[program.getNumberOfAtomics()];
+        long remaining = offset;
+
+        for (int pass = 0; pass < passes(); pass++) {
+            for (long firstWord = 0; firstWord < words; firstWord += BLOCK_WORDS) {
+                final int blockWords = (int) Math.min(BLOCK_WORDS, words - firstWord);
+                if (lastColumn == null) {
+                    program.evaluate(registers, firstWord, blockWords);
+                }
+
+                for (int word = 0; word < blockWords; word++) {
+                    final long values = lastColumn == null ? last[word] : lastValues(firstWord + word, atomicValues);
+                    long accepted = accepted(pass, values, firstWord + word, 0);
+                    final int count = Long.bitCount(accepted);
+
+                    if (remaining >= count) {
+                        remaining -= count;
+                        continue;
+                    }
+                    for (; remaining > 0; remaining--) {
+                        accepted &= accepted - 1;
+                    }
+                    return (long) pass * rows + (firstWord + word) * Long.SIZE + Long.numberOfTrailingZeros(accepted);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Evaluates the last column in 64 rows with the generated evaluator
+     *
+     * @param word         The index of the word
+     * @param atomicValues Reused for the values of the atomic values in the word
+     */
+    private long lastValues(long word, @NotNull long[] atomicValues) {
+        assert lastColumn != null;
+        for (int atomic = 0; atomic < atomicValues.length; atomic++) {
+            atomicValues[atomic] = CompiledExpression.atomicWord(atomicValues.length - 1 - atomic, word);
+        }
+        return lastColumn.eval(atomicValues);
+    }
+
+    private void checkCursor(long cursor) {
+        if (cursor < 0 || cursor > (long) passes() * rows) {
+            throw new IllegalArgumentException("Cursor must be between 0 and " + (long) passes() * rows);
+        }
+    }
+
+    /**
+     * @return The number of passes needed to generate the rows in sorted order
+     */
+    private int passes() {
+        return filterable && sort != Sort.DEFAULT ? 2 : 1;
+    }
+
+    /**
+     * @param pass     The current pass
+     * @param values   The values of the last expression in 64 rows
+     * @param word     The index of the word
+     * @param startRow The rows before this row are not shown
+     * @return The rows that are shown in the given pass
+     */
+    private long accepted(int pass, long values, long word, long startRow) {
+        long accepted = -1L;
+        if (rows < Long.SIZE) {
+            accepted = (1L << rows) - 1;
+        }
+        if (word == startRow / Long.SIZE) {
+            accepted &= -1L << startRow;
+        }
+        if (!filterable) {
+            return accepted;
+        }
+        accepted &= switch (hide) {
+            case NONE -> -1L;
+            case TRUE -> ~values;
+            case FALSE -> values;
+        };
+        if (sort != Sort.DEFAULT) {
+            final boolean trueInPass = (sort == Sort.TRUE_FIRST) == (pass == 0);
+            accepted &= trueInPass ? values : ~values;
+        }
+        return accepted;
+    }
+
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * @return The number of rows in the table, including the hidden rows
+     */
+    public int getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,66 @@
+package no.martials.api.expressions;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorSpecies;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Combines packed columns with the widest vectors of the CPU, 4 words with AVX2 and 8 words with AVX-512.
+ * The words after the last full vector are combined one at a time.
+ * Requires the 'jdk.incubator.vector' module, so this class is only loaded by {@link ColumnOperations#select()}.
+ */
+final class VectorColumnOperations implements ColumnOperations {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public void and(@NotNull long[] a, @NotNull long[] b, @NotNull long[] dst, int words) {
+        int i = 0;
+        for (final int bound = SPECIES.loopBound(words); i < bound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, a, i).and(LongVector.fromArray(SPECIES, b, i)).intoArray(dst, i);
+        }
+        for (; i < words; i++) {
+            dst[i] = a[i] & b[i];
+        }
+    }
+
+    @Override
+    public void or(@NotNull long[] a, @NotNull long[] b, @NotNull long[] dst, int words) {
+        int i = 0;
+        for (final int bound = SPECIES.loopBound(words); i < bound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, a, i).or(LongVector.fromArray(SPECIES, b, i)).intoArray(dst, i);
+        }
+        for (; i < words; i++) {
+            dst[i] = a[i] | b[i];
+        }
+    }
+
+    @Override
+    public void implication(@NotNull long[] a, @NotNull long[] b, @NotNull long[] dst, int words) {
+        int i = 0;
+        for (final int bound = SPECIES.loopBound(words); i < bound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, a, i).not().or(LongVector.fromArray(SPECIES, b, i)).intoArray(dst, i);
+        }
+        for (; i < words; i++) {
+            dst[i] = ~a[i] | b[i];
+        }
+    }
+
+    @Override
+    public void not(@NotNull long[] a, @NotNull long[] dst, int words) {
+        int i = 0;
+        for (final int bound = SPECIES.loopBound(words); i < bound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, a, i).not().intoArray(dst, i);
+        }
+        for (; i < words; i++) {
+            dst[i] = ~a[i];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "VectorColumnOperations{" +
+                "lanes=" + SPECIES.length() +
+                '}';
+    }
+}
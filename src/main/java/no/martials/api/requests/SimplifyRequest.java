@@ -0,0 +1,103 @@
+package no.martials.api.requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import no.martials.api.enums.SimplifyMode;
+import no.martials.api.enums.Steps;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An expression in a batch, with the same options as a single call to simplify.
+ * The options that are not given have the same default values as the query parameters.
+ */
+@Schema(name = "SimplifyRequest", description = "An expression to simplify, with the options for the expression")
+public class SimplifyRequest {
+
+    @Nullable
+    @Schema(description = "A logical expression", example = "A & B : C -> !D")
+    private String exp;
+    @Nullable
+    @Schema(description = "Overrides the language in the header", example = "en")
+    private String lang;
+    @Schema(description = "Whether or not to simplify the given expression", defaultValue = "true")
+    private boolean simplify = true;
+    @Schema(description = "Wheter or not to use case sensitive variables", defaultValue = "false")
+    private boolean caseSensitive = false;
+    @NotNull
+    @Schema(defaultValue = "LAWS")
+    private SimplifyMode mode = SimplifyMode.LAWS;
+    @NotNull
+    @Schema(defaultValue = "FULL")
+    private Steps steps = Steps.FULL;
+
+    public SimplifyRequest() {
+    }
+
+    public SimplifyRequest(@Nullable String exp) {
+        this.exp = exp;
+    }
+
+    @Nullable
+    public String getExp() {
+        return exp;
+    }
+
+    public void setExp(@Nullable String exp) {
+        this.exp = exp;
+    }
+
+    @Nullable
+    public String getLang() {
+        return lang;
+    }
+
+    public void setLang(@Nullable String lang) {
+        this.lang = lang;
+    }
+
+    public boolean isSimplify() {
+        return simplify;
+    }
+
+    public void setSimplify(boolean simplify) {
+        this.simplify = simplify;
+    }
+
+    public boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    public void setCaseSensitive(boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+    }
+
+    @NotNull
+    public SimplifyMode getMode() {
+        return mode;
+    }
+
+    public void setMode(@NotNull SimplifyMode mode) {
+        this.mode = mode;
+    }
+
+    @NotNull
+    public Steps getSteps() {
+        return steps;
+    }
+
+    public void setSteps(@NotNull Steps steps) {
+        this.steps = steps;
+    }
+
+    @Override
+    public String toString() {
+        return "SimplifyRequest{" +
+                "exp='" + exp + '\'' +
+                ", lang='" + lang + '\'' +
+                ", simplify=" + simplify +
+                ", caseSensitive=" + caseSensitive +
+                ", mode=" + mode +
+                ", steps=" + steps +
+                '}';
+    }
+}
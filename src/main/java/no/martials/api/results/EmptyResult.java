@@ -15,7 +15,11 @@ public abstract class EmptyResult {
     protected String version;
 
     public EmptyResult(@Nullable final String version) {
-        this.status = "OK";
+        this(version, "OK");
+    }
+
+    protected EmptyResult(@Nullable final String version, @NotNull final String status) {
+        this.status = status;
         this.version = version;
     }
 
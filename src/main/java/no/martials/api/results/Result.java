@@ -1,5 +1,6 @@
 package no.martials.api.results;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import no.martials.api.expressions.Expression;
 import no.martials.api.expressions.OrderOperations;
 import jakarta.validation.constraints.NotBlank;
@@ -7,6 +8,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
+import java.util.Map;
 
 public class Result extends EmptyResult {
 
@@ -19,16 +21,23 @@ public class Result extends EmptyResult {
     @NotBlank
     @Nullable
     protected final List<OrderOperations> orderOperations;
+    /**
+     * The number of times each law was used, only when a summary of the steps is requested
+     */
+    @Nullable
+    protected final Map<String, Integer> lawCounts;
     @NotBlank
     @Nullable
     protected final Expression expression;
 
     public Result(String version, @NotNull String before, @NotNull String after,
-                  @Nullable List<OrderOperations> orderOperations, @Nullable Expression expression) {
+                  @Nullable List<OrderOperations> orderOperations, @Nullable Map<String, Integer> lawCounts,
+                  @Nullable Expression expression) {
         super(version);
         this.before = before;
         this.after = after;
         this.orderOperations = orderOperations;
+        this.lawCounts = lawCounts;
         this.expression = expression;
     }
 
@@ -47,6 +56,12 @@ public class Result extends EmptyResult {
         return orderOperations;
     }
 
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Map<String, Integer> getLawCounts() {
+        return lawCounts;
+    }
+
     @Nullable
     public Expression getExpression() {
         return expression;
@@ -58,6 +73,7 @@ public class Result extends EmptyResult {
                 "before='" + before + '\'' +
                 ", after='" + after + '\'' +
                 ", orderOperations=" + orderOperations +
+                ", lawCounts=" + lawCounts +
                 ", expression=" + expression +
                 "} " + super.toString();
     }
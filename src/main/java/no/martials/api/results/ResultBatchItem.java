@@ -0,0 +1,59 @@
+package no.martials.api.results;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The result of one expression in a batch, with the index of the expression in the request.
+ * If the expression is not valid, the status is "BAD_REQUEST" and the error message is given instead of the result.
+ */
+public class ResultBatchItem extends EmptyResult {
+
+    private static final String BAD_REQUEST = "BAD_REQUEST";
+
+    protected final int index;
+    @Nullable
+    protected final Result result;
+    @Nullable
+    protected final String error;
+
+    public ResultBatchItem(String version, int index, @NotNull Result result) {
+        super(version);
+        this.index = index;
+        this.result = result;
+        this.error = null;
+    }
+
+    public ResultBatchItem(String version, int index, @NotNull String error) {
+        super(version, BAD_REQUEST);
+        this.index = index;
+        this.result = null;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Result getResult() {
+        return result;
+    }
+
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultBatchItem{" +
+                "index=" + index +
+                ", result=" + result +
+                ", error='" + error + '\'' +
+                "} " + super.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package no.martials.api.results;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+@Schema(name = "ResultCount", description = "Result with the number of assignments that makes the expression true")
+public class ResultCount extends EmptyResult {
+
+    @NotBlank
+    @NotNull
+    protected final String expression;
+    protected final int atomics;
+    protected final long satisfying;
+    @Schema(description = "The number of assignments that makes the expression false, if requested")
+    @Nullable
+    protected final Long falsifying;
+
+    public ResultCount(String version, @NotNull String expression, int atomics, long satisfying, @Nullable Long falsifying) {
+        super(version);
+        this.expression = expression;
+        this.atomics = atomics;
+        this.satisfying = satisfying;
+        this.falsifying = falsifying;
+    }
+
+    @NotNull
+    public String getExpression() {
+        return expression;
+    }
+
+    public int getAtomics() {
+        return atomics;
+    }
+
+    public long getSatisfying() {
+        return satisfying;
+    }
+
+    @Nullable
+    public Long getFalsifying() {
+        return falsifying;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultCount{" +
+                "expression='" + expression + '\'' +
+                ", atomics=" + atomics +
+                ", satisfying=" + satisfying +
+                ", falsifying=" + falsifying +
+                "} " + super.toString();
+    }
+}
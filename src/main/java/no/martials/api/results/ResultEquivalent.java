@@ -0,0 +1,64 @@
+package no.martials.api.results;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+@Schema(name = "ResultEquivalent", description = "Result with whether two expressions are equivalent")
+public class ResultEquivalent extends EmptyResult {
+
+    @NotBlank
+    @NotNull
+    protected final String expression;
+    @NotBlank
+    @NotNull
+    protected final String other;
+    protected final boolean equivalent;
+    @Schema(description = "The value of each atomic value in an assignment where the expressions have different values, " +
+            "if they are not equivalent")
+    @Nullable
+    protected final Map<String, Boolean> counterexample;
+
+    public ResultEquivalent(String version, @NotNull String expression, @NotNull String other,
+                            @Nullable Map<String, Boolean> counterexample) {
+        super(version);
+        this.expression = expression;
+        this.other = other;
+        this.equivalent = counterexample == null;
+        this.counterexample = counterexample;
+    }
+
+    @NotNull
+    public String getExpression() {
+        return expression;
+    }
+
+    @NotNull
+    public String getOther() {
+        return other;
+    }
+
+    public boolean isEquivalent() {
+        return equivalent;
+    }
+
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Map<String, Boolean> getCounterexample() {
+        return counterexample;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultEquivalent{" +
+                "expression='" + expression + '\'' +
+                ", other='" + other + '\'' +
+                ", equivalent=" + equivalent +
+                ", counterexample=" + counterexample +
+                "} " + super.toString();
+    }
+}
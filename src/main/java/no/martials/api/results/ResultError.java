@@ -0,0 +1,31 @@
+package no.martials.api.results;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An error that is written as the last line of a stream, when the status of the response is already sent
+ */
+@Schema(name = "ResultError", description = "The last line of a stream that was not completed")
+public class ResultError extends EmptyResult {
+
+    @NotNull
+    protected final String error;
+
+    public ResultError(String version, @NotNull String status, @NotNull String error) {
+        super(version, status);
+        this.error = error;
+    }
+
+    @NotNull
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultError{" +
+                "error='" + error + '\'' +
+                "} " + super.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package no.martials.api.results;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+@Schema(name = "ResultSatisfiable", description = "Result with whether an assignment makes the expression true")
+public class ResultSatisfiable extends EmptyResult {
+
+    @NotBlank
+    @NotNull
+    protected final String expression;
+    protected final boolean satisfiable;
+    @Schema(description = "The value of each atomic value in an assignment that makes the expression true, " +
+            "if it is satisfiable")
+    @Nullable
+    protected final Map<String, Boolean> assignment;
+
+    public ResultSatisfiable(String version, @NotNull String expression, @Nullable Map<String, Boolean> assignment) {
+        super(version);
+        this.expression = expression;
+        this.satisfiable = assignment != null;
+        this.assignment = assignment;
+    }
+
+    @NotNull
+    public String getExpression() {
+        return expression;
+    }
+
+    public boolean isSatisfiable() {
+        return satisfiable;
+    }
+
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Map<String, Boolean> getAssignment() {
+        return assignment;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultSatisfiable{" +
+                "expression='" + expression + '\'' +
+                ", satisfiable=" + satisfiable +
+                ", assignment=" + assignment +
+                "} " + super.toString();
+    }
+}
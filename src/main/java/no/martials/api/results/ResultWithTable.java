@@ -9,6 +9,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 @Schema(name = "ResultWithTable", description = "Result with a simplified expression and table")
 public class ResultWithTable extends Result {
@@ -19,9 +20,9 @@ public class ResultWithTable extends Result {
     private final TruthTable table;
 
     public ResultWithTable(String version, @NotNull String before, @NotNull String after,
-                           @Nullable List<OrderOperations> orderOperations, @Nullable Expression expression,
-                           @Nullable String[] header, @Nullable TruthTable table) {
-        super(version, before, after, orderOperations, expression);
+                           @Nullable List<OrderOperations> orderOperations, @Nullable Map<String, Integer> lawCounts,
+                           @Nullable Expression expression, @Nullable String[] header, @Nullable TruthTable table) {
+        super(version, before, after, orderOperations, lawCounts, expression);
         this.header = header;
         this.table = table;
     }
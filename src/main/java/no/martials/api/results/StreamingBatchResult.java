@@ -0,0 +1,81 @@
+package no.martials.api.results;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import no.martials.api.enums.BatchOrder;
+import no.martials.api.requests.SimplifyRequest;
+import no.martials.api.utils.BatchExecutor;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * The results of a batch of expressions, that are written as newline delimited JSON while the batch is simplified.
+ * Each line is the result of one expression, with the index of the expression in the batch.
+ * example:
+ * <pre>
+ * {"status":"OK","version":"2.1.2","index":0,"result":{"status":"OK","version":"2.1.2","before":"A ⋀ A","after":"A",...}}
+ * {"status":"BAD_REQUEST","version":"2.1.2","index":1,"error":"..."}
+ * </pre>
+ */
+public class StreamingBatchResult implements StreamingResponseBody {
+
+    @NotNull
+    private final List<SimplifyRequest> requests;
+    @NotNull
+    private final IntFunction<ResultBatchItem> task;
+    @NotNull
+    private final BatchOrder order;
+    @NotNull
+    private final BatchExecutor executor;
+    @NotNull
+    private final ObjectMapper mapper;
+
+    /**
+     * @param requests The expressions of the batch
+     * @param task     Simplifies the expression with the index, and returns an error instead of throwing
+     * @param order    Whether the results are in the order of the expressions, or in the order they are done
+     * @param executor The executor that runs the task
+     * @param mapper   Writes the results, the same way as the other responses
+     */
+    public StreamingBatchResult(@NotNull List<SimplifyRequest> requests, @NotNull IntFunction<ResultBatchItem> task,
+                                @NotNull BatchOrder order, @NotNull BatchExecutor executor,
+                                @NotNull ObjectMapper mapper) {
+        this.requests = requests;
+        this.task = task;
+        this.order = order;
+        this.executor = executor;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void writeTo(@NotNull OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            executor.forEach(requests.size(), task, order, generator, result -> {
+                mapper.writeValue(generator, result);
+                generator.writeRaw('\n');
+            });
+        }
+    }
+
+    @NotNull
+    public List<SimplifyRequest> getRequests() {
+        return requests;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingBatchResult{" +
+                "requests=" + requests.size() +
+                ", order=" + order +
+                ", executor=" + executor +
+                '}';
+    }
+}
@@ -0,0 +1,85 @@
+package no.martials.api.results;
+
+import no.martials.api.expressions.CnfEncoder;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A formula in conjunctive normal form, that is written as DIMACS text directly from the clauses.
+ * A comment line gives the name of each atomic value, then follows the problem line and one line per clause.
+ * example:
+ * <pre>
+ * c 1 a
+ * c 2 b
+ * p cnf 3 3
+ * -3 1 0
+ * -3 2 0
+ * 3 0
+ * </pre>
+ */
+public class StreamingDimacsResult implements StreamingResponseBody {
+
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    @NotNull
+    private final CnfEncoder.Cnf cnf;
+
+    public StreamingDimacsResult(@NotNull CnfEncoder.Cnf cnf) {
+        this.cnf = cnf;
+    }
+
+    @Override
+    public void writeTo(@NotNull OutputStream outputStream) throws IOException {
+        final OutputStream out = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+        final String[] atomics = cnf.atomics();
+        for (int atomic = 0; atomic < atomics.length; atomic++) {
+            out.write('c');
+            out.write(' ');
+            writeInt(out, atomic + 1);
+            out.write(' ');
+            out.write(atomics[atomic].getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+        }
+        out.write("p cnf ".getBytes(StandardCharsets.US_ASCII));
+        writeInt(out, cnf.numberOfVariables());
+        out.write(' ');
+        writeInt(out, cnf.numberOfClauses());
+        out.write('\n');
+
+        for (int literal : cnf.clauses()) {
+            writeInt(out, literal);
+            out.write(literal == 0 ? '\n' : ' ');
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the digits of the number, without creating a string
+     */
+    private static void writeInt(@NotNull OutputStream out, int value) throws IOException {
+        if (value < 0) {
+            out.write('-');
+            value = -value;
+        }
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.write('0' + value / divisor % 10);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingDimacsResult{" +
+                "variables=" + cnf.numberOfVariables() +
+                ", clauses=" + cnf.numberOfClauses() +
+                '}';
+    }
+}
@@ -0,0 +1,143 @@
+package no.martials.api.results;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import no.martials.api.expressions.TruthTableRows;
+import no.martials.api.utils.CpuExecutor;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A truth table that is written as newline delimited JSON while it's generated.
+ * The first line is the result without the table, each of the following lines is a row of the table.
+ * example:
+ * <pre>
+ * {"status":"OK","version":"2.1.2","expression":"A ⋀ B","header":["A","B","A ⋀ B"],"table":null}
+ * [true,true,true]
+ * [true,false,false]
+ * </pre>
+ * The rows are generated and serialised in blocks, each block waits for a permit of the {@link CpuExecutor}.
+ * The block is written to the client after the permit is released, so a slow client does not hold a core.
+ * <p>
+ * The status of the response is sent with the first line, so if no core is free within the max wait of the executor,
+ * the last line is an error instead of a row, and the table is not complete.
+ * example:
+ * <pre>
+ * {"status":"SERVICE_UNAVAILABLE","version":"2.1.2","error":"No free thread within 30000ms"}
+ * </pre>
+ */
+public class StreamingTableResult implements StreamingResponseBody {
+
+    /**
+     * The number of rows that are generated with one permit, a multiple of the rows that are evaluated at once
+     */
+    static final int ROWS_PER_BLOCK = 1 << 13;
+    private static final String SERVICE_UNAVAILABLE = "SERVICE_UNAVAILABLE";
+    private static final Logger log = LoggerFactory.getLogger(StreamingTableResult.class);
+
+    @NotNull
+    private final EmptyResult head;
+    @NotNull
+    private final TruthTableRows rows;
+    @NotNull
+    private final CpuExecutor cpuExecutor;
+    @NotNull
+    private final ObjectMapper mapper;
+
+    /**
+     * @param head        The result that is written on the first line, should not contain the table
+     * @param rows        The rows of the table
+     * @param cpuExecutor Bounds the generation of the rows to one block per core
+     * @param mapper      Writes the head and the rows, the same way as the other responses
+     */
+    public StreamingTableResult(@NotNull EmptyResult head, @NotNull TruthTableRows rows,
+                                @NotNull CpuExecutor cpuExecutor, @NotNull ObjectMapper mapper) {
+        this.head = head;
+        this.rows = rows;
+        this.cpuExecutor = cpuExecutor;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void writeTo(@NotNull OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            mapper.writeValue(generator, head);
+            generator.writeRaw('\n');
+            generator.flush(); // The client receives the head before the rows are generated
+        }
+
+        final ByteArrayOutputStream block = new ByteArrayOutputStream();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(block)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            long cursor = 0;
+            while (cursor != -1) {
+                final long start = cursor;
+                try {
+                    cursor = cpuExecutor.call(() -> writeBlock(generator, start));
+                }
+                catch (RejectedExecutionException e) {
+                    log.warn("The table stream of {} is not completed: {}", head, e.getMessage());
+                    mapper.writeValue(generator, new ResultError(head.getVersion(), SERVICE_UNAVAILABLE, e.getMessage()));
+                    generator.writeRaw('\n');
+                    generator.flush();
+                    cursor = -1;
+                }
+                block.writeTo(outputStream);
+                block.reset();
+            }
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Generates a block of rows, and writes them to the generator
+     *
+     * @param cursor The cursor of the first row in the block
+     * @return The cursor of the first row in the next block, or -1 if this was the last block
+     */
+    private long writeBlock(@NotNull JsonGenerator generator, long cursor) {
+        try {
+            final long next = rows.scan(cursor, ROWS_PER_BLOCK, row -> {
+                generator.writeStartArray();
+                for (boolean value : row) {
+                    generator.writeBoolean(value);
+                }
+                generator.writeEndArray();
+                generator.writeRaw('\n');
+            });
+            generator.flush();
+            return next;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @NotNull
+    public EmptyResult getHead() {
+        return head;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingTableResult{" +
+                "head=" + head +
+                ", rows=" + rows.getRows() +
+                '}';
+    }
+}
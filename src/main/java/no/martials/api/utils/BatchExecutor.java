@@ -0,0 +1,123 @@
+package no.martials.api.utils;
+
+import no.martials.api.enums.BatchOrder;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.IntFunction;
+
+/**
+ * Runs the items of a batch on the threads of a {@link CpuExecutor}, and gives the results to the calling thread.
+ * Each batch has at most a window of items that are queued or running, the next item is submitted when a result is
+ * taken. A large batch never fills the queue, and the results are not kept in memory if the client reads slowly.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class BatchExecutor {
+
+    /**
+     * The number of items of a batch that are submitted per thread, so a thread does not wait for the next item
+     */
+    private static final int ITEMS_PER_THREAD = 2;
+
+    private final int window;
+    @NotNull
+    private final CpuExecutor executor;
+
+    /**
+     * Visits the result of an item in the batch
+     */
+    @FunctionalInterface
+    public interface ResultVisitor<R> {
+
+        void visit(@NotNull R result) throws IOException;
+    }
+
+    /**
+     * @param executor The executor that runs the items, the calling thread waits for a permit to submit an item
+     */
+    public BatchExecutor(@NotNull CpuExecutor executor) {
+        this.executor = executor;
+        this.window = executor.getParallelism() * ITEMS_PER_THREAD;
+    }
+
+    /**
+     * Runs the task for each index, and visits the results on the calling thread.
+     * If the visitor throws, the items that are not done are cancelled.
+     *
+     * @param size      The number of items in the batch
+     * @param task      The task that is run for the index of each item, should not throw
+     * @param order     Whether the results are visited in the order of the items, or in the order they are done
+     * @param flushable Flushed before waiting for a result, so the results that are done are not held back
+     * @param visitor   Visits each result
+     * @throws IOException                If the visitor or the flushable throws, or the thread is interrupted
+     * @throws RejectedExecutionException If the thread is interrupted while it waits to submit an item
+     */
+    public <R> void forEach(int size, @NotNull IntFunction<R> task, @NotNull BatchOrder order,
+                            @NotNull Flushable flushable, @NotNull ResultVisitor<R> visitor) throws IOException {
+        final CompletionService<R> completed = new ExecutorCompletionService<>(executor);
+        final Deque<Future<R>> pending = new ArrayDeque<>(window);
+        int submitted = 0;
+
+        try {
+            for (int visited = 0; visited < size; visited++) {
+                for (; submitted < size && submitted - visited < window; submitted++) {
+                    final int item = submitted;
+                    // The completion service keeps each future until it is taken, so it is only used in the order of completion
+                    if (order == BatchOrder.COMPLETION) {
+                        pending.add(completed.submit(() -> task.apply(item)));
+                    }
+                    else {
+                        final FutureTask<R> future = new FutureTask<>(() -> task.apply(item));
+                        executor.execute(future);
+                        pending.add(future);
+                    }
+                }
+                Future<R> future = order == BatchOrder.COMPLETION ? completed.poll() : pending.peek();
+                if (future == null || !future.isDone()) {
+                    flushable.flush();
+                    future = order == BatchOrder.COMPLETION ? completed.take() : future;
+                }
+                if (order == BatchOrder.COMPLETION) {
+                    pending.remove(future);
+                }
+                else {
+                    pending.poll();
+                }
+                visitor.visit(future.get());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the batch");
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("An item of the batch failed", e.getCause());
+        }
+        finally {
+            pending.forEach(future -> future.cancel(false));
+        }
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchExecutor{" +
+                "window=" + window +
+                ", executor=" + executor +
+                '}';
+    }
+}
@@ -0,0 +1,213 @@
+package no.martials.api.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the work that needs the processor, like simplifying expressions and generating tables, to one task per core.
+ * A fair semaphore with one permit per core decides which work runs next, the rest waits for a permit in the order
+ * it arrived. The requests are handled on virtual threads that wait for a permit without holding a carrier thread,
+ * so the carriers are free for cheap requests, that are never queued behind an expensive one.
+ * <p>
+ * A virtual thread is not preempted while it uses the processor, so the work of a request on a virtual thread is run on
+ * a platform thread for each core, and the request waits for it without holding its carrier. A request on a platform
+ * thread runs its work on its own thread once it has a permit. Work that is not waited for, like the items of a
+ * batch, and the parts of a large table that are run on the idle cores, is also run on the platform threads.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class CpuExecutor implements Executor {
+
+    /**
+     * The max time a request waits for a permit, before it is rejected
+     */
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 30_000;
+
+    private final int parallelism;
+    private final long maxWaitMillis;
+    @NotNull
+    private final Semaphore permits;
+    @NotNull
+    private final ExecutorService executor;
+
+    /**
+     * @param parallelism   The number of threads and permits, or 0 to use the number of processors
+     * @param maxWaitMillis The max time a call waits for a permit
+     */
+    public CpuExecutor(int parallelism, long maxWaitMillis) {
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("Parallelism must not be negative");
+        }
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Max wait must not be negative");
+        }
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(this.parallelism, true);
+        final AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "cpu-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Waits for a permit, and runs the task on the calling thread, or on a platform thread if the calling thread is
+     * virtual, so the carrier of the virtual thread is not held while the task runs
+     *
+     * @param task The task to run
+     * @return The result of the task
+     * @throws RejectedExecutionException If there was no free permit within the max wait, or the thread is interrupted
+     */
+    public <T> T call(@NotNull Supplier<T> task) {
+        acquire(maxWaitMillis);
+        if (!Thread.currentThread().isVirtual()) {
+            try {
+                return task.get();
+            }
+            finally {
+                permits.release();
+            }
+        }
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                // The permit is released before the caller continues, like a task that is run on the calling thread
+                final T value;
+                try {
+                    value = task.get();
+                }
+                catch (Throwable e) {
+                    permits.release();
+                    result.completeExceptionally(e);
+                    return;
+                }
+                permits.release();
+                result.complete(value);
+            });
+        }
+        catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+        try {
+            return result.join();
+        }
+        catch (CompletionException e) { // The exception of the task is thrown as if it was run on this thread
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the command on a platform thread of the executor, and waits as long as needed for a permit.
+     * Used for work that is not waited for by a request, like the items of a batch.
+     *
+     * @throws RejectedExecutionException If the thread is interrupted while waiting for a permit
+     */
+    @Override
+    public void execute(@NotNull Runnable command) {
+        acquire(-1);
+        submit(command);
+    }
+
+    /**
+     * Runs the command on a platform thread of the executor if a permit is free now, without waiting.
+     * Used to split the work of a request that already holds a permit over the other cores, when they are idle.
+     * A permit that is free is not taken if a thread waits for it, since 'tryAcquire' does not keep the order.
+     *
+     * @return True if the command was submitted, false if every permit is taken or a thread waits for a permit
+     */
+    public boolean tryExecute(@NotNull Runnable command) {
+        if (permits.hasQueuedThreads() || !permits.tryAcquire()) {
+            return false;
+        }
+        submit(command);
+        return true;
+    }
+
+    /**
+     * @param millis The max time to wait, or -1 to wait until a permit is free
+     */
+    private void acquire(long millis) {
+        try {
+            if (millis < 0) {
+                permits.acquire();
+            }
+            else if (!permits.tryAcquire(millis, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("No free thread within " + millis + "ms");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a free thread", e);
+        }
+    }
+
+    /**
+     * Submits the command after a permit is acquired, the permit is released when the command is done
+     */
+    private void submit(@NotNull Runnable command) {
+        try {
+            executor.execute(() -> {
+                try {
+                    command.run();
+                }
+                finally {
+                    permits.release();
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the threads, the work that is running is finished
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * @return The number of threads that are not running any work
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public String toString() {
+        return "CpuExecutor{" +
+                "parallelism=" + parallelism +
+                ", maxWaitMillis=" + maxWaitMillis +
+                ", availablePermits=" + permits.availablePermits() +
+                '}';
+    }
+}
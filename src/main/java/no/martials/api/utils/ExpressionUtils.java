@@ -2,32 +2,70 @@ package no.martials.api.utils;
 
 import no.martials.api.controllers.ApiController;
 import no.martials.api.enums.Language;
-import no.martials.api.enums.Operator;
+import no.martials.api.enums.SimplifyMode;
+import no.martials.api.enums.Steps;
 import no.martials.api.exceptions.ExpressionInvalidException;
 import no.martials.api.exceptions.MissingCharacterException;
 import no.martials.api.exceptions.TooBigExpressionException;
-import no.martials.api.expressions.CenterOperator;
+import no.martials.api.expressions.EspressoMinimizer;
 import no.martials.api.expressions.Expression;
+import no.martials.api.expressions.ExpressionNode;
+import no.martials.api.expressions.ExpressionParser;
 import no.martials.api.expressions.OrderOperations;
+import no.martials.api.expressions.QuineMcCluskey;
+import no.martials.api.expressions.RewriteEngine;
+import no.martials.api.expressions.StepRecorder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class ExpressionUtils {
 
     @NotNull
     private final List<OrderOperations> operations;
+    /**
+     * The number of times each law was used, only counted if the steps are summarized
+     */
+    @NotNull
+    private final Map<String, Integer> lawCounts = new LinkedHashMap<>();
     private String expression;
     private boolean simplify;
     private final boolean caseSensitive;
     private final Language language;
+    private int maxExpressionSize = MAX_EXPRESSION_SIZE;
+    @NotNull
+    private SimplifyMode mode = SimplifyMode.LAWS;
+    @NotNull
+    private Steps steps = Steps.FULL;
+    @Nullable
+    private EspressoMinimizer minimizer;
+    private RewriteEngine rewriteEngine;
 
-    private static final int MAX_EXPRESSION_SIZE = 15;
+    public static final int MAX_EXPRESSION_SIZE = 15;
+    /**
+     * Tables are evaluated 64 rows at a time, so they allow larger expressions than simplification.
+     * An expression that is simplified before the table is created uses {@link #MAX_EXPRESSION_SIZE}
+     */
+    public static final int MAX_TABLE_EXPRESSION_SIZE = 18;
+    /**
+     * Streamed and paged tables are generated one block of rows at a time, so the memory used does not depend on the size
+     */
+    public static final int MAX_STREAM_EXPRESSION_SIZE = 24;
+    /**
+     * Counting splits the expression into independent parts, so the table is never generated
+     */
+    public static final int MAX_COUNT_EXPRESSION_SIZE = 60;
+    /**
+     * The solver searches for one assignment, and the encoding grows linearly with the expression
+     */
+    public static final int MAX_SATISFIABLE_EXPRESSION_SIZE = 200;
+    /**
+     * The heuristic minimizer works on a list of cubes instead of the table
+     */
+    public static final int MAX_HEURISTIC_EXPRESSION_SIZE = 30;
 
     private static final Logger log = LoggerFactory.getLogger(ApiController.class);
 
@@ -68,7 +106,12 @@ public class ExpressionUtils {
         isValid();
 
         log.debug("Simplifying expression: {}", expression);
-        final Expression exp = simplifyRec(expression, simplify);
+        rewriteEngine = new RewriteEngine(language, recordedOperations(), RewriteEngine.DEFAULT_MAX_STEPS);
+        final Expression parsed = ExpressionParser.parse(expression, caseSensitive, language);
+        Expression exp = simplifyRec(parsed, simplify && mode == SimplifyMode.LAWS);
+        if (simplify && mode != SimplifyMode.LAWS) {
+            exp = minimize(exp);
+        }
         if (!exp.getLeading().contains("¬")) {
             exp.setLeading("");
             exp.setTrailing("");
@@ -76,50 +119,46 @@ public class ExpressionUtils {
         return exp;
     }
 
+    /**
+     * Replaces the expression with a sum of products, which is added as a single step.
+     * The heuristic sum is small, but not always minimal.
+     */
     @NotNull
-    private Expression simplifyRec(@NotNull String stringExp, boolean simplify) {
-
-        Expression exp = new Expression();
-        exp.setCaseSensitive(caseSensitive);
+    private Expression minimize(@NotNull Expression exp) {
+        final boolean isEnglish = language == Language.ENGLISH;
+        final Expression minimal;
+        final String law;
+        if (mode == SimplifyMode.MINIMAL) {
+            minimal = QuineMcCluskey.minimize(exp, caseSensitive);
+            law = isEnglish ? "Minimal disjunctive normal form" : "Minimal disjunktiv normalform";
+        }
+        else {
+            minimal = (minimizer != null ? minimizer : new EspressoMinimizer()).minimize(exp, caseSensitive);
+            law = isEnglish ? "Disjunctive normal form" : "Disjunktiv normalform";
+        }
+        // A single step, so the strings are also compared when the steps are counted
+        if (steps != Steps.NONE) {
+            minimal.isChangedThenAdd(exp.toString(), law, recordedOperations());
+        }
+        return minimal;
+    }
 
-        // Basis
-        if (isAtomic(stringExp)) {
-            while (stringExp.contains("¬")) {
-                stringExp = stringExp.replaceFirst("¬", "");
-                exp.appendLeading("¬");
-            }
-            if (stringExp.contains("(") || stringExp.contains(")")) {
-                stringExp = stringExp.replaceAll("^[()]$", "");
-            }
-            exp.setAtomic(stringExp);
+    /**
+     * Simplifies the children before the parent, the children are replaced if the laws move an expression up the tree
+     */
+    @NotNull
+    private Expression simplifyRec(@NotNull Expression exp, boolean simplify) {
+        if (exp.isAtomic()) {
             if (simplify) {
                 exp.doubleNegation();
             }
             return exp;
         }
-
-        while (stringExp.charAt(0) == '¬' && isOuterParentheses(stringExp.substring(1))) {
-            stringExp = stringExp.replace("¬", "");
-            exp.appendLeading("¬");
-        }
-
-        final int oldStringLen = stringExp.length();
-        stringExp = removeOuterParentheses(stringExp);
-
-        if (oldStringLen != stringExp.length()) {
-            exp.appendLeading("(");
-            exp.appendTrailing(")");
-        }
-
-        stringExp = stringExp.replaceAll(" ", "");
-        CenterOperator center = getCenterOperatorIndex(stringExp);
-
-        exp.setLeft(simplifyRec(stringExp.substring(0, center.index()), simplify)); // Left
-        exp.setOperator(center.operator());
-        exp.setRight(simplifyRec(stringExp.substring(center.index() + 1), simplify)); // Right
+        exp.setLeft(simplifyRec(exp.getLeft(), simplify));
+        exp.setRight(simplifyRec(exp.getRight(), simplify));
 
         if (simplify) {
-            exp.laws(operations, language);
+            rewriteEngine.rewrite(exp);
         }
         // Moves expressions up the tree structure
         if (exp.getRight() == null) {
@@ -132,211 +171,84 @@ public class ExpressionUtils {
             exp.setRight(exp.getRight().getLeft());
         }
 
-        exp.commutativeProperty(operations); // Sorts the expression
-        exp.removeParenthesis(operations);
+        exp.commutativeProperty(recordedOperations()); // Sorts the expression
+        exp.removeParenthesis(recordedOperations());
         return exp;
     }
 
-    public static int getNumberOfUniqueAtomics(@NotNull Expression[] expressions) { // TODO use regex Pattern Match?
+    /**
+     * @return The number of atomic values, an atomic value is not counted if its opposite is already counted
+     */
+    public static int getNumberOfUniqueAtomics(@NotNull Expression[] expressions) {
+        final Set<ExpressionNode> atomics = new HashSet<>();
         int numberOfAtomics = 0;
 
-        for (int i = 0; i < expressions.length; i++) {
-            if (expressions[i].isAtomic()) {
-                boolean exists = false;
-                for (int j = i - 1; !exists && j >= 0; j--) {
-
-                    // If the opposite expression already exists
-                    if (expressions[j].isAtomic() && expressions[i].equalsAndOpposite(expressions[j])) {
-                        exists = true;
-                    }
-                }
-                if (!exists) {
+        for (Expression exp : expressions) {
+            if (exp.isAtomic()) {
+                final ExpressionNode node = ExpressionNode.of(exp);
+                assert node != null;
+                // If the opposite expression already exists
+                if (!atomics.contains(node.not())) {
                     numberOfAtomics++;
                 }
+                atomics.add(node);
             }
         }
         return numberOfAtomics;
     }
 
-    private boolean isAtomic(@NotNull String exp) {
-        return !exp.matches("^.*[⋁⋀➔].*$");
-    }
-
-    /**
-     * Iterates through the string and finds the outer most center operator, if there are two, the one with the lowest weight is picked.
-     * If they have the same weight the one to the right is picked.
-     *
-     * @param stringExp A truth expression as a string, with no spaces between characters
-     * @return The index position of the center operator based on the weight of the operators
-     */
-    @NotNull
-    private CenterOperator getCenterOperatorIndex(@NotNull String stringExp) {
-
-        stringExp = removeOuterParentheses(stringExp);
-
-        final List<CenterOperator> operators = new ArrayList<>();
-        for (int i = 0; i < stringExp.length(); i++) {
-
-            int parentheses = 0;
-
-            // Skips all lines within parenthesis
-            char c = stringExp.charAt(i);
-            while (c == '(' || parentheses > 0) {
-                c = stringExp.charAt(i);
-                if (c == '(') {
-                    parentheses++;
-                }
-                else if (c == ')') {
-                    parentheses--;
-                }
-                i++;
-            }
-
-            if (i < stringExp.length()) {
-                // Finds the matching Operator
-                final Operator operator = Operator.getOperator(stringExp.charAt(i));
-                if (operator != null && !Objects.equals(operator, Operator.NOT)) {
-                    operators.add(new CenterOperator(operator, i));
-                }
-            }
-        }
-
-        CenterOperator op = operators.getFirst();
-        boolean allEqual = true;
-
-        // Finds the rightmost operator with the lowest weight, if all the operators are equal, pick the center most
-        for (int i = 1; i < operators.size(); i++) {
-            if (operators.get(i).operator().ordinal() != op.operator().ordinal()) {
-                allEqual = false;
-            }
-            if (operators.get(i).operator().ordinal() <= op.operator().ordinal()) {
-                op = operators.get(i);
-            }
-        }
-        return allEqual ? operators.get(operators.size() / 2) : op;
-    }
-
     public static void isValid(@NotNull String expression, @NotNull Language language) throws ExpressionInvalidException, MissingCharacterException, TooBigExpressionException {
-        new ExpressionUtils(expression, false, language).isValid();
+        isValid(expression, language, MAX_EXPRESSION_SIZE);
     }
 
-    // TODO return better error messages, should return the index of the error
-    // TODO check the input operators instead of the output operators
+    public static void isValid(@NotNull String expression, @NotNull Language language, int maxExpressionSize) throws ExpressionInvalidException, MissingCharacterException, TooBigExpressionException {
+        final ExpressionUtils eu = new ExpressionUtils(expression, false, language);
+        eu.setMaxExpressionSize(maxExpressionSize);
+        eu.isValid();
+    }
 
     /**
-     * Checks if a string is a valid truth expression. If the string is valid, it will return "empty string", otherwise an error message
-     * It is not true if either of the following are present.
-     * More than one operator in a row.
-     * More than one atomic value in a row.
-     * Not operator prior to another different operator.
-     * The parentheses do not match.
-     * <a href="https://regex101.com/r/tVsIy8/1">Regular expression</a>
+     * Checks if the expression is a valid truth expression, see {@link ExpressionValidator}
      *
      * @throws ExpressionInvalidException If the string contains an illegal character, or missplaced chacater
      * @throws MissingCharacterException If the string is missing a character, or missing a parenthesis
-     * @throws TooBigExpressionException If the expression has more than 15 parts
+     * @throws TooBigExpressionException If the expression has more parts than the max expression size
      */
-    public void isValid() throws ExpressionInvalidException, MissingCharacterException, TooBigExpressionException { // TODO Gonna need some cleaning, use regex!
+    public void isValid() throws ExpressionInvalidException, MissingCharacterException, TooBigExpressionException {
         assert expression != null : "Expression cannot be null";
-
-        // Good luck reading this 🤯
-        final String regex = "([^0-9()⋁⋀➔¬&|!\\-<> _=a-zA-ZæøåÆØÅ])|" +
-                "(\\) *\\()|(\\( *\\))|(([⋀⋁¬&|!\\-]|->) *([⋀⋁➔&|\\-]))|" +
-                "(^ *([⋀⋁➔&|]|->))|(([⋀⋁➔¬&|!]|->) *$)|" +
-                "(([a-zA-ZæøåÆØÅ]|([^-]>))( *\\(| *[¬!]| +([a-zA-ZæøåÆØÅ=_>]|-[^>])))|" +
-                "((-{2}>)|([!¬][)>]))|( +> +)|->>";
-        final Pattern pattern = Pattern.compile(regex);
-        final Matcher matcher = pattern.matcher(expression);
-
-        final String spaceLess = removeWhiteSpace();
-
-        if (matcher.find()) {
-            throw new ExpressionInvalidException(language, matcher.group(), matcher.start());
-        }
-        else if (expression.isEmpty()) {
-            throw new MissingCharacterException(language, 'A', 0);
-        }
-
-        final Stack<Character> brackets = new Stack<>();
-        int numberOfOperators = 0;
-
-        for (int i = 0; i < spaceLess.length(); i++) {
-            char charAtI = spaceLess.charAt(i);
-
-            if (Operator.isOperator(charAtI) && charAtI != Operator.NOT.getOutputOperator() && ++numberOfOperators > MAX_EXPRESSION_SIZE - 1) {
-                throw new TooBigExpressionException(language);
-            }
-
-            if (charAtI == '(') {
-                brackets.push(charAtI);
-            }
-            else if (charAtI == ')') {
-                char pop;
-                try {
-                    pop = brackets.pop();
-                }
-                catch (EmptyStackException e) {
-                    throw new MissingCharacterException(language, '(', i);
-                }
-
-                if (pop != '(') {
-                    throw new ExpressionInvalidException(language, String.valueOf(charAtI), i);
-                }
-            }
-        }
-        if (!brackets.isEmpty()) {
-            throw new MissingCharacterException(language, ')', expression.length());
-        }
+        ExpressionValidator.validate(expression, language, maxExpressionSize);
     }
 
-    private String removeWhiteSpace() {
-        assert expression != null : "Expression cannot be null";
-        String spaceLess = expression.replaceAll(" ", "");
-        log.debug("Removed whitespace from expression, {}", spaceLess);
-        return spaceLess;
+    public boolean isSimplify() {
+        return simplify;
     }
 
-    private static boolean isParentheses(char c) {
-        return c == '(' || c == ')';
+    public void setSimplify(boolean simplify) {
+        this.simplify = simplify;
     }
 
-    private static String removeOuterParentheses(@NotNull String stringExp) {
-        return isOuterParentheses(stringExp) ? stringExp.substring(1, stringExp.length() - 1) : stringExp;
+    public int getMaxExpressionSize() {
+        return maxExpressionSize;
     }
 
-    private static boolean isOuterParentheses(@NotNull String stringExp) {
-        int operators = 0;
-        boolean is = false;
-        int index = 0;
-
-        while (stringExp.charAt(index) == Operator.NOT.getOutputOperator()) {
-            index++;
-        }
+    public void setMaxExpressionSize(int maxExpressionSize) {
+        this.maxExpressionSize = maxExpressionSize;
+    }
 
-        if (stringExp.charAt(index) == '(') {
-            is = true;
-        }
-        while (is && index < stringExp.length() && (stringExp.charAt(index) == '(' || operators > 0)) {
-            if (stringExp.charAt(index) == '(') {
-                operators++;
-            }
-            else if (stringExp.charAt(index) == ')') {
-                operators--;
-                if (operators == 0 && index != stringExp.length() - 1) {
-                    is = false;
-                }
-            }
-            index++;
-        }
-        return is;
+    @NotNull
+    public SimplifyMode getMode() {
+        return mode;
     }
 
-    public boolean isSimplify() {
-        return simplify;
+    public void setMode(@NotNull SimplifyMode mode) {
+        this.mode = mode;
     }
 
-    public void setSimplify(boolean simplify) {
-        this.simplify = simplify;
+    /**
+     * @param minimizer The minimizer of the heuristic mode, a minimizer with the default budget is used if not set
+     */
+    public void setMinimizer(@NotNull EspressoMinimizer minimizer) {
+        this.minimizer = minimizer;
     }
 
     public String getExpression() {
@@ -347,8 +259,48 @@ public class ExpressionUtils {
         this.expression = expression;
     }
 
+    @NotNull
+    public Steps getSteps() {
+        return steps;
+    }
+
+    public void setSteps(@NotNull Steps steps) {
+        this.steps = steps;
+    }
+
+    /**
+     * @return Receives the steps, or null if the steps are not recorded.
+     * A summary only counts the laws, so the strings of the expressions are not created
+     */
+    @Nullable
+    private StepRecorder recordedOperations() {
+        return switch (steps) {
+            case NONE -> null;
+            case SUMMARY -> StepRecorder.counting(lawCounts);
+            case FULL -> StepRecorder.of(operations);
+        };
+    }
+
+    /**
+     * @return The steps, empty if the steps are not recorded with the expressions
+     */
     @NotNull
     public List<OrderOperations> getOperations() {
         return operations;
     }
+
+    /**
+     * @return The number of times each law was used, in the order the laws were first used
+     */
+    @NotNull
+    public Map<String, Integer> getLawCounts() {
+        if (steps == Steps.SUMMARY) {
+            return lawCounts;
+        }
+        final Map<String, Integer> counts = new LinkedHashMap<>();
+        for (OrderOperations operation : operations) {
+            counts.merge(operation.law(), 1, Integer::sum);
+        }
+        return counts;
+    }
 }
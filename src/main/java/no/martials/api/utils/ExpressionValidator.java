@@ -0,0 +1,222 @@
+package no.martials.api.utils;
+
+import no.martials.api.enums.Language;
+import no.martials.api.exceptions.ExpressionInvalidException;
+import no.martials.api.exceptions.MissingCharacterException;
+import no.martials.api.exceptions.TooBigExpressionException;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Checks if a string is a valid truth expression in a single pass, with no allocations if it is valid.
+ * Each token is put in a class, and a table of the previous class and the current class decides if the two can be
+ * next to each other, with or without spaces between them. A counter keeps track of the depth of the parentheses.
+ * <p>
+ * It is not valid if either of the following are present.
+ * More than one operator in a row.
+ * More than one atomic value in a row.
+ * Not operator prior to another different operator.
+ * The parentheses do not match.
+ *
+ * @author Martin Berg Alstad
+ */
+public final class ExpressionValidator {
+
+    /**
+     * The class before the first token
+     */
+    private static final int START = 0;
+    private static final int LETTER = 1;
+    /**
+     * Digits and '<', may be a part of an atomic value, but are not checked
+     */
+    private static final int OTHER = 2;
+    /**
+     * '_' and '=', or a '>' at the start
+     */
+    private static final int MARK = 3;
+    /**
+     * '>' that is not a part of '->'
+     */
+    private static final int GREATER = 4;
+    /**
+     * '>' that is followed by a space
+     */
+    private static final int GREATER_SPACE = 5;
+    /**
+     * '->', the token is two characters
+     */
+    private static final int ARROW = 6;
+    /**
+     * '-' that is not a part of '->'
+     */
+    private static final int MINUS = 7;
+    /**
+     * '-' at the end of the expression
+     */
+    private static final int MINUS_LAST = 8;
+    private static final int OPEN = 9;
+    private static final int CLOSE = 10;
+    /**
+     * '⋀', '⋁', '&' and '|'
+     */
+    private static final int BINARY = 11;
+    private static final int IMPLICATION = 12;
+    /**
+     * '¬' and '!'
+     */
+    private static final int NOT = 13;
+    private static final int ILLEGAL = 14;
+    private static final int CLASSES = 15;
+
+    /**
+     * If a token of the second class is not allowed directly after a token of the first class
+     */
+    private static final boolean[][] TOUCHING = new boolean[CLASSES][CLASSES];
+    /**
+     * If a token of the second class is not allowed after a token of the first class and one or more spaces
+     */
+    private static final boolean[][] SPACED = new boolean[CLASSES][CLASSES];
+    /**
+     * If the expression cannot end with a token of the class
+     */
+    private static final boolean[] LAST = new boolean[CLASSES];
+
+    static {
+        final int[] operators = {BINARY, NOT, MINUS, ARROW};
+        final int[] binary = {BINARY, IMPLICATION, MINUS, MINUS_LAST, ARROW};
+        final int[] atomicEnds = {LETTER, GREATER, GREATER_SPACE};
+        for (int current = 0; current < CLASSES; current++) {
+            forbid(START, current, false, current == BINARY || current == IMPLICATION || current == ARROW);
+            for (int previous = 0; previous < CLASSES; previous++) {
+                forbid(previous, current, false, current == ILLEGAL);
+                forbid(previous, current, true, current == GREATER_SPACE);
+            }
+        }
+        forbid(CLOSE, OPEN, false, true);
+        forbid(OPEN, CLOSE, false, true);
+        for (int operator : operators) {
+            for (int current : binary) {
+                forbid(operator, current, false, true);
+            }
+        }
+        for (int atomic : atomicEnds) {
+            forbid(atomic, OPEN, false, true);
+            forbid(atomic, NOT, false, true);
+            for (int current : new int[]{LETTER, MARK, GREATER, GREATER_SPACE, MINUS}) {
+                forbid(atomic, current, true, true);
+            }
+        }
+        for (int current : new int[]{CLOSE, GREATER, GREATER_SPACE}) {
+            TOUCHING[NOT][current] = true;
+        }
+        TOUCHING[ARROW][GREATER] = true;
+        TOUCHING[ARROW][GREATER_SPACE] = true;
+        for (int last : new int[]{BINARY, IMPLICATION, NOT, ARROW}) {
+            LAST[last] = true;
+        }
+    }
+
+    /**
+     * @param onlySpaced If only forbidden when there are spaces between the tokens, otherwise always forbidden
+     */
+    private static void forbid(int previous, int current, boolean onlySpaced, boolean forbidden) {
+        if (forbidden) {
+            SPACED[previous][current] = true;
+            TOUCHING[previous][current] |= !onlySpaced;
+        }
+    }
+
+    private ExpressionValidator() {
+    }
+
+    /**
+     * @param expression        The expression, with input or output operators
+     * @param language          The language of the error messages
+     * @param maxExpressionSize The maximum number of atomic values, the expression can have one less operator
+     * @throws ExpressionInvalidException If the string contains an illegal character, or a misplaced character
+     * @throws MissingCharacterException  If the string is missing a character, or missing a parenthesis
+     * @throws TooBigExpressionException  If the expression has more parts than the max expression size
+     */
+    public static void validate(@NotNull String expression, @NotNull Language language, int maxExpressionSize)
+            throws ExpressionInvalidException, MissingCharacterException, TooBigExpressionException {
+        if (expression.isEmpty()) {
+            throw new MissingCharacterException(language, 'A', 0);
+        }
+        int previous = START;
+        int previousIndex = 0;
+        boolean spaced = false;
+        int depth = 0;
+        int operators = 0;
+        // The index of the first parenthesis or operator that is too many, only thrown if the tokens are valid
+        int unopened = -1;
+        int tooBig = -1;
+
+        int i = 0;
+        while (i < expression.length()) {
+            final char c = expression.charAt(i);
+            if (c == ' ') {
+                spaced = true;
+                i++;
+                continue;
+            }
+            final int current = classOf(expression, i);
+            if ((spaced ? SPACED : TOUCHING)[previous][current]) {
+                throw new ExpressionInvalidException(language, String.valueOf(c), i);
+            }
+            if (current == OPEN) {
+                depth++;
+            }
+            else if (current == CLOSE && --depth < 0 && unopened < 0 && tooBig < 0) {
+                unopened = i;
+            }
+            else if ((current == BINARY || current == IMPLICATION || c == '!') && ++operators > maxExpressionSize - 1
+                    && unopened < 0 && tooBig < 0) {
+                tooBig = i;
+            }
+            previous = current;
+            previousIndex = i;
+            spaced = false;
+            i += current == ARROW ? 2 : 1;
+        }
+
+        if (LAST[previous]) {
+            final int end = previousIndex + (previous == ARROW ? 2 : 1);
+            throw new ExpressionInvalidException(language, expression.substring(previousIndex, end), previousIndex);
+        }
+        if (unopened >= 0) {
+            throw new MissingCharacterException(language, '(', unopened);
+        }
+        if (tooBig >= 0) {
+            throw new TooBigExpressionException(language, maxExpressionSize);
+        }
+        if (depth > 0) {
+            throw new MissingCharacterException(language, ')', expression.length());
+        }
+    }
+
+    /**
+     * @param index The index of the first character of the token
+     * @return The class of the token that starts at the index
+     */
+    private static int classOf(@NotNull String expression, int index) {
+        final char c = expression.charAt(index);
+        final boolean isLast = index == expression.length() - 1;
+        return switch (c) {
+            case '(' -> OPEN;
+            case ')' -> CLOSE;
+            case '⋀', '⋁', '&', '|' -> BINARY;
+            case '➔' -> IMPLICATION;
+            case '¬', '!' -> NOT;
+            case '_', '=' -> MARK;
+            case '<' -> OTHER;
+            case '-' -> isLast ? MINUS_LAST : expression.charAt(index + 1) == '>' ? ARROW : MINUS;
+            case '>' -> index == 0 ? MARK : !isLast && expression.charAt(index + 1) == ' ' ? GREATER_SPACE : GREATER;
+            default -> {
+                if (c >= '0' && c <= '9') {
+                    yield OTHER;
+                }
+                yield c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || "æøåÆØÅ".indexOf(c) >= 0 ? LETTER : ILLEGAL;
+            }
+        };
+    }
+}
@@ -64,7 +64,12 @@ public abstract class StringUtils {
         if (table == null) {
             return null;
         }
-        return Arrays.stream(table.getExpressions())
+        return mapToStrings(table.getExpressions());
+    }
+
+    @NotNull
+    public static String[] mapToStrings(@NotNull Expression[] expressions) {
+        return Arrays.stream(expressions)
                 .map(Expression::toString)
                 .toArray(String[]::new);
     }
@@ -0,0 +1,83 @@
+package no.martials.api.benchmark;
+
+import no.martials.api.expressions.CompiledExpression;
+import no.martials.api.expressions.Expression;
+import no.martials.api.utils.ExpressionUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the vector and the scalar column operations, by evaluating every row of a table.
+ * Each benchmark runs in its own JVM, since the operations are chosen when the class is loaded.
+ * <p>
+ * Run the main method from an IDE, or from the command line after 'mvn test-compile':
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main EvaluationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EvaluationBenchmark {
+
+    private static final String VECTOR_MODULE = "--add-modules=jdk.incubator.vector";
+
+    @Param({"10", "14", "17", "20"})
+    private int atomics;
+
+    private CompiledExpression program;
+    private long[][] registers;
+    private int words;
+
+    @Setup
+    public void setUp() {
+        final ExpressionUtils eu = new ExpressionUtils(expression(atomics), false);
+        eu.setMaxExpressionSize(ExpressionUtils.MAX_COUNT_EXPRESSION_SIZE);
+        final Expression exp = eu.simplify();
+
+        program = CompiledExpression.compile(exp.toSetArray());
+        words = Math.max(1, (1 << atomics) / Long.SIZE);
+        registers = program.newRegisters(words);
+    }
+
+    /**
+     * @return An expression that uses every operator, with the given number of atomic values
+     */
+    static String expression(int atomics) {
+        final String[] operators = {" ⋀ ", " ⋁ ", " ➔ "};
+        final StringBuilder builder = new StringBuilder("A0");
+        for (int atomic = 1; atomic < atomics; atomic++) {
+            builder.append(operators[atomic % operators.length]);
+            builder.append(atomic % 4 == 0 ? "¬A" : "A").append(atomic);
+        }
+        return builder.toString();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {VECTOR_MODULE, "-Dmartials.vector=false"})
+    public long[][] scalar() {
+        program.evaluate(registers, 0, words);
+        return registers;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {VECTOR_MODULE, "-Dmartials.vector=true"})
+    public long[][] vector() {
+        program.evaluate(registers, 0, words);
+        return registers;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EvaluationBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
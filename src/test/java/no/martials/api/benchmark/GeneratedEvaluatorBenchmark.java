@@ -0,0 +1,130 @@
+package no.martials.api.benchmark;
+
+import no.martials.api.expressions.BitEvaluator;
+import no.martials.api.expressions.CompiledExpression;
+import no.martials.api.expressions.EvaluatorGenerator;
+import no.martials.api.expressions.Expression;
+import no.martials.api.utils.ExpressionUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways to evaluate one expression for every assignment of the atomic values, by counting the true rows.
+ * treeWalk calls {@link Expression#solve(boolean, boolean)} for each node and row,
+ * interpreted runs the instructions of the compiled expression 64 rows at a time,
+ * and generated calls a generated hidden class 64 rows at a time.
+ * <p>
+ * Run the same way as {@link EvaluationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratedEvaluatorBenchmark {
+
+    @Param({"10", "14", "17"})
+    private int atomics;
+
+    private Expression expression;
+    private Map<String, Integer> atomicIndexes;
+    private CompiledExpression program;
+    private BitEvaluator evaluator;
+    /**
+     * The values of the atomic values for each word of 64 rows, so only the evaluation is measured
+     */
+    private long[][] atomicValues;
+
+    @Setup
+    public void setUp() {
+        expression = new ExpressionUtils(EvaluationBenchmark.expression(atomics), false).simplify();
+        program = CompiledExpression.compile(expression);
+        evaluator = EvaluatorGenerator.generate(program, 0);
+
+        atomicIndexes = new HashMap<>();
+        final String[] names = program.getAtomics();
+        for (int atomic = 0; atomic < names.length; atomic++) {
+            atomicIndexes.put(names[atomic], atomic);
+        }
+        atomicValues = new long[(1 << atomics) / Long.SIZE][atomics];
+        for (int word = 0; word < atomicValues.length; word++) {
+            fillAtomicValues(atomicValues[word], word);
+        }
+    }
+
+    @Benchmark
+    public long treeWalk() {
+        final int rows = 1 << atomics;
+        final boolean[] values = new boolean[atomics];
+        long count = 0;
+
+        for (int row = 0; row < rows; row++) {
+            for (int atomic = 0; atomic < atomics; atomic++) {
+                values[atomic] = (row >>> (atomics - 1 - atomic) & 1) == 0;
+            }
+            if (solve(expression, values)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean solve(Expression exp, boolean[] values) {
+        if (exp.isAtomic()) {
+            return exp.solve(values[atomicIndexes.get(exp.getAtomic())], false);
+        }
+        return exp.solve(solve(exp.getLeft(), values), solve(exp.getRight(), values));
+    }
+
+    @Benchmark
+    public long interpreted() {
+        final long[] registers = new long[program.getNumberOfRegisters()];
+        long count = 0;
+
+        for (long[] values : atomicValues) {
+            program.evaluate(values, registers);
+            count += Long.bitCount(registers[program.getOutput(0)]);
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long generated() {
+        long count = 0;
+
+        for (long[] values : atomicValues) {
+            count += Long.bitCount(evaluator.eval(values));
+        }
+        return count;
+    }
+
+    /**
+     * The atomic value with index 'k' is true in row 'r', if the bit '(n - 1 - k)' of 'r' is 0
+     */
+    private void fillAtomicValues(long[] values, long word) {
+        for (int atomic = 0; atomic < atomics; atomic++) {
+            long value = 0;
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                final long row = word * Long.SIZE + bit;
+                if ((row >>> (atomics - 1 - atomic) & 1) == 0) {
+                    value |= 1L << bit;
+                }
+            }
+            values[atomic] = value;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeneratedEvaluatorBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,135 @@
+package no.martials.api.benchmark;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the latency of cheap requests while expensive requests keep the server busy.
+ * A number of clients send expensive requests in a loop, a table and a minimal sum of products,
+ * while cheap validations are sent at a fixed rate, each on its own thread so the time spent waiting is measured.
+ * <p>
+ * Start the server, with or without virtual threads, and run the main method with the url, the number of expensive
+ * clients and the number of seconds to measure:
+ * <pre>
+ * java -jar target/simplify-truths##2.1.2.war --martials.virtual-threads=false
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) no.martials.api.benchmark.MixedTrafficBenchmark http://localhost:8080 64 20
+ * </pre>
+ * The results depend on the number of cores and vary between runs, so two commits are compared on the same machine,
+ * with the server limited to the same cores, and with several runs of each. For one core and 32 clients:
+ * <pre>
+ * taskset -c 0 java -XX:ActiveProcessorCount=1 -jar target/simplify-truths##2.1.2.war
+ * taskset -c 1-3 java -cp target/test-classes:target/classes:$(cat cp.txt) no.martials.api.benchmark.MixedTrafficBenchmark http://localhost:8080 32 15
+ * </pre>
+ */
+public final class MixedTrafficBenchmark {
+
+    private static final String CHEAP_PATH = "/isLegal/" + encode("A ⋀ B ➔ C");
+    private static final String[] EXPENSIVE_PATHS = {
+            "/simplify/table/" + encode(EvaluationBenchmark.expression(14)) + "?simplify=false",
+            "/simplify/" + encode(EvaluationBenchmark.expression(12)) + "?mode=MINIMAL&steps=NONE",
+    };
+    /**
+     * The time between each cheap request
+     */
+    private static final long CHEAP_INTERVAL_MILLIS = 10;
+    private static final int WARMUP_SECONDS = 5;
+
+    private MixedTrafficBenchmark() {
+    }
+
+    private static String encode(String expression) {
+        return URLEncoder.encode(expression, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final String url = args.length > 0 ? args[0] : "http://localhost:8080";
+        final int expensiveClients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+        final ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        final HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientThreads)
+                .build();
+
+        final long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        final long end = measureStart + TimeUnit.SECONDS.toNanos(seconds);
+        final AtomicLong expensive = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < expensiveClients; i++) {
+            final String path = EXPENSIVE_PATHS[i % EXPENSIVE_PATHS.length];
+            threads.execute(() -> {
+                while (System.nanoTime() < end) {
+                    final boolean ok = send(client, url + path);
+                    if (System.nanoTime() > measureStart) {
+                        (ok ? expensive : errors).incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        while (System.nanoTime() < end) {
+            threads.execute(() -> {
+                final long start = System.nanoTime();
+                final boolean ok = send(client, url + CHEAP_PATH);
+                if (start > measureStart && System.nanoTime() < end) {
+                    if (ok) {
+                        latencies.add(System.nanoTime() - start);
+                    }
+                    else {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+            Thread.sleep(CHEAP_INTERVAL_MILLIS);
+        }
+        threads.shutdown();
+        threads.awaitTermination(1, TimeUnit.MINUTES);
+        clientThreads.shutdown();
+
+        final List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("expensive clients: %d, seconds: %d%n", expensiveClients, seconds);
+        System.out.printf("expensive requests: %d (%.1f/s), errors: %d%n",
+                expensive.get(), (double) expensive.get() / seconds, errors.get());
+        System.out.printf("cheap requests: %d, p50: %.1fms, p90: %.1fms, p99: %.1fms, max: %.1fms%n", sorted.size(),
+                percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99), percentile(sorted, 1));
+    }
+
+    /**
+     * @return True if the response was 200
+     */
+    private static boolean send(HttpClient client, String uri) {
+        try {
+            final HttpRequest request = HttpRequest.newBuilder(URI.create(uri)).timeout(Duration.ofMinutes(2)).build();
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        }
+        catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return Double.NaN;
+        }
+        final int index = (int) Math.min(sorted.size() - 1, Math.ceil(percentile * sorted.size()) - 1);
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+}
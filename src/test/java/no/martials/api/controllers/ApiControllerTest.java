@@ -1,40 +1,79 @@
 package no.martials.api.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import no.martials.api.enums.BatchOrder;
+import no.martials.api.enums.CnfEncoding;
 import no.martials.api.enums.Hide;
 import no.martials.api.enums.Operator;
+import no.martials.api.enums.SimplifyMode;
 import no.martials.api.enums.Sort;
+import no.martials.api.enums.Steps;
+import no.martials.api.enums.TableFormat;
 import no.martials.api.results.EmptyResult;
 import no.martials.api.results.Result;
+import no.martials.api.results.ResultCount;
+import no.martials.api.results.ResultEquivalent;
+import no.martials.api.expressions.EspressoMinimizer;
+import no.martials.api.expressions.EvaluatorCache;
+import no.martials.api.expressions.PackedTruthTable;
+import no.martials.api.expressions.TableParallelism;
+import no.martials.api.expressions.TruthTablePage;
 import no.martials.api.results.ResultOnlyTable;
+import no.martials.api.results.ResultSatisfiable;
+import no.martials.api.results.ResultWithTable;
+import no.martials.api.utils.CpuExecutor;
 import no.martials.api.utils.ExpressionUtils;
 import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ApiControllerTest {
 
     private ApiController ac;
+    private CpuExecutor cpuExecutor;
 
     @BeforeEach
     void setUp() {
-        ac = new ApiController();
+        cpuExecutor = new CpuExecutor(0, CpuExecutor.DEFAULT_MAX_WAIT_MILLIS);
+        ac = new ApiController(cpuExecutor, TableParallelism.SEQUENTIAL,
+                new EvaluatorCache(EvaluatorCache.DEFAULT_HOT_THRESHOLD), new EspressoMinimizer(), new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cpuExecutor.shutdown();
     }
 
     @NotNull
     private ResponseEntity<EmptyResult> defaultSimplify(@NotNull String expression) {
-        return ac.simplify(expression, null, true, false, "nb");
+        return ac.simplify(expression, null, true, false, SimplifyMode.LAWS, Steps.FULL, "nb");
     }
 
     @NotNull
     private ResponseEntity<EmptyResult> defaultDontSimplify(@NotNull String expression) {
-        return ac.simplify(expression, null, false, false, "nb");
+        return ac.simplify(expression, null, false, false, SimplifyMode.LAWS, Steps.FULL, "nb");
     }
 
     @ParameterizedTest
@@ -79,7 +118,7 @@ public class ApiControllerTest {
     @Test
     void simplifySetLangToEnglish() {
         try {
-            ac.simplify("", "en", true, false, "nb");
+            ac.simplify("", "en", true, false, SimplifyMode.LAWS, Steps.FULL, "nb");
         }
         catch (ResponseStatusException e) {
             assertTrue(e.getMessage().contains("Missing character"));
@@ -99,7 +138,7 @@ public class ApiControllerTest {
     @ParameterizedTest
     @ValueSource(strings = {"A&a", "help | Help"})
     void simplifyCaseSensitive(String expression) {
-        ResponseEntity<EmptyResult> responseEntity = ac.simplify(expression, null, true, true, "nb");
+        ResponseEntity<EmptyResult> responseEntity = ac.simplify(expression, null, true, true, SimplifyMode.LAWS, Steps.FULL, "nb");
 
         Result body = (Result) responseEntity.getBody();
         assert body != null && body.getExpression() != null;
@@ -107,11 +146,75 @@ public class ApiControllerTest {
         assertNotEquals(body.getExpression().getLeft(), body.getExpression().getRight());
     }
 
+    @Test
+    void simplifyMinimal() {
+        ResponseEntity<EmptyResult> responseEntity = ac.simplify("A & B | A & !B | !A & B", null, true, false, SimplifyMode.MINIMAL, Steps.FULL, "en");
+
+        Result body = (Result) responseEntity.getBody();
+        assert body != null && body.getOrderOperations() != null;
+        assertEquals("A ⋁ B", body.getAfter());
+        assertEquals(1, body.getOrderOperations().size());
+        assertEquals("Minimal disjunctive normal form", body.getOrderOperations().get(0).law());
+    }
+
+    @Test
+    void simplifyStepsSummary() {
+        ResponseEntity<EmptyResult> responseEntity = ac.simplify("¬(A ➔ B) ⋁ ¬(C ➔ D)", "en", true, false, SimplifyMode.LAWS, Steps.SUMMARY, "nb");
+        Result summary = (Result) responseEntity.getBody();
+        responseEntity = defaultSimplify("¬(A ➔ B) ⋁ ¬(C ➔ D)");
+        Result full = (Result) responseEntity.getBody();
+
+        assert summary != null && summary.getLawCounts() != null && full != null && full.getOrderOperations() != null;
+        assertNull(summary.getOrderOperations());
+        assertNull(full.getLawCounts());
+        assertEquals(full.getAfter(), summary.getAfter());
+        assertEquals(2, summary.getLawCounts().get("Elimination of implication"));
+        assertEquals(full.getOrderOperations().size(), summary.getLawCounts().values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void simplifyStepsNone() {
+        ResponseEntity<EmptyResult> responseEntity = ac.simplify("¬(A ➔ B) ⋁ ¬(C ➔ D)", null, true, false, SimplifyMode.LAWS, Steps.NONE, "nb");
+        Result body = (Result) responseEntity.getBody();
+
+        assert body != null;
+        assertNull(body.getOrderOperations());
+        assertNull(body.getLawCounts());
+        assertEquals("A ⋀ ¬B ⋁ C ⋀ ¬D", body.getAfter());
+    }
+
+    @Test
+    void simplifyMinimalWithoutSimplify() {
+        ResponseEntity<EmptyResult> responseEntity = ac.simplify("A & A", null, false, false, SimplifyMode.MINIMAL, Steps.FULL, "nb");
+
+        Result body = (Result) responseEntity.getBody();
+        assert body != null;
+        assertEquals("A ⋀ A", body.getAfter());
+    }
+
+    @Test
+    void simplifyHeuristicAllowsMoreAtomics() {
+        final String expression = "a & b | c & d | e & f | g & h | i & j | k & l | m & n | o & p | q & r | s & t | u & v";
+        try {
+            ac.simplify(expression, null, true, false, SimplifyMode.MINIMAL, Steps.FULL, "nb");
+            fail("Should throw exception");
+        }
+        catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+        ResponseEntity<EmptyResult> responseEntity = ac.simplify(expression, null, true, false, SimplifyMode.HEURISTIC, Steps.FULL, "en");
+
+        Result body = (Result) responseEntity.getBody();
+        assert body != null && body.getOrderOperations() != null;
+        assertEquals("(A ⋀ B) ⋁ (C ⋀ D) ⋁ (E ⋀ F) ⋁ (G ⋀ H) ⋁ (I ⋀ J) ⋁ (K ⋀ L) ⋁ (M ⋀ N) ⋁ (O ⋀ P) ⋁ (Q ⋀ R) ⋁ (S ⋀ T) ⋁ (U ⋀ V)",
+                body.getAfter());
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"", "^", "(A & B"})
     void simplifyCustomAcceptLanguage(String expression) {
         try {
-            ac.simplify(expression, null, true, false, "en");
+            ac.simplify(expression, null, true, false, SimplifyMode.LAWS, Steps.FULL, "en");
             fail("Should throw exception");
         }
         catch (ResponseStatusException e) {
@@ -121,13 +224,13 @@ public class ApiControllerTest {
 
     @NotNull
     private ResponseEntity<EmptyResult> defaultTable(@NotNull String expression) {
-        return ac.table(new ExpressionUtils(expression).simplify(), Sort.DEFAULT, Hide.NONE, false, null, "nb");
+        return ac.table(new ExpressionUtils(expression).simplify(), Sort.DEFAULT, Hide.NONE, false, null, null, null, TableFormat.MATRIX, null, "nb");
     }
 
     @Test
     void tableNullExpression() {
         try {
-            ac.table(null, Sort.DEFAULT, Hide.NONE, false, null, "nb");
+            ac.table(null, Sort.DEFAULT, Hide.NONE, false, null, null, null, TableFormat.MATRIX, null, "nb");
         }
         catch (ResponseStatusException e) {
             assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
@@ -138,7 +241,7 @@ public class ApiControllerTest {
     @Test
     void tableNullExpressionEnLang() {
         try {
-            ac.table(null, Sort.DEFAULT, Hide.NONE, false, "en", "nb");
+            ac.table(null, Sort.DEFAULT, Hide.NONE, false, null, null, null, TableFormat.MATRIX, "en", "nb");
             fail("Should throw exception");
         }
         catch (ResponseStatusException e) {
@@ -157,4 +260,393 @@ public class ApiControllerTest {
         assertEquals(ResultOnlyTable.class, responseEntity.getBody().getClass());
     }
 
+    @Test
+    void tablePageWithCursor() {
+        ResponseEntity<EmptyResult> responseEntity = ac.table(new ExpressionUtils("A ⋀ B ⋀ C").simplify(),
+                Sort.DEFAULT, Hide.TRUE, false, null, 3, null, TableFormat.MATRIX, null, "nb");
+
+        TruthTablePage page = (TruthTablePage) ((ResultOnlyTable) responseEntity.getBody()).getTable();
+        assertNotNull(page);
+        assertEquals(3, page.getTruthMatrix().length);
+        assertNotNull(page.getNextCursor());
+
+        responseEntity = ac.table(new ExpressionUtils("A ⋀ B ⋀ C").simplify(),
+                Sort.DEFAULT, Hide.TRUE, false, null, 3, page.getNextCursor(), TableFormat.MATRIX, null, "nb");
+
+        page = (TruthTablePage) ((ResultOnlyTable) responseEntity.getBody()).getTable();
+        assertNotNull(page);
+        assertEquals(3, page.getTruthMatrix().length);
+
+        responseEntity = ac.table(new ExpressionUtils("A ⋀ B ⋀ C").simplify(),
+                Sort.DEFAULT, Hide.TRUE, false, null, 3, page.getNextCursor(), TableFormat.MATRIX, null, "nb");
+
+        page = (TruthTablePage) ((ResultOnlyTable) responseEntity.getBody()).getTable();
+        assertNotNull(page);
+        assertEquals(1, page.getTruthMatrix().length);
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void simplifyAndTablePageWithOffset() {
+        ResponseEntity<EmptyResult> responseEntity = ac.simplifyAndTable("a | b", null, false, false, Sort.DEFAULT,
+                Hide.NONE, false, 2L, 10, null, TableFormat.MATRIX, Steps.FULL, "nb");
+
+        TruthTablePage page = (TruthTablePage) ((ResultWithTable) responseEntity.getBody()).getTable();
+        assertNotNull(page);
+        assertEquals(2, page.getTruthMatrix().length);
+        assertArrayEquals(new boolean[] {false, true, true}, page.getTruthMatrix()[0]);
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void simplifyAndTableOnlyAllowsLargerTablesWithoutSimplify() {
+        final String expression = IntStream.range(0, 20)
+                .mapToObj(i -> String.valueOf((char) ('a' + i)))
+                .reduce((left, right) -> left + " | " + right)
+                .orElseThrow();
+        try {
+            ac.simplifyAndTable(expression, null, true, false, Sort.DEFAULT,
+                    Hide.NONE, false, null, 1, null, TableFormat.MATRIX, Steps.FULL, "nb");
+            fail("Should throw exception");
+        }
+        catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+        try {
+            ac.simplifyAndTableStream(expression, null, true, false, Sort.DEFAULT, Hide.NONE, false, Steps.FULL, "nb");
+            fail("Should throw exception");
+        }
+        catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+
+        ResponseEntity<EmptyResult> responseEntity = ac.simplifyAndTable(expression, null, false, false, Sort.DEFAULT,
+                Hide.NONE, false, null, 1, null, TableFormat.MATRIX, Steps.FULL, "nb");
+        TruthTablePage page = (TruthTablePage) ((ResultWithTable) responseEntity.getBody()).getTable();
+        assertNotNull(page);
+        assertEquals(1, page.getTruthMatrix().length);
+    }
+
+    @Test
+    void simplifyAndTablePacked() {
+        ResponseEntity<EmptyResult> responseEntity = ac.simplifyAndTable("a | b", null, false, false, Sort.DEFAULT,
+                Hide.NONE, false, null, null, null, TableFormat.PACKED, Steps.FULL, "nb");
+
+        PackedTruthTable table = (PackedTruthTable) ((ResultWithTable) responseEntity.getBody()).getTable();
+        assertNotNull(table);
+        assertEquals(4, table.getRows());
+        assertArrayEquals(new String[] {"Aw==", "BQ==", "Bw=="}, table.getColumns());
+    }
+
+    @Test
+    void tablePackedCanNotBePaged() {
+        try {
+            ac.table(new ExpressionUtils("A ⋀ B").simplify(), Sort.DEFAULT, Hide.NONE, false, null, 3, null, TableFormat.PACKED, null, "nb");
+            fail("Should throw exception");
+        }
+        catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"-1", "not a cursor", "100"})
+    void tablePageWithInvalidCursor(String cursor) {
+        try {
+            ac.table(new ExpressionUtils("A ⋀ B").simplify(), Sort.DEFAULT, Hide.NONE, false, null, 3, cursor, TableFormat.MATRIX, null, "nb");
+            fail("Should throw exception");
+        }
+        catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+
+    @Test
+    void tableStreamWritesHeadAndRows() throws IOException {
+        ResponseEntity<StreamingResponseBody> responseEntity = ac.tableStream(new ExpressionUtils("A ⋀ B").simplify(),
+                Sort.DEFAULT, Hide.NONE, false, null, "nb");
+        assertEquals(MediaType.APPLICATION_NDJSON, responseEntity.getHeaders().getContentType());
+
+        String[] lines = writeStream(responseEntity);
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].contains("\"header\":[\"A\",\"B\",\"A ⋀ B\"]"), lines[0]);
+        assertEquals("[true,true,true]", lines[1]);
+        assertEquals("[false,false,false]", lines[4]);
+    }
+
+    @Test
+    void tableStreamEndsWithAnErrorIfNoCoreIsFree() throws IOException, InterruptedException {
+        final CpuExecutor busy = new CpuExecutor(1, 0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread caller = Thread.ofVirtual().start(() -> busy.call(() -> {
+            started.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                return false;
+            }
+        }));
+        started.await();
+
+        final ApiController busyController = new ApiController(busy, TableParallelism.SEQUENTIAL,
+                new EvaluatorCache(EvaluatorCache.DEFAULT_HOT_THRESHOLD), new EspressoMinimizer(), new ObjectMapper());
+        String[] lines = writeStream(busyController.tableStream(new ExpressionUtils("A ⋀ B").simplify(),
+                Sort.DEFAULT, Hide.NONE, false, null, "nb"));
+        release.countDown();
+        caller.join();
+        busy.shutdown();
+
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"status\":\"OK\""), lines[0]);
+        assertTrue(lines[1].contains("\"status\":\"SERVICE_UNAVAILABLE\""), lines[1]);
+        assertTrue(lines[1].contains("\"error\":"), lines[1]);
+    }
+
+    @Test
+    void tableStreamNullExpression() {
+        try {
+            ac.tableStream(null, Sort.DEFAULT, Hide.NONE, false, null, "nb");
+            fail("Should throw exception");
+        }
+        catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+        }
+    }
+
+    @Test
+    void simplifyAndTableStreamHidesAndSorts() throws IOException {
+        ResponseEntity<StreamingResponseBody> responseEntity = ac.simplifyAndTableStream("a -> b", null, false, false,
+                Sort.FALSE_FIRST, Hide.NONE, false, Steps.FULL, "nb");
+
+        String[] lines = writeStream(responseEntity);
+        assertTrue(lines[0].contains("\"after\":\"A ➔ B\""), lines[0]);
+        assertEquals("[true,false,false]", lines[1]);
+        assertEquals(5, lines.length);
+
+        responseEntity = ac.simplifyAndTableStream("a -> b", null, false, false, Sort.DEFAULT, Hide.TRUE, false, Steps.FULL, "nb");
+        assertEquals(2, writeStream(responseEntity).length);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a&b&", "a::", ""})
+    void simplifyAndTableStreamIllegalExpression(String expression) {
+        try {
+            ac.simplifyAndTableStream(expression, null, true, false, Sort.DEFAULT, Hide.NONE, false, Steps.FULL, "nb");
+            fail("Should throw exception");
+        }
+        catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+
+    @Test
+    void countExpression() {
+        ResponseEntity<EmptyResult> responseEntity = ac.count("A & B | C", null, true, false, "nb");
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+
+        ResultCount result = (ResultCount) responseEntity.getBody();
+        assertNotNull(result);
+        assertEquals(3, result.getAtomics());
+        assertEquals(5, result.getSatisfying());
+        assertEquals(3, result.getFalsifying());
+    }
+
+    @Test
+    void countWithoutFalsifying() {
+        ResultCount result = (ResultCount) ac.count("a -> b", null, false, false, "nb").getBody();
+        assertNotNull(result);
+        assertEquals(3, result.getSatisfying());
+        assertNull(result.getFalsifying());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a&b&", "a::", ""})
+    void countIllegalExpression(String expression) {
+        try {
+            ac.count(expression, null, false, false, "nb");
+            fail("Should throw exception");
+        }
+        catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+
+    @Test
+    void equivalentExpressions() {
+        ResponseEntity<EmptyResult> responseEntity = ac.equivalent("a -> b", "!a | b", null, false, "nb");
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+
+        ResultEquivalent result = (ResultEquivalent) responseEntity.getBody();
+        assertNotNull(result);
+        assertTrue(result.isEquivalent());
+        assertNull(result.getCounterexample());
+    }
+
+    @Test
+    void notEquivalentExpressions() {
+        ResultEquivalent result = (ResultEquivalent) ac.equivalent("a -> b", "b -> a", null, false, "nb").getBody();
+        assertNotNull(result);
+        assertFalse(result.isEquivalent());
+        assertNotNull(result.getCounterexample());
+        // Exactly one of the expressions is false, when one atomic value is true and the other is false
+        assertNotEquals(result.getCounterexample().get("a"), result.getCounterexample().get("b"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a&b&", "a::", ""})
+    void equivalentIllegalExpression(String expression) {
+        try {
+            ac.equivalent("a", expression, null, false, "nb");
+            fail("Should throw exception");
+        }
+        catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+
+    @Test
+    void satisfiableExpression() {
+        ResponseEntity<EmptyResult> responseEntity = ac.satisfiable("a & !(a -> b)", null, false, "nb");
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+
+        ResultSatisfiable result = (ResultSatisfiable) responseEntity.getBody();
+        assertNotNull(result);
+        assertTrue(result.isSatisfiable());
+        assertEquals(Map.of("a", true, "b", false), result.getAssignment());
+    }
+
+    @Test
+    void unsatisfiableExpression() {
+        ResultSatisfiable result = (ResultSatisfiable) ac.satisfiable("(a -> b) & a & !b", null, false, "nb").getBody();
+        assertNotNull(result);
+        assertFalse(result.isSatisfiable());
+        assertNull(result.getAssignment());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a&b&", "a::", ""})
+    void satisfiableIllegalExpression(String expression) {
+        try {
+            ac.satisfiable(expression, null, false, "nb");
+            fail("Should throw exception");
+        }
+        catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+
+    @Test
+    void dimacsStream() throws IOException {
+        ResponseEntity<StreamingResponseBody> responseEntity = ac.dimacs("a & !(a -> b)", null, false,
+                CnfEncoding.PLAISTED_GREENBAUM, "nb");
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(MediaType.TEXT_PLAIN, responseEntity.getHeaders().getContentType());
+
+        String[] lines = writeStream(responseEntity);
+        assertArrayEquals(new String[]{"c 1 a", "c 2 b", "p cnf 4 5"}, Arrays.copyOf(lines, 3));
+        assertEquals(3 + 5, lines.length);
+        assertEquals("4 0", lines[lines.length - 1]);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a&b&", "a::", ""})
+    void dimacsIllegalExpression(String expression) {
+        try {
+            ac.dimacs(expression, null, false, CnfEncoding.TSEITIN, "nb");
+            fail("Should throw exception");
+        }
+        catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+
+    @Test
+    void simplifyBatchInInputOrder() throws IOException {
+        String body = "[{\"exp\": \"a & a\"}, {\"exp\": \"a&b&\"}, {\"exp\": \"!!b | b\", \"steps\": \"NONE\"}, {}]";
+        ResponseEntity<StreamingResponseBody> responseEntity = ac.simplifyBatch(toStream(body), "en", BatchOrder.INPUT, "nb");
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, responseEntity.getHeaders().getContentType());
+
+        JsonNode[] lines = readLines(writeStream(responseEntity));
+        assertEquals(4, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(i, lines[i].get("index").asInt());
+        }
+        assertEquals("OK", lines[0].get("status").asText());
+        assertEquals("A", lines[0].get("result").get("after").asText());
+        assertEquals("BAD_REQUEST", lines[1].get("status").asText());
+        assertFalse(lines[1].has("result"));
+        assertTrue(lines[1].get("error").asText().length() > 0);
+        assertEquals("B", lines[2].get("result").get("after").asText());
+        assertTrue(lines[2].get("result").get("orderOperations").isNull());
+        assertEquals("Expression not found", lines[3].get("error").asText());
+    }
+
+    @Test
+    void simplifyBatchInCompletionOrder() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            body.append("{\"exp\": \"a").append(i).append(" & (b | a").append(i).append(")\"}\n");
+        }
+        ResponseEntity<StreamingResponseBody> responseEntity = ac.simplifyBatch(toStream(body.toString()), null,
+                BatchOrder.COMPLETION, "nb");
+
+        JsonNode[] lines = readLines(writeStream(responseEntity));
+        assertEquals(200, lines.length);
+        assertArrayEquals(IntStream.range(0, 200).toArray(),
+                Arrays.stream(lines).mapToInt(line -> line.get("index").asInt()).sorted().toArray());
+        for (JsonNode line : lines) {
+            assertEquals("A" + line.get("index").asInt(), line.get("result").get("after").asText());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"[{\"exp\": }]", "{\"mode\": \"UNKNOWN\"}"})
+    void simplifyBatchIllegalBody(String body) {
+        try {
+            ac.simplifyBatch(toStream(body), null, BatchOrder.INPUT, "nb");
+            fail("Should throw exception");
+        }
+        catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "[]"})
+    void simplifyBatchEmptyBody(String body) {
+        try {
+            ac.simplifyBatch(toStream(body), null, BatchOrder.INPUT, "nb");
+            fail("Should throw exception");
+        }
+        catch (ResponseStatusException e) {
+            assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+        }
+    }
+
+    @NotNull
+    private static InputStream toStream(@NotNull String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @NotNull
+    private static JsonNode[] readLines(@NotNull String[] lines) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode[] nodes = new JsonNode[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            nodes[i] = mapper.readTree(lines[i]);
+        }
+        return nodes;
+    }
+
+    @NotNull
+    private static String[] writeStream(@NotNull ResponseEntity<StreamingResponseBody> responseEntity) throws IOException {
+        assert responseEntity.getBody() != null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        responseEntity.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8).split("\n");
+    }
+
 }
@@ -0,0 +1,149 @@
+package no.martials.api.expressions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static no.martials.api.expressions.RandomExpressions.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BddTest {
+
+    @Test
+    void variablesAreUnique() {
+        final Bdd bdd = new Bdd(2);
+
+        assertEquals(bdd.variable(0), bdd.variable(0));
+        assertNotEquals(bdd.variable(0), bdd.variable(1));
+        assertEquals(4, bdd.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"A ⋁ ¬A", "A ➔ A", "A ⋀ B ➔ A", "(A ➔ B) ⋀ (B ➔ C) ➔ (A ➔ C)", "¬(A ⋀ ¬A)"})
+    void tautology(String expression) {
+        final Bdd.Functions functions = Bdd.of(parse(expression));
+        assertTrue(functions.bdd().isTautology(functions.functions()[0]));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"A ⋀ ¬A", "A ⋀ ¬(A ⋁ B)", "¬(A ➔ A)"})
+    void contradiction(String expression) {
+        final Bdd.Functions functions = Bdd.of(parse(expression));
+        assertTrue(functions.bdd().isContradiction(functions.functions()[0]));
+    }
+
+    @Test
+    void equivalentExpressionsAreTheSameNode() {
+        final Bdd.Functions functions = Bdd.of(parse("A ⋀ B"), parse("B ⋀ A"), parse("¬(¬A ⋁ ¬B)"), parse("A ⋁ B"));
+        final int[] f = functions.functions();
+
+        assertEquals(f[0], f[1]);
+        assertEquals(f[0], f[2]);
+        assertNotEquals(f[0], f[3]);
+    }
+
+    @Test
+    void implicationIsNotCommutative() {
+        final Bdd.Functions functions = Bdd.of(parse("A ➔ B"), parse("B ➔ A"));
+        assertNotEquals(functions.functions()[0], functions.functions()[1]);
+    }
+
+    @Test
+    void satCountMatchesModelCounter() {
+        final Random random = new Random(3);
+
+        for (int i = 0; i < 200; i++) {
+            final String expression = RandomExpressions.expression(random, 2 + random.nextInt(12), 8);
+            final Expression exp = parse(expression);
+            final Bdd.Functions functions = Bdd.of(exp);
+
+            assertEquals(ModelCounter.count(exp), functions.bdd().satCount(functions.functions()[0]), expression);
+        }
+    }
+
+    @Test
+    void satisfyingAssignment() {
+        final Bdd.Functions functions = Bdd.of(parse("¬A ⋀ B ⋀ ¬C"));
+        final boolean[] assignment = functions.bdd().satisfyingAssignment(functions.functions()[0]);
+
+        assertNotNull(assignment);
+        assertArrayEquals(new boolean[] {false, true, false}, assignment);
+        assertNull(functions.bdd().satisfyingAssignment(Bdd.FALSE));
+    }
+
+    @Test
+    void restrict() {
+        final Bdd bdd = new Bdd(2);
+        final int a = bdd.variable(0), b = bdd.variable(1);
+        final int f = bdd.and(a, b);
+
+        assertEquals(b, bdd.restrict(f, 0, true));
+        assertEquals(Bdd.FALSE, bdd.restrict(f, 0, false));
+        assertEquals(a, bdd.restrict(f, 1, true));
+    }
+
+    @Test
+    void restrictVisitsSharedNodesOnce() {
+        final int variables = 40;
+        final Bdd bdd = new Bdd(variables);
+        // The parity of the variables has 2^40 paths, but only two nodes for each variable
+        int parity = bdd.variable(0);
+        int previous = parity;
+        for (int variable = 1; variable < variables; variable++) {
+            previous = parity;
+            parity = bdd.ite(parity, bdd.not(bdd.variable(variable)), bdd.variable(variable));
+        }
+
+        assertEquals(bdd.not(previous), bdd.restrict(parity, variables - 1, true));
+        assertEquals(previous, bdd.restrict(parity, variables - 1, false));
+    }
+
+    @Test
+    void largeExpressionStaysSmall() {
+        // A chain of 25 implications has two nodes per variable, one where the rest must be true and one where it is free
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            if (i > 0) {
+                builder.append(" ⋀ ");
+            }
+            builder.append("(").append((char) ('A' + i)).append(" ➔ ").append((char) ('A' + i + 1)).append(")");
+        }
+        final Bdd.Functions functions = Bdd.of(parse(builder.toString()));
+        final int f = functions.functions()[0];
+
+        assertEquals(2 * 25 + 2, functions.bdd().nodeCount(f));
+        assertEquals(27, functions.bdd().satCount(f));
+    }
+
+    @Test
+    void maxNodes() {
+        final Bdd bdd = new Bdd(20, 10);
+        assertThrows(IllegalStateException.class, () -> {
+            int f = Bdd.FALSE;
+            for (int variable = 0; variable < 20; variable++) {
+                f = bdd.or(f, bdd.variable(variable));
+            }
+        });
+    }
+
+    @Test
+    void growKeepsNodesUnique() {
+        // Pairs of variables far apart in the order need many nodes
+        final int pairs = 12;
+        final Bdd bdd = new Bdd(pairs * 2);
+        int f = Bdd.FALSE;
+        for (int i = 0; i < pairs; i++) {
+            f = bdd.or(f, bdd.and(bdd.variable(i), bdd.variable(i + pairs)));
+        }
+        int g = Bdd.FALSE;
+        for (int i = pairs - 1; i >= 0; i--) {
+            g = bdd.or(bdd.and(bdd.variable(i + pairs), bdd.variable(i)), g);
+        }
+        assertTrue(bdd.size() > 1 << 12);
+        assertEquals(f, g);
+        // 4^12 assignments minus the ones where no pair is true
+        assertEquals((1L << 24) - (long) Math.pow(3, pairs), bdd.satCount(f));
+    }
+}
@@ -0,0 +1,74 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.CnfEncoding;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static no.martials.api.expressions.RandomExpressions.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CnfEncoderTest {
+
+    /**
+     * @return True if the formula is satisfiable, with the atomic values fixed to the row of the table
+     */
+    private static boolean isSatisfiable(CnfEncoder.Cnf cnf, int row) {
+        final SatSolver solver = new SatSolver(cnf.numberOfVariables());
+        solver.addClauses(cnf);
+        final int atomics = cnf.atomics().length;
+        for (int atomic = 0; atomic < atomics; atomic++) {
+            // The atomic value with index 'k' is true if the bit 'n - 1 - k' of the row is 0
+            solver.addClause((row >>> (atomics - 1 - atomic) & 1) == 0 ? atomic + 1 : -(atomic + 1));
+        }
+        return solver.solve();
+    }
+
+    @Test
+    void clausesEndWithZero() {
+        final CnfEncoder.Cnf cnf = CnfEncoder.encode(parse("(a ⋁ b) ➔ ¬(c ⋀ a)"), CnfEncoding.TSEITIN);
+        final int[] clauses = cnf.clauses();
+        assertEquals(0, clauses[clauses.length - 1]);
+        assertEquals(cnf.numberOfClauses(), Arrays.stream(clauses).filter(literal -> literal == 0).count());
+        assertTrue(Arrays.stream(clauses).allMatch(literal -> Math.abs(literal) <= cnf.numberOfVariables()));
+        // One variable for each atomic value and each binary operator
+        assertEquals(3 + 3, cnf.numberOfVariables());
+        // Three clauses for each operator, and the output
+        assertEquals(3 * 3 + 1, cnf.numberOfClauses());
+    }
+
+    @Test
+    void atomicsAreNumberedAsTheTable() {
+        final Expression exp = parse("¬c ⋀ (b ⋁ a) ➔ c");
+        final CnfEncoder.Cnf cnf = CnfEncoder.encode(exp, CnfEncoding.PLAISTED_GREENBAUM);
+        assertArrayEquals(CompiledExpression.compile(exp.toSetArray(true)).getAtomics(), cnf.atomics());
+    }
+
+    @Test
+    void plaistedGreenbaumHasFewerClauses() {
+        final Expression exp = parse("(a ⋀ b) ⋁ (c ➔ ¬(a ⋁ d))");
+        final CnfEncoder.Cnf tseitin = CnfEncoder.encode(exp, CnfEncoding.TSEITIN);
+        final CnfEncoder.Cnf plaistedGreenbaum = CnfEncoder.encode(exp, CnfEncoding.PLAISTED_GREENBAUM);
+        assertEquals(tseitin.numberOfVariables(), plaistedGreenbaum.numberOfVariables());
+        assertTrue(plaistedGreenbaum.numberOfClauses() < tseitin.numberOfClauses());
+    }
+
+    @Test
+    void satisfiableInTheSameRowsAsTheExpression() {
+        final Random random = new Random(23);
+        for (int i = 0; i < 300; i++) {
+            final String expression = RandomExpressions.expression(random, 1 + random.nextInt(12), 5);
+            final Expression exp = parse(expression);
+            final boolean[][] rows = new TruthTable(exp.toSetArray(true)).getTruthMatrix();
+
+            for (CnfEncoding encoding : CnfEncoding.values()) {
+                final CnfEncoder.Cnf cnf = CnfEncoder.encode(exp, encoding);
+                for (int row = 0; row < rows.length; row++) {
+                    final boolean result = rows[row][rows[row].length - 1];
+                    assertEquals(result, isSatisfiable(cnf, row), expression + " " + encoding + " row " + row);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package no.martials.api.expressions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnOperationsTest {
+
+    private final ColumnOperations scalar = new ScalarColumnOperations();
+    private final ColumnOperations vector = new VectorColumnOperations();
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3, 4, 7, 8, 9, 16, 31, 64, 100})
+    void vectorMatchesScalar(int words) {
+        final Random random = new Random(words);
+        final long[] a = random.longs(words + 2).toArray();
+        final long[] b = random.longs(words + 2).toArray();
+        final long[] expected = new long[words + 2];
+        final long[] actual = new long[words + 2];
+
+        scalar.and(a, b, expected, words);
+        vector.and(a, b, actual, words);
+        assertArrayEquals(expected, actual, "and");
+
+        scalar.or(a, b, expected, words);
+        vector.or(a, b, actual, words);
+        assertArrayEquals(expected, actual, "or");
+
+        scalar.implication(a, b, expected, words);
+        vector.implication(a, b, actual, words);
+        assertArrayEquals(expected, actual, "implication");
+
+        scalar.not(a, expected, words);
+        vector.not(a, actual, words);
+        assertArrayEquals(expected, actual, "not");
+    }
+
+    @Test
+    void operationsOnlyWriteTheGivenWords() {
+        final long[] dst = new long[10];
+
+        vector.not(new long[10], dst, 9);
+        assertEquals(-1L, dst[8]);
+        assertEquals(0L, dst[9]);
+    }
+
+    @Test
+    void selectUsesVectorsWhenTheModuleIsPresent() {
+        assertTrue(ModuleLayer.boot().findModule(ColumnOperations.VECTOR_MODULE).isPresent());
+        assertInstanceOf(VectorColumnOperations.class, ColumnOperations.select());
+    }
+
+    @Test
+    void selectUsesScalarWhenVectorsAreDisabled() {
+        System.setProperty(ColumnOperations.VECTOR_PROPERTY, "false");
+        try {
+            assertInstanceOf(ScalarColumnOperations.class, ColumnOperations.select());
+        }
+        finally {
+            System.clearProperty(ColumnOperations.VECTOR_PROPERTY);
+        }
+    }
+}
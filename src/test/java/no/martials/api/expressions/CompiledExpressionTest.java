@@ -0,0 +1,79 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Operator;
+import no.martials.api.utils.ExpressionUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledExpressionTest {
+
+    @Test
+    void compileAtomic() {
+        final CompiledExpression program = CompiledExpression.compile(new ExpressionUtils("A", false).simplify());
+
+        assertEquals(1, program.getNumberOfAtomics());
+        assertEquals(1, program.getNumberOfRegisters());
+        assertArrayEquals(new String[] {"A"}, program.getAtomics());
+    }
+
+    @Test
+    void compileReusesAtomics() {
+        final CompiledExpression program = CompiledExpression.compile(new ExpressionUtils("A ⋀ ¬A ⋁ A", false).simplify());
+
+        assertEquals(1, program.getNumberOfAtomics());
+        // A, ¬A, A ⋀ ¬A, (A ⋀ ¬A) ⋁ A
+        assertEquals(4, program.getNumberOfRegisters());
+    }
+
+    @Test
+    void compileReusesColumns() {
+        final Expression exp = new ExpressionUtils("A ⋀ B ➔ C", false).simplify();
+        final Expression[] expressions = exp.toSetArray();
+        final CompiledExpression program = CompiledExpression.compile(expressions);
+
+        assertEquals(expressions.length, program.getNumberOfOutputs());
+        assertEquals(expressions.length, program.getNumberOfRegisters());
+    }
+
+    @Test
+    void atomicsThatAreNotInvertedAreNumberedFirst() {
+        final Expression exp = new ExpressionUtils("¬B ⋀ (A ⋁ C)", false).simplify();
+        final CompiledExpression program = CompiledExpression.compile(exp.toSetArray());
+
+        assertArrayEquals(new String[] {"B", "A", "C"}, program.getAtomics());
+    }
+
+    @Test
+    void evaluateGivenAtomics() {
+        final CompiledExpression program = CompiledExpression.compile(new ExpressionUtils("A ➔ ¬B", false).simplify());
+        final long[] registers = new long[program.getNumberOfRegisters()];
+
+        program.evaluate(new long[] {0b0011, 0b0101}, registers);
+        final long result = registers[program.getOutput(0)] & 0b1111;
+
+        assertEquals(0b1110, result);
+    }
+
+    @Test
+    void evaluateRange() {
+        final CompiledExpression program = CompiledExpression.compile(new ExpressionUtils("A ⋁ B ⋁ C ⋁ D ⋁ E ⋁ F ⋁ G", false).simplify());
+        final long[][] registers = program.newRegisters(1);
+
+        program.evaluate(registers, 0, 1);
+        assertEquals(-1L, registers[program.getOutput(0)][0]);
+
+        program.evaluate(registers, 1, 1);
+        assertEquals(Long.MAX_VALUE, registers[program.getOutput(0)][0]);
+    }
+
+    @Test
+    void evaluateMissingChild() {
+        final Expression exp = new Expression(new Expression(null, null, null, "a"), Operator.AND, null);
+        final CompiledExpression program = CompiledExpression.compile(exp);
+        final long[] registers = new long[program.getNumberOfRegisters()];
+
+        program.evaluate(new long[] {-1L}, registers);
+        assertEquals(0L, registers[program.getOutput(0)]);
+    }
+}
@@ -0,0 +1,78 @@
+package no.martials.api.expressions;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static no.martials.api.expressions.RandomExpressions.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EquivalenceCheckerTest {
+
+    /**
+     * Asserts that the expressions have different values in the assignment
+     */
+    private static void assertCounterexample(Expression expression, Expression other, Map<String, Boolean> counterexample) {
+        assertNotNull(counterexample);
+        final CompiledExpression program = CompiledExpression.compile(expression, other);
+        final String[] atomics = program.getAtomics();
+        assertEquals(atomics.length, counterexample.size());
+
+        final long[] atomicValues = new long[atomics.length];
+        for (int atomic = 0; atomic < atomics.length; atomic++) {
+            atomicValues[atomic] = counterexample.get(atomics[atomic]) ? 1 : 0;
+        }
+        final long[] registers = new long[program.getNumberOfRegisters()];
+        program.evaluate(atomicValues, registers);
+        assertNotEquals(registers[program.getOutput(0)] & 1, registers[program.getOutput(1)] & 1);
+    }
+
+    @Test
+    void equivalentExpressions() {
+        assertTrue(EquivalenceChecker.isEquivalent(parse("a ➔ b"), parse("¬a ⋁ b")));
+        assertTrue(EquivalenceChecker.isEquivalent(parse("¬(a ⋀ b)"), parse("¬a ⋁ ¬b")));
+        assertTrue(EquivalenceChecker.isEquivalent(parse("a ⋁ a ⋀ b"), parse("a")));
+        assertNull(EquivalenceChecker.counterexample(parse("a ⋀ (b ⋁ c)"), parse("a ⋀ b ⋁ a ⋀ c")));
+    }
+
+    @Test
+    void counterexampleOfSmallExpressions() {
+        final Expression expression = parse("a ➔ b");
+        final Expression other = parse("b ➔ a");
+        final Map<String, Boolean> counterexample = EquivalenceChecker.counterexample(expression, other);
+        assertCounterexample(expression, other, counterexample);
+
+        // An atomic value that only one expression has
+        final Expression atomic = parse("a");
+        final Expression both = parse("a ⋀ c");
+        assertCounterexample(atomic, both, EquivalenceChecker.counterexample(atomic, both));
+        assertEquals(Map.of("a", true, "c", false), EquivalenceChecker.counterexample(atomic, both));
+    }
+
+    @Test
+    void counterexampleOfLargeExpressions() {
+        final int atomics = EquivalenceChecker.MAX_TABLE_ATOMICS + 4;
+        final String conjunction = IntStream.range(0, atomics).mapToObj(i -> "p" + i).collect(Collectors.joining(" ⋀ "));
+        final String negated = IntStream.range(0, atomics).mapToObj(i -> "¬p" + i).collect(Collectors.joining(" ⋁ "));
+        assertTrue(EquivalenceChecker.isEquivalent(parse("¬(" + conjunction + ")"), parse(negated)));
+
+        final Expression expression = parse(conjunction);
+        final Expression other = parse(conjunction.replace("⋀ p7 ⋀", "⋀ ¬p7 ⋀"));
+        final Map<String, Boolean> counterexample = EquivalenceChecker.counterexample(expression, other);
+        assertCounterexample(expression, other, counterexample);
+    }
+
+    @Test
+    void sameResultAsTable() {
+        final String[] expressions = {"a ⋀ b", "b ⋀ a", "a ⋁ b", "¬(¬a ⋀ ¬b)", "a ➔ b", "¬b ➔ ¬a", "a", "a ⋀ (b ⋁ ¬b)"};
+        for (String first : expressions) {
+            for (String second : expressions) {
+                final CompiledExpression program = CompiledExpression.compile(parse(first), parse(second));
+                assertEquals(EquivalenceChecker.counterexampleTable(program) == null,
+                        EquivalenceChecker.counterexampleBdd(program) == null, first + " and " + second);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package no.martials.api.expressions;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static no.martials.api.expressions.RandomExpressions.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EspressoMinimizerTest {
+
+    private final EspressoMinimizer minimizer = new EspressoMinimizer();
+
+    private static void assertEquivalent(Expression expected, Expression actual) {
+        final Bdd.Functions functions = Bdd.of(expected, actual);
+        assertEquals(functions.functions()[0], functions.functions()[1], expected + " is not " + actual);
+    }
+
+    private Expression minimize(String expression) {
+        return minimizer.minimize(parse(expression), false);
+    }
+
+    @Test
+    void minimizeKnownExpressions() {
+        assertEquals("A", minimize("A ⋀ B ⋁ A ⋀ ¬B").toString());
+        assertEquals("A ⋁ B", minimize("A ⋀ B ⋁ A ⋀ ¬B ⋁ ¬A ⋀ B").toString());
+        assertEquals("¬A ⋁ B", minimize("A ➔ B").toString());
+        assertEquals("A ⋁ ¬A", minimize("A ➔ (B ➔ A)").toString());
+        assertEquals("A ⋀ ¬A", minimize("A ⋀ B ⋀ ¬(A ⋁ C)").toString());
+    }
+
+    @Test
+    void sameSizeAsMinimalOnSmallExpressions() {
+        final Random random = new Random(11);
+
+        for (int i = 0; i < 200; i++) {
+            final Expression exp = parse(RandomExpressions.expression(random, 2 + random.nextInt(8), 5));
+            final Expression heuristic = minimizer.minimize(exp, false);
+            final Expression minimal = QuineMcCluskey.minimize(exp, false);
+
+            assertEquivalent(exp, heuristic);
+            // A heuristic cover may need an extra cube, but never fewer than the minimal cover
+            final int cubes = heuristic.toString().split("⋁").length;
+            final int minimalCubes = minimal.toString().split("⋁").length;
+            assertTrue(cubes >= minimalCubes && cubes <= minimalCubes + 1, exp + ": " + heuristic + " and " + minimal);
+        }
+    }
+
+    @Test
+    void minimizeManyAtomics() {
+        final Random random = new Random(5);
+
+        for (int i = 0; i < 50; i++) {
+            final Expression exp = parse(RandomExpressions.expression(random, 30, 28));
+            assertEquivalent(exp, minimizer.minimize(exp, false));
+        }
+    }
+
+    @Test
+    void redundantTermsAreRemoved() {
+        final Expression exp = parse("A0 ⋀ A1 ⋁ A1 ⋀ A2 ⋁ A0 ⋀ A2 ⋁ A0 ⋀ A1 ⋀ A2 ⋁ A3 ⋀ A4 ⋀ A5 ⋁ A3 ⋀ A4 ⋁ A20 ⋀ ¬A20");
+        final Expression minimized = minimizer.minimize(exp, false);
+
+        assertEquivalent(exp, minimized);
+        assertEquals(4, minimized.toString().split("⋁").length);
+    }
+
+    @Test
+    void smallBudgetIsStillEquivalent() {
+        final EspressoMinimizer minimizer = new EspressoMinimizer(0, 1);
+        final Expression exp = parse("(A ⋁ B) ⋀ (C ⋁ D) ⋀ (E ⋁ F) ➔ (G ⋀ H ⋁ I ⋀ J) ⋀ (K ➔ L)");
+
+        assertEquivalent(exp, minimizer.minimize(exp, false));
+    }
+
+    @Test
+    void tooManyPathsReturnsTheExpression() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 15; i++) {
+            builder.append(i > 0 ? " ⋀ " : "").append("(A").append(i * 2).append(" ⋁ A").append(i * 2 + 1).append(")");
+        }
+        final Expression exp = parse(builder.toString());
+
+        assertSame(exp, minimizer.minimize(exp, false));
+    }
+
+    @Test
+    void invalidBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new EspressoMinimizer(-1, 100));
+        assertThrows(IllegalArgumentException.class, () -> new EspressoMinimizer(1, 0));
+    }
+}
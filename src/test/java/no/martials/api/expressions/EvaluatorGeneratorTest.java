@@ -0,0 +1,69 @@
+package no.martials.api.expressions;
+
+import no.martials.api.utils.ExpressionUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluatorGeneratorTest {
+
+    private static CompiledExpression compile(String expression) {
+        return CompiledExpression.compile(new ExpressionUtils(expression, false).simplify());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"A", "¬A", "A ⋀ B", "A ⋁ B", "A ➔ B", "¬(A ⋀ ¬B) ➔ C ⋁ A", "A ⋀ ¬A ⋁ B ➔ ¬(C ⋁ D) ⋀ E"})
+    void generatedMatchesInterpreted(String expression) {
+        final CompiledExpression program = compile(expression);
+        final BitEvaluator evaluator = EvaluatorGenerator.generate(program, 0);
+        final long[] registers = new long[program.getNumberOfRegisters()];
+        final Random random = new Random(expression.hashCode());
+
+        for (int i = 0; i < 10; i++) {
+            final long[] atomicValues = random.longs(program.getNumberOfAtomics()).toArray();
+            program.evaluate(atomicValues, registers);
+
+            assertEquals(registers[program.getOutput(0)], evaluator.eval(atomicValues));
+        }
+    }
+
+    @Test
+    void generatedClassIsHidden() {
+        assertTrue(EvaluatorGenerator.generate(compile("A ⋀ B"), 0).getClass().isHidden());
+    }
+
+    @Test
+    void cacheGeneratesWhenExpressionIsHot() {
+        final EvaluatorCache cache = new EvaluatorCache(2);
+        final CompiledExpression program = compile("A ⋀ B ➔ C");
+
+        assertNull(cache.get(program, 0));
+        final BitEvaluator evaluator = cache.get(program, 0);
+        assertNotNull(evaluator);
+        assertSame(evaluator, cache.get(program, 0));
+    }
+
+    @Test
+    void cacheSharesExpressionsWithTheSameStructure() {
+        final EvaluatorCache cache = new EvaluatorCache(1);
+
+        assertSame(cache.get(compile("A ⋀ B"), 0), cache.get(compile("C ⋀ D"), 0));
+        assertNotSame(cache.get(compile("A ⋀ B"), 0), cache.get(compile("A ⋁ B"), 0));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void cacheWithZeroThresholdNeverGenerates() {
+        final EvaluatorCache cache = new EvaluatorCache(0);
+        final CompiledExpression program = compile("A ⋀ B");
+
+        for (int i = 0; i < 5; i++) {
+            assertNull(cache.get(program, 0));
+        }
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,77 @@
+package no.martials.api.expressions;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import no.martials.api.enums.Operator;
+import no.martials.api.utils.ExpressionUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressionNodeTest {
+
+    private static ExpressionNode node(String expression) {
+        return ExpressionNode.of(new ExpressionUtils(expression, false).simplify());
+    }
+
+    @Test
+    void sameStructureIsSameNode() {
+        assertSame(node("A ⋀ ¬(B ⋁ C)"), node("A ⋀ ¬(B ⋁ C)"));
+        assertSame(ExpressionNode.atomic("A"), node("¬¬A"));
+        assertNotSame(node("A ⋀ B"), node("A ⋁ B"));
+    }
+
+    @Test
+    void andAndOrAreCommutative() {
+        assertSame(node("A ⋀ B"), node("B ⋀ A"));
+        assertSame(node("(A ⋁ B) ⋀ C"), node("C ⋀ (B ⋁ A)"));
+        assertNotSame(node("A ➔ B"), node("B ➔ A"));
+    }
+
+    @Test
+    void negation() {
+        final ExpressionNode node = node("A ➔ B");
+        assertSame(node, node.not().not());
+        assertSame(node("¬(A ➔ B)"), node.not());
+        assertTrue(node.not().isInverse());
+        assertNotEquals(node.hashCode(), node.not().hashCode());
+    }
+
+    @Test
+    void hashIsSameAsExpression() {
+        for (String expression : List.of("A", "¬A", "A ⋀ B ⋁ ¬C", "¬(A ➔ B) ⋀ (B ➔ A)")) {
+            final Expression exp = new ExpressionUtils(expression, false).simplify();
+            assertEquals(exp.hashCode(), ExpressionNode.of(exp).hashCode(), expression);
+        }
+    }
+
+    @Test
+    void sharedBetweenThreads() {
+        final Set<ExpressionNode> nodes = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 1000).parallel().forEach(i ->
+                nodes.add(ExpressionNode.of(Operator.OR, ExpressionNode.atomic("P" + i % 10),
+                        ExpressionNode.of(Operator.AND, ExpressionNode.atomic("Q"), ExpressionNode.atomic("R")))));
+        assertEquals(10, nodes.size());
+    }
+
+    @Test
+    void nodeHasSameJsonAsExpression() throws JsonProcessingException {
+        final ObjectMapper mapper = new ObjectMapper();
+        for (String expression : List.of("B ⋀ ¬(A ⋁ C)", "C ⋁ ¬(A ⋀ B)")) {
+            final Expression exp = new ExpressionUtils(expression, false).simplify();
+            assertEquals(mapper.writeValueAsString(exp), mapper.writeValueAsString(ExpressionNode.of(exp)));
+            assertEquals(expression, ExpressionNode.of(exp).toString());
+        }
+    }
+
+    @Test
+    void notOperatorIsNotAllowed() {
+        final ExpressionNode a = ExpressionNode.atomic("A");
+        assertThrows(IllegalArgumentException.class, () -> ExpressionNode.of(Operator.NOT, a, a));
+    }
+}
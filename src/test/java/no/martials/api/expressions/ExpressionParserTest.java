@@ -0,0 +1,121 @@
+package no.martials.api.expressions;
+
+import no.martials.api.exceptions.ExpressionInvalidException;
+import no.martials.api.exceptions.MissingCharacterException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static no.martials.api.expressions.RandomExpressions.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressionParserTest {
+
+    private static final String[] OPERATORS = {"⋀", "⋁", "➔"};
+
+    @Test
+    void tokenize() {
+        assertArrayEquals(new int[]{
+                ExpressionLexer.NOT, 0, 1,
+                ExpressionLexer.ATOMIC, 1, 3,
+                ExpressionLexer.AND, 4, 5,
+                ExpressionLexer.OPEN, 6, 7,
+                ExpressionLexer.ATOMIC, 7, 8,
+                ExpressionLexer.CLOSE, 8, 9
+        }, ExpressionLexer.tokenize("¬A1 ⋀ (b)"));
+        assertEquals(0, ExpressionLexer.tokenize("  ").length);
+    }
+
+    @Test
+    void operatorsBindInOrder() {
+        assertEquals("{a⋁{b⋀c}}", structure(parse("a ⋁ b ⋀ c")));
+        assertEquals("{{a⋀b}➔c}", structure(parse("a ⋀ b ➔ c")));
+        assertEquals("{{{a⋀b}⋁c}⋁d}", structure(parse("a ⋀ b ⋁ c ⋁ d")));
+        assertEquals("{a⋀¬({b⋁c})}", structure(parse("a ⋀ ¬(b ⋁ c)")));
+    }
+
+    @Test
+    void sameOperatorsAreSplitInTheMiddle() {
+        assertEquals("{{a⋁b}⋁{c⋁d}}", structure(parse("a ⋁ b ⋁ c ⋁ d")));
+        assertEquals("{{a➔b}➔c}", structure(parse("a ➔ b ➔ c")));
+        assertEquals("{{{a⋁b}⋁c}⋁{d⋀e}}", structure(parse("a ⋁ b ⋁ c ⋁ d ⋀ e")));
+    }
+
+    @Test
+    void parenthesesAroundAtomicAreRemoved() {
+        final Expression exp = parse("¬(¬a) ⋀ (b)");
+        assertEquals("¬¬a", structure(exp.getLeft()));
+        assertEquals("b", structure(exp.getRight()));
+    }
+
+    @Test
+    void invalidExpressions() {
+        assertThrows(MissingCharacterException.class, () -> parse("a ⋀"));
+        assertThrows(MissingCharacterException.class, () -> parse("(a ⋀ b"));
+        assertThrows(ExpressionInvalidException.class, () -> parse("a ⋀ b)"));
+        assertThrows(ExpressionInvalidException.class, () -> parse("a ⋀ ⋁ b"));
+    }
+
+    /**
+     * The substring parser reads a parenthesis around an atomic value, or two parentheses in a row, wrong,
+     * so they are not generated
+     */
+    @Test
+    void sameTreeAsSubstringParser() {
+        final Random random = new Random(19);
+        for (int i = 0; i < 2000; i++) {
+            final String expression = chain(random, 3);
+            assertEquals(structure(SubstringParser.parse(expression, false)),
+                    structure(parse(expression)), expression);
+        }
+    }
+
+    /**
+     * A string that is equal for expressions with the same tree, unlike the string of an expression,
+     * where 'A ⋀ (B ⋀ C)' without parentheses is the same as '(A ⋀ B) ⋀ C'
+     */
+    private static String structure(Expression exp) {
+        final StringBuilder s = new StringBuilder();
+        structure(exp, s);
+        return s.toString();
+    }
+
+    private static void structure(Expression exp, StringBuilder s) {
+        if (exp == null) {
+            s.append('_');
+        }
+        else if (exp.isAtomic()) {
+            s.append(exp.getLeading()).append(exp.getAtomic()).append(exp.getTrailing()).append(exp.isCaseSensitive() ? "!" : "");
+        }
+        else {
+            s.append(exp.getLeading()).append('{');
+            structure(exp.getLeft(), s);
+            s.append(exp.getOperator() != null ? exp.getOperator().getOutputOperator() : '_');
+            structure(exp.getRight(), s);
+            s.append('}').append(exp.getTrailing());
+        }
+    }
+
+    private static String chain(Random random, int depth) {
+        final StringBuilder builder = new StringBuilder();
+        final int operands = 2 + random.nextInt(5);
+        // Chains with only one kind of operator are split in the middle
+        final boolean same = random.nextBoolean();
+        final String operator = OPERATORS[random.nextInt(OPERATORS.length)];
+        for (int operand = 0; operand < operands; operand++) {
+            if (operand > 0) {
+                builder.append(random.nextBoolean() ? " " : "")
+                        .append(same ? operator : OPERATORS[random.nextInt(OPERATORS.length)])
+                        .append(random.nextBoolean() ? " " : "");
+            }
+            builder.append("¬".repeat(random.nextInt(4) / 2));
+            if (depth > 0 && random.nextInt(3) == 0) {
+                builder.append('(').append(chain(random, depth - 1)).append(')');
+            }
+            else {
+                builder.append((char) ('a' + random.nextInt(5)));
+            }
+        }
+        return builder.toString();
+    }
+}
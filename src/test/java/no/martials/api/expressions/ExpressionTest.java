@@ -1,13 +1,16 @@
 package no.martials.api.expressions;
 
 import no.martials.api.enums.Language;
+import no.martials.api.enums.Operator;
 import no.martials.api.utils.ExpressionUtils;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -69,6 +72,11 @@ public class ExpressionTest {
         assertNotEquals(aAndAOrA, aAndBAndCOrDAndEAndF);
     }
 
+    @Test
+    void implicationWithSwappedChildrenNotEquals() {
+        assertNotEquals(new ExpressionUtils("A➔B", false).simplify(), new ExpressionUtils("B➔A", false).simplify());
+    }
+
     @Test
     void equalsOtherObjectOfDifferentClass() {
         assertNotEquals(alwaysTrue1, new Object());
@@ -145,6 +153,19 @@ public class ExpressionTest {
         assertEquals("B ⋁ A ⋀ C", aOrBandBorC.toString());
         aAndBorBandC.distributiveProperty();
         assertEquals("B ⋀ (A ⋁ C)", aAndBorBandC.toString());
+        assertEquals("(A ⋁ C)", aAndBorBandC.getRight().toString());
+    }
+
+    @Test
+    void toSetArrayDoesNotMoveTheChildren() {
+        final Expression exp = new ExpressionUtils("¬(A⋀B)⋁C", false).simplify();
+        final String expected = exp.toString();
+        final Expression withoutNegation = Arrays.stream(exp.toSetArray())
+                .filter(e -> e.toString().equals("A ⋀ B"))
+                .findFirst().orElseThrow();
+        withoutNegation.getLeft().setAtomic("D");
+        assertEquals(expected, exp.toString());
+        assertEquals("D ⋀ B", withoutNegation.toString());
     }
 
     @Test
@@ -210,6 +231,62 @@ public class ExpressionTest {
         assertEquals("¬C ⋁ A", notAAndNotCOrA.toString());
     }
 
+    /**
+     * The laws used to change the truth values of these expressions, the old result is the second value
+     */
+    @Test
+    void absorptionLawKeepsTheTruthValues() {
+        assertLaw(Expression::absorptionLaw, "A➔A", "A ➔ A", "A");
+        assertLaw(Expression::absorptionLaw, "¬(¬A⋁¬A)", "A", "¬A");
+        assertLaw(Expression::absorptionLaw, "¬B⋁A⋀B", "¬B ⋁ A", "¬B ⋁ B");
+        assertLaw(Expression::absorptionLaw, "A⋀¬C⋁C", "A ⋁ C", "¬C ⋁ C");
+    }
+
+    @Test
+    void deMorgansLawsKeepTheTruthValues() {
+        assertLaw(Expression::deMorgansLaws, "¬(A➔¬B)", "¬(A ➔ ¬B)", "¬A ⋀ B");
+        assertLaw(Expression::deMorgansLaws, "¬(¬B➔A)", "¬(¬B ➔ A)", "B ⋀ ¬A");
+    }
+
+    @Test
+    void distributivePropertyKeepsTheTruthValues() {
+        assertLaw(Expression::distributiveProperty, "A⋁B➔A⋀C", "A ⋁ B ➔ A ⋀ C", "A ⋀ (B ➔ C)");
+        assertLaw(Expression::distributiveProperty, "B⋀¬C⋁A⋀C", "B ⋀ ¬C ⋁ A ⋀ C", "¬C ⋀ (B ⋁ A)");
+        assertLaw(Expression::distributiveProperty, "A⋀¬B⋁¬A⋀C", "A ⋀ ¬B ⋁ ¬A ⋀ C", "A ⋀ (¬B ⋁ C)");
+    }
+
+    /**
+     * The results of these expressions used to be equivalent, but not the same
+     */
+    @Test
+    void lawsWithANewResult() {
+        // The common negated value was not found, the old result was the same expression
+        assertLaw(Expression::distributiveProperty, "¬B⋀C⋁¬B⋀¬C", "¬B ⋀ (C ⋁ ¬C)", null);
+        // The old results kept the double negation, "¬¬A ⋁ B" and "¬¬(A ⋀ B) ⋁ C"
+        assertLaw(Expression::eliminationOfImplication, "¬A➔B", "A ⋁ B", null);
+        assertLaw(Expression::eliminationOfImplication, "¬(A⋀B)➔C", "(A ⋀ B) ⋁ C", null);
+    }
+
+    /**
+     * @param old The old result of the law, which has different truth values than the expression, or null
+     */
+    private static void assertLaw(Consumer<Expression> law, String expression, String expected, String old) {
+        final Expression exp = new ExpressionUtils(expression, false).simplify();
+        final Expression changed = exp.copy();
+        law.accept(changed);
+        RewriteEngine.addParentheses(changed);
+        assertEquals(expected, changed.toString());
+        assertTrue(isEquivalent(exp, changed), expression + " is not " + changed);
+        if (old != null) {
+            assertFalse(isEquivalent(exp, new ExpressionUtils(old, false).simplify()), expression + " is " + old);
+        }
+    }
+
+    private static boolean isEquivalent(Expression expression, Expression other) {
+        final Bdd.Functions functions = Bdd.of(expression, other);
+        return functions.functions()[0] == functions.functions()[1];
+    }
+
     @Test
     void evenNegation() {
         doubleInverse.doubleNegation();
@@ -287,6 +364,61 @@ public class ExpressionTest {
         assertTrue(fiveInverse.isAtomic());
     }
 
+    @Test
+    void toStringIsUpdatedAfterChanges() {
+        final Expression exp = new ExpressionUtils("A⋀(B⋁C)", false).simplify();
+        final String string = exp.toString();
+        assertSame(string, exp.toString());
+
+        exp.getRight().getLeft().setLeading("¬");
+        assertEquals("A ⋀ (¬B ⋁ C)", exp.toString());
+        exp.setOperator(Operator.IMPLICATION);
+        assertEquals("A ➔ (¬B ⋁ C)", exp.toString());
+        exp.getRight().setRight(atomicA);
+        assertEquals("A ➔ (¬B ⋁ A)", exp.toString());
+    }
+
+    @Test
+    void versionIsChangedWithTheExpressionsInIt() {
+        final Expression exp = new ExpressionUtils("A⋀(B⋁C)", false).simplify();
+        final int version = exp.getVersion();
+        exp.absorptionLaw();
+        exp.getRight().deMorgansLaws();
+        assertEquals(version, exp.getVersion());
+
+        exp.getRight().getLeft().setLeading("¬");
+        assertNotEquals(version, exp.getVersion());
+    }
+
+    @Test
+    void testHashCode() {
+        assertEquals(aOrB.hashCode(), wrongOrder.hashCode());
+        assertEquals(atomicA.hashCode(), quadInverse.hashCode());
+        assertNotEquals(atomicA.hashCode(), tripleInverse.hashCode());
+        assertNotEquals(new ExpressionUtils("A➔B", false).simplify().hashCode(),
+                new ExpressionUtils("B➔A", false).simplify().hashCode());
+    }
+
+    @Test
+    void hashCodeIsUpdatedAfterChanges() {
+        final Expression exp = new ExpressionUtils("A⋀(B⋁C)", false).simplify();
+        assertEquals(new ExpressionUtils("A⋀(B⋁C)", false).simplify().hashCode(), exp.hashCode());
+
+        exp.getRight().getLeft().setLeading("¬");
+        assertEquals(new ExpressionUtils("A⋀(¬B⋁C)", false).simplify().hashCode(), exp.hashCode());
+        exp.getRight().setRight(atomicA);
+        assertEquals(new ExpressionUtils("A⋀(¬B⋁A)", false).simplify().hashCode(), exp.hashCode());
+        exp.getRight().swapChildren();
+        assertEquals(new ExpressionUtils("A⋀(¬B⋁A)", false).simplify(), exp);
+    }
+
+    @Test
+    void toSetArrayWithoutDuplicates() {
+        final Expression[] expressions = new ExpressionUtils("¬(A⋀B)⋁(A⋀B)⋁¬A", false).simplify().toSetArray();
+        assertEquals(List.of("A", "B", "A ⋀ B", "¬(A ⋀ B)", "¬(A ⋀ B) ⋁ A ⋀ B", "¬A", "¬(A ⋀ B) ⋁ A ⋀ B ⋁ ¬A"),
+                Arrays.stream(expressions).map(Expression::toString).toList());
+    }
+
     @Test
     void toSetArrayNotHideIntermediate() {
         Expression[] allAndsResult = aAndBAndCAndD.toSetArray(false);
@@ -0,0 +1,111 @@
+package no.martials.api.expressions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static no.martials.api.expressions.RandomExpressions.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelCounterTest {
+
+    private static long countRows(Expression exp) {
+        final TruthColumns columns = new TruthColumns(new Expression[] {exp});
+        long count = 0;
+        for (int row = 0; row < columns.getRows(); row++) {
+            if (columns.get(0, row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    void countAtomic() {
+        assertEquals(1, ModelCounter.count(parse("A")));
+    }
+
+    @Test
+    void countSmallExpressions() {
+        assertEquals(1, ModelCounter.count(parse("A ⋀ B")));
+        assertEquals(3, ModelCounter.count(parse("A ⋁ B")));
+        assertEquals(3, ModelCounter.count(parse("A ➔ B")));
+        assertEquals(2, ModelCounter.count(parse("A ⋁ ¬A")));
+        assertEquals(0, ModelCounter.count(parse("A ⋀ ¬A")));
+        assertEquals(5, ModelCounter.count(parse("A ⋀ B ⋁ C")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"A ⋀ B ⋁ C", "A ➔ B ➔ C", "¬(¬A ⋀ B) ➔ C", "(A ⋁ B) ⋀ (B ⋁ C) ⋀ (C ⋁ D)", "A ⋀ ¬A ⋁ B",
+            "(A ➔ B) ⋀ (B ➔ C) ⋀ ¬(A ➔ C)", "(A ⋁ B ⋁ C) ⋀ ¬(D ⋀ E)"})
+    void decomposedCountMatchesTable(String expression) {
+        final Expression exp = parse(expression);
+        final CompiledExpression program = ModelCounter.compile(exp);
+
+        assertEquals(countRows(exp), ModelCounter.countInterpreted(program));
+        assertEquals(countRows(exp), ModelCounter.countTable(EvaluatorGenerator.generate(program, 0), program.getNumberOfAtomics()));
+        assertEquals(countRows(exp), ModelCounter.countDecomposed(program));
+    }
+
+    @Test
+    void decomposedCountMatchesTableForRandomExpressions() {
+        final Random random = new Random(7);
+
+        for (int i = 0; i < 200; i++) {
+            final String expression = RandomExpressions.expression(random, 2 + random.nextInt(10), 6);
+            final CompiledExpression program = ModelCounter.compile(parse(expression));
+            assertEquals(ModelCounter.countTable(program, null), ModelCounter.countDecomposed(program), expression);
+        }
+    }
+
+    @Test
+    void decomposedCountStopsAtTheBudget() {
+        // Every part shares an atomic value with the next, so the expression is split on shared atomic values
+        final CompiledExpression program = ModelCounter.compile(parse("(A ⋁ B) ⋀ (B ⋁ C) ⋀ (C ⋁ D) ⋀ (D ⋁ A)"));
+        assertEquals(7, ModelCounter.countDecomposed(program));
+
+        assertThrows(IllegalStateException.class, () -> ModelCounter.countDecomposed(program, 8, ModelCounter.MAX_STEPS));
+        assertThrows(IllegalStateException.class, () -> ModelCounter.countDecomposed(program, ModelCounter.MAX_NODES, 2));
+    }
+
+    @Test
+    void countLargeExpressionWithoutTable() {
+        // 40 unique atomic values, in 20 independent parts with 3 satisfying assignments each
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            if (i > 0) {
+                builder.append(" ⋀ ");
+            }
+            builder.append("(A").append(i).append(" ⋁ B").append(i).append(")");
+        }
+        final Expression exp = parse(builder.toString());
+
+        assertEquals(40, ModelCounter.numberOfAtomics(exp));
+        assertEquals((long) Math.pow(3, 20), ModelCounter.count(exp));
+        assertEquals(new ModelCounter.Count(40, (long) Math.pow(3, 20)), ModelCounter.countModels(exp, null));
+    }
+
+    @Test
+    void countTooManyAtomics() {
+        final StringBuilder builder = new StringBuilder("A0");
+        for (int i = 1; i <= ModelCounter.MAX_ATOMICS; i++) {
+            builder.append(" ⋁ A").append(i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> ModelCounter.countModels(parse(builder.toString()), null));
+    }
+
+    @Test
+    void countLargeChain() {
+        // A0 ➔ A1, A1 ➔ A2, ... has one more satisfying assignment than the number of atomic values
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            if (i > 0) {
+                builder.append(" ⋀ ");
+            }
+            builder.append("(A").append(i).append(" ➔ A").append(i + 1).append(")");
+        }
+        assertEquals(32, ModelCounter.count(parse(builder.toString())));
+    }
+}
@@ -0,0 +1,51 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Hide;
+import no.martials.api.enums.Sort;
+import no.martials.api.utils.ExpressionUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedTruthTableTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"A", "¬A", "A ⋀ B", "A ⋁ B ➔ ¬C", "A ⋀ B ⋁ C ➔ D ⋀ ¬E ⋁ F ➔ G"})
+    void packedMatchesTruthTable(String expression) {
+        final Expression[] expressions = new ExpressionUtils(expression, false).simplify().toSetArray();
+
+        for (Hide hide : Hide.values()) {
+            for (Sort sort : Sort.values()) {
+                final TruthTable expected = new TruthTable(expressions, hide, sort);
+                final PackedTruthTable packed = PackedTruthTable.of(expressions, hide, sort);
+
+                assertEquals(expected.getTruthMatrix().length, packed.getRows());
+                assertArrayEquals(expected.getTruthMatrix(), packed.getTruthMatrix(), "hide: " + hide + ", sort: " + sort);
+            }
+        }
+    }
+
+    @Test
+    void columnsFollowTheDecodingSpec() {
+        final Expression[] expressions = new ExpressionUtils("A ⋀ B", false).simplify().toSetArray();
+        final PackedTruthTable packed = PackedTruthTable.of(expressions, Hide.TRUE, Sort.DEFAULT);
+
+        assertEquals(3, packed.getRows());
+        assertArrayEquals(new String[] {"AQ==", "Ag==", "AA=="}, packed.getColumns());
+    }
+
+    @Test
+    void encodeUsesOneBitPerRow() {
+        final long[] words = {0x0123456789ABCDEFL, -1L};
+        final byte[] bytes = Base64.getDecoder().decode(PackedTruthTable.encode(words, 68));
+
+        assertEquals(9, bytes.length);
+        assertEquals((byte) 0xEF, bytes[0]);
+        assertEquals((byte) 0x01, bytes[7]);
+        assertEquals((byte) 0x0F, bytes[8]);
+    }
+}
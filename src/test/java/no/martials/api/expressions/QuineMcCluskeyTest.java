@@ -0,0 +1,119 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Language;
+import no.martials.api.utils.ExpressionUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static no.martials.api.expressions.RandomExpressions.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuineMcCluskeyTest {
+
+    private static void assertEquivalent(Expression expected, Expression actual) {
+        final Bdd.Functions functions = Bdd.of(expected, actual);
+        assertEquals(functions.functions()[0], functions.functions()[1], expected + " is not " + actual);
+    }
+
+    private static long[] ones(long[] implicants, int atomics) {
+        final long[] table = new long[1];
+        for (int row = 0; row < 1 << atomics; row++) {
+            for (int i = 0; i < implicants.length; i += 2) {
+                if ((row & implicants[i]) == implicants[i + 1]) {
+                    table[0] |= 1L << row;
+                }
+            }
+        }
+        return table;
+    }
+
+    @Test
+    void minimizeKnownExpressions() {
+        assertEquals("A", QuineMcCluskey.minimize(parse("A ⋀ B ⋁ A ⋀ ¬B"), false).toString());
+        assertEquals("A ⋁ B", QuineMcCluskey.minimize(parse("A ⋀ B ⋁ A ⋀ ¬B ⋁ ¬A ⋀ B"), false).toString());
+        assertEquals("¬A ⋁ B", QuineMcCluskey.minimize(parse("A ➔ B"), false).toString());
+        assertEquals("(A ⋀ B) ⋁ (¬A ⋀ ¬B)", QuineMcCluskey.minimize(parse("(A ➔ B) ⋀ (B ➔ A)"), false).toString());
+        assertEquals("A ⋀ ¬B", QuineMcCluskey.minimize(parse("¬(A ➔ B)"), false).toString());
+    }
+
+    @Test
+    void minimizeConstants() {
+        assertEquals("A ⋁ ¬A", QuineMcCluskey.minimize(parse("A ➔ (B ➔ A)"), false).toString());
+        assertEquals("A ⋀ ¬A", QuineMcCluskey.minimize(parse("A ⋀ B ⋀ ¬(A ⋁ C)"), false).toString());
+    }
+
+    @Test
+    void minimizeCaseSensitive() {
+        final Expression exp = new ExpressionUtils("a ⋀ b ⋁ a ⋁ A", false, Language.ENGLISH, true).simplify();
+        assertEquals("a ⋁ A", QuineMcCluskey.minimize(exp, true).toString());
+        assertEquals("A", QuineMcCluskey.minimize(parse("a ⋀ b ⋁ a"), false).toString());
+    }
+
+    @Test
+    void cyclicCoverNeedsThreeImplicants() {
+        // The minterms 0, 1, 2, 5, 6, 7 have six primes, and no prime is essential
+        final long[] table = {0b11100111};
+        assertEquals(6, QuineMcCluskey.primeImplicants(table, 3).length / 2);
+
+        final long[] cover = QuineMcCluskey.minimumCover(table, 3);
+        assertEquals(3, cover.length / 2);
+        assertArrayEquals(table, ones(cover, 3));
+    }
+
+    @Test
+    void minimumCoverOfEveryFunctionOfThreeAtomics() {
+        for (int function = 0; function < 1 << 8; function++) {
+            final long[] table = {function};
+            final long[] primes = QuineMcCluskey.primeImplicants(table, 3);
+            final long[] cover = QuineMcCluskey.minimumCover(table, 3);
+            assertArrayEquals(table, ones(cover, 3));
+
+            // The smallest number of primes that cover the function
+            int minimum = Integer.MAX_VALUE;
+            for (int subset = 0; subset < 1 << primes.length / 2; subset++) {
+                final long[] chosen = new long[Integer.bitCount(subset) * 2];
+                for (int i = 0, j = 0; i < primes.length / 2; i++) {
+                    if ((subset & 1 << i) != 0) {
+                        chosen[j++] = primes[i * 2];
+                        chosen[j++] = primes[i * 2 + 1];
+                    }
+                }
+                if (ones(chosen, 3)[0] == function) {
+                    minimum = Math.min(minimum, Integer.bitCount(subset));
+                }
+            }
+            assertEquals(minimum, cover.length / 2, "function " + function);
+        }
+    }
+
+    @Test
+    void minimizedIsEquivalent() {
+        final Random random = new Random(7);
+
+        for (int i = 0; i < 200; i++) {
+            final Expression exp = parse(RandomExpressions.expression(random, 2 + random.nextInt(12), 9));
+            assertEquivalent(exp, QuineMcCluskey.minimize(exp, false));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "A ⋀ B ⋁ C ⋀ D ⋁ E ⋀ F ⋁ G ⋀ H ⋁ I ⋀ J ⋁ K ⋀ L ⋁ M ⋀ N ⋁ O",
+            "(A ⋁ B) ⋀ (C ⋁ D) ⋀ (E ⋁ F) ⋀ (G ⋁ H) ⋀ (I ⋁ J)",
+            "A ➔ B ➔ C ➔ D ➔ E ➔ F ➔ G ➔ H ➔ I ➔ J ➔ K ➔ L ➔ M ➔ N ➔ O"
+    })
+    void minimizeManyAtomics(String expression) {
+        final Expression exp = parse(expression);
+        assertEquivalent(exp, QuineMcCluskey.minimize(exp, false));
+    }
+
+    @Test
+    void minimizeProductOfSums() {
+        // Multiplying out five sums gives 32 products
+        final Expression minimal = QuineMcCluskey.minimize(parse("(A ⋁ B) ⋀ (C ⋁ D) ⋀ (E ⋁ F) ⋀ (G ⋁ H) ⋀ (I ⋁ J)"), false);
+        assertEquals(32, minimal.toString().split("⋁").length);
+    }
+}
@@ -0,0 +1,56 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Language;
+
+import java.util.Random;
+
+/**
+ * Generates random expressions for the tests, with nested groups that may be negated
+ */
+final class RandomExpressions {
+
+    private static final String[] OPERATORS = {" ⋀ ", " ⋁ ", " ➔ "};
+
+    private RandomExpressions() {
+    }
+
+    static Expression parse(String expression) {
+        return ExpressionParser.parse(expression, false, Language.ENGLISH);
+    }
+
+    /**
+     * @param atomics   The number of atomic values in the expression, drawn once by the caller
+     * @param variables The number of different atomic values to choose from, named A, B, ... or A0, A1, ... if there
+     *                  are more than the letters
+     * @return An expression where a third of the groups with more than one atomic value are in parentheses,
+     * and half of those are negated
+     */
+    static String expression(Random random, int atomics, int variables) {
+        if (atomics < 1) {
+            throw new IllegalArgumentException("Number of atomics must be greater than 0");
+        }
+        final StringBuilder builder = new StringBuilder();
+        append(builder, random, atomics, variables, false);
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, Random random, int atomics, int variables, boolean nested) {
+        if (atomics == 1) {
+            final int variable = random.nextInt(variables);
+            builder.append(random.nextBoolean() ? "¬" : "");
+            builder.append(variables <= 26 ? String.valueOf((char) ('A' + variable)) : "A" + variable);
+            return;
+        }
+        final boolean group = nested && random.nextInt(3) == 0;
+        if (group) {
+            builder.append(random.nextBoolean() ? "¬(" : "(");
+        }
+        final int left = 1 + random.nextInt(atomics - 1);
+        append(builder, random, left, variables, true);
+        builder.append(OPERATORS[random.nextInt(OPERATORS.length)]);
+        append(builder, random, atomics - left, variables, true);
+        if (group) {
+            builder.append(')');
+        }
+    }
+}
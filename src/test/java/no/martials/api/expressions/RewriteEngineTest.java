@@ -0,0 +1,222 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Language;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static no.martials.api.expressions.RandomExpressions.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RewriteEngineTest {
+
+    private static void assertEquivalent(Expression expected, Expression actual) {
+        final Bdd.Functions functions = Bdd.of(expected, actual);
+        assertEquals(functions.functions()[0], functions.functions()[1], expected + " is not " + actual);
+    }
+
+    @Test
+    void rewriteUntilNothingChanges() {
+        final List<OrderOperations> operations = new ArrayList<>();
+        final Expression exp = parse("¬(B ⋀ B) ➔ ¬(B ⋁ B)");
+        new RewriteEngine(Language.ENGLISH, operations).rewrite(exp);
+        assertEquals("B ⋁ ¬B", exp.toString());
+
+        // A single use of the laws stops after the implication is eliminated
+        final List<OrderOperations> laws = new ArrayList<>();
+        final Expression once = parse("¬(B ⋀ B) ➔ ¬(B ⋁ B)");
+        once.laws(laws, Language.ENGLISH);
+        assertTrue(operations.size() > laws.size());
+        assertEquals(once.toString(), operations.get(laws.size() - 1).after());
+    }
+
+    @Test
+    void rewriteOnlyTriesRulesForTheOperator() {
+        final RewriteEngine engine = new RewriteEngine(Language.ENGLISH, new ArrayList<>());
+        engine.rewrite(parse("A ⋀ B"));
+        // Only the absorption law can change a conjunction of two atomic values
+        assertEquals(1, engine.getAttempts());
+        assertEquals(0, engine.getSteps());
+    }
+
+    @Test
+    void rewriteRemembersIdenticalExpressions() {
+        final List<OrderOperations> operations = new ArrayList<>();
+        final RewriteEngine engine = new RewriteEngine(Language.ENGLISH, operations);
+        final Expression first = parse("¬(A ➔ B)");
+        engine.rewrite(first);
+        final int attempts = engine.getAttempts();
+        final int steps = operations.size();
+
+        final Expression second = parse("¬(A ➔ B)");
+        engine.rewrite(second);
+        assertEquals("A ⋀ ¬B", second.toString());
+        assertEquals(attempts, engine.getAttempts());
+        assertEquals(operations.subList(0, steps), operations.subList(steps, operations.size()));
+    }
+
+    @Test
+    void rewriteDoesNotRememberSwappedExpressions() {
+        final List<OrderOperations> operations = new ArrayList<>();
+        final RewriteEngine engine = new RewriteEngine(Language.ENGLISH, operations);
+        engine.rewrite(parse("A ⋀ B"));
+        final int attempts = engine.getAttempts();
+
+        // The same node, but written in another order
+        final Expression swapped = parse("B ⋀ A");
+        engine.rewrite(swapped);
+        assertEquals("B ⋀ A", swapped.toString());
+        assertTrue(engine.getAttempts() > attempts);
+    }
+
+    @Test
+    void rewriteWithoutStepsDoesNotChange() {
+        final List<OrderOperations> operations = new ArrayList<>();
+        final Expression exp = parse("¬(A ➔ B)");
+        new RewriteEngine(Language.ENGLISH, operations, 0).rewrite(exp);
+        assertEquals("¬(A ➔ B)", exp.toString());
+        assertTrue(operations.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new RewriteEngine(Language.ENGLISH, operations, -1));
+    }
+
+    @Test
+    void deMorgansLawsOnNegatedExpression() {
+        final List<OrderOperations> operations = new ArrayList<>();
+        final Expression exp = parse("¬(¬A ⋁ ¬B)");
+        new RewriteEngine(Language.NORWEGIAN_BOKMAAL, operations).rewrite(exp);
+        assertEquals("A ⋀ B", exp.toString());
+        assertEquals("De Morgans lover", operations.get(0).law());
+    }
+
+    @Test
+    void addParenthesesToWeakerOperators() {
+        final Expression exp = parse("A ⋀ B");
+        exp.setLeft(parse("C ⋁ D"));
+        exp.setRight(parse("E ➔ F"));
+        RewriteEngine.addParentheses(exp);
+        assertEquals("(C ⋁ D) ⋀ (E ➔ F)", exp.toString());
+    }
+
+    @Test
+    void rewrittenIsEquivalent() {
+        final Random random = new Random(15);
+
+        for (int i = 0; i < 500; i++) {
+            final String expression = RandomExpressions.expression(random, 2 + random.nextInt(10), 5);
+            final Expression exp = parse(expression);
+            final RewriteEngine engine = new RewriteEngine(Language.ENGLISH, new ArrayList<>());
+            final Expression rewritten = parse(expression);
+            engine.rewrite(rewritten);
+            assertEquivalent(exp, rewritten);
+        }
+    }
+
+    @Test
+    void rewrittenIsAtLeastAsSimplifiedAsTheLaws() {
+        final Random random = new Random(18);
+
+        for (int i = 0; i < 500; i++) {
+            final String expression = RandomExpressions.expression(random, 2 + random.nextInt(10), 5);
+            final RewriteEngine engine = new RewriteEngine(Language.ENGLISH, new ArrayList<>());
+            final Expression rewritten = simplify(parse(expression), engine::rewrite);
+            final Expression laws = simplify(parse(expression), exp -> exp.laws(new ArrayList<>(), Language.ENGLISH));
+            assertTrue(operators(rewritten) <= operators(laws), expression + ": " + rewritten + " has more operators than " + laws);
+        }
+    }
+
+    /**
+     * Simplifies the children before the parent, and moves the expressions up the tree the same way as the simplify call
+     */
+    private static Expression simplify(Expression exp, Consumer<Expression> laws) {
+        if (exp.isAtomic()) {
+            exp.doubleNegation();
+            return exp;
+        }
+        exp.setLeft(simplify(exp.getLeft(), laws));
+        exp.setRight(simplify(exp.getRight(), laws));
+        laws.accept(exp);
+        if (exp.getRight() == null) {
+            return exp.getLeft();
+        }
+        if (exp.getLeft().getLeft() != null && exp.getLeft().getRight() == null) {
+            exp.setLeft(exp.getLeft().getLeft());
+        }
+        else if (exp.getRight().getLeft() != null && exp.getRight().getRight() == null) {
+            exp.setRight(exp.getRight().getLeft());
+        }
+        return exp;
+    }
+
+    private static int operators(Expression exp) {
+        if (exp == null || exp.isAtomic()) {
+            return 0;
+        }
+        return (exp.getRight() != null ? 1 : 0) + operators(exp.getLeft()) + operators(exp.getRight());
+    }
+
+    @Test
+    void countedStepsAreTheSameAsTheRecordedSteps() {
+        final Random random = new Random(17);
+
+        for (int i = 0; i < 200; i++) {
+            final String expression = RandomExpressions.expression(random, 2 + random.nextInt(10), 5);
+            final List<OrderOperations> operations = new ArrayList<>();
+            new RewriteEngine(Language.ENGLISH, operations).rewrite(parse(expression));
+
+            final Map<String, Integer> counts = new HashMap<>();
+            new RewriteEngine(Language.ENGLISH, new StepRecorder() {
+                @Override
+                public boolean recordsExpressions() {
+                    return false;
+                }
+
+                @Override
+                public void add(@NotNull String law, @Nullable String before, @Nullable String after) {
+                    assertNull(before);
+                    assertNull(after);
+                    counts.merge(law, 1, Integer::sum);
+                }
+            }, RewriteEngine.DEFAULT_MAX_STEPS).rewrite(parse(expression));
+
+            final Map<String, Integer> expected = new HashMap<>();
+            operations.forEach(operation -> expected.merge(operation.law(), 1, Integer::sum));
+            assertEquals(expected, counts, expression);
+        }
+    }
+
+    @Test
+    void eachLawKeepsTheTruthValues() {
+        final List<Consumer<Expression>> laws = List.of(Expression::eliminationOfImplication, Expression::doubleNegation,
+                Expression::deMorgansLaws, Expression::absorptionLaw, Expression::distributiveProperty);
+        final Random random = new Random(16);
+
+        for (int i = 0; i < 2000; i++) {
+            final Expression exp = parse(RandomExpressions.expression(random, 2 + random.nextInt(6), 3));
+            for (Consumer<Expression> law : laws) {
+                assertLawKeepsTheTruthValues(exp, law);
+            }
+        }
+    }
+
+    /**
+     * Uses the law on the expression and each expression in it
+     */
+    private static void assertLawKeepsTheTruthValues(Expression exp, Consumer<Expression> law) {
+        if (exp == null || exp.isAtomic()) {
+            return;
+        }
+        final Expression changed = exp.copy();
+        law.accept(changed);
+        RewriteEngine.addParentheses(changed);
+        assertEquivalent(exp, changed);
+        assertLawKeepsTheTruthValues(exp.getLeft(), law);
+        assertLawKeepsTheTruthValues(exp.getRight(), law);
+    }
+}
@@ -0,0 +1,186 @@
+package no.martials.api.expressions;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static no.martials.api.expressions.RandomExpressions.parse;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SatSolverTest {
+
+    private static boolean isSatisfied(List<int[]> clauses, boolean[] assignment) {
+        for (int[] clause : clauses) {
+            boolean satisfied = false;
+            for (int literal : clause) {
+                satisfied |= assignment[Math.abs(literal) - 1] == literal > 0;
+            }
+            if (!satisfied) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The value of the expression in the assignment
+     */
+    private static boolean evaluate(Expression expression, Map<String, Boolean> assignment) {
+        final CompiledExpression program = CompiledExpression.compile(expression);
+        final long[] atomicValues = new long[program.getNumberOfAtomics()];
+        for (int atomic = 0; atomic < atomicValues.length; atomic++) {
+            atomicValues[atomic] = assignment.get(program.getAtomics()[atomic]) ? 1 : 0;
+        }
+        final long[] registers = new long[program.getNumberOfRegisters()];
+        program.evaluate(atomicValues, registers);
+        return (registers[program.getOutput(0)] & 1) == 1;
+    }
+
+    @Test
+    void luby() {
+        assertArrayEquals(new long[]{1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8},
+                IntStream.range(0, 15).mapToLong(SatSolver::luby).toArray());
+    }
+
+    @Test
+    void pigeonholeIsUnsatisfiable() {
+        final int holes = 5;
+        final int pigeons = holes + 1;
+        final SatSolver solver = new SatSolver(pigeons * holes);
+        for (int pigeon = 0; pigeon < pigeons; pigeon++) {
+            final int first = pigeon * holes + 1;
+            solver.addClause(IntStream.range(first, first + holes).toArray());
+        }
+        for (int hole = 0; hole < holes; hole++) {
+            for (int a = 0; a < pigeons; a++) {
+                for (int b = a + 1; b < pigeons; b++) {
+                    solver.addClause(-(a * holes + hole + 1), -(b * holes + hole + 1));
+                }
+            }
+        }
+        assertFalse(solver.solve());
+        assertTrue(solver.getConflicts() > 0);
+    }
+
+    @Test
+    void learnedClausesAreReduced() {
+        final int holes = 7;
+        final int pigeons = holes + 1;
+        final SatSolver solver = new SatSolver(pigeons * holes, SatSolver.DEFAULT_MAX_CONFLICTS, 50);
+        for (int pigeon = 0; pigeon < pigeons; pigeon++) {
+            final int first = pigeon * holes + 1;
+            solver.addClause(IntStream.range(first, first + holes).toArray());
+        }
+        for (int hole = 0; hole < holes; hole++) {
+            for (int a = 0; a < pigeons; a++) {
+                for (int b = a + 1; b < pigeons; b++) {
+                    solver.addClause(-(a * holes + hole + 1), -(b * holes + hole + 1));
+                }
+            }
+        }
+        assertFalse(solver.solve());
+        assertTrue(solver.getReductions() > 0);
+        assertTrue(solver.getNumberOfLearntClauses() < solver.getConflicts());
+    }
+
+    @Test
+    void sameResultWhenTheLearnedClausesAreReduced() {
+        final Random random = new Random(23);
+        final int variables = 80;
+        int reductions = 0;
+        for (int i = 0; i < 30; i++) {
+            final List<int[]> clauses = new ArrayList<>();
+            final SatSolver solver = new SatSolver(variables);
+            final SatSolver reduced = new SatSolver(variables, SatSolver.DEFAULT_MAX_CONFLICTS, 20);
+            // Close to the ratio of clauses to variables where random formulas are the hardest
+            for (int c = 0; c < 340; c++) {
+                final int[] clause = random.ints(3, 1, variables + 1).map(v -> random.nextBoolean() ? v : -v).toArray();
+                clauses.add(clause);
+                solver.addClause(clause);
+                reduced.addClause(clause);
+            }
+            final boolean satisfiable = solver.solve();
+            assertEquals(satisfiable, reduced.solve());
+            if (satisfiable) {
+                final boolean[] model = new boolean[variables];
+                IntStream.range(0, variables).forEach(v -> model[v] = reduced.getValue(v));
+                assertTrue(isSatisfied(clauses, model));
+            }
+            reductions += reduced.getReductions();
+        }
+        assertTrue(reductions > 0);
+    }
+
+    @Test
+    void sameResultAsAllAssignments() {
+        final Random random = new Random(22);
+        final int variables = 12;
+        for (int i = 0; i < 300; i++) {
+            final List<int[]> clauses = new ArrayList<>();
+            final SatSolver solver = new SatSolver(variables);
+            for (int c = 0; c < 51; c++) {
+                final int[] clause = random.ints(3, 1, variables + 1).map(v -> random.nextBoolean() ? v : -v).toArray();
+                clauses.add(clause);
+                solver.addClause(clause);
+            }
+            boolean satisfiable = false;
+            for (int row = 0; row < 1 << variables && !satisfiable; row++) {
+                final int r = row;
+                final boolean[] assignment = new boolean[variables];
+                IntStream.range(0, variables).forEach(v -> assignment[v] = (r >> v & 1) == 1);
+                satisfiable = isSatisfied(clauses, assignment);
+            }
+
+            assertEquals(satisfiable, solver.solve());
+            if (satisfiable) {
+                final boolean[] model = new boolean[variables];
+                IntStream.range(0, variables).forEach(v -> model[v] = solver.getValue(v));
+                assertTrue(isSatisfied(clauses, model));
+            }
+        }
+    }
+
+    @Test
+    void emptyClauseIsUnsatisfiable() {
+        final SatSolver solver = new SatSolver(1);
+        solver.addClause(1);
+        solver.addClause(-1);
+        assertFalse(solver.solve());
+        assertThrows(IllegalArgumentException.class, () -> solver.addClause(2));
+        assertThrows(IllegalArgumentException.class, () -> solver.addClause(0));
+    }
+
+    @Test
+    void satisfyingAssignmentOfExpression() {
+        assertNull(SatSolver.satisfyingAssignment(parse("a ⋀ ¬a")));
+        assertNull(SatSolver.satisfyingAssignment(parse("(a ➔ b) ⋀ a ⋀ ¬b")));
+        assertEquals(Map.of("a", true, "b", false), SatSolver.satisfyingAssignment(parse("a ⋀ ¬(a ➔ b)")));
+
+        for (String expression : List.of("a ⋁ b ➔ c", "¬(a ⋀ b) ⋀ (a ⋁ b)", "(a ➔ b) ⋀ (b ➔ c) ⋀ a")) {
+            final Expression exp = parse(expression);
+            final Map<String, Boolean> assignment = SatSolver.satisfyingAssignment(exp);
+            assertNotNull(assignment, expression);
+            assertTrue(evaluate(exp, assignment), expression);
+        }
+    }
+
+    @Test
+    void satisfyingAssignmentOfLargeExpression() {
+        // Each atomic value implies the next, the first is true and the last is false, unless the chain is broken
+        final int atomics = 60;
+        final String chain = IntStream.range(0, atomics - 1)
+                .mapToObj(i -> "(p" + i + " ➔ p" + (i + 1) + ")").collect(Collectors.joining(" ⋀ "));
+        assertNull(SatSolver.satisfyingAssignment(parse(chain + " ⋀ p0 ⋀ ¬p" + (atomics - 1))));
+
+        final Expression broken = parse(chain.replace("(p30 ➔ p31)", "(p30 ➔ ¬p31)") + " ⋀ p0 ⋀ ¬p" + (atomics - 1));
+        final Map<String, Boolean> assignment = SatSolver.satisfyingAssignment(broken);
+        assertNotNull(assignment);
+        assertEquals(atomics, assignment.size());
+        assertTrue(evaluate(broken, assignment));
+    }
+}
@@ -0,0 +1,136 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Operator;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parser that was used before {@link ExpressionParser}, it finds the center operator of each substring and
+ * parses each side recursively. Only used to test that the new parser creates the same trees.
+ */
+final class SubstringParser {
+
+    private record CenterOperator(Operator operator, int index) {
+    }
+
+    private SubstringParser() {
+    }
+
+    @NotNull
+    static Expression parse(@NotNull String stringExp, boolean caseSensitive) {
+        final Expression exp = new Expression();
+        exp.setCaseSensitive(caseSensitive);
+
+        if (isAtomic(stringExp)) {
+            while (stringExp.contains("¬")) {
+                stringExp = stringExp.replaceFirst("¬", "");
+                exp.appendLeading("¬");
+            }
+            if (stringExp.contains("(") || stringExp.contains(")")) {
+                stringExp = stringExp.replaceAll("^[()]$", "");
+            }
+            exp.setAtomic(stringExp);
+            return exp;
+        }
+
+        while (stringExp.charAt(0) == '¬' && isOuterParentheses(stringExp.substring(1))) {
+            stringExp = stringExp.substring(1);
+            exp.appendLeading("¬");
+        }
+
+        final int oldStringLen = stringExp.length();
+        stringExp = removeOuterParentheses(stringExp);
+
+        if (oldStringLen != stringExp.length()) {
+            exp.appendLeading("(");
+            exp.appendTrailing(")");
+        }
+
+        stringExp = stringExp.replaceAll(" ", "");
+        final CenterOperator center = getCenterOperatorIndex(stringExp);
+
+        exp.setLeft(parse(stringExp.substring(0, center.index()), caseSensitive));
+        exp.setOperator(center.operator());
+        exp.setRight(parse(stringExp.substring(center.index() + 1), caseSensitive));
+        return exp;
+    }
+
+    private static boolean isAtomic(@NotNull String exp) {
+        return !exp.matches("^.*[⋁⋀➔].*$");
+    }
+
+    @NotNull
+    private static CenterOperator getCenterOperatorIndex(@NotNull String stringExp) {
+        stringExp = removeOuterParentheses(stringExp);
+
+        final List<CenterOperator> operators = new ArrayList<>();
+        for (int i = 0; i < stringExp.length(); i++) {
+            int parentheses = 0;
+
+            char c = stringExp.charAt(i);
+            while (c == '(' || parentheses > 0) {
+                c = stringExp.charAt(i);
+                if (c == '(') {
+                    parentheses++;
+                }
+                else if (c == ')') {
+                    parentheses--;
+                }
+                i++;
+            }
+
+            if (i < stringExp.length()) {
+                final Operator operator = Operator.getOperator(stringExp.charAt(i));
+                if (operator != null && operator != Operator.NOT) {
+                    operators.add(new CenterOperator(operator, i));
+                }
+            }
+        }
+
+        CenterOperator op = operators.getFirst();
+        boolean allEqual = true;
+
+        for (int i = 1; i < operators.size(); i++) {
+            if (operators.get(i).operator().ordinal() != op.operator().ordinal()) {
+                allEqual = false;
+            }
+            if (operators.get(i).operator().ordinal() <= op.operator().ordinal()) {
+                op = operators.get(i);
+            }
+        }
+        return allEqual ? operators.get(operators.size() / 2) : op;
+    }
+
+    private static String removeOuterParentheses(@NotNull String stringExp) {
+        return isOuterParentheses(stringExp) ? stringExp.substring(1, stringExp.length() - 1) : stringExp;
+    }
+
+    private static boolean isOuterParentheses(@NotNull String stringExp) {
+        int operators = 0;
+        boolean is = false;
+        int index = 0;
+
+        while (stringExp.charAt(index) == Operator.NOT.getOutputOperator()) {
+            index++;
+        }
+
+        if (stringExp.charAt(index) == '(') {
+            is = true;
+        }
+        while (is && index < stringExp.length() && (stringExp.charAt(index) == '(' || operators > 0)) {
+            if (stringExp.charAt(index) == '(') {
+                operators++;
+            }
+            else if (stringExp.charAt(index) == ')') {
+                operators--;
+                if (operators == 0 && index != stringExp.length() - 1) {
+                    is = false;
+                }
+            }
+            index++;
+        }
+        return is;
+    }
+}
@@ -0,0 +1,140 @@
+package no.martials.api.expressions;
+
+import no.martials.api.utils.CpuExecutor;
+import no.martials.api.utils.ExpressionUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TruthColumnsTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 5, 6, 7, 8, 10})
+    void atomicColumnsAreDerivedFromTheRowIndex(int n) {
+        final int rows = 1 << n;
+
+        for (int atomic = 0; atomic < n; atomic++) {
+            final long[] column = TruthColumns.atomicColumn(n, atomic);
+            // Each atomic value is true in the first half of a period, that halves for each atomic value
+            final int period = rows >>> atomic;
+
+            for (int row = 0; row < rows; row++) {
+                assertEquals(row % period < period / 2, (column[row >>> 6] >>> row & 1) != 0, "atomic: " + atomic + ", row: " + row);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-1, 0})
+    void atomicColumnWithInvalidAtomics(int n) {
+        assertThrows(IllegalArgumentException.class, () -> TruthColumns.atomicColumn(n, 0));
+    }
+
+    @Test
+    void atomicColumnDoesNotSetBitsOutsideTable() {
+        final long[] column = TruthColumns.atomicColumn(2, 1);
+
+        assertEquals(1, column.length);
+        assertEquals(0b0101L, column[0]);
+    }
+
+    @Test
+    void parallelColumnsMatchSequential() {
+        final Expression[] expressions = new ExpressionUtils("A ⋀ B ➔ C ⋁ ¬D ⋀ E ⋁ F ➔ G ⋀ H ⋁ I ⋀ J ➔ K ⋁ L", false)
+                .simplify().toSetArray();
+        final TableParallelism parallel = new TableParallelism(Long.SIZE, 3);
+
+        try {
+            final TruthColumns expected = new TruthColumns(expressions, new TableParallelism(Integer.MAX_VALUE, 1));
+            final TruthColumns actual = new TruthColumns(expressions, parallel);
+
+            for (int column = 0; column < expressions.length; column++) {
+                assertArrayEquals(expected.getColumn(column), actual.getColumn(column), "column: " + column);
+            }
+        }
+        finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    void rangesUseOnlyTheFreePermits() {
+        final CpuExecutor executor = new CpuExecutor(3, CpuExecutor.DEFAULT_MAX_WAIT_MILLIS);
+        final TableParallelism parallel = new TableParallelism(Long.SIZE, executor);
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        try {
+            // The calling thread holds a permit, like a request that generates a table
+            executor.call(() -> {
+                parallel.forEach(12, range -> threads.add(Thread.currentThread()));
+                return null;
+            });
+            assertTrue(threads.size() <= 3, threads.toString());
+
+            threads.clear();
+            executor.call(() -> executor.call(() -> executor.call(() -> {
+                parallel.forEach(12, range -> threads.add(Thread.currentThread()));
+                return null;
+            })));
+            assertEquals(Set.of(Thread.currentThread()), threads);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void numberOfWords() {
+        assertEquals(1, TruthColumns.numberOfWords(2));
+        assertEquals(1, TruthColumns.numberOfWords(64));
+        assertEquals(2, TruthColumns.numberOfWords(65));
+    }
+
+    @Test
+    void evaluatesOperators() {
+        final TruthColumns columns = new TruthColumns(new ExpressionUtils("A ⋁ B ➔ ¬C", false).simplify().toSetArray());
+        final int last = columns.getNumberOfColumns() - 1;
+
+        assertEquals(3, columns.getNumberOfAtomics());
+        assertEquals(8, columns.getRows());
+
+        for (int row = 0; row < columns.getRows(); row++) {
+            final boolean a = (row & 0b100) == 0, b = (row & 0b010) == 0, c = (row & 0b001) == 0;
+            assertEquals(!(a || b) || !c, columns.get(last, row), "row: " + row);
+        }
+    }
+
+    @Test
+    void evaluatesInverseExpressions() {
+        final TruthColumns columns = new TruthColumns(new ExpressionUtils("¬(A ⋀ B)", false).simplify().toSetArray());
+        final int last = columns.getNumberOfColumns() - 1;
+
+        for (int row = 0; row < columns.getRows(); row++) {
+            final boolean a = (row & 0b10) == 0, b = (row & 0b01) == 0;
+            assertEquals(!(a && b), columns.get(last, row), "row: " + row);
+        }
+    }
+
+    @Test
+    void evaluatesMoreThan64Rows() {
+        final TruthColumns columns = new TruthColumns(new ExpressionUtils("A ⋀ B ⋀ C ⋀ D ⋀ E ⋀ F ⋀ G", false).simplify().toSetArray());
+        final long[] root = columns.getColumn(columns.getNumberOfColumns() - 1);
+
+        assertEquals(128, columns.getRows());
+        assertEquals(1L, root[0]);
+        assertEquals(0L, root[1]);
+    }
+
+    @Test
+    void getRow() {
+        final TruthColumns columns = new TruthColumns(new ExpressionUtils("A ⋀ ¬A", false).simplify().toSetArray());
+
+        assertArrayEquals(new boolean[] {true, false, false}, columns.getRow(0));
+        assertArrayEquals(new boolean[] {false, true, false}, columns.getRow(1));
+    }
+}
@@ -0,0 +1,119 @@
+package no.martials.api.expressions;
+
+import no.martials.api.enums.Hide;
+import no.martials.api.enums.Sort;
+import no.martials.api.utils.ExpressionUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TruthTableRowsTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"A", "¬A", "A ⋀ B", "A ⋁ B ➔ ¬C", "¬(A ⋀ B) ⋁ C ⋀ D ⋀ E ⋀ F ⋀ G", "A ➔ B ➔ C ➔ D ➔ E ➔ F ➔ G ➔ H ➔ I"})
+    void sameRowsAsTruthTable(String value) throws IOException {
+        final Expression[] expressions = new ExpressionUtils(value, false).simplify().toSetArray();
+
+        for (Hide hide : Hide.values()) {
+            for (Sort sort : Sort.values()) {
+                final boolean[][] expected = new TruthTable(expressions, hide, sort).getTruthMatrix();
+                final List<boolean[]> rows = new ArrayList<>();
+                new TruthTableRows(expressions, hide, sort).forEach(row -> rows.add(row.clone()));
+
+                assertArrayEquals(expected, rows.toArray(boolean[][]::new), "hide: " + hide + ", sort: " + sort);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 50, 64, 100})
+    void scanPagesGiveTheSameRows(int limit) throws IOException {
+        final Expression[] expressions = new ExpressionUtils("A ⋀ B ⋁ C ➔ D ⋀ E ⋁ ¬F ⋀ G", false).simplify().toSetArray();
+
+        for (Hide hide : Hide.values()) {
+            for (Sort sort : Sort.values()) {
+                final TruthTableRows truthTableRows = new TruthTableRows(expressions, hide, sort);
+                final List<boolean[]> expected = new ArrayList<>();
+                truthTableRows.forEach(row -> expected.add(row.clone()));
+
+                final List<boolean[]> rows = new ArrayList<>();
+                long cursor = 0;
+                while (cursor != -1) {
+                    final int before = rows.size();
+                    cursor = truthTableRows.scan(cursor, limit, row -> rows.add(row.clone()));
+                    assertTrue(rows.size() - before <= limit);
+                }
+                assertArrayEquals(expected.toArray(boolean[][]::new), rows.toArray(boolean[][]::new), "hide: " + hide + ", sort: " + sort);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"A ⋀ B ⋁ C ➔ D ⋀ E ⋁ ¬F ⋀ G", "A ⋀ B ⋀ C ⋀ D ⋀ E ⋀ F ⋀ G ⋀ H ⋀ I ⋀ J ⋀ ¬K ⋀ L ⋀ M"})
+    void hotExpressionsGiveTheSameRows(String value) throws IOException {
+        final Expression[] expressions = new ExpressionUtils(value, false).simplify().toSetArray();
+        final EvaluatorCache evaluators = new EvaluatorCache(1);
+
+        for (Hide hide : Hide.values()) {
+            for (Sort sort : Sort.values()) {
+                final TruthTableRows interpreted = new TruthTableRows(expressions, hide, sort);
+                final TruthTableRows generated = new TruthTableRows(expressions, hide, sort, evaluators);
+                final List<boolean[]> expected = new ArrayList<>();
+                final List<boolean[]> rows = new ArrayList<>();
+                interpreted.forEach(row -> expected.add(row.clone()));
+                generated.forEach(row -> rows.add(row.clone()));
+
+                assertArrayEquals(expected.toArray(boolean[][]::new), rows.toArray(boolean[][]::new), "hide: " + hide + ", sort: " + sort);
+                for (int offset : new int[] {0, 1, 64, expected.size() - 1, expected.size()}) {
+                    assertEquals(interpreted.skip(offset), generated.skip(offset), "hide: " + hide + ", sort: " + sort + ", offset: " + offset);
+                }
+            }
+        }
+    }
+
+    @Test
+    void skipFindsTheCursorOfTheRow() throws IOException {
+        final Expression[] expressions = new ExpressionUtils("A ⋀ B ⋁ C ➔ D ⋀ E ⋁ ¬F ⋀ G", false).simplify().toSetArray();
+
+        for (Hide hide : Hide.values()) {
+            for (Sort sort : Sort.values()) {
+                final TruthTableRows truthTableRows = new TruthTableRows(expressions, hide, sort);
+                final List<boolean[]> expected = new ArrayList<>();
+                truthTableRows.forEach(row -> expected.add(row.clone()));
+
+                for (int offset : new int[] {0, 1, 63, 64, 65, expected.size() - 1}) {
+                    if (offset >= expected.size()) {
+                        continue;
+                    }
+                    final List<boolean[]> rows = new ArrayList<>();
+                    truthTableRows.scan(truthTableRows.skip(offset), 1, row -> rows.add(row.clone()));
+                    assertArrayEquals(expected.get(offset), rows.getFirst(), "hide: " + hide + ", sort: " + sort + ", offset: " + offset);
+                }
+                assertEquals(-1, truthTableRows.skip(expected.size()));
+            }
+        }
+    }
+
+    @Test
+    void scanInvalidCursor() {
+        final TruthTableRows rows = new TruthTableRows(new ExpressionUtils("A ⋀ B", false).simplify().toSetArray());
+
+        assertThrows(IllegalArgumentException.class, () -> rows.scan(-1, 1, row -> {}));
+        assertThrows(IllegalArgumentException.class, () -> rows.scan(5, 1, row -> {}));
+        assertThrows(IllegalArgumentException.class, () -> rows.skip(-1));
+    }
+
+    @Test
+    void getRows() {
+        final TruthTableRows rows = new TruthTableRows(new ExpressionUtils("A ⋀ B ⋀ C", false).simplify().toSetArray());
+
+        assertEquals(8, rows.getRows());
+        assertEquals(5, rows.getNumberOfColumns());
+    }
+}
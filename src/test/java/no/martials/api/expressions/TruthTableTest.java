@@ -1,5 +1,7 @@
 package no.martials.api.expressions;
 
+import no.martials.api.enums.Hide;
+import no.martials.api.enums.Sort;
 import no.martials.api.utils.ExpressionUtils;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -18,49 +20,101 @@ class TruthTableTest {
         table = new TruthTable(new ExpressionUtils("A ⋁ B ➔ ¬C", false).simplify().toSetArray());
     }
 
-    @Test
-    void helperMatrixEqualLengthRows() {
-        boolean[][] matrix = TruthTable.helperMatrix(3);
-
-        for (boolean[] row : matrix) {
-            assertEquals(matrix[0].length, row.length, "Row length is not equal");
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10})
+    void createWithIncrementingAtomics(int n) {
+        final StringBuilder expression = new StringBuilder("A0");
+        for (int atomic = 1; atomic < n; atomic++) {
+            expression.append(" ⋀ A").append(atomic);
+        }
+        final Expression[] expressions = new ExpressionUtils(expression.toString(), false).simplify().toSetArray();
+        final boolean[][] matrix = new TruthTable(expressions).getTruthMatrix();
+
+        assertEquals(1 << n, matrix.length);
+        for (int column = 0, atomic = 0; column < expressions.length; column++) {
+            if (!expressions[column].isAtomic()) {
+                continue;
+            }
+            for (int row = 0; row < matrix.length; row++) {
+                // The first atomic value changes the least often, and all atomic values start as true
+                assertEquals((row >>> (n - 1 - atomic) & 1) == 0, matrix[row][column], "row: " + row + ", atomic: " + atomic);
+            }
+            atomic++;
         }
     }
 
-    @ParameterizedTest
-    @ValueSource(ints = {-1, 0})
-    void helperMatrixWithInvalidAtomics(int n) {
-        assertThrows(IllegalArgumentException.class, () -> TruthTable.helperMatrix(n));
+    @Test
+    void create() {
+        final boolean[][] matrix = table.getTruthMatrix();
+
+        assertEquals(8, matrix.length);
+        assertArrayEquals(new boolean[] {true, true, true, true, false, false}, matrix[0]);
+        assertArrayEquals(new boolean[] {false, false, false, false, true, true}, matrix[7]);
     }
 
     @Test
-    void helperMatrixWithOneAtomic() {
-        boolean[][] matrix = TruthTable.helperMatrix(1);
+    void createHideTrue() {
+        final TruthTable hidden = new TruthTable(new ExpressionUtils("A ⋀ B", false).simplify().toSetArray(), Hide.TRUE, Sort.DEFAULT);
 
-        assertEquals(1, matrix.length);
-        assertEquals(2, matrix[0].length);
+        assertEquals(3, hidden.getTruthMatrix().length);
+        for (boolean[] row : hidden.getTruthMatrix()) {
+            assertFalse(row[row.length - 1]);
+        }
     }
 
     @Test
-    void helperMatrixWithThreeAtomics() {
-        boolean[][] matrix = TruthTable.helperMatrix(3);
-
-        assertEquals(3, matrix.length);
-        assertEquals(8, matrix[0].length);
+    void createSortTrueFirst() {
+        final TruthTable sorted = new TruthTable(new ExpressionUtils("A ➔ B", false).simplify().toSetArray(), Hide.NONE, Sort.TRUE_FIRST);
+        final boolean[][] matrix = sorted.getTruthMatrix();
+
+        assertArrayEquals(new boolean[] {true, true, true}, matrix[0]);
+        assertArrayEquals(new boolean[] {false, true, true}, matrix[1]);
+        assertArrayEquals(new boolean[] {false, false, true}, matrix[2]);
+        assertArrayEquals(new boolean[] {true, false, false}, matrix[3]);
     }
 
-    @ParameterizedTest
-    @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10})
-    void helperMatrixWithIncrementingAtomics(int n) {
-        boolean[][] matrix = TruthTable.helperMatrix(n);
+    @Test
+    void createSortFalseFirstIsStable() {
+        final TruthTable unsorted = new TruthTable(new ExpressionUtils("A ⋀ B ⋀ C", false).simplify().toSetArray());
+        final TruthTable sorted = new TruthTable(new ExpressionUtils("A ⋀ B ⋀ C", false).simplify().toSetArray(), Hide.NONE, Sort.FALSE_FIRST);
 
-        assertEquals(n, matrix.length);
-        assertEquals((int) Math.pow(2, n), matrix[0].length);
+        for (int row = 0; row < 7; row++) {
+            assertArrayEquals(unsorted.getTruthMatrix()[row + 1], sorted.getTruthMatrix()[row]);
+        }
+        assertArrayEquals(unsorted.getTruthMatrix()[0], sorted.getTruthMatrix()[7]);
     }
 
     @Test
-    void create() {
-//        fail(); // TODO
+    void createSortAndHideLargeTable() {
+        final String expression = "A ⋁ B ⋁ C ⋁ D ⋁ E ⋁ F ⋁ G ⋁ H ⋁ I ⋁ J ⋁ K ⋁ L ⋁ M ⋁ N ⋁ O";
+        final TruthTable sorted = new TruthTable(new ExpressionUtils(expression, false).simplify().toSetArray(true), Hide.NONE, Sort.FALSE_FIRST);
+        final TruthTable hidden = new TruthTable(new ExpressionUtils(expression, false).simplify().toSetArray(true), Hide.TRUE, Sort.TRUE_FIRST);
+
+        assertEquals(1 << 15, sorted.getTruthMatrix().length);
+        assertFalse(sorted.getTruthMatrix()[0][15]);
+        assertTrue(sorted.getTruthMatrix()[1][15]);
+        assertEquals(1, hidden.getTruthMatrix().length);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"A ⋁ B ⋀ C ➔ D ⋁ E ⋀ ¬F ⋁ G ⋀ H ➔ I ⋀ J ⋁ K ⋀ L", "A ⋀ B ⋀ C ⋀ D ⋀ E ⋀ F ⋀ G ⋀ H ⋀ I ⋀ J ⋀ K ⋀ L ⋀ M"})
+    void createParallelMatchesSequential(String expression) {
+        final Expression[] expressions = new ExpressionUtils(expression, false).simplify().toSetArray(true);
+        final TableParallelism parallel = new TableParallelism(Long.SIZE, 4);
+
+        try {
+            for (Hide hide : Hide.values()) {
+                for (Sort sort : Sort.values()) {
+                    final boolean[][] expected = new TruthTable(expressions, hide, sort, TableParallelism.SEQUENTIAL).getTruthMatrix();
+                    final boolean[][] actual = new TruthTable(expressions, hide, sort, parallel).getTruthMatrix();
+
+                    assertArrayEquals(expected, actual, "hide: " + hide + ", sort: " + sort);
+                }
+            }
+        }
+        finally {
+            parallel.shutdown();
+        }
     }
 
     @Test
@@ -0,0 +1,80 @@
+package no.martials.api.utils;
+
+import no.martials.api.enums.BatchOrder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchExecutorTest {
+
+    private final CpuExecutor cpuExecutor = new CpuExecutor(4, 1000);
+    private final BatchExecutor executor = new BatchExecutor(cpuExecutor);
+
+    @AfterEach
+    void tearDown() {
+        cpuExecutor.shutdown();
+    }
+
+    /**
+     * Later items are faster, so they are done before the earlier items
+     */
+    private static int slowFirst(int index) {
+        LockSupport.parkNanos((20 - index % 20) * 100_000L);
+        return index;
+    }
+
+    @Test
+    void inputOrderIsKept() throws IOException {
+        final List<Integer> results = new ArrayList<>();
+        final AtomicInteger flushes = new AtomicInteger();
+        executor.forEach(100, BatchExecutorTest::slowFirst, BatchOrder.INPUT, flushes::incrementAndGet, results::add);
+
+        assertEquals(100, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i));
+        }
+        assertTrue(flushes.get() > 0);
+    }
+
+    @Test
+    void completionOrderVisitsEachResultOnce() throws IOException {
+        final List<Integer> results = new ArrayList<>();
+        executor.forEach(100, BatchExecutorTest::slowFirst, BatchOrder.COMPLETION, () -> {
+        }, results::add);
+
+        assertEquals(100, results.size());
+        assertArrayEquals(IntStream.range(0, 100).toArray(),
+                results.stream().mapToInt(Integer::intValue).sorted().toArray());
+    }
+
+    @Test
+    void windowLimitsSubmittedItems() throws IOException {
+        final AtomicInteger started = new AtomicInteger();
+        final AtomicInteger visited = new AtomicInteger();
+        executor.forEach(1000, index -> started.incrementAndGet(), BatchOrder.INPUT, () -> {
+        }, result -> {
+            // An item is only submitted when there is room in the window
+            assertTrue(result <= visited.incrementAndGet() + executor.getWindow());
+        });
+        assertEquals(1000, started.get());
+    }
+
+    @Test
+    void failingVisitorStopsTheBatch() {
+        final AtomicInteger started = new AtomicInteger();
+        assertThrows(IOException.class, () -> executor.forEach(1000, index -> started.incrementAndGet(),
+                BatchOrder.COMPLETION, () -> {
+                }, result -> {
+                    throw new IOException("Closed");
+                }));
+        assertTrue(started.get() <= executor.getWindow());
+    }
+}
@@ -0,0 +1,139 @@
+package no.martials.api.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CpuExecutorTest {
+
+    private final CpuExecutor executor = new CpuExecutor(2, 50);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void callRunsOnCallingThread() {
+        assertSame(Thread.currentThread(), executor.call(Thread::currentThread));
+        assertEquals(2, executor.getAvailablePermits());
+    }
+
+    @Test
+    void callFromVirtualThreadRunsOnPlatformThread() throws InterruptedException {
+        final Thread[] thread = new Thread[1];
+        final IllegalStateException exception = new IllegalStateException("Too big");
+        final Throwable[] thrown = new Throwable[1];
+        Thread.ofVirtual().start(() -> {
+            thread[0] = executor.call(Thread::currentThread);
+            try {
+                executor.call(() -> {
+                    throw exception;
+                });
+            }
+            catch (IllegalStateException e) {
+                thrown[0] = e;
+            }
+        }).join();
+
+        assertTrue(thread[0].getName().startsWith("cpu-"));
+        assertFalse(thread[0].isVirtual());
+        assertSame(exception, thrown[0]);
+        assertEquals(2, executor.getAvailablePermits());
+    }
+
+    @Test
+    void executeRunsOnPlatformThread() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        final Thread[] thread = new Thread[1];
+        executor.execute(() -> {
+            thread[0] = Thread.currentThread();
+            done.countDown();
+        });
+        done.await();
+
+        assertTrue(thread[0].getName().startsWith("cpu-"));
+        assertFalse(thread[0].isVirtual());
+    }
+
+    @Test
+    void tryExecuteOnlyRunsWhenAPermitIsFree() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        final boolean executed = executor.call(() -> executor.tryExecute(done::countDown));
+        assertTrue(executed);
+        done.await();
+
+        assertFalse(executor.call(() -> executor.call(() -> executor.tryExecute(() -> fail("No permit was free")))));
+        assertEquals(2, executor.getAvailablePermits());
+    }
+
+    @Test
+    void exceptionOfTheTaskIsThrown() {
+        final IllegalStateException exception = new IllegalStateException("Too big");
+        assertSame(exception, assertThrows(IllegalStateException.class, () -> executor.call(() -> {
+            throw exception;
+        })));
+        assertEquals(2, executor.getAvailablePermits());
+    }
+
+    @Test
+    void runningWorkIsBounded() throws InterruptedException {
+        final CpuExecutor waiting = new CpuExecutor(2, 10_000);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            callers.add(Thread.ofVirtual().start(() -> waiting.call(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return running.decrementAndGet();
+            })));
+        }
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        waiting.shutdown();
+
+        assertEquals(2, maxRunning.get());
+        assertEquals(2, waiting.getAvailablePermits());
+    }
+
+    @Test
+    void busyExecutorRejectsAfterMaxWait() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            callers.add(Thread.ofVirtual().start(() -> executor.call(() -> {
+                started.countDown();
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    return false;
+                }
+            })));
+        }
+        started.await();
+
+        assertThrows(RejectedExecutionException.class, () -> executor.call(() -> 1));
+        release.countDown();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        assertEquals(1, executor.call(() -> 1));
+    }
+}
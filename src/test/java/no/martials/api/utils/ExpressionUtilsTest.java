@@ -1,5 +1,6 @@
 package no.martials.api.utils;
 
+import no.martials.api.enums.Steps;
 import no.martials.api.exceptions.ExpressionInvalidException;
 import no.martials.api.exceptions.MissingCharacterException;
 import no.martials.api.exceptions.TooBigExpressionException;
@@ -54,12 +55,48 @@ public class ExpressionUtilsTest {
         assertThrows(MissingCharacterException.class, eu::isValid);
     }
 
+    @Test
+    void simplifyKeepsInnerNegationTest() {
+        eu.setSimplify(false);
+        assertEquals("¬(¬A ⋀ B)", eu.simplify("¬(¬A⋀B)").toString());
+    }
+
+    @Test
+    void simplifyDoesNotSwapImplicationTest() {
+        eu.setSimplify(false);
+        assertEquals("B ➔ A", eu.simplify("B➔A").toString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"¬(A➔B)⋁¬(C➔D)", "A⋀B⋁A⋀C", "¬(¬A⋁¬B)⋀(C➔A)", "¬¬(A⋁B)⋀A"})
+    void simplifyWithoutStepsTest(String value) {
+        final ExpressionUtils full = new ExpressionUtils(value);
+        final String expected = full.simplify().toString();
+
+        eu.setExpression(value);
+        eu.setSteps(Steps.NONE);
+        assertEquals(expected, eu.simplify().toString());
+        assertTrue(eu.getOperations().isEmpty());
+
+        final ExpressionUtils summary = new ExpressionUtils(value);
+        summary.setSteps(Steps.SUMMARY);
+        assertEquals(expected, summary.simplify().toString());
+        assertEquals(full.getOperations().size(), summary.getLawCounts().values().stream().mapToInt(Integer::intValue).sum());
+    }
+
     @Test
     void throwsTooBigExceptionTest() {
         eu.setExpression("A⋀B⋀C⋀D⋀E⋀F⋀G⋀H⋀I⋀J⋀K⋀L⋀M⋀N⋀O⋀P");
         assertThrows(TooBigExpressionException.class, eu::isValid);
     }
 
+    @Test
+    void notTooBigTableExpressionTest() {
+        eu.setExpression("A⋀B⋀C⋀D⋀E⋀F⋀G⋀H⋀I⋀J⋀K⋀L⋀M⋀N⋀O⋀P");
+        eu.setMaxExpressionSize(ExpressionUtils.MAX_TABLE_EXPRESSION_SIZE);
+        assertDoesNotThrow(() -> eu.isValid());
+    }
+
     @Test
     void notTooBigExpressionTest() {
         eu.setExpression("A⋀B⋀C⋀D⋀E⋀F⋀G⋀H⋀I⋀J");
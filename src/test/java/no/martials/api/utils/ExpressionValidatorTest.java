@@ -0,0 +1,76 @@
+package no.martials.api.utils;
+
+import no.martials.api.enums.Language;
+import no.martials.api.exceptions.ExpressionInvalidException;
+import no.martials.api.exceptions.MissingCharacterException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressionValidatorTest {
+
+    private static final String ALPHABET = "Ab1_=<>- ()⋀⋁➔¬&|!#";
+
+    private static Class<?> outcome(Runnable validator) {
+        try {
+            validator.run();
+            return null;
+        }
+        catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    private static void assertSameDecision(String expression) {
+        assertEquals(outcome(() -> RegexValidator.validate(expression, Language.ENGLISH, 4)),
+                outcome(() -> ExpressionValidator.validate(expression, Language.ENGLISH, 4)), "'" + expression + "'");
+    }
+
+    @Test
+    void sameDecisionsAsRegexOnShortStrings() {
+        final int size = ALPHABET.length();
+        for (int length = 0; length <= 4; length++) {
+            final int combinations = (int) Math.pow(size, length);
+            final char[] chars = new char[length];
+            for (int combination = 0; combination < combinations; combination++) {
+                int rest = combination;
+                for (int i = 0; i < length; i++) {
+                    chars[i] = ALPHABET.charAt(rest % size);
+                    rest /= size;
+                }
+                assertSameDecision(new String(chars));
+            }
+        }
+    }
+
+    @Test
+    void sameDecisionsAsRegexOnLongStrings() {
+        final Random random = new Random(20);
+        final String[] parts = {"A", "b", "ab", "1", " ", "  ", "(", ")", "⋀", "⋁", "➔", "¬", "&", "|", "!", "->", "-", ">", "_", "="};
+        for (int i = 0; i < 100_000; i++) {
+            final StringBuilder builder = new StringBuilder();
+            final int length = 1 + random.nextInt(12);
+            for (int part = 0; part < length; part++) {
+                builder.append(parts[random.nextInt(parts.length)]);
+            }
+            assertSameDecision(builder.toString());
+        }
+    }
+
+    @Test
+    void errorIsAtTheInvalidCharacter() {
+        final ExpressionInvalidException invalid = assertThrows(ExpressionInvalidException.class,
+                () -> ExpressionValidator.validate("A ⋀ B C", Language.ENGLISH, 15));
+        assertEquals("Illegal character(s) 'C', at index 6", invalid.getMessage());
+
+        final ExpressionInvalidException last = assertThrows(ExpressionInvalidException.class,
+                () -> ExpressionValidator.validate("A -> ", Language.ENGLISH, 15));
+        assertEquals("Illegal character(s) '->', at index 2", last.getMessage());
+
+        final MissingCharacterException missing = assertThrows(MissingCharacterException.class,
+                () -> ExpressionValidator.validate("A ⋀ B) ⋁ (C", Language.ENGLISH, 15));
+        assertEquals("Missing character '(',  at index 5", missing.getMessage());
+    }
+}
@@ -0,0 +1,67 @@
+package no.martials.api.utils;
+
+import no.martials.api.enums.Language;
+import no.martials.api.enums.Operator;
+import no.martials.api.exceptions.ExpressionInvalidException;
+import no.martials.api.exceptions.MissingCharacterException;
+import no.martials.api.exceptions.TooBigExpressionException;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.EmptyStackException;
+import java.util.Stack;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The validator that was used before {@link ExpressionValidator}, a regular expression followed by a stack of
+ * parentheses. Only used to test that the new validator makes the same decisions.
+ */
+final class RegexValidator {
+
+    private static final Pattern PATTERN = Pattern.compile("([^0-9()⋁⋀➔¬&|!\\-<> _=a-zA-ZæøåÆØÅ])|" +
+            "(\\) *\\()|(\\( *\\))|(([⋀⋁¬&|!\\-]|->) *([⋀⋁➔&|\\-]))|" +
+            "(^ *([⋀⋁➔&|]|->))|(([⋀⋁➔¬&|!]|->) *$)|" +
+            "(([a-zA-ZæøåÆØÅ]|([^-]>))( *\\(| *[¬!]| +([a-zA-ZæøåÆØÅ=_>]|-[^>])))|" +
+            "((-{2}>)|([!¬][)>]))|( +> +)|->>");
+
+    private RegexValidator() {
+    }
+
+    static void validate(@NotNull String expression, @NotNull Language language, int maxExpressionSize) {
+        final Matcher matcher = PATTERN.matcher(expression);
+        final String spaceLess = expression.replaceAll(" ", "");
+
+        if (matcher.find()) {
+            throw new ExpressionInvalidException(language, matcher.group(), matcher.start());
+        }
+        else if (expression.isEmpty()) {
+            throw new MissingCharacterException(language, 'A', 0);
+        }
+
+        final Stack<Character> brackets = new Stack<>();
+        int numberOfOperators = 0;
+
+        for (int i = 0; i < spaceLess.length(); i++) {
+            final char charAtI = spaceLess.charAt(i);
+
+            if (Operator.isOperator(charAtI) && charAtI != Operator.NOT.getOutputOperator() && ++numberOfOperators > maxExpressionSize - 1) {
+                throw new TooBigExpressionException(language, maxExpressionSize);
+            }
+
+            if (charAtI == '(') {
+                brackets.push(charAtI);
+            }
+            else if (charAtI == ')') {
+                try {
+                    brackets.pop();
+                }
+                catch (EmptyStackException e) {
+                    throw new MissingCharacterException(language, '(', i);
+                }
+            }
+        }
+        if (!brackets.isEmpty()) {
+            throw new MissingCharacterException(language, ')', expression.length());
+        }
+    }
+}